@@ -0,0 +1,219 @@
+package com.example.springboot_social_media.cluster;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes cache invalidations to the other replicas over Postgres NOTIFY on {@code app.cluster.channel}.
+ * <p>
+ * A message is the sending node's id, the send time in epoch millis, and space-separated tokens:
+ * {@code post:12}, {@code comment:5} and {@code reply:9} evict one cached entity, {@code posts:*},
+ * {@code comments:*} and {@code replies:*} a whole region, and {@code like:post:42:+3:1700000000000} adjusts a hot
+ * like counter by the deltas committed up to that time.
+ * <p>
+ * Content tokens are collected per transaction and sent with pg_notify just before it commits. Postgres only
+ * delivers them if the commit succeeds, and one transaction never sends more than one message per 8 kB of
+ * tokens. Like deltas are different. Every like commits on its own, and NOTIFY serializes committing
+ * transactions on a global lock. So deltas are summed per key across the node once their transaction has
+ * committed, and flushed every {@code app.cluster.like-flush-interval}. The token carries the latest commit
+ * time in the sum, so a receiver that reloaded the count after it skips the delta instead of counting it twice.
+ * <p>
+ * {@link InvalidationListener} applies the messages on the receiving side.
+ */
+@Slf4j
+@Component
+public class InvalidationBus {
+
+    // NOTIFY payloads must stay below 8000 bytes
+    static final int MAX_PAYLOAD = 7900;
+
+    final JdbcTemplate jdbcTemplate;
+
+    final TransactionTemplate transactionTemplate;
+
+    final String channel;
+
+    final boolean enabled;
+
+    final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final ConcurrentHashMap<String, LikeDelta> pendingLikeDeltas = new ConcurrentHashMap<>();
+
+    private final Counter published;
+
+    public InvalidationBus(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.cluster.channel:cache_invalidation}") String channel,
+                           @Value("${app.cluster.enabled:true}") boolean enabled) {
+        if (!channel.matches("[a-z_]+")) {
+            throw new IllegalArgumentException("app.cluster.channel must be a plain lower-case identifier");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.channel = channel;
+        this.enabled = enabled;
+        this.published = Counter.builder("cluster.invalidations.published").register(meterRegistry);
+    }
+
+    public void post(Long id) {
+        add("post:" + id);
+    }
+
+    public void comment(Long id) {
+        add("comment:" + id);
+    }
+
+    public void reply(Long id) {
+        add("reply:" + id);
+    }
+
+    // For writes that reach rows the entity cache cannot name, such as a cascading delete or an import
+    public void allPosts() {
+        add("posts:*");
+    }
+
+    public void allComments() {
+        add("comments:*");
+    }
+
+    public void allReplies() {
+        add("replies:*");
+    }
+
+    /**
+     * Records a change to the like count of a hot-key item ({@code post:42}), sent once the current
+     * transaction has committed.
+     */
+    public void likeDelta(String key, long delta) {
+        if (!enabled) {
+            return;
+        }
+        Batch batch = currentBatch();
+        if (batch == null) {
+            pendingLikeDeltas.merge(key, new LikeDelta(delta, System.currentTimeMillis()), LikeDelta::plus);
+        } else {
+            batch.likeDeltas.merge(key, delta, Long::sum);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.like-flush-interval:PT0.2S}")
+    public void flushLikeDeltas() {
+        if (pendingLikeDeltas.isEmpty()) {
+            return;
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String key : List.copyOf(pendingLikeDeltas.keySet())) {
+            LikeDelta delta = pendingLikeDeltas.remove(key);
+            if (delta != null && delta.delta() != 0) {
+                tokens.add("like:" + key + ":" + (delta.delta() > 0 ? "+" : "") + delta.delta() + ":"
+                        + delta.committedAt());
+            }
+        }
+        if (!tokens.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> send(tokens));
+            } catch (RuntimeException e) {
+                // Hot counters re-read the database on their next merge anyway
+                log.warn("Publishing {} like deltas failed", tokens.size(), e);
+            }
+        }
+    }
+
+    private void add(String token) {
+        if (!enabled) {
+            return;
+        }
+        Batch batch = currentBatch();
+        if (batch == null) {
+            send(List.of(token));
+        } else {
+            batch.tokens.add(token);
+        }
+    }
+
+    // Bound to the transaction as a resource, so every service call in it shares one batch
+    private Batch currentBatch() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Batch batch = (Batch) TransactionSynchronizationManager.getResource(this);
+        if (batch == null) {
+            batch = new Batch();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(batch);
+        }
+        return batch;
+    }
+
+    private void send(Collection<String> tokens) {
+        String header = nodeId + " " + System.currentTimeMillis();
+        StringBuilder payload = new StringBuilder(header);
+        for (String token : tokens) {
+            if (payload.length() + 1 + token.length() > MAX_PAYLOAD) {
+                notify(payload.toString());
+                payload = new StringBuilder(header);
+            }
+            payload.append(' ').append(token);
+        }
+        if (payload.length() > header.length()) {
+            notify(payload.toString());
+        }
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, payload);
+        published.increment();
+    }
+
+    private final class Batch implements TransactionSynchronization {
+        final Set<String> tokens = new LinkedHashSet<>();
+        final Map<String, Long> likeDeltas = new HashMap<>();
+
+        // Still inside the transaction, so the notification is discarded if the commit fails
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!tokens.isEmpty()) {
+                send(tokens);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            long committedAt = System.currentTimeMillis();
+            likeDeltas.forEach((key, delta) ->
+                    pendingLikeDeltas.merge(key, new LikeDelta(delta, committedAt), LikeDelta::plus));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(InvalidationBus.this);
+        }
+    }
+
+    // A summed delta straddling a receiver's reload is still added whole, and corrected by its next merge
+    private record LikeDelta(long delta, long committedAt) {
+
+        LikeDelta plus(LikeDelta other) {
+            return new LikeDelta(delta + other.delta, Math.max(committedAt, other.committedAt));
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.springboot_social_media.cluster;
+
+import com.example.springboot_social_media.entity.Comment;
+import com.example.springboot_social_media.entity.Post;
+import com.example.springboot_social_media.entity.Reply;
+import com.example.springboot_social_media.hotkey.HotCounter;
+import com.example.springboot_social_media.hotkey.HotKeyTracker;
+import com.example.springboot_social_media.sharding.ShardingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the invalidations published by {@link InvalidationBus} on the other replicas.
+ * <p>
+ * A dedicated thread holds its own connection outside the Hikari pool, LISTENs on the channel and waits for
+ * notifications, so messages are applied as soon as the sending transaction commits. Messages from this node
+ * are skipped, because Hibernate has already evicted locally. If the connection drops, messages sent in the
+ * meantime are lost. So after a reconnect every region and the query cache are cleared before listening again.
+ * <p>
+ * A transaction notifies on the database it writes to, so with sharding enabled there is one listening thread
+ * per shard.
+ */
+@Slf4j
+@Component
+public class InvalidationListener implements SmartLifecycle {
+
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(2);
+
+    final InvalidationBus bus;
+
+    final EntityManagerFactory entityManagerFactory;
+
+    final HotKeyTracker likeHotKeys;
+
+    final List<Target> targets;
+
+    final int pollMillis;
+
+    private final Counter received;
+
+    private final Timer lag;
+
+    private volatile boolean running;
+
+    private final List<ShardListener> listeners = new ArrayList<>();
+
+    public InvalidationListener(InvalidationBus bus,
+                                EntityManagerFactory entityManagerFactory,
+                                HotKeyTracker likeHotKeys,
+                                ShardingProperties shardingProperties,
+                                ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.cluster.poll-timeout:PT1S}") Duration pollTimeout) {
+        this.bus = bus;
+        this.entityManagerFactory = entityManagerFactory;
+        this.likeHotKeys = likeHotKeys;
+        this.targets = shardingProperties.isEnabled()
+                ? shardingProperties.getShards().stream()
+                        .map(shard -> new Target(shard.getUrl(), shard.getUsername(), shard.getPassword()))
+                        .toList()
+                : List.of(new Target(connectionDetails.getObject().getJdbcUrl(),
+                        connectionDetails.getObject().getUsername(), connectionDetails.getObject().getPassword()));
+        this.pollMillis = (int) pollTimeout.toMillis();
+        this.received = Counter.builder("cluster.invalidations.received").register(meterRegistry);
+        this.lag = Timer.builder("cluster.invalidations.lag")
+                .description("Time from publishing on another node to applying here, subject to clock skew")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!bus.enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < targets.size(); i++) {
+            ShardListener listener = new ShardListener(targets.get(i));
+            listener.thread = Thread.ofPlatform().name("invalidation-listener-" + i).daemon().start(listener::listen);
+            listeners.add(listener);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (ShardListener listener : listeners) {
+            listener.thread.interrupt();
+            closeQuietly(listener.connection);
+        }
+        listeners.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private final class ShardListener {
+
+        final Target target;
+
+        volatile Connection connection;
+
+        Thread thread;
+
+        ShardListener(Target target) {
+            this.target = target;
+        }
+
+        void listen() {
+            boolean reconnect = false;
+            while (running) {
+                try (Connection listening = DriverManager.getConnection(target.url(),
+                        target.username(), target.password())) {
+                    connection = listening;
+                    try (Statement statement = listening.createStatement()) {
+                        statement.execute("LISTEN " + bus.channel);
+                    }
+                    if (reconnect) {
+                        evictEverything();
+                        log.info("Invalidation listener for {} reconnected, cleared local caches", target.url());
+                    }
+                    PGConnection pg = listening.unwrap(PGConnection.class);
+                    while (running) {
+                        PGNotification[] notifications = pg.getNotifications(pollMillis);
+                        if (notifications != null) {
+                            for (PGNotification notification : notifications) {
+                                apply(notification.getParameter());
+                            }
+                        }
+                    }
+                } catch (SQLException e) {
+                    if (!running) {
+                        return;
+                    }
+                    log.warn("Invalidation listener for {} lost its connection, retrying in {}", target.url(),
+                            RECONNECT_DELAY, e);
+                    reconnect = true;
+                    try {
+                        Thread.sleep(RECONNECT_DELAY);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    void apply(String payload) {
+        String[] parts = payload.split(" ");
+        if (parts.length < 3 || parts[0].equals(bus.nodeId)) {
+            return;
+        }
+        received.increment();
+        lag.record(Math.max(0, System.currentTimeMillis() - Long.parseLong(parts[1])), TimeUnit.MILLISECONDS);
+
+        Cache cache = entityManagerFactory.getCache();
+        boolean contentChanged = false;
+        for (int i = 2; i < parts.length; i++) {
+            String[] token = parts[i].split(":");
+            try {
+                switch (token[0]) {
+                    case "post" -> cache.evict(Post.class, Long.parseLong(token[1]));
+                    case "comment" -> cache.evict(Comment.class, Long.parseLong(token[1]));
+                    case "reply" -> cache.evict(Reply.class, Long.parseLong(token[1]));
+                    case "posts" -> cache.evict(Post.class);
+                    case "comments" -> cache.evict(Comment.class);
+                    case "replies" -> cache.evict(Reply.class);
+                    case "like" -> {
+                        HotCounter counter = likeHotKeys.peek(token[1] + ":" + token[2]);
+                        if (counter != null) {
+                            counter.add(Long.parseLong(token[3]),
+                                    token.length > 4 ? Long.parseLong(token[4]) : System.currentTimeMillis());
+                        }
+                        continue;
+                    }
+                    default -> {
+                        log.warn("Ignoring unknown invalidation token {}", parts[i]);
+                        continue;
+                    }
+                }
+                contentChanged = true;
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed invalidation token {}", parts[i], e);
+            }
+        }
+        // Cached query results carry no ids, and their timestamps only track local writes
+        if (contentChanged) {
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        }
+    }
+
+    private void evictEverything() {
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    record Target(String url, String username, String password) {
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // Already broken, the listener thread is exiting anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.springboot_social_media.config;
+
+import com.example.springboot_social_media.jfr.ContinuousRecording;
+import com.example.springboot_social_media.jfr.FlightRecorderEndpoint;
+import com.example.springboot_social_media.jfr.FlightRecorderProperties;
+import com.example.springboot_social_media.jfr.RecordingDataSource;
+import com.example.springboot_social_media.jfr.RequestEventInterceptor;
+import com.example.springboot_social_media.jfr.ServiceCallInterceptor;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ReplyService;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+/**
+ * Custom JFR events for controller requests, content service calls and JDBC statements, and the actuator
+ * endpoint that manages recordings. See the jfr package.
+ */
+@Configuration
+@EnableConfigurationProperties(FlightRecorderProperties.class)
+@ConditionalOnProperty(prefix = "app.flight-recorder", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class FlightRecorderConfig {
+
+    // The parameter each service names the post id by
+    private static final Map<Class<?>, String> POST_ID_PARAMETERS = Map.of(
+            PostService.class, "id",
+            CommentService.class, "postId",
+            ReplyService.class, "postId",
+            LikeService.class, "postId");
+
+    /**
+     * Picked up by the infrastructure auto-proxy creator that also applies @Transactional. Ordered first so
+     * a service call event includes the commit.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceCallEventAdvisor() {
+        ComposablePointcut pointcut = new ComposablePointcut(POST_ID_PARAMETERS::containsKey, new StaticMethodMatcher() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return Modifier.isPublic(method.getModifiers()) && POST_ID_PARAMETERS.containsKey(method.getDeclaringClass());
+            }
+        });
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new ServiceCallInterceptor(POST_ID_PARAMETERS));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    @Bean
+    public static BeanPostProcessor recordingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)
+                        ? new RecordingDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer requestEventWebConfigurer() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new RequestEventInterceptor()).addPathPatterns("/api/**");
+            }
+        };
+    }
+
+    @Bean
+    public FlightRecorderEndpoint flightRecorderEndpoint(FlightRecorderProperties properties) {
+        return new FlightRecorderEndpoint(properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.flight-recorder", name = "continuous", havingValue = "true", matchIfMissing = true)
+    public ContinuousRecording continuousRecording(FlightRecorderProperties properties) {
+        return new ContinuousRecording(properties);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.springboot_social_media.config;
+
+import graphql.GraphQLError;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.schema.GraphQLTypeUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.DataFetcherExceptionResolver;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.execution.ErrorType;
+
+/**
+ * Limits that keep a single GraphQL request from turning into an unbounded amount of SQL. Both are checked
+ * before any resolver runs.
+ */
+@Configuration
+public class GraphQlConfig {
+
+    // Reply chains are the only recursion in the schema, so this mostly caps childReplies nesting
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(@Value("${app.graphql.max-depth:10}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    /**
+     * A scalar costs 1. A list field costs its children times the number of items it may return, which is the
+     * cap the resolvers apply in SQL: {@code first} (or its schema default) where the field takes it,
+     * {@code app.graphql.likes-per-item} for {@code likes}, and {@code app.graphql.assumed-list-size} otherwise.
+     */
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${app.graphql.max-complexity:10000}") int maxComplexity,
+            @Value("${app.graphql.assumed-list-size:10}") int assumedListSize,
+            @Value("${app.graphql.likes-per-item:20}") int likesPerItem) {
+        FieldComplexityCalculator calculator = (environment, childComplexity) -> {
+            if (!GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType()))) {
+                return 1 + childComplexity;
+            }
+            Object first = environment.getArguments().get("first");
+            int size = first instanceof Integer requested ? requested
+                    : environment.getFieldDefinition().getName().equals("likes") ? likesPerItem : assumedListSize;
+            return 1 + size * Math.max(1, childComplexity);
+        };
+        return new MaxQueryComplexityInstrumentation(maxComplexity, calculator);
+    }
+
+    @Bean
+    public DataFetcherExceptionResolver badRequestExceptionResolver() {
+        return DataFetcherExceptionResolverAdapter.from((exception, environment) ->
+                exception instanceof IllegalArgumentException
+                        ? GraphQLError.newError()
+                                .errorType(ErrorType.BAD_REQUEST)
+                                .message(exception.getMessage())
+                                .path(environment.getExecutionStepInfo().getPath())
+                                .location(environment.getField().getSourceLocation())
+                                .build()
+                        : null);
+    }
+}
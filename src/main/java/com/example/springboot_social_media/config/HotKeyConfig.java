@@ -0,0 +1,18 @@
+package com.example.springboot_social_media.config;
+
+import com.example.springboot_social_media.hotkey.HotKeyProperties;
+import com.example.springboot_social_media.hotkey.HotKeyTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(HotKeyProperties.class)
+public class HotKeyConfig {
+
+    @Bean
+    public HotKeyTracker likeHotKeys(HotKeyProperties properties, MeterRegistry meterRegistry) {
+        return new HotKeyTracker(properties, meterRegistry);
+    }
+}
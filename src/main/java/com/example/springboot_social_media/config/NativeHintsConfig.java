@@ -0,0 +1,83 @@
+package com.example.springboot_social_media.config;
+
+import com.example.springboot_social_media.dto.*;
+import com.example.springboot_social_media.entity.BulkJob;
+import com.example.springboot_social_media.entity.Comment;
+import com.example.springboot_social_media.entity.DailyEngagement;
+import com.example.springboot_social_media.entity.EngagementScope;
+import com.example.springboot_social_media.entity.HeldContent;
+import com.example.springboot_social_media.entity.Like;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.entity.Notification;
+import com.example.springboot_social_media.entity.NotificationType;
+import com.example.springboot_social_media.entity.Post;
+import com.example.springboot_social_media.entity.Reply;
+import com.example.springboot_social_media.entity.converter.LikeableTypeConverter;
+import com.example.springboot_social_media.repositories.*;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.data.projection.TargetAware;
+
+import java.util.List;
+
+/**
+ * Hints Spring AOT cannot infer on its own when building the native image. On the JVM they are ignored.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.Hints.class)
+@RegisterReflectionForBinding({
+        PostSummaryResponse.class, PostResponse.class, CommentResponse.class, ReplyResponse.class,
+        LikeItemResponse.class, LikeResponse.class, ActivityItemResponse.class, ActivityPageResponse.class,
+        NotificationResponse.class, NotificationPageResponse.class, MarkNotificationsReadRequest.class,
+        BulkJobRequest.class, BulkJobResponse.class, ThreadNodeResponse.class,
+        CreatePostRequest.class, UpdatePostRequest.class, PatchPostRequest.class,
+        CreateCommentRequest.class, UpdateCommentRequest.class, PatchCommentRequest.class,
+        CreateReplyRequest.class, UpdateReplyRequest.class,
+        EngagementReportResponse.class, DailyEngagementResponse.class,
+        TagPageResponse.class, TagItemResponse.class, TrendingTagResponse.class, TagBackfillResponse.class,
+        HeldContentResponse.class, CommentPageResponse.class, CommentSort.class
+})
+public class NativeHintsConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        private static final List<Class<?>> ENTITIES =
+                List.of(Post.class, Comment.class, Reply.class, Like.class, LikeableType.class,
+                        Notification.class, NotificationType.class, BulkJob.class, DailyEngagement.class,
+                        DailyEngagement.Key.class, EngagementScope.class, HeldContent.class);
+
+        private static final List<Class<?>> PROJECTIONS = List.of(ContentVersion.class, PostView.class,
+                PostSummaryView.class, CommentView.class, PostCommentView.class, ReplyView.class, LikeCount.class,
+                AuthorRef.class, ScoredCommentView.class);
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Hibernate reads fields directly and calls the Lombok accessors for dirty checking
+            for (Class<?> entity : ENTITIES) {
+                hints.reflection().registerType(entity, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.ACCESS_DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_METHODS);
+            }
+            // Referenced from @Convert, so it is instantiated reflectively rather than as a bean
+            hints.reflection().registerType(LikeableTypeConverter.class,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+            // Interface projections are backed by JDK proxies built at query time, and GraphQL reads their getters
+            for (Class<?> projection : PROJECTIONS) {
+                hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(projection, TargetAware.class));
+                hints.reflection().registerType(projection, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+
+            // The cache provider is looked up by class name from the Hibernate properties
+            hints.reflection().registerType(
+                    TypeReference.of("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.resources().registerPattern("application.conf");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.springboot_social_media.config;
+
+import com.example.springboot_social_media.repositories.reactive.ReactivePostRepository;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * R2DBC connection pool and repositories behind the streaming read endpoints, active only with the
+ * {@code reactive} profile. It is wired by hand rather than through Boot's R2DBC auto-configuration
+ * so it never competes with the JPA transaction manager used by every write.
+ */
+@Configuration
+@Profile("reactive")
+@EnableR2dbcRepositories(basePackageClasses = ReactivePostRepository.class)
+public class ReactiveReadConfig extends AbstractR2dbcConfiguration {
+
+    final String host;
+
+    final int port;
+
+    final String database;
+
+    final String username;
+
+    final String password;
+
+    final int maxPoolSize;
+
+    final int fetchSize;
+
+    public ReactiveReadConfig(@Value("${app.reactive.host:localhost}") String host,
+                              @Value("${app.reactive.port:5432}") int port,
+                              @Value("${app.reactive.database:socialmediadb}") String database,
+                              @Value("${app.reactive.username:${spring.datasource.username}}") String username,
+                              @Value("${app.reactive.password:${spring.datasource.password}}") String password,
+                              @Value("${app.reactive.max-pool-size:8}") int maxPoolSize,
+                              @Value("${app.reactive.fetch-size:256}") int fetchSize) {
+        this.host = host;
+        this.port = port;
+        this.database = database;
+        this.username = username;
+        this.password = password;
+        this.maxPoolSize = maxPoolSize;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    @Bean(destroyMethod = "dispose")
+    public ConnectionFactory connectionFactory() {
+        PostgresqlConnectionFactory postgres = new PostgresqlConnectionFactory(PostgresqlConnectionConfiguration.builder()
+                .host(host)
+                .port(port)
+                .database(database)
+                .username(username)
+                .password(password)
+                // Rows are pulled from the server in batches as subscribers request them
+                .fetchSize(fetchSize)
+                // Same zone as the JDBC connections, so TIMESTAMP casts agree with the JPA responses
+                .options(Map.of("TimeZone", ZoneId.systemDefault().getId()))
+                .build());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(postgres)
+                .initialSize(1)
+                .maxSize(maxPoolSize)
+                .maxAcquireTime(Duration.ofSeconds(2))
+                .build());
+    }
+}
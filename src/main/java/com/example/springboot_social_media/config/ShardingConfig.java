@@ -0,0 +1,99 @@
+package com.example.springboot_social_media.config;
+
+import com.example.springboot_social_media.sharding.ShardRouter;
+import com.example.springboot_social_media.sharding.ShardRoutingDataSource;
+import com.example.springboot_social_media.sharding.ShardRoutingInterceptor;
+import com.example.springboot_social_media.sharding.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    private static final List<String> CONTENT_TABLES = List.of("posts", "comments", "replies");
+
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties) {
+        return new ShardRouter(properties.isEnabled() ? properties.getShards().size() : 1, properties.getLogicalShards());
+    }
+
+    // Replaces the auto-configured pool; spring.datasource.* then only applies to tooling, not the app
+    @Bean
+    @ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+    public DataSource dataSource(ShardingProperties properties) {
+        List<ShardingProperties.Shard> shards = properties.getShards();
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard shard = shards.get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + i);
+            pool.setJdbcUrl(shard.getUrl());
+            pool.setUsername(shard.getUsername());
+            pool.setPassword(shard.getPassword());
+            pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+            targets.put(i, pool);
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(0));
+        // An unknown shard is a routing bug, never a reason to write to shard 0
+        routing.setLenientFallback(false);
+        return routing;
+    }
+
+    /**
+     * Runs before the web server accepts requests, so no id is generated on a misaligned sequence. It first
+     * refuses to start if a shard holds content whose id names another shard, e.g. rows written before sharding
+     * was enabled: the router would send every read of them to the wrong database, so they have to be moved to
+     * the database of their shard first. When every row is aligned, the check scans each content table once.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+    public SmartInitializingSingleton shardSequenceAligner(ShardRouter shardRouter, JdbcTemplate jdbcTemplate,
+                                                           ShardingProperties properties) {
+        return () -> shardRouter.forEachShard(shard -> {
+            for (String table : CONTENT_TABLES) {
+                Long misaligned = jdbcTemplate.queryForObject(
+                        "SELECT MIN(id) FROM (SELECT id FROM " + table + " WHERE (id % ?) % ? <> ? LIMIT 1) found",
+                        Long.class, properties.getLogicalShards(), shardRouter.shardCount(), shard);
+                if (misaligned != null) {
+                    throw new IllegalStateException("Shard " + shard + " holds " + table + " id " + misaligned
+                            + ", which belongs to shard " + shardRouter.shardOf(misaligned)
+                            + ". Move such rows to their shard before enabling sharding.");
+                }
+            }
+            Integer moved = jdbcTemplate.queryForObject("SELECT configure_shard_sequences(?, ?)", Integer.class,
+                    shard, properties.getLogicalShards());
+            if (moved != null && moved > 0) {
+                log.info("Aligned {} id sequences on shard {} to stride {}", moved, shard, properties.getLogicalShards());
+            }
+        });
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+    public WebMvcConfigurer shardRoutingWebConfigurer(ShardRouter shardRouter) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new ShardRoutingInterceptor(shardRouter))
+                        .addPathPatterns("/api/posts", "/api/posts/**");
+            }
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.springboot_social_media.config;
+
+import com.example.springboot_social_media.spam.NearDuplicateIndex;
+import com.example.springboot_social_media.spam.SpamDetector;
+import com.example.springboot_social_media.spam.SpamProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SpamProperties.class)
+public class SpamConfig {
+
+    // Per node: with several replicas each one sees its share of a wave, and the global limit applies to that share
+    @Bean
+    public SpamDetector spamDetector(SpamProperties properties, MeterRegistry meterRegistry) {
+        NearDuplicateIndex index = new NearDuplicateIndex(properties.getBands(), properties.getRows(),
+                properties.getWindow().toMillis(), properties.getSlices(), properties.getMaxEntries(),
+                System::currentTimeMillis);
+        return new SpamDetector(properties, index, meterRegistry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.springboot_social_media.config;
+
+import com.example.springboot_social_media.ratelimit.RateLimitInterceptor;
+import com.example.springboot_social_media.ratelimit.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    final RateLimitProperties rateLimitProperties;
+
+    final MeterRegistry meterRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (rateLimitProperties.isEnabled()) {
+            registry.addInterceptor(new RateLimitInterceptor(rateLimitProperties, meterRegistry))
+                    .addPathPatterns("/api/**");
+        }
+    }
+}
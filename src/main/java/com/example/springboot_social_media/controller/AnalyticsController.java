@@ -0,0 +1,50 @@
+package com.example.springboot_social_media.controller;
+
+import com.example.springboot_social_media.dto.EngagementReportResponse;
+import com.example.springboot_social_media.services.AnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/analytics")
+@Validated
+@RequiredArgsConstructor
+@CrossOrigin
+public class AnalyticsController {
+
+    final AnalyticsService analyticsService;
+
+    @GetMapping("/posts/{postId}")
+    public ResponseEntity<EngagementReportResponse> getPostEngagement(
+            @PathVariable Long postId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(analyticsService.getPostEngagement(postId, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/authors/{authorId}")
+    public ResponseEntity<EngagementReportResponse> getAuthorEngagement(
+            @PathVariable Long authorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(analyticsService.getAuthorEngagement(authorId, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
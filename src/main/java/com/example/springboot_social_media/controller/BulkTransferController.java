@@ -0,0 +1,72 @@
+package com.example.springboot_social_media.controller;
+
+import com.example.springboot_social_media.dto.BulkJobRequest;
+import com.example.springboot_social_media.dto.BulkJobResponse;
+import com.example.springboot_social_media.dto.ResponseMapper;
+import com.example.springboot_social_media.entity.BulkJob;
+import com.example.springboot_social_media.services.BulkTransferService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/admin/bulk")
+@Validated
+@RequiredArgsConstructor
+public class BulkTransferController {
+
+    final BulkTransferService bulkTransferService;
+
+    @PostMapping("/exports")
+    public ResponseEntity<BulkJobResponse> startExport(@Valid @RequestBody BulkJobRequest request) {
+        try {
+            BulkJob job = bulkTransferService.startExport(request.getDirectory());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ResponseMapper.toResponse(job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/imports")
+    public ResponseEntity<BulkJobResponse> startImport(@Valid @RequestBody BulkJobRequest request) {
+        try {
+            BulkJob job = bulkTransferService.startImport(request.getDirectory());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ResponseMapper.toResponse(job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Poll for progress: chunksDone, rowsDone and currentTable advance with every checkpoint
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<BulkJobResponse> getJob(@PathVariable Long id) {
+        try {
+            Optional<BulkJob> job = bulkTransferService.findJob(id);
+            return job.map(value -> ResponseEntity.ok(ResponseMapper.toResponse(value)))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/jobs/{id}/resume")
+    public ResponseEntity<BulkJobResponse> resumeJob(@PathVariable Long id) {
+        try {
+            BulkJob job = bulkTransferService.resume(id);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ResponseMapper.toResponse(job));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+}
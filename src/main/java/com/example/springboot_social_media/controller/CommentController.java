@@ -1,18 +1,30 @@
 package com.example.springboot_social_media.controller;
 
+import com.example.springboot_social_media.dto.CommentPageResponse;
+import com.example.springboot_social_media.dto.CommentResponse;
+import com.example.springboot_social_media.dto.CommentSort;
 import com.example.springboot_social_media.dto.CreateCommentRequest;
+import com.example.springboot_social_media.dto.HeldResponse;
 import com.example.springboot_social_media.dto.LikeResponse;
+import com.example.springboot_social_media.dto.PatchCommentRequest;
+import com.example.springboot_social_media.dto.ResponseMapper;
 import com.example.springboot_social_media.dto.UpdateCommentRequest;
 import com.example.springboot_social_media.entity.Comment;
 import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.repositories.ContentVersion;
 import com.example.springboot_social_media.services.CommentService;
 import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.spam.ContentHeldException;
+import com.example.springboot_social_media.spam.SpamDetectedException;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -28,31 +40,57 @@ public class CommentController {
     final LikeService likeService;
 
     @GetMapping
-    public ResponseEntity<List<Comment>> getCommentsByPost(@PathVariable Long postId) {
+    public ResponseEntity<List<CommentResponse>> getCommentsByPost(@PathVariable Long postId, WebRequest webRequest) {
         try {
-            List<Comment> comments = commentService.findCommentsByPost(postId);
-            return ResponseEntity.ok(comments);
+            ContentVersion version = commentService.findThreadVersion(postId);
+            ResponseEntity<List<CommentResponse>> notModified =
+                    ConditionalGet.notModified(webRequest, version, ConditionalGet.DETAIL);
+            if (notModified != null) {
+                return notModified;
+            }
+            List<CommentResponse> comments = commentService.findCommentsByPost(postId);
+            return ConditionalGet.ok(comments, version, ConditionalGet.DETAIL);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Paged and ordered by a persisted score; without sort the whole thread is returned as above
+    @GetMapping(params = "sort")
+    public ResponseEntity<CommentPageResponse> getSortedCommentsByPost(
+            @PathVariable Long postId,
+            @RequestParam String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(commentService.findCommentPage(postId, CommentSort.parse(sort), cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     @PostMapping
-    public ResponseEntity<Comment> createComment(
+    public ResponseEntity<?> createComment(
             @PathVariable Long postId,
             @Valid @RequestBody CreateCommentRequest request) {
         try {
             Comment comment = commentService.createComment(postId, request.getAuthorId(), request.getContent());
-            return ResponseEntity.ok(comment);
+            return ResponseEntity.ok(ResponseMapper.toResponse(comment));
+        } catch (ContentHeldException e) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new HeldResponse(e.getHeldId()));
+        } catch (SpamDetectedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
     @GetMapping("/{commentId}")
-    public ResponseEntity<Comment> getCommentById(@PathVariable Long postId, @PathVariable Long commentId) {
+    public ResponseEntity<CommentResponse> getCommentById(@PathVariable Long postId, @PathVariable Long commentId) {
         try {
-            Comment comment = commentService.findByIdWithLikes(commentId);
+            CommentResponse comment = commentService.findByIdWithLikes(commentId);
             if (comment != null) {
                 return ResponseEntity.ok(comment);
             } else {
@@ -64,13 +102,42 @@ public class CommentController {
     }
 
     @PutMapping("/{commentId}")
-    public ResponseEntity<Comment> updateComment(
+    public ResponseEntity<?> updateComment(
             @PathVariable Long postId,
             @PathVariable Long commentId,
             @Valid @RequestBody UpdateCommentRequest request) {
         try {
-            Comment comment = commentService.updateComment(commentId, request.getContent());
-            return ResponseEntity.ok(comment);
+            Comment comment = commentService.updateComment(commentId, request.getContent(), request.getVersion());
+            return ResponseEntity.ok(ResponseMapper.toResponse(comment));
+        } catch (ContentHeldException e) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new HeldResponse(e.getHeldId()));
+        } catch (SpamDetectedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).build();
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @PatchMapping("/{commentId}")
+    public ResponseEntity<?> patchComment(
+            @PathVariable Long postId,
+            @PathVariable Long commentId,
+            @Valid @RequestBody PatchCommentRequest request) {
+        try {
+            Comment comment = commentService.patchComment(commentId, request.getContent(), request.getVersion());
+            return ResponseEntity.ok(ResponseMapper.toResponse(comment));
+        } catch (ContentHeldException e) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new HeldResponse(e.getHeldId()));
+        } catch (SpamDetectedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).build();
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
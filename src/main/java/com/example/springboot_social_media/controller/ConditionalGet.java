@@ -0,0 +1,72 @@
+package com.example.springboot_social_media.controller;
+
+import com.example.springboot_social_media.repositories.ContentVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+
+/**
+ * Helpers for answering GETs with an ETag taken from a {@link ContentVersion}, so a matching If-None-Match is
+ * answered with 304 before any entity is loaded.
+ * <p>
+ * No Last-Modified is sent. An unlike, a soft delete or an unpublish leaves no newer timestamp behind, so a
+ * client revalidating with If-Modified-Since alone would get a 304 for a body that has changed.
+ */
+final class ConditionalGet {
+
+    // Feed can be served slightly stale from a shared cache while it revalidates in the background
+    static final CacheControl FEED = CacheControl.maxAge(Duration.ofSeconds(10))
+            .sMaxAge(Duration.ofSeconds(30))
+            .staleWhileRevalidate(Duration.ofSeconds(60))
+            .cachePublic();
+
+    // Post and thread bodies are cached briefly by the CDN, browsers always revalidate
+    static final CacheControl DETAIL = CacheControl.noCache()
+            .sMaxAge(Duration.ofSeconds(5))
+            .cachePublic();
+
+    private ConditionalGet() {}
+
+    static String etag(ContentVersion version) {
+        return "\"" + Long.toHexString(orZero(version.getLastModified()))
+                + "-" + Long.toHexString(orZero(version.getItemCount()))
+                + "-" + Long.toHexString(orZero(version.getLikeCount()))
+                + "-" + Long.toHexString(orZero(version.getDigest())) + "\"";
+    }
+
+
+    /**
+     * @return a 304 response if the client's validators still match, otherwise null
+     */
+    static <T> ResponseEntity<T> notModified(WebRequest request, ContentVersion version, CacheControl cacheControl) {
+        String etag = etag(version);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return null;
+    }
+
+    static <T> ResponseEntity<T> ok(T body, ContentVersion version, CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .eTag(etag(version))
+                .cacheControl(cacheControl)
+                .body(body);
+    }
+
+    // An incomplete body must not be stored or revalidated under the validators of the complete one
+    static <T> ResponseEntity<T> uncached(T body) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.springboot_social_media.controller;
+
+import com.example.springboot_social_media.entity.Like;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.repositories.CommentView;
+import com.example.springboot_social_media.repositories.PostCommentView;
+import com.example.springboot_social_media.repositories.PostView;
+import com.example.springboot_social_media.repositories.ReplyView;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ReplyService;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * GraphQL resolvers for schema.graphqls. Each field below the root goes through a DataLoader, which collects
+ * every parent of a level so the field is loaded for all of them with one query per shard. Fields without
+ * arguments are a {@link BatchMapping}. The child lists take {@code first}, so their loaders are keyed by
+ * parent and page size and registered by name, and each parent's rows are capped in SQL.
+ */
+@Controller
+public class GraphQlController {
+
+    private static final int MAX_POSTS = 100;
+
+    private static final int MAX_CHILDREN = 100;
+
+    private static final Comparator<PostView> NEWEST_FIRST =
+            Comparator.comparing(PostView::getCreatedAt).thenComparing(PostView::getId).reversed();
+
+    final PostService postService;
+
+    final CommentService commentService;
+
+    final ReplyService replyService;
+
+    final LikeService likeService;
+
+    final ShardRouter shardRouter;
+
+    final int likesPerItem;
+
+    public GraphQlController(PostService postService,
+                             CommentService commentService,
+                             ReplyService replyService,
+                             LikeService likeService,
+                             ShardRouter shardRouter,
+                             BatchLoaderRegistry batchLoaderRegistry,
+                             @Value("${app.graphql.likes-per-item:20}") int likesPerItem) {
+        this.postService = postService;
+        this.commentService = commentService;
+        this.replyService = replyService;
+        this.likeService = likeService;
+        this.shardRouter = shardRouter;
+        this.likesPerItem = likesPerItem;
+        batchLoaderRegistry.<Page, List<PostCommentView>>forName("comments").registerMappedBatchLoader(
+                (pages, environment) -> Mono.fromSupplier(() -> load(pages, commentService::findCommentsByPosts)));
+        batchLoaderRegistry.<Page, List<ReplyView>>forName("replies").registerMappedBatchLoader(
+                (pages, environment) -> Mono.fromSupplier(() -> load(pages, replyService::findDirectRepliesByComments)));
+        batchLoaderRegistry.<Page, List<ReplyView>>forName("childReplies").registerMappedBatchLoader(
+                (pages, environment) -> Mono.fromSupplier(() -> load(pages, replyService::findDirectRepliesByReplies)));
+    }
+
+    @QueryMapping
+    public PostView post(@Argument Long id) {
+        return shardRouter.onShardOf(id, () -> postService.findViewById(id).orElse(null));
+    }
+
+    @QueryMapping
+    public List<PostView> posts(@Argument int first) {
+        if (first < 1 || first > MAX_POSTS) {
+            throw new IllegalArgumentException("first must be between 1 and " + MAX_POSTS);
+        }
+        return ShardRouter.mergeSorted(shardRouter.scatter(shard -> postService.findPublishedViews(first)),
+                NEWEST_FIRST, first);
+    }
+
+    @SchemaMapping(typeName = "Post")
+    public CompletableFuture<List<PostCommentView>> comments(PostView post, @Argument int first,
+                                                             DataLoader<Page, List<PostCommentView>> comments) {
+        return comments.load(new Page(post.getId(), checkFirst(first)));
+    }
+
+    @SchemaMapping(typeName = "Comment")
+    public CompletableFuture<List<ReplyView>> replies(CommentView comment, @Argument int first,
+                                                      DataLoader<Page, List<ReplyView>> replies) {
+        return replies.load(new Page(comment.getId(), checkFirst(first)));
+    }
+
+    @SchemaMapping(typeName = "Reply")
+    public CompletableFuture<List<ReplyView>> childReplies(ReplyView parent, @Argument int first,
+                                                           DataLoader<Page, List<ReplyView>> childReplies) {
+        return childReplies.load(new Page(parent.getId(), checkFirst(first)));
+    }
+
+    @BatchMapping(typeName = "Post", field = "likeCount")
+    public List<Long> postLikeCounts(List<PostView> posts) {
+        return likeCounts(LikeableType.POST, posts, PostView::getId);
+    }
+
+    @BatchMapping(typeName = "Comment", field = "likeCount")
+    public List<Long> commentLikeCounts(List<CommentView> comments) {
+        return likeCounts(LikeableType.COMMENT, comments, CommentView::getId);
+    }
+
+    @BatchMapping(typeName = "Reply", field = "likeCount")
+    public List<Long> replyLikeCounts(List<ReplyView> replies) {
+        return likeCounts(LikeableType.REPLY, replies, ReplyView::getId);
+    }
+
+    @BatchMapping(typeName = "Post", field = "likes")
+    public List<List<Like>> postLikes(List<PostView> posts) {
+        return recentLikes(LikeableType.POST, posts, PostView::getId);
+    }
+
+    @BatchMapping(typeName = "Comment", field = "likes")
+    public List<List<Like>> commentLikes(List<CommentView> comments) {
+        return recentLikes(LikeableType.COMMENT, comments, CommentView::getId);
+    }
+
+    @BatchMapping(typeName = "Reply", field = "likes")
+    public List<List<Like>> replyLikes(List<ReplyView> replies) {
+        return recentLikes(LikeableType.REPLY, replies, ReplyView::getId);
+    }
+
+    // Results must come back in the order of the parents
+    private <T> List<Long> likeCounts(LikeableType type, List<T> items, Function<T, Long> id) {
+        Map<Long, Long> counts = shardRouter.byShard(
+                ids(items, id), group -> likeService.getLikeCountsForItems(type, group));
+        return items.stream().map(item -> counts.getOrDefault(id.apply(item), 0L)).toList();
+    }
+
+    private <T> List<List<Like>> recentLikes(LikeableType type, List<T> items, Function<T, Long> id) {
+        Map<Long, List<Like>> likes = shardRouter.byShard(
+                ids(items, id), group -> likeService.getRecentLikesForItems(type, group, likesPerItem));
+        return items.stream().map(item -> likes.getOrDefault(id.apply(item), List.of())).toList();
+    }
+
+    // Parents asking for the same page size share one query per shard
+    private <V> Map<Page, List<V>> load(Set<Page> pages,
+                                        BiFunction<Collection<Long>, Integer, Map<Long, List<V>>> finder) {
+        Map<Page, List<V>> loaded = new HashMap<>();
+        pages.stream()
+                .collect(Collectors.groupingBy(Page::first, Collectors.mapping(Page::parentId, Collectors.toList())))
+                .forEach((first, parentIds) -> {
+                    Map<Long, List<V>> children = shardRouter.byShard(parentIds, group -> finder.apply(group, first));
+                    parentIds.forEach(id -> loaded.put(new Page(id, first), children.getOrDefault(id, List.of())));
+                });
+        return loaded;
+    }
+
+    private static int checkFirst(int first) {
+        if (first < 1 || first > MAX_CHILDREN) {
+            throw new IllegalArgumentException("first must be between 1 and " + MAX_CHILDREN);
+        }
+        return first;
+    }
+
+    private static <T> List<Long> ids(List<T> items, Function<T, Long> id) {
+        return items.stream().map(id).distinct().toList();
+    }
+
+    // A child list of one parent, the key of the comments, replies and childReplies loaders
+    record Page(Long parentId, int first) {
+    }
+}
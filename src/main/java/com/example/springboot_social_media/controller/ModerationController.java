@@ -0,0 +1,61 @@
+package com.example.springboot_social_media.controller;
+
+import com.example.springboot_social_media.dto.ActivityItemResponse;
+import com.example.springboot_social_media.dto.HeldContentResponse;
+import com.example.springboot_social_media.dto.ResponseMapper;
+import com.example.springboot_social_media.services.ModerationService;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Held content lives on its post's shard, so approve and discard name the post
+@RestController
+@RequestMapping("/api/admin/moderation")
+@RequiredArgsConstructor
+public class ModerationController {
+
+    private static final Comparator<HeldContentResponse> QUEUE_ORDER =
+            Comparator.comparing(HeldContentResponse::createdAt).thenComparing(HeldContentResponse::id);
+
+    final ModerationService moderationService;
+
+    final ShardRouter shardRouter;
+
+    @GetMapping("/held")
+    public ResponseEntity<List<HeldContentResponse>> getHeld(@RequestParam(defaultValue = "50") int limit) {
+        try {
+            List<List<HeldContentResponse>> queues = shardRouter.scatter(shard -> moderationService.findHeld(limit)
+                    .stream().map(ResponseMapper::toResponse).toList());
+            return ResponseEntity.ok(ShardRouter.mergeSorted(queues, QUEUE_ORDER, limit));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/posts/{postId}/held/{id}/approve")
+    public ResponseEntity<ActivityItemResponse> approve(@PathVariable Long postId, @PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(shardRouter.onShardOf(postId, () -> moderationService.approve(postId, id)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    @DeleteMapping("/posts/{postId}/held/{id}")
+    public ResponseEntity<Void> discard(@PathVariable Long postId, @PathVariable Long id) {
+        try {
+            shardRouter.onShardOf(postId, () -> {
+                moderationService.discard(postId, id);
+                return null;
+            });
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+}
@@ -2,21 +2,34 @@ package com.example.springboot_social_media.controller;
 
 import com.example.springboot_social_media.dto.CreatePostRequest;
 import com.example.springboot_social_media.dto.LikeResponse;
+import com.example.springboot_social_media.dto.LikeItemResponse;
+import com.example.springboot_social_media.dto.PatchPostRequest;
+import com.example.springboot_social_media.dto.PostResponse;
 import com.example.springboot_social_media.dto.PostSummaryResponse;
+import com.example.springboot_social_media.dto.ResponseMapper;
 import com.example.springboot_social_media.dto.UpdatePostRequest;
-import com.example.springboot_social_media.entity.Like;
 import com.example.springboot_social_media.entity.LikeableType;
 import com.example.springboot_social_media.entity.Post;
+import com.example.springboot_social_media.repositories.ContentVersion;
+import com.example.springboot_social_media.services.EngagementRollup;
 import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.services.PostDetail;
 import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ShardedReadService;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -29,49 +42,92 @@ public class PostController {
 
     final LikeService likeService;
 
+    final ShardedReadService shardedReadService;
+
+    final EngagementRollup engagementRollup;
+
     @GetMapping
-    public ResponseEntity<List<PostSummaryResponse>> getAllPosts() {
+    public ResponseEntity<List<PostSummaryResponse>> getAllPosts(WebRequest webRequest) {
         try {
-            List<PostSummaryResponse> posts = postService.findAllPublishedPostsSummary();
-            return ResponseEntity.ok(posts);
+            ContentVersion version = shardedReadService.findPublishedFeedVersion();
+            ResponseEntity<List<PostSummaryResponse>> notModified =
+                    ConditionalGet.notModified(webRequest, version, ConditionalGet.FEED);
+            if (notModified != null) {
+                return notModified;
+            }
+            List<PostSummaryResponse> posts = shardedReadService.findAllPublishedPostsSummary();
+            return ConditionalGet.ok(posts, version, ConditionalGet.FEED);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Post> getPostById(@PathVariable Long id) {
+    public ResponseEntity<PostResponse> getPostById(@PathVariable Long id, WebRequest webRequest) {
         try {
-            Post post = postService.findByIdWithDetails(id);
-            if (post != null) {
-                return ResponseEntity.ok(post);
-            } else {
+            Optional<ContentVersion> version = postService.findVersionById(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            // A revalidated copy is still a view
+            engagementRollup.recordView(id);
+            ResponseEntity<PostResponse> notModified =
+                    ConditionalGet.notModified(webRequest, version.get(), ConditionalGet.DETAIL);
+            if (notModified != null) {
+                return notModified;
+            }
+            PostDetail post = postService.findByIdWithDetails(id);
+            if (post == null) {
                 return ResponseEntity.notFound().build();
+            } else if (post.partial()) {
+                return ConditionalGet.uncached(post.post());
+            } else {
+                return ConditionalGet.ok(post.post(), version.get(), ConditionalGet.DETAIL);
             }
+        } catch (QueryTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        } catch (TransientDataAccessException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     @PostMapping
-    public ResponseEntity<Post> createPost(@Valid @RequestBody CreatePostRequest request) {
+    public ResponseEntity<PostResponse> createPost(@Valid @RequestBody CreatePostRequest request) {
         try {
             Post post = postService.createPost(
                     request.getTitle(),
                     request.getContent(),
                     request.getAuthorId()
             );
-            return ResponseEntity.ok(post);
+            return ResponseEntity.ok(ResponseMapper.toResponse(post));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Post> updatePost(@PathVariable Long id, @Valid @RequestBody UpdatePostRequest request) {
+    public ResponseEntity<PostResponse> updatePost(@PathVariable Long id, @Valid @RequestBody UpdatePostRequest request) {
+        try {
+            Post post = postService.updatePost(id, request.getTitle(), request.getContent(), request.getVersion());
+            return ResponseEntity.ok(ResponseMapper.toResponse(post));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<PostResponse> patchPost(@PathVariable Long id, @Valid @RequestBody PatchPostRequest request) {
         try {
-            Post post = postService.updatePost(id, request.getTitle(), request.getContent());
-            return ResponseEntity.ok(post);
+            Post post = postService.patchPost(id, request.getTitle(), request.getContent(), request.getVersion());
+            return ResponseEntity.ok(ResponseMapper.toResponse(post));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
@@ -100,9 +156,9 @@ public class PostController {
     }
 
     @GetMapping("/{id}/likes")
-    public ResponseEntity<List<Like>> getPostLikes(@PathVariable Long id) {
+    public ResponseEntity<List<LikeItemResponse>> getPostLikes(@PathVariable Long id) {
         try {
-            List<Like> likes = likeService.getLikesForItem(LikeableType.POST, id);
+            List<LikeItemResponse> likes = likeService.getLikeResponsesForItem(LikeableType.POST, id);
             return ResponseEntity.ok(likes);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
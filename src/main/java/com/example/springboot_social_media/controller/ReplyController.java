@@ -1,12 +1,17 @@
 package com.example.springboot_social_media.controller;
 
 import com.example.springboot_social_media.dto.CreateReplyRequest;
+import com.example.springboot_social_media.dto.HeldResponse;
 import com.example.springboot_social_media.dto.LikeResponse;
+import com.example.springboot_social_media.dto.ReplyResponse;
+import com.example.springboot_social_media.dto.ResponseMapper;
 import com.example.springboot_social_media.dto.UpdateReplyRequest;
 import com.example.springboot_social_media.entity.LikeableType;
 import com.example.springboot_social_media.entity.Reply;
 import com.example.springboot_social_media.services.LikeService;
 import com.example.springboot_social_media.services.ReplyService;
+import com.example.springboot_social_media.spam.ContentHeldException;
+import com.example.springboot_social_media.spam.SpamDetectedException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -28,11 +33,11 @@ public class ReplyController {
     final LikeService likeService;
 
     @GetMapping
-    public ResponseEntity<List<Reply>> getRepliesByComment(
+    public ResponseEntity<List<ReplyResponse>> getRepliesByComment(
             @PathVariable Long postId,
             @PathVariable Long commentId) {
         try {
-            List<Reply> replies = replyService.findRepliesByComment(commentId);
+            List<ReplyResponse> replies = replyService.findRepliesByComment(commentId);
             return ResponseEntity.ok(replies);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -40,39 +45,47 @@ public class ReplyController {
     }
 
     @PostMapping
-    public ResponseEntity<Reply> createReplyToComment(
+    public ResponseEntity<?> createReplyToComment(
             @PathVariable Long postId,
             @PathVariable Long commentId,
             @Valid @RequestBody CreateReplyRequest request) {
         try {
             Reply reply = replyService.createReplyToComment(postId, commentId, request.getAuthorId(), request.getContent());
-            return ResponseEntity.ok(reply);
+            return ResponseEntity.ok(ResponseMapper.toResponse(reply));
+        } catch (ContentHeldException e) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new HeldResponse(e.getHeldId()));
+        } catch (SpamDetectedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
     @PostMapping("/{replyId}/replies")
-    public ResponseEntity<Reply> createReplyToReply(
+    public ResponseEntity<?> createReplyToReply(
             @PathVariable Long postId,
             @PathVariable Long commentId,
             @PathVariable Long replyId,
             @Valid @RequestBody CreateReplyRequest request) {
         try {
             Reply reply = replyService.createReplyToReply(postId, replyId, request.getAuthorId(), request.getContent());
-            return ResponseEntity.ok(reply);
+            return ResponseEntity.ok(ResponseMapper.toResponse(reply));
+        } catch (ContentHeldException e) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new HeldResponse(e.getHeldId()));
+        } catch (SpamDetectedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
     @GetMapping("/{replyId}")
-    public ResponseEntity<Reply> getReplyById(
+    public ResponseEntity<ReplyResponse> getReplyById(
             @PathVariable Long postId,
             @PathVariable Long commentId,
             @PathVariable Long replyId) {
         try {
-            Reply reply = replyService.findByIdWithLikes(replyId);
+            ReplyResponse reply = replyService.findByIdWithLikes(replyId);
             if (reply != null) {
                 return ResponseEntity.ok(reply);
             } else {
@@ -84,14 +97,18 @@ public class ReplyController {
     }
 
     @PutMapping("/{replyId}")
-    public ResponseEntity<Reply> updateReply(
+    public ResponseEntity<?> updateReply(
             @PathVariable Long postId,
             @PathVariable Long commentId,
             @PathVariable Long replyId,
             @Valid @RequestBody UpdateReplyRequest request) {
         try {
             Reply reply = replyService.updateReply(replyId, request.getContent());
-            return ResponseEntity.ok(reply);
+            return ResponseEntity.ok(ResponseMapper.toResponse(reply));
+        } catch (ContentHeldException e) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new HeldResponse(e.getHeldId()));
+        } catch (SpamDetectedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
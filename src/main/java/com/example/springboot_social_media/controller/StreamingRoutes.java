@@ -0,0 +1,109 @@
+package com.example.springboot_social_media.controller;
+
+import com.example.springboot_social_media.dto.PostSummaryResponse;
+import com.example.springboot_social_media.repositories.reactive.ReactiveCommentRepository;
+import com.example.springboot_social_media.repositories.reactive.ReactivePostRepository;
+import com.example.springboot_social_media.repositories.reactive.ReactiveReplyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.publisher.Flux;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * Streaming read endpoints served from R2DBC under /api/stream, next to the regular MVC controllers
+ * that keep handling every write. Responses are newline-delimited JSON written one item at a time:
+ * the next row is only requested from the database once the previous one has been written, so a slow
+ * client holds back its own query instead of buffering the whole result in memory.
+ */
+@Configuration
+@Profile("reactive")
+@RequiredArgsConstructor
+public class StreamingRoutes {
+
+    private static final int DEFAULT_FEED_LIMIT = 100;
+
+    private static final int MAX_FEED_LIMIT = 10_000;
+
+    final ReactivePostRepository reactivePostRepository;
+
+    final ReactiveCommentRepository reactiveCommentRepository;
+
+    final ReactiveReplyRepository reactiveReplyRepository;
+
+    final JsonMapper jsonMapper;
+
+    @Bean
+    public RouterFunction<ServerResponse> streamingRouter() {
+        return RouterFunctions.route()
+                .GET("/api/stream/posts", this::feed)
+                .GET("/api/stream/posts/{postId}/comments", this::comments)
+                .GET("/api/stream/posts/{postId}/thread", this::thread)
+                .build();
+    }
+
+    /**
+     * Published posts, newest first. To continue after the last item received, pass its createdAt as
+     * {@code before} and its id as {@code beforeId}.
+     */
+    ServerResponse feed(ServerRequest request) {
+        int limit;
+        Optional<LocalDateTime> before;
+        Optional<Long> beforeId;
+        try {
+            limit = request.param("limit").map(Integer::parseInt).orElse(DEFAULT_FEED_LIMIT);
+            before = request.param("before").map(LocalDateTime::parse);
+            beforeId = request.param("beforeId").map(Long::parseLong);
+        } catch (NumberFormatException | DateTimeException e) {
+            return ServerResponse.badRequest().build();
+        }
+        if (limit < 1 || limit > MAX_FEED_LIMIT || before.isPresent() != beforeId.isPresent()) {
+            return ServerResponse.badRequest().build();
+        }
+
+        Flux<PostSummaryResponse> posts = before.isPresent()
+                ? reactivePostRepository.streamPublishedSummariesBefore(
+                        before.get().atZone(ZoneId.systemDefault()).toOffsetDateTime(), beforeId.get(), limit)
+                : reactivePostRepository.streamPublishedSummaries(limit);
+        return ndjson(posts);
+    }
+
+    ServerResponse comments(ServerRequest request) {
+        return withPost(request, postId -> ndjson(reactiveCommentRepository.streamNodesByPostId(postId)));
+    }
+
+    ServerResponse thread(ServerRequest request) {
+        return withPost(request, postId -> ndjson(reactiveReplyRepository.streamThreadByPostId(postId)));
+    }
+
+    // 404 for an unknown post, decided before the first byte of the stream is written
+    private ServerResponse withPost(ServerRequest request, LongFunction<ServerResponse> stream) {
+        long postId;
+        try {
+            postId = Long.parseLong(request.pathVariable("postId"));
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+        return ServerResponse.async(reactivePostRepository.existsById(postId)
+                .map(exists -> exists ? stream.apply(postId) : ServerResponse.notFound().build()));
+    }
+
+    // Items are serialized here so the stream does not depend on a converter for application/x-ndjson
+    private ServerResponse ndjson(Flux<?> items) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(items.map(item -> jsonMapper.writeValueAsString(item) + "\n"));
+    }
+}
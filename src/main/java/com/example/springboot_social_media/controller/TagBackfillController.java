@@ -0,0 +1,33 @@
+package com.example.springboot_social_media.controller;
+
+import com.example.springboot_social_media.dto.TagBackfillResponse;
+import com.example.springboot_social_media.services.TagBackfillJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/tags/backfill")
+@RequiredArgsConstructor
+public class TagBackfillController {
+
+    final TagBackfillJob tagBackfillJob;
+
+    @PostMapping
+    public ResponseEntity<TagBackfillResponse> start() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(tagBackfillJob.start());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Poll for progress: scanned and tagged advance with every chunk
+    @GetMapping
+    public ResponseEntity<TagBackfillResponse> status() {
+        return ResponseEntity.ok(tagBackfillJob.status());
+    }
+}
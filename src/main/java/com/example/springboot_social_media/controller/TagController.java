@@ -0,0 +1,62 @@
+package com.example.springboot_social_media.controller;
+
+import com.example.springboot_social_media.dto.TagPageResponse;
+import com.example.springboot_social_media.dto.TrendingTagResponse;
+import com.example.springboot_social_media.services.ShardedReadService;
+import com.example.springboot_social_media.tagging.TagKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/tags")
+@Validated
+@RequiredArgsConstructor
+@CrossOrigin
+public class TagController {
+
+    final ShardedReadService shardedReadService;
+
+    @GetMapping("/hashtags/{name}")
+    public ResponseEntity<TagPageResponse> getHashtagPage(
+            @PathVariable String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return getPage(TagKind.HASHTAG, name, cursor, size);
+    }
+
+    @GetMapping("/mentions/{name}")
+    public ResponseEntity<TagPageResponse> getMentionPage(
+            @PathVariable String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return getPage(TagKind.MENTION, name, cursor, size);
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingTagResponse>> getTrending(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(shardedReadService.findTrending(hours, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private ResponseEntity<TagPageResponse> getPage(TagKind kind, String name, String cursor, int size) {
+        try {
+            return ResponseEntity.ok(shardedReadService.getTagPage(kind, name, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
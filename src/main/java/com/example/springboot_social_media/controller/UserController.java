@@ -0,0 +1,65 @@
+package com.example.springboot_social_media.controller;
+
+import com.example.springboot_social_media.dto.ActivityPageResponse;
+import com.example.springboot_social_media.dto.MarkNotificationsReadRequest;
+import com.example.springboot_social_media.dto.NotificationPageResponse;
+import com.example.springboot_social_media.services.NotificationService;
+import com.example.springboot_social_media.services.ShardedReadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/users")
+@Validated
+@RequiredArgsConstructor
+@CrossOrigin
+public class UserController {
+
+    final ShardedReadService shardedReadService;
+
+    final NotificationService notificationService;
+
+    @GetMapping("/{id}/activity")
+    public ResponseEntity<ActivityPageResponse> getActivity(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            ActivityPageResponse page = shardedReadService.getActivity(id, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/{id}/notifications")
+    public ResponseEntity<NotificationPageResponse> getUnreadNotifications(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(notificationService.getUnread(id, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/{id}/notifications/read")
+    public ResponseEntity<Void> markNotificationsRead(
+            @PathVariable Long id,
+            @RequestBody(required = false) MarkNotificationsReadRequest request) {
+        try {
+            notificationService.markRead(id, request != null ? request.getIds() : null);
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
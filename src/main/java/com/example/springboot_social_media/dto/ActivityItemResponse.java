@@ -0,0 +1,16 @@
+package com.example.springboot_social_media.dto;
+
+import com.example.springboot_social_media.entity.LikeableType;
+
+import java.time.LocalDateTime;
+
+public record ActivityItemResponse(
+        ActivityType type,
+        Long id,
+        Long postId,
+        String title,
+        String content,
+        LikeableType likeableType,
+        Long likeableId,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,9 @@
+package com.example.springboot_social_media.dto;
+
+// Declaration order is the tie-break order for items created at the same instant
+public enum ActivityType {
+    POST,
+    COMMENT,
+    REPLY,
+    LIKE
+}
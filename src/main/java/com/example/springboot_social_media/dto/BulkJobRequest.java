@@ -0,0 +1,11 @@
+package com.example.springboot_social_media.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class BulkJobRequest {
+    // Relative to app.bulk.base-dir
+    @NotBlank
+    private String directory;
+}
@@ -0,0 +1,18 @@
+package com.example.springboot_social_media.dto;
+
+import com.example.springboot_social_media.entity.BulkJob;
+
+import java.time.LocalDateTime;
+
+public record BulkJobResponse(
+        Long id,
+        BulkJob.Kind kind,
+        String directory,
+        BulkJob.Status status,
+        String currentTable,
+        Long chunksDone,
+        Long rowsDone,
+        String error,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
@@ -0,0 +1,7 @@
+package com.example.springboot_social_media.dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record CommentPageResponse(List<CommentResponse> items, String nextCursor) {
+}
@@ -0,0 +1,18 @@
+package com.example.springboot_social_media.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record CommentResponse(
+        Long id,
+        Long authorId,
+        String content,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Boolean isDeleted,
+        Long version,
+        Long likeCount,
+        Integer replyCount,
+        Integer descendantCount,
+        List<ReplyResponse> replies) {
+}
@@ -0,0 +1,17 @@
+package com.example.springboot_social_media.dto;
+
+import java.util.Locale;
+
+// Orders of the sorted thread view, see CommentService.findCommentPage
+public enum CommentSort {
+    // Most liked first
+    TOP,
+    // Newest first
+    NEW,
+    // Likes and replies both high and close to each other first
+    CONTROVERSIAL;
+
+    public static CommentSort parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.springboot_social_media.dto;
+
+import java.time.LocalDate;
+
+public record DailyEngagementResponse(
+        LocalDate day,
+        long likes,
+        long comments,
+        long replies,
+        long views) {
+}
@@ -0,0 +1,16 @@
+package com.example.springboot_social_media.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Totals over [from, to]; days without any engagement are left out of days
+public record EngagementReportResponse(
+        Long id,
+        LocalDate from,
+        LocalDate to,
+        long likes,
+        long comments,
+        long replies,
+        long views,
+        List<DailyEngagementResponse> days) {
+}
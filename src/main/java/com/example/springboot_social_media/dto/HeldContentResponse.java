@@ -0,0 +1,18 @@
+package com.example.springboot_social_media.dto;
+
+import com.example.springboot_social_media.entity.LikeableType;
+
+import java.time.LocalDateTime;
+
+public record HeldContentResponse(
+        Long id,
+        LikeableType contentType,
+        Long postId,
+        Long parentCommentId,
+        Long parentReplyId,
+        Long targetId,
+        Long authorId,
+        String content,
+        Double similarity,
+        LocalDateTime createdAt) {
+}
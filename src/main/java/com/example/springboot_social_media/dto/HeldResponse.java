@@ -0,0 +1,5 @@
+package com.example.springboot_social_media.dto;
+
+// The 202 body of a comment, reply or edit held for review; heldId names it in the moderation queue
+public record HeldResponse(Long heldId) {
+}
@@ -0,0 +1,13 @@
+package com.example.springboot_social_media.dto;
+
+import com.example.springboot_social_media.entity.LikeableType;
+
+import java.time.LocalDateTime;
+
+public record LikeItemResponse(
+        Long id,
+        Long userId,
+        LikeableType likeableType,
+        Long likeableId,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,11 @@
+package com.example.springboot_social_media.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MarkNotificationsReadRequest {
+    // Null or empty marks every unread notification of the user
+    private List<Long> ids;
+}
@@ -0,0 +1,7 @@
+package com.example.springboot_social_media.dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record NotificationPageResponse(List<NotificationResponse> items, long unreadCount, String nextCursor) {
+}
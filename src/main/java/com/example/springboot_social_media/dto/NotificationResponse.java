@@ -0,0 +1,18 @@
+package com.example.springboot_social_media.dto;
+
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.entity.NotificationType;
+
+import java.time.LocalDateTime;
+
+// actorCount > 1 renders as "lastActorId and N others ..."
+public record NotificationResponse(
+        Long id,
+        NotificationType type,
+        LikeableType targetType,
+        Long targetId,
+        Integer actorCount,
+        Long lastActorId,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
@@ -0,0 +1,12 @@
+package com.example.springboot_social_media.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class PatchCommentRequest {
+    @NotBlank(message = "Content cannot be blank")
+    private String content;
+
+    private Long version;
+}
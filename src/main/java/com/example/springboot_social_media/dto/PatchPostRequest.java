@@ -0,0 +1,16 @@
+package com.example.springboot_social_media.dto;
+
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class PatchPostRequest {
+    // Omitted fields are left unchanged
+    @Pattern(regexp = ".*\\S.*", flags = Pattern.Flag.DOTALL)
+    private String title;
+
+    @Pattern(regexp = ".*\\S.*", flags = Pattern.Flag.DOTALL)
+    private String content;
+
+    private Long version;
+}
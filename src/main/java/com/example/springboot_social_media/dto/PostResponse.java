@@ -0,0 +1,16 @@
+package com.example.springboot_social_media.dto;
+
+import java.time.LocalDateTime;
+
+public record PostResponse(
+        Long id,
+        String title,
+        String content,
+        Long authorId,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Boolean isPublished,
+        Integer viewCount,
+        Long version,
+        Long likeCount) {
+}
@@ -0,0 +1,19 @@
+package com.example.springboot_social_media.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ReplyResponse(
+        Long id,
+        Long authorId,
+        String content,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Boolean isDeleted,
+        Integer depthLevel,
+        String path,
+        Long likeCount,
+        Integer replyCount,
+        Integer descendantCount,
+        List<ReplyResponse> childReplies) {
+}
@@ -0,0 +1,130 @@
+package com.example.springboot_social_media.dto;
+
+import com.example.springboot_social_media.entity.BulkJob;
+import com.example.springboot_social_media.entity.Comment;
+import com.example.springboot_social_media.entity.HeldContent;
+import com.example.springboot_social_media.entity.Like;
+import com.example.springboot_social_media.entity.Notification;
+import com.example.springboot_social_media.entity.Post;
+import com.example.springboot_social_media.entity.Reply;
+import com.example.springboot_social_media.repositories.CommentView;
+import com.example.springboot_social_media.repositories.PostSummaryView;
+import com.example.springboot_social_media.repositories.PostView;
+import com.example.springboot_social_media.repositories.ReplyView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps entities and repository projections onto the response records.
+ * Entity overloads only read scalar columns, so they never trigger lazy loading.
+ */
+public final class ResponseMapper {
+
+    private ResponseMapper() {}
+
+    public static PostResponse toResponse(Post post) {
+        return new PostResponse(post.getId(), post.getTitle(), post.getContent(), post.getAuthorId(),
+                post.getCreatedAt(), post.getUpdatedAt(), post.getIsPublished(), post.getViewCount(),
+                post.getVersion(), post.getLikeCount());
+    }
+
+    // likeCount is null when it could not be loaded
+    public static PostResponse toResponse(PostView post, Long likeCount) {
+        return new PostResponse(post.getId(), post.getTitle(), post.getContent(), post.getAuthorId(),
+                post.getCreatedAt(), post.getUpdatedAt(), post.getIsPublished(), post.getViewCount(),
+                post.getVersion(), likeCount);
+    }
+
+    public static PostSummaryResponse toSummary(PostSummaryView post, long likeCount) {
+        return new PostSummaryResponse(post.getId(), post.getTitle(), post.getContent(), post.getAuthorId(),
+                post.getCreatedAt(), likeCount, post.getCommentCount());
+    }
+
+    public static CommentResponse toResponse(Comment comment) {
+        return new CommentResponse(comment.getId(), comment.getAuthorId(), comment.getContent(),
+                comment.getCreatedAt(), comment.getUpdatedAt(), comment.getIsDeleted(), comment.getVersion(),
+                comment.getLikeCount(), comment.getReplyCount(), comment.getDescendantCount(), List.of());
+    }
+
+    public static CommentResponse toResponse(CommentView comment, Long likeCount, List<ReplyResponse> replies) {
+        return new CommentResponse(comment.getId(), comment.getAuthorId(), comment.getContent(),
+                comment.getCreatedAt(), comment.getUpdatedAt(), comment.getIsDeleted(), comment.getVersion(),
+                likeCount, comment.getReplyCount(), comment.getDescendantCount(), replies);
+    }
+
+    public static ReplyResponse toResponse(Reply reply) {
+        return new ReplyResponse(reply.getId(), reply.getAuthorId(), reply.getContent(),
+                reply.getCreatedAt(), reply.getUpdatedAt(), reply.getIsDeleted(), reply.getDepthLevel(),
+                reply.getPath(), reply.getLikeCount(), reply.getReplyCount(), reply.getDescendantCount(), List.of());
+    }
+
+    public static ReplyResponse toResponse(ReplyView reply, Long likeCount) {
+        return new ReplyResponse(reply.getId(), reply.getAuthorId(), reply.getContent(),
+                reply.getCreatedAt(), reply.getUpdatedAt(), reply.getIsDeleted(), reply.getDepthLevel(),
+                reply.getPath(), likeCount, reply.getReplyCount(), reply.getDescendantCount(), List.of());
+    }
+
+    public static LikeItemResponse toResponse(Like like) {
+        return new LikeItemResponse(like.getId(), like.getUserId(), like.getLikeableType(),
+                like.getLikeableId(), like.getCreatedAt());
+    }
+
+    public static BulkJobResponse toResponse(BulkJob job) {
+        return new BulkJobResponse(job.getId(), job.getKind(), job.getDirectory(), job.getStatus(),
+                job.getCurrentTable(), job.getChunksDone(), job.getRowsDone(), job.getError(),
+                job.getCreatedAt(), job.getUpdatedAt());
+    }
+
+    public static NotificationResponse toResponse(Notification notification) {
+        return new NotificationResponse(notification.getId(), notification.getType(), notification.getTargetType(),
+                notification.getTargetId(), notification.getActorCount(), notification.getLastActorId(),
+                notification.getCreatedAt(), notification.getUpdatedAt());
+    }
+
+    public static HeldContentResponse toResponse(HeldContent held) {
+        return new HeldContentResponse(held.getId(), held.getContentType(), held.getPostId(),
+                held.getParentCommentId(), held.getParentReplyId(), held.getTargetId(), held.getAuthorId(), held.getContent(),
+                held.getSimilarity(), held.getCreatedAt());
+    }
+
+    /**
+     * Assembles flat reply rows into trees. Rows whose parent reply is not in the list become roots,
+     * in their original order; children keep the order of the input as well. Thread reads include deleted
+     * replies that still have live replies under them, with blank content, so those stay nested.
+     */
+    public static List<ReplyResponse> toReplyTree(List<ReplyView> replies, Map<Long, Long> likeCounts) {
+        Set<Long> ids = new HashSet<>();
+        Map<Long, List<ReplyView>> children = new HashMap<>();
+        for (ReplyView reply : replies) {
+            ids.add(reply.getId());
+            if (reply.getParentReplyId() != null) {
+                children.computeIfAbsent(reply.getParentReplyId(), k -> new ArrayList<>()).add(reply);
+            }
+        }
+
+        List<ReplyResponse> roots = new ArrayList<>();
+        for (ReplyView reply : replies) {
+            if (reply.getParentReplyId() == null || !ids.contains(reply.getParentReplyId())) {
+                roots.add(toNode(reply, children, likeCounts));
+            }
+        }
+        return roots;
+    }
+
+    private static ReplyResponse toNode(ReplyView reply, Map<Long, List<ReplyView>> children,
+                                        Map<Long, Long> likeCounts) {
+        List<ReplyResponse> childReplies = new ArrayList<>();
+        for (ReplyView child : children.getOrDefault(reply.getId(), List.of())) {
+            childReplies.add(toNode(child, children, likeCounts));
+        }
+        return new ReplyResponse(reply.getId(), reply.getAuthorId(), reply.getContent(),
+                reply.getCreatedAt(), reply.getUpdatedAt(), reply.getIsDeleted(), reply.getDepthLevel(),
+                reply.getPath(), likeCounts.getOrDefault(reply.getId(), 0L), reply.getReplyCount(),
+                reply.getDescendantCount(), childReplies);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.springboot_social_media.dto;
+
+import java.time.LocalDateTime;
+
+// finishedAt and error stay null while the run is in progress; error is set if it stopped early
+public record TagBackfillResponse(
+        boolean running,
+        long scanned,
+        long tagged,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        String error) {
+}
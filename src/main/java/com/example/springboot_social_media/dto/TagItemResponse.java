@@ -0,0 +1,16 @@
+package com.example.springboot_social_media.dto;
+
+import com.example.springboot_social_media.entity.LikeableType;
+
+import java.time.LocalDateTime;
+
+// title is only set for posts
+public record TagItemResponse(
+        LikeableType type,
+        Long id,
+        Long postId,
+        Long authorId,
+        String title,
+        String content,
+        LocalDateTime createdAt) {
+}
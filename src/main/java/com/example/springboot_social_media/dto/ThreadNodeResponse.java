@@ -0,0 +1,22 @@
+package com.example.springboot_social_media.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One comment or reply of a streamed thread. Nodes arrive in depth-first order, so a client can
+ * rebuild the tree from commentId, parentReplyId and depthLevel as they come in.
+ */
+public record ThreadNodeResponse(
+        String type,
+        Long id,
+        Long commentId,
+        Long parentReplyId,
+        Long authorId,
+        String content,
+        LocalDateTime createdAt,
+        Integer depthLevel,
+        String path,
+        Integer replyCount,
+        Integer descendantCount,
+        Long likeCount) {
+}
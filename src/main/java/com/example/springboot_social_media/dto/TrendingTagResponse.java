@@ -0,0 +1,4 @@
+package com.example.springboot_social_media.dto;
+
+public record TrendingTagResponse(String tag, long count) {
+}
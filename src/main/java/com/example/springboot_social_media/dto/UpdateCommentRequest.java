@@ -7,4 +7,7 @@ import lombok.Data;
 public class UpdateCommentRequest {
     @NotBlank(message = "Content cannot be blank")
     private String content;
+
+    // Version the client last read; when present a stale edit is rejected with 409
+    private Long version;
 }
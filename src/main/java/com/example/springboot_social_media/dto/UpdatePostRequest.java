@@ -10,4 +10,7 @@ public class UpdatePostRequest {
 
     @NotBlank
     private String content;
+
+    // Version the client last read; when present a stale edit is rejected with 409
+    private Long version;
 }
@@ -0,0 +1,66 @@
+package com.example.springboot_social_media.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "bulk_jobs")
+@Data
+public class BulkJob {
+
+    public enum Kind { EXPORT, IMPORT }
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false)
+    private Kind kind;
+
+    @Column(name = "directory", nullable = false)
+    private String directory;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(name = "current_table")
+    private String currentTable;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId = 0L;
+
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex = 0;
+
+    @Column(name = "rows_done", nullable = false)
+    private Long rowsDone = 0L;
+
+    @Column(name = "chunks_done", nullable = false)
+    private Long chunksDone = 0L;
+
+    @Column(name = "error")
+    private String error;
+
+    @CreationTimestamp
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public BulkJob() {}
+
+    public BulkJob(Kind kind, String directory) {
+        this.kind = kind;
+        this.directory = directory;
+    }
+}
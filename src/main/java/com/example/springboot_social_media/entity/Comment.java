@@ -1,18 +1,22 @@
 package com.example.springboot_social_media.entity;
 import jakarta.persistence.*;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
-import com.fasterxml.jackson.annotation.JsonManagedReference;
-import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "comments")
-@Data
+@Getter
+@Setter
 public class Comment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,7 +24,6 @@ public class Comment {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id", nullable = false)
-    @JsonIgnore // Exclude full post from comment serialization
     private Post post;
 
     @Column(name = "author_id", nullable = false)
@@ -37,11 +40,29 @@ public class Comment {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "is_deleted")
     private Boolean isDeleted = false;
 
+    // Counters of live replies, maintained by ReplyService with targeted updates and never written by the entity
+    @Column(name = "reply_count", insertable = false, updatable = false)
+    private Integer replyCount = 0;
+
+    @Column(name = "descendant_count", insertable = false, updatable = false)
+    private Integer descendantCount = 0;
+
+    // Sort keys of the sorted thread views. like_count trails the likes table by a flush of CommentScoreUpdater
+    // and controversy_score is generated from it, so neither is kept current in the entity cache
+    @Column(name = "like_count", insertable = false, updatable = false)
+    private Integer likeTotal = 0;
+
+    @Column(name = "controversy_score", insertable = false, updatable = false)
+    private Double controversyScore = 0.0;
+
     @OneToMany(mappedBy = "parentComment", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @JsonManagedReference(value = "comment-replies")
     private List<Reply> replies = new ArrayList<>();
 
     // Transient field for like count - calculated via service
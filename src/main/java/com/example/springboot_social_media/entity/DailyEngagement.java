@@ -0,0 +1,50 @@
+package com.example.springboot_social_media.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Rows are written by EngagementRollup's upserts only; the entity is read-only
+@Entity
+@Table(name = "engagement_daily")
+@IdClass(DailyEngagement.Key.class)
+@Data
+public class DailyEngagement {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false)
+    private EngagementScope scope;
+
+    @Id
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Id
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "likes", nullable = false)
+    private Long likes;
+
+    @Column(name = "comments", nullable = false)
+    private Long comments;
+
+    @Column(name = "replies", nullable = false)
+    private Long replies;
+
+    @Column(name = "views", nullable = false)
+    private Long views;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private EngagementScope scope;
+        private Long subjectId;
+        private LocalDate day;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.springboot_social_media.entity;
+
+// What subject_id of an engagement_daily row refers to
+public enum EngagementScope {
+    POST, AUTHOR
+}
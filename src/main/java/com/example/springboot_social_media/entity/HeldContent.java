@@ -0,0 +1,58 @@
+package com.example.springboot_social_media.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// A comment, reply or edit flagged as spam while app.spam.action is HOLD; approving it writes the real row
+@Entity
+@Table(name = "held_content")
+@Data
+public class HeldContent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Convert(converter = com.example.springboot_social_media.entity.converter.LikeableTypeConverter.class)
+    @Column(name = "content_type", nullable = false)
+    private LikeableType contentType;
+
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+
+    @Column(name = "parent_comment_id")
+    private Long parentCommentId;
+
+    @Column(name = "parent_reply_id")
+    private Long parentReplyId;
+
+    // Set for a held edit: the comment or reply it changes
+    @Column(name = "target_id")
+    private Long targetId;
+
+    @Column(name = "author_id", nullable = false)
+    private Long authorId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(nullable = false)
+    private Double similarity;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public HeldContent() {}
+
+    public HeldContent(LikeableType contentType, Long postId, Long parentCommentId, Long parentReplyId,
+                       Long authorId, String content, Double similarity) {
+        this.contentType = contentType;
+        this.postId = postId;
+        this.parentCommentId = parentCommentId;
+        this.parentReplyId = parentReplyId;
+        this.authorId = authorId;
+        this.content = content;
+        this.similarity = similarity;
+    }
+}
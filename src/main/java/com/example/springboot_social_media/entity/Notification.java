@@ -0,0 +1,45 @@
+package com.example.springboot_social_media.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Rows are written by NotificationDispatcher only; the entity is read and marked read through JPA
+@Entity
+@Table(name = "notifications")
+@Data
+public class Notification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private NotificationType type;
+
+    @Convert(converter = com.example.springboot_social_media.entity.converter.LikeableTypeConverter.class)
+    @Column(name = "target_type", nullable = false)
+    private LikeableType targetType;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @Column(name = "actor_count", nullable = false)
+    private Integer actorCount;
+
+    @Column(name = "last_actor_id", nullable = false)
+    private Long lastActorId;
+
+    @Column(name = "is_read", nullable = false)
+    private Boolean isRead = false;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+}
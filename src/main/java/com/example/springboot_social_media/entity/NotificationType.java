@@ -0,0 +1,6 @@
+package com.example.springboot_social_media.entity;
+
+public enum NotificationType {
+    LIKE,
+    REPLY
+}
@@ -1,19 +1,22 @@
 package com.example.springboot_social_media.entity;
 import jakarta.persistence.*;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
-import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.annotation.JsonManagedReference;
-import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "replies")
-@Data
+@Getter
+@Setter
 public class Reply {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,17 +24,14 @@ public class Reply {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id", nullable = false)
-    @JsonIgnore // Prevent embedding full post inside each reply
     private Post post;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_comment_id")
-    @JsonBackReference(value = "comment-replies")
     private Comment parentComment;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_reply_id")
-    @JsonBackReference(value = "reply-children")
     private Reply parentReply;
 
     @Column(name = "author_id", nullable = false)
@@ -51,14 +51,21 @@ public class Reply {
     @Column(name = "is_deleted")
     private Boolean isDeleted = false;
 
-    @Column(name = "depth_level")
+    // depth_level and path are maintained by trigger_update_reply_path
+    @Column(name = "depth_level", insertable = false, updatable = false)
     private Integer depthLevel = 1;
 
-    @Column(columnDefinition = "TEXT")
+    @Column(columnDefinition = "ltree", insertable = false, updatable = false)
     private String path;
 
+    // Counters of live replies, maintained by ReplyService with targeted updates and never written by the entity
+    @Column(name = "reply_count", insertable = false, updatable = false)
+    private Integer replyCount = 0;
+
+    @Column(name = "descendant_count", insertable = false, updatable = false)
+    private Integer descendantCount = 0;
+
     @OneToMany(mappedBy = "parentReply", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @JsonManagedReference(value = "reply-children")
     private List<Reply> childReplies = new ArrayList<>();
 
     // Transient field for like count - calculated via service
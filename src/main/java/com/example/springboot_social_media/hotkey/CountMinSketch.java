@@ -0,0 +1,70 @@
+package com.example.springboot_social_media.hotkey;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free count-min sketch. Estimates never undercount; collisions can only overcount,
+ * by at most total/width with high probability.
+ * <p>
+ * {@link #halve()} ages every counter, which turns the totals into an exponentially decaying rate.
+ */
+public class CountMinSketch {
+
+    private final AtomicLongArray counters;
+
+    private final int depth;
+
+    private final int width;
+
+    private final int mask;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("width and depth must be >= 1");
+        }
+        this.width = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.mask = this.width - 1;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(this.width * depth);
+    }
+
+    /**
+     * @return the estimate for the key after counting it
+     */
+    public long increment(Object key) {
+        long hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    public long estimate(Object key) {
+        long hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    // Concurrent increments during a halve may be halved or not; either is fine for a rate estimate
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            long value = counters.get(i);
+            if (value != 0) {
+                counters.getAndUpdate(i, v -> v >>> 1);
+            }
+        }
+    }
+
+    private int index(long hash, int row) {
+        // Each row gets its own mix of the same hash (splitmix64 finaliser with a per-row offset)
+        long h = hash + (row + 1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return row * width + ((int) h & mask);
+    }
+}
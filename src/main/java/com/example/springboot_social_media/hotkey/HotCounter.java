@@ -0,0 +1,58 @@
+package com.example.springboot_social_media.hotkey;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory count for a hot key: the last value read from the database plus the local changes since.
+ * <p>
+ * Changes go to a {@link LongAdder}, whose cells are striped across threads, so concurrent likes on the same
+ * item never contend on one word. Callers add a change once it has committed. {@link #merge()} re-reads the
+ * authoritative count, which already holds the changes made so far, and drops them from the local delta, so
+ * a read is at most one merge interval stale.
+ * <p>
+ * A change carries its commit time. One that committed before the latest reload started is already in the
+ * loaded count, so it is skipped, however late it arrives. That covers like deltas from other replicas, which
+ * are batched for a flush interval before they are sent.
+ */
+public class HotCounter {
+
+    private final LongSupplier loader;
+
+    private final LongAdder delta = new LongAdder();
+
+    private volatile long base;
+
+    private volatile long reloadStarted;
+
+    HotCounter(LongSupplier loader) {
+        this.loader = loader;
+        this.reloadStarted = System.currentTimeMillis();
+        this.base = loader.getAsLong();
+    }
+
+    // For a change that has just committed
+    public void add(long change) {
+        add(change, System.currentTimeMillis());
+    }
+
+    public void add(long change, long committedAtMillis) {
+        if (committedAtMillis >= reloadStarted) {
+            delta.add(change);
+        }
+    }
+
+    public long value() {
+        return base + delta.sum();
+    }
+
+    // The start is published before the snapshot: a change committed earlier is either in the snapshot or
+    // skipped by add, and only changes snapshotted here are dropped from the delta
+    void merge() {
+        reloadStarted = System.currentTimeMillis();
+        long merged = delta.sum();
+        long loaded = loader.getAsLong();
+        delta.add(-merged);
+        base = loaded;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.springboot_social_media.hotkey;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.hot-keys")
+public class HotKeyProperties {
+
+    private boolean enabled = true;
+
+    // Counters per sketch row; rounded up to a power of two
+    private int sketchWidth = 4096;
+
+    private int sketchDepth = 4;
+
+    // Sketch counters are halved every tick, so an estimate is roughly twice the per-tick request rate
+    private long promoteThreshold = 500;
+
+    // Well below promoteThreshold so a key hovering near the line does not flap
+    private long demoteThreshold = 100;
+
+    // Also bounds the number of per-key gauges
+    private int maxHotKeys = 64;
+
+    // Read by the @Scheduled tick through its placeholder; declared here so it binds and documents
+    private Duration tickInterval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,100 @@
+package com.example.springboot_social_media.hotkey;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Detects hot keys with a decaying {@link CountMinSketch} and serves them from a {@link HotCounter}.
+ * <p>
+ * Every access is counted in the sketch. A key whose estimate reaches the promote threshold gets a counter,
+ * seeded by its loader. Each tick halves the sketch, merges every hot counter with the database, and demotes
+ * keys whose estimate has fallen below the demote threshold. Hot keys are exported as
+ * {@code hotkeys.value{key}} gauges, registered on promotion and removed on demotion.
+ */
+@Slf4j
+public class HotKeyTracker {
+
+    private final HotKeyProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final CountMinSketch sketch;
+
+    private final Map<String, HotCounter> hot = new ConcurrentHashMap<>();
+
+    private final Counter promotions;
+
+    private final Counter demotions;
+
+    public HotKeyTracker(HotKeyProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.sketch = new CountMinSketch(properties.getSketchWidth(), properties.getSketchDepth());
+        this.promotions = Counter.builder("hotkeys.transitions").tag("direction", "promoted").register(meterRegistry);
+        this.demotions = Counter.builder("hotkeys.transitions").tag("direction", "demoted").register(meterRegistry);
+        Gauge.builder("hotkeys.active", hot, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Counts one access to the key.
+     *
+     * @param loader reads the authoritative count; called on promotion and on every merge
+     * @return the key's counter if it is hot, otherwise null and the caller goes to the database
+     */
+    public HotCounter track(String key, LongSupplier loader) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        long estimate = sketch.increment(key);
+        HotCounter counter = hot.get(key);
+        if (counter != null || estimate < properties.getPromoteThreshold() || hot.size() >= properties.getMaxHotKeys()) {
+            return counter;
+        }
+        return hot.computeIfAbsent(key, k -> promote(k, loader));
+    }
+
+    // Bookkeeping-free lookup for batch reads, which should not inflate the sketch
+    public HotCounter peek(String key) {
+        return hot.get(key);
+    }
+
+    @Scheduled(fixedDelayString = "${app.hot-keys.tick-interval:PT1S}")
+    public void tick() {
+        sketch.halve();
+        hot.forEach((key, counter) -> {
+            if (sketch.estimate(key) < properties.getDemoteThreshold()) {
+                demote(key);
+            } else {
+                try {
+                    counter.merge();
+                } catch (RuntimeException e) {
+                    log.warn("Merging hot key {} failed, demoting it", key, e);
+                    demote(key);
+                }
+            }
+        });
+    }
+
+    private HotCounter promote(String key, LongSupplier loader) {
+        HotCounter counter = new HotCounter(loader);
+        Gauge.builder("hotkeys.value", counter, HotCounter::value).tag("key", key).register(meterRegistry);
+        promotions.increment();
+        log.info("Key {} is hot, serving it from memory", key);
+        return counter;
+    }
+
+    private void demote(String key) {
+        if (hot.remove(key) != null) {
+            meterRegistry.find("hotkeys.value").tag("key", key).meters().forEach(meterRegistry::remove);
+            demotions.increment();
+            log.info("Key {} cooled down, back to the database", key);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.springboot_social_media.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+/**
+ * The always-on recording. It keeps the last {@code max-age} or {@code max-size} of events on disk and writes
+ * them to {@code continuous.jfr} in the dump directory when the application stops. It can be dumped at any
+ * time through {@link FlightRecorderEndpoint}. JDBC statements are left out unless
+ * {@code continuous-jdbc-statements} is set, so connections stay unwrapped while only this recording runs.
+ */
+@Slf4j
+public class ContinuousRecording implements SmartLifecycle {
+
+    static final String NAME = "continuous";
+
+    private final FlightRecorderProperties properties;
+
+    private volatile Recording recording;
+
+    public ContinuousRecording(FlightRecorderProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void start() {
+        Recording started = FlightRecorderEndpoint.newRecording(properties, properties.getSettings(),
+                properties.isContinuousJdbcStatements());
+        started.setName(NAME);
+        started.setMaxAge(properties.getMaxAge());
+        started.setMaxSize(properties.getMaxSize().toBytes());
+        try {
+            Files.createDirectories(properties.getDumpDir());
+            started.setDestination(properties.getDumpDir().resolve(NAME + ".jfr"));
+        } catch (IOException e) {
+            started.close();
+            throw new UncheckedIOException(e);
+        }
+        started.start();
+        recording = started;
+        log.info("Continuous flight recording {} started, keeping {}", started.getId(), properties.getMaxAge());
+    }
+
+    // Someone may have stopped or closed it through the endpoint already
+    @Override
+    public void stop() {
+        Recording running = recording;
+        recording = null;
+        if (running != null && running.getState() == RecordingState.RUNNING) {
+            running.stop();
+            log.info("Continuous flight recording written to {}", running.getDestination());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return recording != null;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.springboot_social_media.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.OptionalParameter;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@code /actuator/flightrecorder}: lists the JVM's recordings, starts one (POST), stops one
+ * (POST {@code /{id}}), dumps one to a .jfr download (GET {@code /{id}}) and discards one (DELETE {@code /{id}}).
+ * Dumping does not stop a running recording.
+ */
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+    private final FlightRecorderProperties properties;
+
+    public FlightRecorderEndpoint(FlightRecorderProperties properties) {
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public List<RecordingDescriptor> recordings() {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream().map(RecordingDescriptor::of).toList();
+    }
+
+    @WriteOperation
+    public RecordingDescriptor start(@OptionalParameter String name, @OptionalParameter String settings,
+                                     @OptionalParameter Duration maxAge) {
+        Recording recording = newRecording(properties, settings != null ? settings : properties.getSettings(), true);
+        recording.setName(name != null ? name : "recording-" + Instant.now());
+        recording.setMaxAge(maxAge != null ? maxAge : properties.getMaxAge());
+        recording.setMaxSize(properties.getMaxSize().toBytes());
+        recording.start();
+        return RecordingDescriptor.of(recording);
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<RecordingDescriptor> stop(@Selector long id) {
+        return find(id).map(recording -> {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            return new WebEndpointResponse<>(RecordingDescriptor.of(recording));
+        }).orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector long id) {
+        Optional<Recording> recording = find(id);
+        if (recording.isEmpty()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            return new WebEndpointResponse<>(new FileSystemResource(dump(recording.get())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> close(@Selector long id) {
+        return find(id).map(recording -> {
+            recording.close();
+            return new WebEndpointResponse<Void>(WebEndpointResponse.STATUS_NO_CONTENT);
+        }).orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    Path dump(Recording recording) throws IOException {
+        Files.createDirectories(properties.getDumpDir());
+        Path target = properties.getDumpDir().resolve("recording-" + recording.getId() + "-"
+                + System.currentTimeMillis() + ".jfr");
+        recording.dump(target);
+        return target;
+    }
+
+    // Our events are set explicitly, so they are recorded (or not) whatever the JDK settings file says
+    static Recording newRecording(FlightRecorderProperties properties, String settings, boolean jdbcStatements) {
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new InvalidEndpointRequestException("Unknown recording settings " + settings, "Unknown settings");
+        }
+        recording.setToDisk(true);
+        for (Class<? extends jdk.jfr.Event> event : List.of(RequestEvent.class, ServiceCallEvent.class, JdbcStatementEvent.class)) {
+            recording.enable(event).withThreshold(properties.getThreshold());
+        }
+        if (!jdbcStatements) {
+            recording.disable(JdbcStatementEvent.class);
+        }
+        return recording;
+    }
+
+    private static Optional<Recording> find(long id) {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .filter(recording -> recording.getId() == id)
+                .findFirst();
+    }
+
+    public record RecordingDescriptor(long id, String name, String state, Instant startTime, Duration maxAge,
+                                      long size) {
+
+        static RecordingDescriptor of(Recording recording) {
+            return new RecordingDescriptor(recording.getId(), recording.getName(), recording.getState().name(),
+                    recording.getStartTime(), recording.getMaxAge(), recording.getSize());
+        }
+    }
+}
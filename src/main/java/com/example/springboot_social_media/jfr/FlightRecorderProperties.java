@@ -0,0 +1,36 @@
+package com.example.springboot_social_media.jfr;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.flight-recorder")
+public class FlightRecorderProperties {
+
+    // Off: no interceptors or JDBC wrapper are installed at all
+    private boolean enabled = true;
+
+    // Keep a bounded recording running from startup, so the minutes before an incident can always be dumped
+    private boolean continuous = true;
+
+    // Whether the continuous recording includes JDBC statements. While any recording has them enabled every
+    // connection and statement is wrapped, whatever the threshold, so by default only on-demand recordings do.
+    private boolean continuousJdbcStatements = false;
+
+    // JDK settings for recordings started here: default (about 1% overhead) or profile
+    private String settings = "default";
+
+    // Events shorter than this are dropped by recordings started here
+    private Duration threshold = Duration.ofMillis(20);
+
+    private Duration maxAge = Duration.ofMinutes(15);
+
+    private DataSize maxSize = DataSize.ofMegabytes(100);
+
+    // Dumps are written here, the continuous recording also when the application stops
+    private Path dumpDir = Path.of("recordings");
+}
@@ -0,0 +1,25 @@
+package com.example.springboot_social_media.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("socialmedia.JdbcStatement")
+@Label("JDBC Statement")
+@Category({"Social Media", "JDBC"})
+@Description("A statement sent to the database. For a query it lasts until the result set is closed, so it"
+        + " includes fetching the rows")
+class JdbcStatementEvent extends jdk.jfr.Event {
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Rows")
+    @Description("Rows read for a query, rows changed for an update or batch, -1 when unknown")
+    long rows;
+
+    @Label("Post ID")
+    @Description("The post the enclosing service call or request is about, 0 when none")
+    long postId;
+}
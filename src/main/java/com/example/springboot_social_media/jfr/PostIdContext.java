@@ -0,0 +1,45 @@
+package com.example.springboot_social_media.jfr;
+
+import java.util.function.Supplier;
+
+/**
+ * The post the current thread is working on, so JDBC statement events can name it although the SQL layer
+ * never sees it. Set by the request and service interceptors, 0 when unknown. Work handed to another thread
+ * takes it along with {@link #propagate}.
+ */
+public final class PostIdContext {
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private PostIdContext() {
+    }
+
+    static long current() {
+        Long postId = CURRENT.get();
+        return postId != null ? postId : 0L;
+    }
+
+    // Binds the calling thread's post to the work for whichever thread runs it
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        Long postId = CURRENT.get();
+        return () -> {
+            Long previous = set(postId);
+            try {
+                return work.get();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
+    // Returns the previous value for the caller to restore
+    static Long set(Long postId) {
+        Long previous = CURRENT.get();
+        if (postId == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(postId);
+        }
+        return previous;
+    }
+}
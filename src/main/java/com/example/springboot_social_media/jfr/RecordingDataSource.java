@@ -0,0 +1,171 @@
+package com.example.springboot_social_media.jfr;
+
+import jdk.jfr.EventType;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Emits a {@link JdbcStatementEvent} for every statement run on connections taken from the wrapped pool.
+ * <p>
+ * Connections are only wrapped while a recording has the event enabled; otherwise the pool's own connection
+ * is handed out and nothing is added to the JDBC path. Since a connection is taken per transaction, a
+ * recording started mid-transaction picks statements up from the next one. Every other call, including
+ * {@code unwrap} for the COPY API, goes straight to the driver.
+ */
+public class RecordingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private static final EventType STATEMENT_EVENT = EventType.getEventType(JdbcStatementEvent.class);
+
+    public RecordingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return record(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return record(super.getConnection(username, password));
+    }
+
+    // Replaces the pool as a bean, so it has to pass the container's shutdown on
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+
+    private static Connection record(Connection connection) {
+        return STATEMENT_EVENT.isEnabled() ? proxy(Connection.class, new ConnectionHandler(connection)) : connection;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(RecordingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    // Unwraps reflection so callers see the driver's SQLException, not an UndeclaredThrowableException
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record ConnectionHandler(Connection connection) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = call(connection, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> proxy(PreparedStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "createStatement" -> proxy(Statement.class, new StatementHandler((Statement) result, null));
+                default -> result;
+            };
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+
+        private final String preparedSql;
+
+        // Closing a statement closes its result set without going through the proxy
+        private ResultSetHandler open;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close") && open != null) {
+                open.commit();
+            }
+            if (!name.startsWith("execute")) {
+                return call(statement, method, args);
+            }
+            JdbcStatementEvent event = new JdbcStatementEvent();
+            event.sql = args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql;
+            event.postId = PostIdContext.current();
+            event.begin();
+            Object result;
+            try {
+                result = call(statement, method, args);
+            } catch (Throwable e) {
+                event.rows = -1;
+                event.commit();
+                throw e;
+            }
+            // A query's event is committed when its result set is closed, after the rows have been read
+            if (result instanceof ResultSet resultSet) {
+                open = new ResultSetHandler(resultSet, event);
+                return proxy(ResultSet.class, open);
+            }
+            event.rows = switch (result) {
+                case Integer count -> count;
+                case Long count -> count;
+                case int[] counts -> Arrays.stream(counts).filter(count -> count > 0).sum();
+                case long[] counts -> Arrays.stream(counts).filter(count -> count > 0).sum();
+                case Boolean returnedResultSet -> returnedResultSet ? -1 : statement.getUpdateCount();
+                default -> -1;
+            };
+            event.commit();
+            return result;
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+
+        private final JdbcStatementEvent event;
+
+        private boolean committed;
+
+        ResultSetHandler(ResultSet resultSet, JdbcStatementEvent event) {
+            this.resultSet = resultSet;
+            this.event = event;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = call(resultSet, method, args);
+            switch (method.getName()) {
+                case "next" -> {
+                    if ((Boolean) result) {
+                        event.rows++;
+                    }
+                }
+                case "close" -> commit();
+                default -> {
+                }
+            }
+            return result;
+        }
+
+        void commit() {
+            if (!committed) {
+                committed = true;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.springboot_social_media.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("socialmedia.Request")
+@Label("Controller Request")
+@Category({"Social Media", "Web"})
+@Description("A request handled by a controller, from handler selection until the response is complete")
+class RequestEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Route")
+    @Description("The matched path pattern, so requests for different posts share one route")
+    String route;
+
+    @Label("Status")
+    int status;
+
+    @Label("Post ID")
+    long postId;
+}
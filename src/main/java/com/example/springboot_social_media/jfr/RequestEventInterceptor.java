@@ -0,0 +1,60 @@
+package com.example.springboot_social_media.jfr;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Emits a {@link RequestEvent} per controller request. Costs one allocation and a flag check while no
+ * recording has the event enabled.
+ */
+public class RequestEventInterceptor implements HandlerInterceptor {
+
+    private static final String EVENT = RequestEventInterceptor.class.getName() + ".event";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestEvent event = new RequestEvent();
+        if (!event.isEnabled()) {
+            return true;
+        }
+        event.postId = postId(request);
+        PostIdContext.set(event.postId);
+        request.setAttribute(EVENT, event);
+        event.begin();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(EVENT) instanceof RequestEvent event) {
+            PostIdContext.set(null);
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.route = String.valueOf(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+                event.status = response.getStatus();
+                event.commit();
+            }
+        }
+    }
+
+    // PostController names it id, the nested controllers postId
+    private static long postId(HttpServletRequest request) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null || !request.getRequestURI().startsWith("/api/posts/")) {
+            return 0L;
+        }
+        String postId = variables.getOrDefault("postId", variables.get("id"));
+        try {
+            return postId != null ? Long.parseLong(postId) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
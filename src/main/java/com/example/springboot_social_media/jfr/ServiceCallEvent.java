@@ -0,0 +1,29 @@
+package com.example.springboot_social_media.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("socialmedia.ServiceCall")
+@Label("Service Call")
+@Category({"Social Media", "Service"})
+@Description("A public method of a content service, including its transaction commit")
+class ServiceCallEvent extends jdk.jfr.Event {
+
+    @Label("Service")
+    String service;
+
+    @Label("Method")
+    String method;
+
+    @Label("Post ID")
+    long postId;
+
+    @Label("Rows")
+    @Description("Elements returned for a collection or map, 0 or 1 otherwise, -1 for void")
+    long rows;
+
+    @Label("Exception")
+    String exception;
+}
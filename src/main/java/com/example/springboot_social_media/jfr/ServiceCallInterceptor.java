@@ -0,0 +1,90 @@
+package com.example.springboot_social_media.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emits a {@link ServiceCallEvent} per call into an advised service. The post id is taken from the parameter
+ * the service names it by ({@code id} in PostService, {@code postId} elsewhere). It is also published to
+ * {@link PostIdContext} for the statements the call runs.
+ */
+public class ServiceCallInterceptor implements MethodInterceptor {
+
+    private static final int NO_POST_ID = -1;
+
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final Map<Class<?>, String> postIdParameters;
+
+    // Resolved once per method, reflection stays off the hot path
+    private final Map<Method, Integer> postIdIndexes = new ConcurrentHashMap<>();
+
+    public ServiceCallInterceptor(Map<Class<?>, String> postIdParameters) {
+        this.postIdParameters = Map.copyOf(postIdParameters);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ServiceCallEvent event = new ServiceCallEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        Method method = invocation.getMethod();
+        int index = postIdIndexes.computeIfAbsent(method, m -> postIdIndex(m, invocation.getThis()));
+        Object postId = index == NO_POST_ID ? null : invocation.getArguments()[index];
+        Long previous = postId instanceof Long id ? PostIdContext.set(id) : null;
+        event.begin();
+        try {
+            Object result = invocation.proceed();
+            event.rows = method.getReturnType() == void.class ? -1 : rows(result);
+            return result;
+        } catch (Throwable e) {
+            event.exception = e.getClass().getName();
+            throw e;
+        } finally {
+            if (postId instanceof Long) {
+                PostIdContext.set(previous);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.service = method.getDeclaringClass().getSimpleName();
+                event.method = method.getName();
+                event.postId = postId instanceof Long id ? id : PostIdContext.current();
+                event.commit();
+            }
+        }
+    }
+
+    private int postIdIndex(Method method, Object target) {
+        String name = postIdParameters.get(AopUtils.getTargetClass(target));
+        String[] names = PARAMETER_NAMES.getParameterNames(method);
+        if (name == null || names == null) {
+            return NO_POST_ID;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name) && method.getParameterTypes()[i] == Long.class) {
+                return i;
+            }
+        }
+        return NO_POST_ID;
+    }
+
+    private static long rows(Object result) {
+        return switch (result) {
+            case null -> 0;
+            case Collection<?> collection -> collection.size();
+            case Map<?, ?> map -> map.size();
+            case Optional<?> optional -> optional.isPresent() ? 1 : 0;
+            default -> 1;
+        };
+    }
+}
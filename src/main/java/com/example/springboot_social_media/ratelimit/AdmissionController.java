@@ -0,0 +1,40 @@
+package com.example.springboot_social_media.ratelimit;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of write requests in flight so excess load is shed
+ * before it piles up waiting on the connection pool.
+ */
+public class AdmissionController {
+
+    private final Semaphore permits;
+
+    private final int maxConcurrent;
+
+    private final long timeoutMs;
+
+    public AdmissionController(int maxConcurrent, long timeoutMs) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public boolean tryEnter() {
+        try {
+            return permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void exit() {
+        permits.release();
+    }
+
+    public int inFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.springboot_social_media.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards the write endpoints (POST/PUT/PATCH/DELETE) with a per-user and per-IP token bucket,
+ * followed by a global concurrency cap. Rejections are answered with 429 or 503 and counted
+ * under {@code http.server.requests.rejected}. A request the user bucket rejects gives its IP permit back,
+ * so one throttled user does not spend the budget of everyone behind the same address.
+ * <p>
+ * Only the remote address and an authenticated principal are controlled by the server. Without a principal,
+ * the user id a client claims is bucketed together with its address. A client cannot spend another
+ * address's budget for that id, so it cannot lock the real user out. Rotating the claimed id only helps
+ * within the per-IP limit, so without authentication the per-user limit is advisory and the per-IP one binds.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    static final String USER_HEADER = "X-User-Id";
+
+    private static final String ADMITTED = RateLimitInterceptor.class.getName() + ".admitted";
+
+    private final TokenBucketRateLimiter userLimiter;
+
+    private final TokenBucketRateLimiter ipLimiter;
+
+    private final AdmissionController admissionController;
+
+    private final Counter userRejected;
+
+    private final Counter ipRejected;
+
+    private final Counter overloadRejected;
+
+    public RateLimitInterceptor(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.userLimiter = new TokenBucketRateLimiter(properties.getStripes(),
+                properties.getUser().getPermitsPerSecond(), properties.getUser().getBurst());
+        this.ipLimiter = new TokenBucketRateLimiter(properties.getStripes(),
+                properties.getIp().getPermitsPerSecond(), properties.getIp().getBurst());
+        this.admissionController = new AdmissionController(
+                properties.getMaxConcurrentWrites(), properties.getAdmissionTimeoutMs());
+
+        this.userRejected = rejectedCounter(meterRegistry, "user_rate");
+        this.ipRejected = rejectedCounter(meterRegistry, "ip_rate");
+        this.overloadRejected = rejectedCounter(meterRegistry, "overload");
+        Gauge.builder("http.server.requests.writes.inflight", admissionController, AdmissionController::inFlight)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!isWrite(request)) {
+            return true;
+        }
+
+        long ipWait = ipLimiter.tryAcquire(request.getRemoteAddr());
+        if (ipWait > 0) {
+            ipRejected.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, ipWait);
+            return false;
+        }
+
+        String userKey = userKey(request);
+        if (userKey != null) {
+            long userWait = userLimiter.tryAcquire(userKey);
+            if (userWait > 0) {
+                ipLimiter.release(request.getRemoteAddr());
+                userRejected.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, userWait);
+                return false;
+            }
+        }
+
+        if (!admissionController.tryEnter()) {
+            overloadRejected.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1));
+            return false;
+        }
+        request.setAttribute(ADMITTED, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ADMITTED) != null) {
+            request.removeAttribute(ADMITTED);
+            admissionController.exit();
+        }
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !HttpMethod.GET.matches(method)
+                && !HttpMethod.HEAD.matches(method)
+                && !HttpMethod.OPTIONS.matches(method);
+    }
+
+    // Like endpoints carry the acting user as ?userId=; other writes may send it as a header
+    static String userKey(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "principal:" + principal.getName();
+        }
+        String userId = request.getParameter("userId");
+        if (userId == null) {
+            userId = request.getHeader(USER_HEADER);
+        }
+        return userId != null ? "claimed:" + request.getRemoteAddr() + "/" + userId : null;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long waitNanos) {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("http.server.requests.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.springboot_social_media.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Number of buckets per limiter; keys hash onto a bucket so memory stays fixed
+    private int stripes = 4096;
+
+    private Bucket user = new Bucket(5.0, 20);
+
+    private Bucket ip = new Bucket(20.0, 60);
+
+    // Keep below the Hikari maximum-pool-size so writes queue here, not on the pool
+    private int maxConcurrentWrites = 8;
+
+    private long admissionTimeoutMs = 50;
+
+    @Data
+    public static class Bucket {
+        private double permitsPerSecond;
+        private int burst;
+
+        public Bucket() {}
+
+        public Bucket(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+}
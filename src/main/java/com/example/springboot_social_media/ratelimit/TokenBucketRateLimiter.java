@@ -0,0 +1,74 @@
+package com.example.springboot_social_media.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free token bucket backed by a fixed array of striped buckets.
+ * <p>
+ * Each bucket holds a single "theoretical arrival time" (GCRA), so a take is one CAS on one long.
+ * Keys are hashed onto a bucket; two keys sharing a stripe share a budget, which errs on the strict side
+ * but keeps memory bounded regardless of how many distinct users or addresses show up.
+ */
+public class TokenBucketRateLimiter {
+
+    private final AtomicLongArray buckets;
+
+    private final int mask;
+
+    private final long emissionIntervalNanos;
+
+    private final long burstToleranceNanos;
+
+    // Timestamps are kept relative to construction so an untouched bucket (0) always admits
+    private final long origin = System.nanoTime();
+
+    public TokenBucketRateLimiter(int stripes, double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be > 0 and burst >= 1");
+        }
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.buckets = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+    }
+
+    /**
+     * @return 0 if a permit was taken, otherwise the number of nanoseconds until one becomes available
+     */
+    public long tryAcquire(Object key) {
+        return tryAcquire(key, System.nanoTime() - origin);
+    }
+
+    long tryAcquire(Object key, long now) {
+        int index = spread(key.hashCode()) & mask;
+        while (true) {
+            long tat = buckets.get(index);
+            long base = Math.max(tat, now);
+            long allowAt = base - burstToleranceNanos;
+            if (allowAt > now) {
+                return allowAt - now;
+            }
+            if (buckets.compareAndSet(index, tat, base + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    // Gives back a permit taken by tryAcquire, for a request that was rejected further on
+    public void release(Object key) {
+        int index = spread(key.hashCode()) & mask;
+        while (true) {
+            long tat = buckets.get(index);
+            if (tat == 0 || buckets.compareAndSet(index, tat, Math.max(0, tat - emissionIntervalNanos))) {
+                return;
+            }
+        }
+    }
+
+    private static int spread(int h) {
+        h ^= (h >>> 16);
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+}
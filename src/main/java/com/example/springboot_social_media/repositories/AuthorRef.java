@@ -0,0 +1,7 @@
+package com.example.springboot_social_media.repositories;
+
+// Id and author of a post, comment or reply, for resolving notification recipients in bulk
+public interface AuthorRef {
+    Long getId();
+    Long getAuthorId();
+}
@@ -0,0 +1,43 @@
+package com.example.springboot_social_media.repositories;
+
+import com.example.springboot_social_media.entity.BulkJob;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface BulkJobRepository extends ListCrudRepository<BulkJob, Long> {
+    List<BulkJob> findByStatus(BulkJob.Status status);
+
+    // Runs in the chunk's transaction, so the data and the checkpoint commit together
+    @Modifying
+    @Query("""
+            UPDATE BulkJob j
+               SET j.currentTable = :table,
+                   j.lastId = :lastId,
+                   j.chunkIndex = :chunkIndex,
+                   j.rowsDone = j.rowsDone + :rows,
+                   j.chunksDone = j.chunksDone + 1,
+                   j.updatedAt = LOCAL DATETIME
+             WHERE j.id = :id
+            """)
+    int checkpoint(@Param("id") Long id,
+                   @Param("table") String table,
+                   @Param("lastId") long lastId,
+                   @Param("chunkIndex") int chunkIndex,
+                   @Param("rows") long rows);
+
+    @Modifying
+    @Query("""
+            UPDATE BulkJob j
+               SET j.currentTable = :table, j.lastId = 0, j.chunkIndex = 0, j.updatedAt = LOCAL DATETIME
+             WHERE j.id = :id
+            """)
+    int startTable(@Param("id") Long id, @Param("table") String table);
+
+    @Modifying
+    @Query("UPDATE BulkJob j SET j.status = :status, j.error = :error, j.updatedAt = LOCAL DATETIME WHERE j.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") BulkJob.Status status, @Param("error") String error);
+}
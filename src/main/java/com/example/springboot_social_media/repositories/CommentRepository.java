@@ -1,11 +1,223 @@
 package com.example.springboot_social_media.repositories;
 
 import com.example.springboot_social_media.entity.Comment;
-import org.springframework.data.repository.ListCrudRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface CommentRepository extends ListCrudRepository<Comment, Long> {
+public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPostIdAndIsDeletedFalseOrderByCreatedAt(Long postId);
     List<Comment> findByAuthorIdAndIsDeletedFalseOrderByCreatedAtDesc(Long authorId);
+    Window<Comment> findByAuthorIdAndIsDeletedFalseOrderByCreatedAtDescIdDesc(Long authorId, ScrollPosition position, Limit limit);
+
+    @Query("""
+            SELECT c.id AS id, c.authorId AS authorId, c.content AS content, c.createdAt AS createdAt,
+                   c.updatedAt AS updatedAt, c.isDeleted AS isDeleted, c.version AS version,
+                   c.replyCount AS replyCount, c.descendantCount AS descendantCount
+            FROM Comment c
+            WHERE c.post.id = :postId AND c.isDeleted = false
+              AND c.createdAt >= (SELECT p.createdAt FROM Post p WHERE p.id = :postId)
+            ORDER BY c.createdAt
+            """)
+    List<CommentView> findViewsByPostId(@Param("postId") Long postId);
+
+    // The oldest perPost comments of each post. Bounded by the oldest of the posts, so partitions older than
+    // all of them are pruned
+    @Query(value = """
+            SELECT ranked.id, ranked.postId, ranked.authorId, ranked.content, ranked.createdAt, ranked.updatedAt,
+                   ranked.isDeleted, ranked.version, ranked.replyCount, ranked.descendantCount
+            FROM (SELECT c.id AS id, c.post_id AS postId, c.author_id AS authorId, c.content AS content,
+                         c.created_at AS createdAt, c.updated_at AS updatedAt, c.is_deleted AS isDeleted,
+                         c.version AS version, c.reply_count AS replyCount, c.descendant_count AS descendantCount,
+                         ROW_NUMBER() OVER (PARTITION BY c.post_id ORDER BY c.created_at, c.id) AS rn
+                    FROM comments c
+                   WHERE c.post_id IN (:postIds) AND c.is_deleted = false
+                     AND c.created_at >= (SELECT MIN(p.created_at) FROM posts p WHERE p.id IN (:postIds))) ranked
+            WHERE ranked.rn <= :perPost
+            ORDER BY ranked.createdAt, ranked.id
+            """, nativeQuery = true)
+    List<PostCommentView> findViewsByPostIdIn(@Param("postIds") Collection<Long> postIds,
+                                              @Param("perPost") int perPost);
+
+    // Sorted thread views: keyset pages ordered by (key, id) descending, strictly after (key, afterId). The first page
+    // passes a key above any stored value and Long.MAX_VALUE as id.
+    @Query("""
+            SELECT c.id AS id, c.authorId AS authorId, c.content AS content, c.createdAt AS createdAt,
+                   c.updatedAt AS updatedAt, c.isDeleted AS isDeleted, c.version AS version,
+                   c.replyCount AS replyCount, c.descendantCount AS descendantCount,
+                   c.likeTotal AS likeTotal, c.controversyScore AS controversyScore
+            FROM Comment c
+            WHERE c.post.id = :postId AND c.isDeleted = false
+              AND c.createdAt >= (SELECT p.createdAt FROM Post p WHERE p.id = :postId)
+              AND (c.likeTotal, c.id) < (:afterLikes, :afterId)
+            ORDER BY c.likeTotal DESC, c.id DESC
+            """)
+    List<ScoredCommentView> findTopViewsByPostId(@Param("postId") Long postId,
+                                                 @Param("afterLikes") Integer afterLikes,
+                                                 @Param("afterId") Long afterId,
+                                                 Limit limit);
+
+    // Newest first
+    @Query("""
+            SELECT c.id AS id, c.authorId AS authorId, c.content AS content, c.createdAt AS createdAt,
+                   c.updatedAt AS updatedAt, c.isDeleted AS isDeleted, c.version AS version,
+                   c.replyCount AS replyCount, c.descendantCount AS descendantCount,
+                   c.likeTotal AS likeTotal, c.controversyScore AS controversyScore
+            FROM Comment c
+            WHERE c.post.id = :postId AND c.isDeleted = false
+              AND c.createdAt >= (SELECT p.createdAt FROM Post p WHERE p.id = :postId)
+              AND (c.createdAt, c.id) < (:afterCreatedAt, :afterId)
+            ORDER BY c.createdAt DESC, c.id DESC
+            """)
+    List<ScoredCommentView> findNewViewsByPostId(@Param("postId") Long postId,
+                                                 @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                 @Param("afterId") Long afterId,
+                                                 Limit limit);
+
+    // Most divided first
+    @Query("""
+            SELECT c.id AS id, c.authorId AS authorId, c.content AS content, c.createdAt AS createdAt,
+                   c.updatedAt AS updatedAt, c.isDeleted AS isDeleted, c.version AS version,
+                   c.replyCount AS replyCount, c.descendantCount AS descendantCount,
+                   c.likeTotal AS likeTotal, c.controversyScore AS controversyScore
+            FROM Comment c
+            WHERE c.post.id = :postId AND c.isDeleted = false
+              AND c.createdAt >= (SELECT p.createdAt FROM Post p WHERE p.id = :postId)
+              AND (c.controversyScore, c.id) < (:afterScore, :afterId)
+            ORDER BY c.controversyScore DESC, c.id DESC
+            """)
+    List<ScoredCommentView> findControversialViewsByPostId(@Param("postId") Long postId,
+                                                           @Param("afterScore") Double afterScore,
+                                                           @Param("afterId") Long afterId,
+                                                           Limit limit);
+
+    @Query("""
+            SELECT c.id AS id, c.authorId AS authorId, c.content AS content, c.createdAt AS createdAt,
+                   c.updatedAt AS updatedAt, c.isDeleted AS isDeleted, c.version AS version,
+                   c.replyCount AS replyCount, c.descendantCount AS descendantCount
+            FROM Comment c
+            WHERE c.id = :id
+            """)
+    Optional<CommentView> findViewById(@Param("id") Long id);
+
+    // A null expectedVersion skips the version check; deleted comments are never changed
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            UPDATE Comment c
+               SET c.content = :content,
+                   c.updatedAt = LOCAL DATETIME,
+                   c.version = c.version + 1
+             WHERE c.id = :id
+               AND c.isDeleted = false
+               AND (:expectedVersion IS NULL OR c.version = :expectedVersion)
+            """)
+    int patchContent(@Param("id") Long id,
+                     @Param("content") String content,
+                     @Param("expectedVersion") Long expectedVersion);
+
+    boolean existsByIdAndIsDeletedFalse(Long id);
+
+    // Covers the comments and their embedded replies, so any edit, delete, reply or like changes it. Likes
+    // leave updated_at alone, so the newest like and the per-item like counts are covered separately
+    @Query(value = """
+            WITH post AS (SELECT created_at FROM posts WHERE id = :postId),
+                 thread_comments AS (SELECT id, updated_at FROM comments
+                                      WHERE post_id = :postId AND created_at >= (SELECT created_at FROM post)),
+                 thread_replies AS (SELECT id, updated_at FROM replies
+                                     WHERE post_id = :postId AND created_at >= (SELECT created_at FROM post)),
+                 thread_likes AS (SELECT l.likeable_type, l.likeable_id, COUNT(*) AS likes,
+                                         MAX(l.created_at) AS last_liked
+                                    FROM likes l JOIN thread_comments c
+                                      ON l.likeable_type = 'comment' AND l.likeable_id = c.id
+                                   GROUP BY l.likeable_type, l.likeable_id
+                                  UNION ALL
+                                  SELECT l.likeable_type, l.likeable_id, COUNT(*) AS likes,
+                                         MAX(l.created_at) AS last_liked
+                                    FROM likes l JOIN thread_replies r
+                                      ON l.likeable_type = 'reply' AND l.likeable_id = r.id
+                                   GROUP BY l.likeable_type, l.likeable_id)
+            SELECT CAST(EXTRACT(EPOCH FROM GREATEST(
+                       (SELECT MAX(updated_at) FROM thread_comments),
+                       (SELECT MAX(updated_at) FROM thread_replies),
+                       (SELECT MAX(last_liked) FROM thread_likes))) * 1000 AS BIGINT) AS lastModified,
+                   (SELECT COUNT(*) FROM thread_comments) + (SELECT COUNT(*) FROM thread_replies) AS itemCount,
+                   (SELECT CAST(COALESCE(SUM(likes), 0) AS BIGINT) FROM thread_likes) AS likeCount,
+                   (SELECT BIT_XOR(hashtextextended(likeable_type || ':' || likeable_id || ':' || likes, 0))
+                      FROM thread_likes) AS digest
+            """, nativeQuery = true)
+    ContentVersion findThreadVersionByPostId(@Param("postId") Long postId);
+
+    // Native DML evicts every cache region unless its query spaces are declared. These name a space no entity is
+    // mapped to, so nothing is evicted by Hibernate and ReplyService evicts the comments it changed by id
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "comments_by_id"))
+    @Query(value = """
+            UPDATE comments
+               SET reply_count = reply_count + :replyDelta,
+                   descendant_count = descendant_count + :descendantDelta
+             WHERE id = :id
+            """, nativeQuery = true)
+    int adjustReplyCounts(@Param("id") Long id,
+                          @Param("replyDelta") int replyDelta,
+                          @Param("descendantDelta") int descendantDelta);
+
+    // Recomputes both counters from the replies table for the comments of posts in (fromPostId, toPostId] and
+    // returns how many had drifted. Replies under a deleted reply are counted, as thread reads keep that reply
+    // as a tombstone above them.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "comments_by_id"))
+    @Query(value = """
+            UPDATE comments c
+               SET reply_count = COALESCE(agg.direct, 0),
+                   descendant_count = COALESCE(agg.total, 0)
+              FROM comments c2
+              LEFT JOIN (SELECT r.path_sort[1] AS comment_id,
+                                COUNT(*) FILTER (WHERE r.parent_comment_id IS NOT NULL) AS direct,
+                                COUNT(*) AS total
+                           FROM replies r
+                          WHERE r.is_deleted = false
+                            AND r.post_id > :fromPostId AND r.post_id <= :toPostId
+                          GROUP BY r.path_sort[1]) agg ON agg.comment_id = c2.id
+             WHERE c.id = c2.id
+               AND c2.post_id > :fromPostId AND c2.post_id <= :toPostId
+               AND (c.reply_count <> COALESCE(agg.direct, 0) OR c.descendant_count <> COALESCE(agg.total, 0))
+            """, nativeQuery = true)
+    int repairReplyCounts(@Param("fromPostId") long fromPostId, @Param("toPostId") long toPostId);
+
+    // Recomputes like_count from the likes table for the comments of posts in (fromPostId, toPostId] and returns
+    // how many had drifted. Drifted rows are stamped with repairedAt, see CommentScoreUpdater
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "comments_by_id"))
+    @Query(value = """
+            UPDATE comments c
+               SET like_count = COALESCE(agg.likes, 0),
+                   like_count_repaired_at = :repairedAt
+              FROM comments c2
+              LEFT JOIN (SELECT l.likeable_id AS comment_id, COUNT(*) AS likes
+                           FROM likes l
+                           JOIN comments lc ON lc.id = l.likeable_id
+                          WHERE l.likeable_type = 'comment'
+                            AND lc.post_id > :fromPostId AND lc.post_id <= :toPostId
+                          GROUP BY l.likeable_id) agg ON agg.comment_id = c2.id
+             WHERE c.id = c2.id
+               AND c2.post_id > :fromPostId AND c2.post_id <= :toPostId
+               AND c.like_count <> COALESCE(agg.likes, 0)
+            """, nativeQuery = true)
+    int repairLikeCounts(@Param("fromPostId") long fromPostId, @Param("toPostId") long toPostId,
+                         @Param("repairedAt") long repairedAt);
+
+    @Query("SELECT c.id AS id, c.authorId AS authorId FROM Comment c WHERE c.id IN :ids")
+    List<AuthorRef> findAuthorsByIdIn(@Param("ids") Collection<Long> ids);
 }
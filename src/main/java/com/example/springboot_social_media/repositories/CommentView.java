@@ -0,0 +1,15 @@
+package com.example.springboot_social_media.repositories;
+
+import java.time.LocalDateTime;
+
+public interface CommentView {
+    Long getId();
+    Long getAuthorId();
+    String getContent();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+    Boolean getIsDeleted();
+    Long getVersion();
+    Integer getReplyCount();
+    Integer getDescendantCount();
+}
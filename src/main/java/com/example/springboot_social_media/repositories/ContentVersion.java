@@ -0,0 +1,18 @@
+package com.example.springboot_social_media.repositories;
+
+/**
+ * Cheap change fingerprint for a resource, read with aggregate queries instead of loading entities.
+ */
+public interface ContentVersion {
+    // Epoch millis of the newest updated_at, null when nothing exists yet
+    Long getLastModified();
+
+    Long getItemCount();
+
+    Long getLikeCount();
+
+    // XOR of a hash per item over what the body shows that updated_at does not track, such as its like
+    // count, so moving a like from one item to another changes it. Null when there is nothing to cover.
+    // For the feed it is the feed_version write counter instead
+    Long getDigest();
+}
@@ -0,0 +1,14 @@
+package com.example.springboot_social_media.repositories;
+
+import com.example.springboot_social_media.entity.DailyEngagement;
+import com.example.springboot_social_media.entity.EngagementScope;
+import org.springframework.data.repository.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// A primary key range scan: at most one row per day of the range, however large the raw tables are
+public interface DailyEngagementRepository extends Repository<DailyEngagement, DailyEngagement.Key> {
+    List<DailyEngagement> findByScopeAndSubjectIdAndDayBetweenOrderByDay(
+            EngagementScope scope, Long subjectId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,15 @@
+package com.example.springboot_social_media.repositories;
+
+import com.example.springboot_social_media.entity.HeldContent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.ListCrudRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface HeldContentRepository extends ListCrudRepository<HeldContent, Long> {
+    // Oldest first, the order a moderator works through the queue
+    List<HeldContent> findAllByOrderByCreatedAtAscIdAsc(Limit limit);
+
+    Optional<HeldContent> findByIdAndPostId(Long id, Long postId);
+}
@@ -0,0 +1,6 @@
+package com.example.springboot_social_media.repositories;
+
+public interface LikeCount {
+    Long getLikeableId();
+    Long getLikeCount();
+}
@@ -2,16 +2,46 @@ package com.example.springboot_social_media.repositories;
 
 import com.example.springboot_social_media.entity.Like;
 import com.example.springboot_social_media.entity.LikeableType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface LikeRepository extends ListCrudRepository<Like, Long> {
     List<Like> findByUserIdOrderByCreatedAtDesc(Long userId);
+    Window<Like> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, ScrollPosition position, Limit limit);
     List<Like> findByLikeableTypeAndLikeableId(LikeableType likeableType, Long likeableId);
     boolean existsByUserIdAndLikeableTypeAndLikeableId(Long userId, LikeableType likeableType, Long likeableId);
     void deleteByUserIdAndLikeableTypeAndLikeableId(Long userId, LikeableType likeableType, Long likeableId);
     void deleteByLikeableTypeAndLikeableId(LikeableType likeableType, Long likeableId);
     long countByLikeableTypeAndLikeableId(LikeableType likeableType, Long likeableId);
     List<Like> findByLikeableType(LikeableType likeableType);
+
+    // likeableType is the lowercase column value, see LikeableType#getValue
+    @Query(value = """
+            SELECT l.likeable_id AS likeableId, COUNT(*) AS likeCount
+            FROM likes l
+            WHERE l.likeable_type = :likeableType AND l.likeable_id IN (:ids)
+            GROUP BY l.likeable_id
+            """, nativeQuery = true)
+    List<LikeCount> findLikeCounts(@Param("likeableType") String likeableType,
+                                   @Param("ids") Collection<Long> ids);
+
+    // The newest perItem likes of each item, ordered by item
+    @Query(value = """
+            SELECT ranked.id, ranked.user_id, ranked.likeable_type, ranked.likeable_id, ranked.created_at
+            FROM (SELECT l.*, ROW_NUMBER() OVER (PARTITION BY l.likeable_id ORDER BY l.created_at DESC, l.id DESC) AS rn
+                    FROM likes l
+                   WHERE l.likeable_type = :likeableType AND l.likeable_id IN (:ids)) ranked
+            WHERE ranked.rn <= :perItem
+            ORDER BY ranked.likeable_id, ranked.created_at DESC, ranked.id DESC
+            """, nativeQuery = true)
+    List<Like> findRecentByItems(@Param("likeableType") String likeableType,
+                                 @Param("ids") Collection<Long> ids,
+                                 @Param("perItem") int perItem);
 }
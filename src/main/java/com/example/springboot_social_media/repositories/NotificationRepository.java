@@ -0,0 +1,97 @@
+package com.example.springboot_social_media.repositories;
+
+import com.example.springboot_social_media.entity.Notification;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface NotificationRepository extends ListCrudRepository<Notification, Long> {
+    Window<Notification> findByRecipientIdAndIsReadFalseOrderByUpdatedAtDescIdDesc(
+            Long recipientId, ScrollPosition position, Limit limit);
+
+    long countByRecipientIdAndIsReadFalse(Long recipientId);
+
+    // Creates the recipient's unread row for this target unless there already is one; actors are added separately
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"))
+    @Query(value = """
+            INSERT INTO notifications (recipient_id, type, target_type, target_id, actor_count, last_actor_id)
+            VALUES (:recipientId, :type, :targetType, :targetId, 0, :lastActorId)
+            ON CONFLICT (recipient_id, type, target_type, target_id) WHERE is_read = false DO NOTHING
+            """, nativeQuery = true)
+    int openUnread(@Param("recipientId") Long recipientId,
+                   @Param("type") String type,
+                   @Param("targetType") String targetType,
+                   @Param("targetId") Long targetId,
+                   @Param("lastActorId") Long lastActorId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notification_actors"))
+    @Query(value = """
+            DELETE FROM notification_actors na
+             USING notifications n
+             WHERE na.notification_id = n.id
+               AND n.recipient_id = :recipientId AND n.type = :type
+               AND n.target_type = :targetType AND n.target_id = :targetId AND n.is_read = false
+               AND na.actor_id IN :actorIds
+            """, nativeQuery = true)
+    int removeUnreadActors(@Param("recipientId") Long recipientId,
+                           @Param("type") String type,
+                           @Param("targetType") String targetType,
+                           @Param("targetId") Long targetId,
+                           @Param("actorIds") Collection<Long> actorIds);
+
+    // Recounts the unread row from its actors; touched moves it back to the top of the recipient's list
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"))
+    @Query(value = """
+            UPDATE notifications n
+               SET actor_count = (SELECT COUNT(*) FROM notification_actors na WHERE na.notification_id = n.id),
+                   last_actor_id = COALESCE((SELECT na.actor_id FROM notification_actors na
+                                              WHERE na.notification_id = n.id
+                                              ORDER BY na.created_at DESC, na.actor_id DESC
+                                              LIMIT 1), n.last_actor_id),
+                   updated_at = CASE WHEN :touched THEN CURRENT_TIMESTAMP ELSE n.updated_at END
+             WHERE n.recipient_id = :recipientId AND n.type = :type
+               AND n.target_type = :targetType AND n.target_id = :targetId AND n.is_read = false
+            """, nativeQuery = true)
+    int recountUnread(@Param("recipientId") Long recipientId,
+                      @Param("type") String type,
+                      @Param("targetType") String targetType,
+                      @Param("targetId") Long targetId,
+                      @Param("touched") boolean touched);
+
+    // An unread row whose every actor took their action back is removed
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"))
+    @Query(value = """
+            DELETE FROM notifications n
+             WHERE n.recipient_id = :recipientId AND n.type = :type
+               AND n.target_type = :targetType AND n.target_id = :targetId AND n.is_read = false
+               AND n.actor_count = 0
+            """, nativeQuery = true)
+    int deleteEmptyUnread(@Param("recipientId") Long recipientId,
+                          @Param("type") String type,
+                          @Param("targetType") String targetType,
+                          @Param("targetId") Long targetId);
+
+    @Modifying
+    @Query("""
+            UPDATE Notification n SET n.isRead = true
+             WHERE n.recipientId = :recipientId AND n.isRead = false AND n.id IN :ids
+            """)
+    int markRead(@Param("recipientId") Long recipientId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.recipientId = :recipientId AND n.isRead = false")
+    int markAllRead(@Param("recipientId") Long recipientId);
+}
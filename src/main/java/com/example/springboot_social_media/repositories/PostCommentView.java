@@ -0,0 +1,8 @@
+package com.example.springboot_social_media.repositories;
+
+/**
+ * A comment view that also names its post, for queries spanning several posts.
+ */
+public interface PostCommentView extends CommentView {
+    Long getPostId();
+}
@@ -1,12 +1,116 @@
 package com.example.springboot_social_media.repositories;
 
 import com.example.springboot_social_media.entity.Post;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface PostRepository extends ListCrudRepository<Post, Long> {
+public interface PostRepository extends JpaRepository<Post, Long> {
     List<Post> findByIsPublishedTrueOrderByCreatedAtDesc();
     List<Post> findByAuthorIdOrderByCreatedAtDesc(Long authorId);
+    Window<Post> findByAuthorIdAndIsPublishedTrueOrderByCreatedAtDescIdDesc(Long authorId, ScrollPosition position, Limit limit);
+
+    @Query(value = "SELECT COALESCE(MAX(id), 0) FROM posts", nativeQuery = true)
+    long findMaxId();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+            SELECT p.id AS id, p.title AS title, p.content AS content, p.authorId AS authorId,
+                   p.createdAt AS createdAt, p.updatedAt AS updatedAt, p.isPublished AS isPublished,
+                   p.viewCount AS viewCount, p.version AS version
+            FROM Post p
+            WHERE p.id = :id
+            """)
+    Optional<PostView> findViewById(@Param("id") Long id);
+
+    @Query("""
+            SELECT p.id AS id, p.title AS title, p.content AS content, p.authorId AS authorId,
+                   p.createdAt AS createdAt, p.updatedAt AS updatedAt, p.isPublished AS isPublished,
+                   p.viewCount AS viewCount, p.version AS version
+            FROM Post p
+            WHERE p.isPublished = true
+            ORDER BY p.createdAt DESC, p.id DESC
+            """)
+    List<PostView> findPublishedViews(Limit limit);
+
+    // Cached until the next write to posts or comments invalidates the query spaces
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+            SELECT p.id AS id, p.title AS title, p.content AS content, p.authorId AS authorId,
+                   p.createdAt AS createdAt,
+                   (SELECT COUNT(c) FROM Comment c
+                     WHERE c.post = p AND c.isDeleted = false AND c.createdAt >= p.createdAt) AS commentCount
+            FROM Post p
+            WHERE p.isPublished = true
+            ORDER BY p.createdAt DESC, p.id DESC
+            """)
+    List<PostSummaryView> findPublishedSummaries();
+
+    // Null fields keep their current value; a null expectedVersion skips the version check
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            UPDATE Post p
+               SET p.title = COALESCE(:title, p.title),
+                   p.content = COALESCE(:content, p.content),
+                   p.updatedAt = LOCAL DATETIME,
+                   p.version = p.version + 1
+             WHERE p.id = :id
+               AND (:expectedVersion IS NULL OR p.version = :expectedVersion)
+            """)
+    int patchPost(@Param("id") Long id,
+                  @Param("title") String title,
+                  @Param("content") String content,
+                  @Param("expectedVersion") Long expectedVersion);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            UPDATE Post p
+               SET p.isPublished = :published,
+                   p.updatedAt = LOCAL DATETIME,
+                   p.version = p.version + 1
+             WHERE p.id = :id
+            """)
+    int updatePublished(@Param("id") Long id, @Param("published") boolean published);
+
+    // Counter bump only, deliberately leaves version alone so views never conflict with edits
+    @Modifying
+    @Query("UPDATE Post p SET p.viewCount = p.viewCount + 1 WHERE p.id = :id")
+    int incrementViewCount(@Param("id") Long id);
+
+    // view_count is part of the serialized post, so it stands in for the item count here
+    @Query(value = """
+            SELECT CAST(EXTRACT(EPOCH FROM p.updated_at) * 1000 AS BIGINT) AS lastModified,
+                   CAST(p.view_count AS BIGINT) AS itemCount,
+                   (SELECT COUNT(*) FROM likes l
+                     WHERE l.likeable_type = 'post' AND l.likeable_id = p.id) AS likeCount,
+                   CAST(NULL AS BIGINT) AS digest
+            FROM posts p
+            WHERE p.id = :id
+            """, nativeQuery = true)
+    Optional<ContentVersion> findVersionById(@Param("id") Long id);
+
+    // One row per stripe of the feed_version write counter, whatever the size of the feed. Its sum is the
+    // digest; there is no Last-Modified, since deletes and unlikes leave no newer timestamp behind
+    @Query(value = """
+            SELECT CAST(NULL AS BIGINT) AS lastModified,
+                   CAST(NULL AS BIGINT) AS itemCount,
+                   CAST(NULL AS BIGINT) AS likeCount,
+                   CAST(SUM(version) AS BIGINT) AS digest
+            FROM feed_version
+            """, nativeQuery = true)
+    ContentVersion findPublishedFeedVersion();
+
+    @Query("SELECT p.id AS id, p.authorId AS authorId FROM Post p WHERE p.id IN :ids")
+    List<AuthorRef> findAuthorsByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,12 @@
+package com.example.springboot_social_media.repositories;
+
+import java.time.LocalDateTime;
+
+public interface PostSummaryView {
+    Long getId();
+    String getTitle();
+    String getContent();
+    Long getAuthorId();
+    LocalDateTime getCreatedAt();
+    Long getCommentCount();
+}
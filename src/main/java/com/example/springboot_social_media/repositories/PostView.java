@@ -0,0 +1,15 @@
+package com.example.springboot_social_media.repositories;
+
+import java.time.LocalDateTime;
+
+public interface PostView {
+    Long getId();
+    String getTitle();
+    String getContent();
+    Long getAuthorId();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+    Boolean getIsPublished();
+    Integer getViewCount();
+    Long getVersion();
+}
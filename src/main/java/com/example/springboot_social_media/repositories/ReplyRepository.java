@@ -1,13 +1,212 @@
 package com.example.springboot_social_media.repositories;
 
 import com.example.springboot_social_media.entity.Reply;
-import org.springframework.data.repository.ListCrudRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ReplyRepository extends ListCrudRepository<Reply, Long> {
-    List<Reply> findByPostIdAndIsDeletedFalseOrderByPath(Long postId);
+public interface ReplyRepository extends JpaRepository<Reply, Long> {
+    // Thread reads keep a soft-deleted reply that still has live descendants as a tombstone with blank content,
+    // so the descendants stay under it. descendant_count only counts live replies.
+
+    // path_sort orders the ltree numerically, so reply 10 follows reply 9
+    @Query(value = """
+            SELECT r.* FROM replies r
+            WHERE r.post_id = :postId AND r.is_deleted = false
+              AND r.created_at >= (SELECT p.created_at FROM posts p WHERE p.id = :postId)
+            ORDER BY r.path_sort
+            """, nativeQuery = true)
+    List<Reply> findByPostIdAndIsDeletedFalseOrderByPath(@Param("postId") Long postId);
     List<Reply> findByParentCommentIdAndIsDeletedFalseOrderByCreatedAt(Long commentId);
     List<Reply> findByParentReplyIdAndIsDeletedFalseOrderByCreatedAt(Long replyId);
     List<Reply> findByAuthorIdAndIsDeletedFalseOrderByCreatedAtDesc(Long authorId);
+    Window<Reply> findByAuthorIdAndIsDeletedFalseOrderByCreatedAtDescIdDesc(Long authorId, ScrollPosition position, Limit limit);
+
+    @Query("""
+            SELECT r.id AS id, r.parentComment.id AS parentCommentId, r.parentReply.id AS parentReplyId,
+                   r.authorId AS authorId, r.content AS content, r.createdAt AS createdAt,
+                   r.updatedAt AS updatedAt, r.isDeleted AS isDeleted, r.depthLevel AS depthLevel, r.path AS path,
+                   r.replyCount AS replyCount, r.descendantCount AS descendantCount
+            FROM Reply r
+            WHERE r.id = :id
+            """)
+    Optional<ReplyView> findViewById(@Param("id") Long id);
+
+    // The oldest perParent direct replies of each of several comments; replies are never older than their parent
+    @Query(value = """
+            SELECT ranked.id, ranked.parentCommentId, ranked.parentReplyId, ranked.authorId, ranked.content,
+                   ranked.createdAt, ranked.updatedAt, ranked.isDeleted, ranked.depthLevel, ranked.path,
+                   ranked.replyCount, ranked.descendantCount
+            FROM (SELECT r.id AS id, r.parent_comment_id AS parentCommentId, r.parent_reply_id AS parentReplyId,
+                         r.author_id AS authorId, CASE WHEN r.is_deleted THEN '' ELSE r.content END AS content,
+                         r.created_at AS createdAt,
+                         r.updated_at AS updatedAt, r.is_deleted AS isDeleted, r.depth_level AS depthLevel,
+                         CAST(r.path AS TEXT) AS path, r.reply_count AS replyCount,
+                         r.descendant_count AS descendantCount,
+                         ROW_NUMBER() OVER (PARTITION BY r.parent_comment_id ORDER BY r.created_at, r.id) AS rn
+                    FROM replies r
+                   WHERE r.parent_comment_id IN (:commentIds) AND (r.is_deleted = false OR r.descendant_count > 0)
+                     AND r.created_at >= (SELECT MIN(c.created_at) FROM comments c WHERE c.id IN (:commentIds))) ranked
+            WHERE ranked.rn <= :perParent
+            ORDER BY ranked.createdAt, ranked.id
+            """, nativeQuery = true)
+    List<ReplyView> findViewsByParentCommentIdIn(@Param("commentIds") Collection<Long> commentIds,
+                                                 @Param("perParent") int perParent);
+
+    // The same, under several replies
+    @Query(value = """
+            SELECT ranked.id, ranked.parentCommentId, ranked.parentReplyId, ranked.authorId, ranked.content,
+                   ranked.createdAt, ranked.updatedAt, ranked.isDeleted, ranked.depthLevel, ranked.path,
+                   ranked.replyCount, ranked.descendantCount
+            FROM (SELECT r.id AS id, r.parent_comment_id AS parentCommentId, r.parent_reply_id AS parentReplyId,
+                         r.author_id AS authorId, CASE WHEN r.is_deleted THEN '' ELSE r.content END AS content,
+                         r.created_at AS createdAt,
+                         r.updated_at AS updatedAt, r.is_deleted AS isDeleted, r.depth_level AS depthLevel,
+                         CAST(r.path AS TEXT) AS path, r.reply_count AS replyCount,
+                         r.descendant_count AS descendantCount,
+                         ROW_NUMBER() OVER (PARTITION BY r.parent_reply_id ORDER BY r.created_at, r.id) AS rn
+                    FROM replies r
+                   WHERE r.parent_reply_id IN (:replyIds) AND (r.is_deleted = false OR r.descendant_count > 0)
+                     AND r.created_at >= (SELECT MIN(p.created_at) FROM replies p WHERE p.id IN (:replyIds))) ranked
+            WHERE ranked.rn <= :perParent
+            ORDER BY ranked.createdAt, ranked.id
+            """, nativeQuery = true)
+    List<ReplyView> findViewsByParentReplyIdIn(@Param("replyIds") Collection<Long> replyIds,
+                                               @Param("perParent") int perParent);
+
+    @Query(value = """
+            SELECT r.id AS id, r.parent_comment_id AS parentCommentId, r.parent_reply_id AS parentReplyId,
+                   r.author_id AS authorId, CASE WHEN r.is_deleted THEN '' ELSE r.content END AS content,
+                   r.created_at AS createdAt,
+                   r.updated_at AS updatedAt, r.is_deleted AS isDeleted, r.depth_level AS depthLevel,
+                   CAST(r.path AS TEXT) AS path, r.reply_count AS replyCount, r.descendant_count AS descendantCount
+            FROM replies r
+            WHERE r.post_id = :postId AND (r.is_deleted = false OR r.descendant_count > 0)
+              AND r.created_at >= (SELECT p.created_at FROM posts p WHERE p.id = :postId)
+            ORDER BY r.path_sort
+            """, nativeQuery = true)
+    List<ReplyView> findViewsByPostId(@Param("postId") Long postId);
+
+    // Every reply under a comment, in depth-first order
+    @Query(value = """
+            SELECT r.id AS id, r.parent_comment_id AS parentCommentId, r.parent_reply_id AS parentReplyId,
+                   r.author_id AS authorId, CASE WHEN r.is_deleted THEN '' ELSE r.content END AS content,
+                   r.created_at AS createdAt,
+                   r.updated_at AS updatedAt, r.is_deleted AS isDeleted, r.depth_level AS depthLevel,
+                   CAST(r.path AS TEXT) AS path, r.reply_count AS replyCount, r.descendant_count AS descendantCount
+            FROM replies r
+            WHERE r.path <@ text2ltree(CAST(:commentId AS TEXT)) AND (r.is_deleted = false OR r.descendant_count > 0)
+              AND r.created_at >= (SELECT c.created_at FROM comments c WHERE c.id = :commentId)
+            ORDER BY r.path_sort
+            """, nativeQuery = true)
+    List<ReplyView> findThreadViewsByCommentId(@Param("commentId") Long commentId);
+
+    // The reply itself (even when soft-deleted) followed by its live descendants and their tombstones,
+    // in depth-first order
+    @Query(value = """
+            SELECT r.id AS id, r.parent_comment_id AS parentCommentId, r.parent_reply_id AS parentReplyId,
+                   r.author_id AS authorId, CASE WHEN r.is_deleted THEN '' ELSE r.content END AS content,
+                   r.created_at AS createdAt,
+                   r.updated_at AS updatedAt, r.is_deleted AS isDeleted, r.depth_level AS depthLevel,
+                   CAST(r.path AS TEXT) AS path, r.reply_count AS replyCount, r.descendant_count AS descendantCount
+            FROM replies r
+            WHERE r.path <@ (SELECT root.path FROM replies root WHERE root.id = :replyId)
+              AND r.created_at >= (SELECT root.created_at FROM replies root WHERE root.id = :replyId)
+              AND (r.is_deleted = false OR r.descendant_count > 0 OR r.id = :replyId)
+            ORDER BY r.path_sort
+            """, nativeQuery = true)
+    List<ReplyView> findSubtreeViews(@Param("replyId") Long replyId);
+
+    // Replies whose path is a proper prefix of this one's, root-most first
+    @Query(value = """
+            SELECT r.id AS id, r.parent_comment_id AS parentCommentId, r.parent_reply_id AS parentReplyId,
+                   r.author_id AS authorId, CASE WHEN r.is_deleted THEN '' ELSE r.content END AS content,
+                   r.created_at AS createdAt,
+                   r.updated_at AS updatedAt, r.is_deleted AS isDeleted, r.depth_level AS depthLevel,
+                   CAST(r.path AS TEXT) AS path, r.reply_count AS replyCount, r.descendant_count AS descendantCount
+            FROM replies r
+            WHERE r.path @> (SELECT leaf.path FROM replies leaf WHERE leaf.id = :replyId)
+              AND r.id <> :replyId
+            ORDER BY r.depth_level
+            """, nativeQuery = true)
+    List<ReplyView> findAncestorViews(@Param("replyId") Long replyId);
+
+    @Query(value = """
+            SELECT COUNT(*) FROM replies r
+            WHERE r.path <@ (SELECT root.path FROM replies root WHERE root.id = :replyId)
+              AND r.id <> :replyId
+              AND r.is_deleted = false
+            """, nativeQuery = true)
+    long countDescendants(@Param("replyId") Long replyId);
+
+    // Returns 0 when the reply is missing or already deleted; of two concurrent deletes only one gets 1.
+    // Like the counter updates below, it leaves the entity cache to the caller, see CommentRepository
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "replies_by_id"))
+    @Query(value = """
+            UPDATE replies SET is_deleted = true, updated_at = CURRENT_TIMESTAMP
+             WHERE id = :id AND is_deleted = false
+            """, nativeQuery = true)
+    int markDeleted(@Param("id") Long id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "replies_by_id"))
+    @Query(value = "UPDATE replies SET reply_count = reply_count + :delta WHERE id = :id", nativeQuery = true)
+    int adjustReplyCount(@Param("id") Long id, @Param("delta") int delta);
+
+    // Adds delta to the descendant_count of the reply, every reply above it and its root comment
+    @Modifying
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "replies_by_id"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "comments_by_id")
+    })
+    @Query(value = """
+            WITH target AS (SELECT path, path_sort FROM replies WHERE id = :id),
+                 root AS (UPDATE comments SET descendant_count = descendant_count + :delta
+                           WHERE id = (SELECT path_sort[1] FROM target))
+            UPDATE replies SET descendant_count = descendant_count + :delta
+             WHERE path @> (SELECT path FROM target)
+            """, nativeQuery = true)
+    int adjustDescendantCounts(@Param("id") Long id, @Param("delta") int delta);
+
+    // Recomputes both counters for the replies of posts in (fromPostId, toPostId] and returns how many had drifted.
+    // A reply's ancestors are the inner labels of its path_sort, so descendants are counted in one pass over the
+    // chunk instead of joining every reply to every other reply of the thread.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "replies_by_id"))
+    @Query(value = """
+            UPDATE replies r
+               SET reply_count = COALESCE(direct.cnt, 0),
+                   descendant_count = COALESCE(nested.cnt, 0)
+              FROM replies r2
+              LEFT JOIN (SELECT parent_reply_id AS id, COUNT(*) AS cnt
+                           FROM replies
+                          WHERE is_deleted = false AND parent_reply_id IS NOT NULL
+                            AND post_id > :fromPostId AND post_id <= :toPostId
+                          GROUP BY parent_reply_id) direct ON direct.id = r2.id
+              LEFT JOIN (SELECT ancestor.id, COUNT(*) AS cnt
+                           FROM replies d
+                           CROSS JOIN LATERAL unnest(d.path_sort[2:cardinality(d.path_sort) - 1]) AS ancestor(id)
+                          WHERE d.is_deleted = false
+                            AND d.post_id > :fromPostId AND d.post_id <= :toPostId
+                          GROUP BY ancestor.id) nested ON nested.id = r2.id
+             WHERE r.id = r2.id
+               AND r2.post_id > :fromPostId AND r2.post_id <= :toPostId
+               AND (r.reply_count <> COALESCE(direct.cnt, 0) OR r.descendant_count <> COALESCE(nested.cnt, 0))
+            """, nativeQuery = true)
+    int repairReplyCounts(@Param("fromPostId") long fromPostId, @Param("toPostId") long toPostId);
+
+    @Query("SELECT r.id AS id, r.authorId AS authorId FROM Reply r WHERE r.id IN :ids")
+    List<AuthorRef> findAuthorsByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,18 @@
+package com.example.springboot_social_media.repositories;
+
+import java.time.LocalDateTime;
+
+public interface ReplyView {
+    Long getId();
+    Long getParentCommentId();
+    Long getParentReplyId();
+    Long getAuthorId();
+    String getContent();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+    Boolean getIsDeleted();
+    Integer getDepthLevel();
+    String getPath();
+    Integer getReplyCount();
+    Integer getDescendantCount();
+}
@@ -0,0 +1,7 @@
+package com.example.springboot_social_media.repositories;
+
+// A comment of a sorted thread view together with its persisted sort keys
+public interface ScoredCommentView extends CommentView {
+    Integer getLikeTotal();
+    Double getControversyScore();
+}
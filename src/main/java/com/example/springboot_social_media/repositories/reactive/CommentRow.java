@@ -0,0 +1,23 @@
+package com.example.springboot_social_media.repositories.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Read-only R2DBC view of a comments row. Writes stay on the JPA {@code Comment} entity.
+ */
+@Table("comments")
+public record CommentRow(
+        @Id Long id,
+        Long postId,
+        Long authorId,
+        String content,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt,
+        Boolean isDeleted,
+        Long version,
+        Integer replyCount,
+        Integer descendantCount) {
+}
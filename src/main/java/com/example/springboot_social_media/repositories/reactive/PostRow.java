@@ -0,0 +1,22 @@
+package com.example.springboot_social_media.repositories.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Read-only R2DBC view of a posts row. Writes stay on the JPA {@code Post} entity.
+ */
+@Table("posts")
+public record PostRow(
+        @Id Long id,
+        String title,
+        String content,
+        Long authorId,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt,
+        Boolean isPublished,
+        Integer viewCount,
+        Long version) {
+}
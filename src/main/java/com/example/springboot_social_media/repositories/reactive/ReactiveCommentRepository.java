@@ -0,0 +1,27 @@
+package com.example.springboot_social_media.repositories.reactive;
+
+import com.example.springboot_social_media.dto.ThreadNodeResponse;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive counterpart of the thread queries in {@code CommentRepository}.
+ */
+public interface ReactiveCommentRepository extends R2dbcRepository<CommentRow, Long> {
+
+    @Query("""
+            SELECT 'COMMENT' AS type, CAST(c.id AS BIGINT) AS id, CAST(c.id AS BIGINT) AS comment_id,
+                   CAST(NULL AS BIGINT) AS parent_reply_id, CAST(c.author_id AS BIGINT) AS author_id, c.content,
+                   CAST(c.created_at AS TIMESTAMP) AS created_at, 0 AS depth_level, CAST(c.id AS TEXT) AS path,
+                   c.reply_count, c.descendant_count,
+                   (SELECT COUNT(*) FROM likes l
+                     WHERE l.likeable_type = 'comment' AND l.likeable_id = c.id) AS like_count
+            FROM comments c
+            WHERE c.post_id = :postId AND c.is_deleted = false
+              AND c.created_at >= (SELECT p.created_at FROM posts p WHERE p.id = :postId)
+            ORDER BY c.created_at, c.id
+            """)
+    Flux<ThreadNodeResponse> streamNodesByPostId(@Param("postId") Long postId);
+}
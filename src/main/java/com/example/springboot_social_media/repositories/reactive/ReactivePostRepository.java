@@ -0,0 +1,48 @@
+package com.example.springboot_social_media.repositories.reactive;
+
+import com.example.springboot_social_media.dto.PostSummaryResponse;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Reactive counterpart of the feed queries in {@code PostRepository}. Timestamps are cast to the
+ * session time zone, which the connection factory pins to the JVM's, so they match the JPA responses.
+ */
+public interface ReactivePostRepository extends R2dbcRepository<PostRow, Long> {
+
+    @Query("""
+            SELECT p.id, p.title, p.content, CAST(p.author_id AS BIGINT) AS author_id,
+                   CAST(p.created_at AS TIMESTAMP) AS created_at,
+                   (SELECT COUNT(*) FROM likes l
+                     WHERE l.likeable_type = 'post' AND l.likeable_id = p.id) AS like_count,
+                   (SELECT COUNT(*) FROM comments c
+                     WHERE c.post_id = p.id AND c.is_deleted = false AND c.created_at >= p.created_at) AS comment_count
+            FROM posts p
+            WHERE p.is_published = true
+            ORDER BY p.created_at DESC, p.id DESC
+            LIMIT :limit
+            """)
+    Flux<PostSummaryResponse> streamPublishedSummaries(@Param("limit") int limit);
+
+    // Keyset continuation: everything strictly older than the last item the client received
+    @Query("""
+            SELECT p.id, p.title, p.content, CAST(p.author_id AS BIGINT) AS author_id,
+                   CAST(p.created_at AS TIMESTAMP) AS created_at,
+                   (SELECT COUNT(*) FROM likes l
+                     WHERE l.likeable_type = 'post' AND l.likeable_id = p.id) AS like_count,
+                   (SELECT COUNT(*) FROM comments c
+                     WHERE c.post_id = p.id AND c.is_deleted = false AND c.created_at >= p.created_at) AS comment_count
+            FROM posts p
+            WHERE p.is_published = true
+              AND (p.created_at, p.id) < (:beforeCreatedAt, :beforeId)
+            ORDER BY p.created_at DESC, p.id DESC
+            LIMIT :limit
+            """)
+    Flux<PostSummaryResponse> streamPublishedSummariesBefore(@Param("beforeCreatedAt") OffsetDateTime beforeCreatedAt,
+                                                             @Param("beforeId") long beforeId,
+                                                             @Param("limit") int limit);
+}
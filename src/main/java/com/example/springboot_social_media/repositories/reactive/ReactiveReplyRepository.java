@@ -0,0 +1,48 @@
+package com.example.springboot_social_media.repositories.reactive;
+
+import com.example.springboot_social_media.dto.ThreadNodeResponse;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive counterpart of the thread queries in {@code ReplyRepository}.
+ */
+public interface ReactiveReplyRepository extends R2dbcRepository<ReplyRow, Long> {
+
+    /**
+     * Every live comment of the post, each followed by its live replies in depth-first order, as one
+     * result set the driver can hand out row by row as the client keeps up. A deleted reply with live
+     * descendants is kept as a tombstone with blank content, as in {@code ReplyRepository}.
+     */
+    @Query("""
+            WITH post AS (SELECT p.created_at FROM posts p WHERE p.id = :postId)
+            SELECT t.type, CAST(t.id AS BIGINT) AS id, CAST(t.comment_id AS BIGINT) AS comment_id,
+                   CAST(t.parent_reply_id AS BIGINT) AS parent_reply_id, CAST(t.author_id AS BIGINT) AS author_id,
+                   t.content, CAST(t.created_at AS TIMESTAMP) AS created_at, t.depth_level, t.path,
+                   t.reply_count, t.descendant_count,
+                   (SELECT COUNT(*) FROM likes l
+                     WHERE l.likeable_type = lower(t.type) AND l.likeable_id = t.id) AS like_count
+            FROM (
+                SELECT 'COMMENT' AS type, c.id, c.id AS comment_id, CAST(NULL AS INTEGER) AS parent_reply_id,
+                       c.author_id, c.content, c.created_at, 0 AS depth_level, CAST(c.id AS TEXT) AS path,
+                       c.reply_count, c.descendant_count, c.created_at AS thread_created_at, ARRAY[c.id] AS sort_path
+                FROM comments c
+                WHERE c.post_id = :postId AND c.is_deleted = false
+                  AND c.created_at >= (SELECT created_at FROM post)
+                UNION ALL
+                SELECT 'REPLY', r.id, c.id, r.parent_reply_id, r.author_id,
+                       CASE WHEN r.is_deleted THEN '' ELSE r.content END, r.created_at, r.depth_level,
+                       CAST(r.path AS TEXT), r.reply_count, r.descendant_count, c.created_at, r.path_sort
+                FROM replies r
+                JOIN comments c ON c.id = r.path_sort[1]
+                WHERE r.post_id = :postId AND (r.is_deleted = false OR r.descendant_count > 0)
+                  AND r.created_at >= (SELECT created_at FROM post)
+                  AND c.post_id = :postId AND c.is_deleted = false
+                  AND c.created_at >= (SELECT created_at FROM post)
+            ) t
+            ORDER BY t.thread_created_at, t.sort_path
+            """)
+    Flux<ThreadNodeResponse> streamThreadByPostId(@Param("postId") Long postId);
+}
@@ -0,0 +1,26 @@
+package com.example.springboot_social_media.repositories.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Read-only R2DBC view of a replies row, without the ltree columns the driver cannot decode.
+ * Writes stay on the JPA {@code Reply} entity.
+ */
+@Table("replies")
+public record ReplyRow(
+        @Id Long id,
+        Long postId,
+        Long parentCommentId,
+        Long parentReplyId,
+        Long authorId,
+        String content,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt,
+        Boolean isDeleted,
+        Integer depthLevel,
+        Integer replyCount,
+        Integer descendantCount) {
+}
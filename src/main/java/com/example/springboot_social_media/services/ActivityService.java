@@ -0,0 +1,156 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.dto.ActivityItemResponse;
+import com.example.springboot_social_media.dto.ActivityPageResponse;
+import com.example.springboot_social_media.dto.ActivityType;
+import com.example.springboot_social_media.repositories.CommentRepository;
+import com.example.springboot_social_media.repositories.LikeRepository;
+import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.repositories.ReplyRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Builds a user's timeline by k-way merging their posts, comments, replies and likes.
+ * <p>
+ * Items are ordered by created_at descending, then {@link ActivityType} order, then id descending.
+ * The cursor is the last item returned; each source is asked for at most one page strictly after it,
+ * so a page costs four index range scans regardless of how much history the user has.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class ActivityService {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    static final Comparator<ActivityItemResponse> TIMELINE_ORDER =
+            Comparator.comparing(ActivityItemResponse::createdAt).reversed()
+                    .thenComparing(ActivityItemResponse::type)
+                    .thenComparing(ActivityItemResponse::id, Comparator.reverseOrder());
+
+    final PostRepository postRepository;
+
+    final CommentRepository commentRepository;
+
+    final ReplyRepository replyRepository;
+
+    final LikeRepository likeRepository;
+
+    public ActivityPageResponse getActivity(Long userId, String cursor, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        Cursor after = cursor == null || cursor.isBlank() ? null : Cursor.decode(cursor);
+        Limit limit = Limit.of(pageSize);
+
+        List<Source> sources = List.of(
+                source(postRepository.findByAuthorIdAndIsPublishedTrueOrderByCreatedAtDescIdDesc(
+                        userId, position(after, ActivityType.POST), limit), post -> new ActivityItemResponse(
+                        ActivityType.POST, post.getId(), post.getId(), post.getTitle(), post.getContent(),
+                        null, null, post.getCreatedAt())),
+                source(commentRepository.findByAuthorIdAndIsDeletedFalseOrderByCreatedAtDescIdDesc(
+                        userId, position(after, ActivityType.COMMENT), limit), comment -> new ActivityItemResponse(
+                        ActivityType.COMMENT, comment.getId(), comment.getPost().getId(), null, comment.getContent(),
+                        null, null, comment.getCreatedAt())),
+                source(replyRepository.findByAuthorIdAndIsDeletedFalseOrderByCreatedAtDescIdDesc(
+                        userId, position(after, ActivityType.REPLY), limit), reply -> new ActivityItemResponse(
+                        ActivityType.REPLY, reply.getId(), reply.getPost().getId(), null, reply.getContent(),
+                        null, null, reply.getCreatedAt())),
+                source(likeRepository.findByUserIdOrderByCreatedAtDescIdDesc(
+                        userId, position(after, ActivityType.LIKE), limit), like -> new ActivityItemResponse(
+                        ActivityType.LIKE, like.getId(), null, null, null,
+                        like.getLikeableType(), like.getLikeableId(), like.getCreatedAt()))
+        );
+
+        PriorityQueue<Source> heads = new PriorityQueue<>(
+                Comparator.comparing(Source::peek, TIMELINE_ORDER));
+        sources.stream().filter(Source::hasNext).forEach(heads::add);
+
+        List<ActivityItemResponse> items = new ArrayList<>(pageSize);
+        while (items.size() < pageSize && !heads.isEmpty()) {
+            Source head = heads.poll();
+            items.add(head.next());
+            if (head.hasNext()) {
+                heads.add(head);
+            }
+        }
+
+        boolean more = !heads.isEmpty() || sources.stream().anyMatch(source -> source.window.hasNext());
+        String nextCursor = more && !items.isEmpty() ? Cursor.of(items.getLast()).encode() : null;
+        return new ActivityPageResponse(items, nextCursor);
+    }
+
+    /**
+     * Translates the global cursor into a keyset position for one source. Rows at the cursor's exact
+     * timestamp belong after it only if their type sorts later, or same type with a smaller id.
+     */
+    private static ScrollPosition position(Cursor after, ActivityType type) {
+        if (after == null) {
+            return ScrollPosition.keyset();
+        }
+        int byType = type.compareTo(after.type());
+        long idBound = byType > 0 ? Long.MAX_VALUE : byType == 0 ? after.id() : Long.MIN_VALUE;
+        return ScrollPosition.forward(Map.of("createdAt", after.createdAt(), "id", idBound));
+    }
+
+    private static <T> Source source(Window<T> window, Function<T, ActivityItemResponse> mapper) {
+        return new Source(window, window.getContent().stream().map(mapper).toList());
+    }
+
+    private static final class Source {
+        final Window<?> window;
+        final List<ActivityItemResponse> items;
+        int index;
+
+        Source(Window<?> window, List<ActivityItemResponse> items) {
+            this.window = window;
+            this.items = items;
+        }
+
+        boolean hasNext() {
+            return index < items.size();
+        }
+
+        ActivityItemResponse peek() {
+            return items.get(index);
+        }
+
+        ActivityItemResponse next() {
+            return items.get(index++);
+        }
+    }
+
+    record Cursor(LocalDateTime createdAt, ActivityType type, long id) {
+
+        static Cursor of(ActivityItemResponse item) {
+            return new Cursor(item.createdAt(), item.type(), item.id());
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|");
+                return new Cursor(LocalDateTime.parse(parts[0]), ActivityType.valueOf(parts[1]), Long.parseLong(parts[2]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid activity cursor", e);
+            }
+        }
+
+        String encode() {
+            String raw = createdAt + "|" + type + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
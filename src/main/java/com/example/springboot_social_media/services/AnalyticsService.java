@@ -0,0 +1,73 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.dto.DailyEngagementResponse;
+import com.example.springboot_social_media.dto.EngagementReportResponse;
+import com.example.springboot_social_media.entity.DailyEngagement;
+import com.example.springboot_social_media.entity.EngagementScope;
+import com.example.springboot_social_media.repositories.DailyEngagementRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Engagement over a date range, read from the engagement_daily rollup that {@link EngagementRollup} keeps.
+ * A report reads at most one row per day of the range, so its cost does not depend on the raw tables.
+ * The current day lags by up to one flush interval.
+ */
+@Service
+@Transactional
+public class AnalyticsService {
+
+    static final int DEFAULT_RANGE_DAYS = 30;
+
+    final DailyEngagementRepository dailyEngagementRepository;
+
+    final int maxRangeDays;
+
+    public AnalyticsService(DailyEngagementRepository dailyEngagementRepository,
+                            @Value("${app.analytics.max-range-days:366}") int maxRangeDays) {
+        this.dailyEngagementRepository = dailyEngagementRepository;
+        this.maxRangeDays = maxRangeDays;
+    }
+
+    public EngagementReportResponse getPostEngagement(Long postId, LocalDate from, LocalDate to) {
+        return report(EngagementScope.POST, postId, from, to);
+    }
+
+    // Engagement received by the author's posts, not activity by the author
+    public EngagementReportResponse getAuthorEngagement(Long authorId, LocalDate from, LocalDate to) {
+        return report(EngagementScope.AUTHOR, authorId, from, to);
+    }
+
+    // Missing bounds default to the last DEFAULT_RANGE_DAYS days up to today
+    private EngagementReportResponse report(EngagementScope scope, Long id, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxRangeDays) {
+            throw new IllegalArgumentException("Range is limited to " + maxRangeDays + " days");
+        }
+
+        List<DailyEngagementResponse> days = dailyEngagementRepository
+                .findByScopeAndSubjectIdAndDayBetweenOrderByDay(scope, id, start, end).stream()
+                .map(AnalyticsService::toResponse)
+                .toList();
+        return new EngagementReportResponse(id, start, end,
+                days.stream().mapToLong(DailyEngagementResponse::likes).sum(),
+                days.stream().mapToLong(DailyEngagementResponse::comments).sum(),
+                days.stream().mapToLong(DailyEngagementResponse::replies).sum(),
+                days.stream().mapToLong(DailyEngagementResponse::views).sum(),
+                days);
+    }
+
+    private static DailyEngagementResponse toResponse(DailyEngagement row) {
+        return new DailyEngagementResponse(row.getDay(), row.getLikes(), row.getComments(), row.getReplies(),
+                row.getViews());
+    }
+}
@@ -0,0 +1,388 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.cluster.InvalidationBus;
+import com.example.springboot_social_media.entity.BulkJob;
+import com.example.springboot_social_media.repositories.BulkJobRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams posts, comments, replies and likes between the database and a directory of gzipped
+ * binary COPY files, one file per chunk of {@code app.bulk.chunk-size} ids.
+ * <p>
+ * Each chunk is one COPY, so memory stays constant whatever the table size. Every finished chunk is
+ * recorded in bulk_jobs. An export checkpoints after the chunk file is complete on disk. An import
+ * checkpoints in the chunk's own transaction. Either can be resumed after a failure or restart and
+ * picks up at the first unfinished chunk. Jobs run one at a time on a dedicated thread.
+ * <p>
+ * An export covers the rows that existed when it started: the highest id of every table is read in one
+ * statement, so one snapshot, and kept in the export's {@code export.properties} with the oldest created_at
+ * of the partitioned tables. Rows committed later have higher ids, so children never reference parents left
+ * out. A resumed export reads the same bounds back.
+ * <p>
+ * Ids are preserved, so an import expects the target to have no conflicting rows. Parents are loaded
+ * before children because the insert triggers check them, and reply paths are recomputed on the way in.
+ * The monthly partitions back to the oldest exported row are created first, so history does not pile up in
+ * the DEFAULT partitions. Once loaded, every node is told to drop its cached content.
+ */
+@Slf4j
+@Service
+public class BulkTransferService {
+
+    // Parents first. Generated and trigger-maintained columns (path, depth_level, path_sort) are left out.
+    static final List<Table> TABLES = List.of(
+            new Table("posts", "id, title, content, author_id, created_at, updated_at, is_published, view_count, version"),
+            new Table("comments", "id, post_id, author_id, content, created_at, updated_at, is_deleted, version, "
+                    + "reply_count, descendant_count"),
+            new Table("replies", "id, post_id, parent_comment_id, parent_reply_id, author_id, content, created_at, "
+                    + "updated_at, is_deleted, reply_count, descendant_count"),
+            new Table("likes", "id, user_id, likeable_type, likeable_id, created_at"));
+
+    private static final int PROGRESS_LOG_EVERY = 10;
+
+    static final String MANIFEST = "export.properties";
+
+    static final List<String> PARTITIONED = List.of("posts", "comments", "replies");
+
+    final BulkJobRepository bulkJobRepository;
+
+    final DataSource dataSource;
+
+    final JdbcTemplate jdbcTemplate;
+
+    final TransactionTemplate transactionTemplate;
+
+    final EntityManagerFactory entityManagerFactory;
+
+    final InvalidationBus invalidationBus;
+
+    final Path baseDir;
+
+    final int chunkSize;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("bulk-transfer").daemon().factory());
+
+    public BulkTransferService(BulkJobRepository bulkJobRepository,
+                               DataSource dataSource,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               EntityManagerFactory entityManagerFactory,
+                               InvalidationBus invalidationBus,
+                               @Value("${app.bulk.base-dir:bulk}") Path baseDir,
+                               @Value("${app.bulk.chunk-size:100000}") int chunkSize) {
+        this.bulkJobRepository = bulkJobRepository;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.invalidationBus = invalidationBus;
+        this.baseDir = baseDir.toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkJob startExport(String directory) {
+        return submit(new BulkJob(BulkJob.Kind.EXPORT, directory));
+    }
+
+    public BulkJob startImport(String directory) {
+        if (!Files.isDirectory(resolve(directory))) {
+            throw new IllegalArgumentException("Nothing to import in " + directory);
+        }
+        return submit(new BulkJob(BulkJob.Kind.IMPORT, directory));
+    }
+
+    public Optional<BulkJob> findJob(Long id) {
+        return bulkJobRepository.findById(id);
+    }
+
+    /**
+     * Restarts a failed job from its last checkpoint.
+     *
+     * @throws IllegalStateException if the job is not in FAILED state
+     */
+    public BulkJob resume(Long id) {
+        BulkJob job = bulkJobRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Bulk job not found with id: " + id));
+        if (job.getStatus() != BulkJob.Status.FAILED) {
+            throw new IllegalStateException("Only failed jobs can be resumed, job " + id + " is " + job.getStatus());
+        }
+        job.setStatus(BulkJob.Status.PENDING);
+        job.setError(null);
+        return submit(job);
+    }
+
+    // A job that was running when the process stopped can only be continued explicitly
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        for (BulkJob job : bulkJobRepository.findByStatus(BulkJob.Status.RUNNING)) {
+            job.setStatus(BulkJob.Status.FAILED);
+            job.setError("Interrupted by a restart, resume to continue");
+            bulkJobRepository.save(job);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private BulkJob submit(BulkJob job) {
+        resolve(job.getDirectory());
+        BulkJob saved = bulkJobRepository.save(job);
+        executor.execute(() -> run(saved.getId()));
+        return saved;
+    }
+
+    private void run(Long jobId) {
+        BulkJob job = bulkJobRepository.findById(jobId).orElseThrow();
+        inTransaction(() -> bulkJobRepository.updateStatus(jobId, BulkJob.Status.RUNNING, null));
+        long started = System.nanoTime();
+        try {
+            if (job.getKind() == BulkJob.Kind.EXPORT) {
+                export(job);
+            } else {
+                importAll(job);
+            }
+            inTransaction(() -> bulkJobRepository.updateStatus(jobId, BulkJob.Status.COMPLETED, null));
+            log.info("Bulk {} {} completed in {} s", job.getKind(), jobId, (System.nanoTime() - started) / 1_000_000_000L);
+        } catch (Exception e) {
+            log.error("Bulk {} {} failed", job.getKind(), jobId, e);
+            inTransaction(() -> bulkJobRepository.updateStatus(jobId, BulkJob.Status.FAILED, String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void export(BulkJob job) throws IOException, SQLException {
+        Path root = resolve(job.getDirectory());
+        Properties manifest = job.getCurrentTable() == null ? writeManifest(root) : readManifest(root);
+        Progress progress = new Progress(job);
+        for (int t = firstTable(job); t < TABLES.size(); t++) {
+            Table table = TABLES.get(t);
+            boolean resuming = table.name().equals(job.getCurrentTable());
+            long lastId = resuming ? job.getLastId() : 0;
+            int chunk = resuming ? job.getChunkIndex() : 0;
+            if (!resuming) {
+                inTransaction(() -> bulkJobRepository.startTable(job.getId(), table.name()));
+            }
+            Files.createDirectories(root.resolve(table.name()));
+            // Exports started before bounds were recorded have none and run to the end of the table
+            long maxId = Long.parseLong(manifest.getProperty(table.name() + ".max-id", String.valueOf(Long.MAX_VALUE)));
+
+            while (true) {
+                Long upper = jdbcTemplate.queryForObject(
+                        "SELECT MAX(id) FROM (SELECT id FROM " + table.name()
+                                + " WHERE id > ? AND id <= ? ORDER BY id LIMIT ?) chunk",
+                        Long.class, lastId, maxId, chunkSize);
+                if (upper == null) {
+                    break;
+                }
+                Path file = chunkFile(root, table, chunk);
+                Path partial = file.resolveSibling(file.getFileName() + ".partial");
+                long rows;
+                try (Connection connection = dataSource.getConnection();
+                     OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 1 << 16)) {
+                    rows = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(
+                            "COPY (SELECT " + table.columns() + " FROM " + table.name()
+                                    + " WHERE id > " + lastId + " AND id <= " + upper + " ORDER BY id)"
+                                    + " TO STDOUT WITH (FORMAT binary)", out);
+                }
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                int next = chunk + 1;
+                long exportedUpTo = upper;
+                inTransaction(() -> bulkJobRepository.checkpoint(job.getId(), table.name(), exportedUpTo, next, rows));
+                progress.chunkDone(table, rows);
+                lastId = upper;
+                chunk = next;
+            }
+        }
+    }
+
+    private void importAll(BulkJob job) throws IOException {
+        Path root = resolve(job.getDirectory());
+        createPartitionsFor(readManifest(root));
+        Progress progress = new Progress(job);
+        for (int t = firstTable(job); t < TABLES.size(); t++) {
+            Table table = TABLES.get(t);
+            boolean resuming = table.name().equals(job.getCurrentTable());
+            int first = resuming ? job.getChunkIndex() : 0;
+            if (!resuming) {
+                inTransaction(() -> bulkJobRepository.startTable(job.getId(), table.name()));
+            }
+            Path dir = root.resolve(table.name());
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            List<Path> chunks;
+            try (Stream<Path> files = Files.list(dir)) {
+                chunks = files.filter(file -> file.getFileName().toString().endsWith(".copy.gz")).sorted().toList();
+            }
+
+            for (int chunk = first; chunk < chunks.size(); chunk++) {
+                Path file = chunks.get(chunk);
+                int next = chunk + 1;
+                long rows = transactionTemplate.execute(status -> {
+                    Connection connection = DataSourceUtils.getConnection(dataSource);
+                    try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 1 << 16)) {
+                        long copied = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                                "COPY " + table.name() + " (" + table.columns() + ") FROM STDIN WITH (FORMAT binary)", in);
+                        bulkJobRepository.checkpoint(job.getId(), table.name(), 0, next, copied);
+                        return copied;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Importing " + file + " failed: " + e.getMessage(), e);
+                    }
+                });
+                progress.chunkDone(table, rows);
+            }
+        }
+
+        // Imported ids bypassed the sequences, and cached entities on every node may predate the import
+        for (Table table : TABLES) {
+            jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence(?, 'id'), GREATEST(COALESCE(MAX(id), 0), 1)) FROM "
+                    + table.name(), Long.class, table.name());
+        }
+        entityManagerFactory.getCache().evictAll();
+        inTransaction(() -> {
+            invalidationBus.allPosts();
+            invalidationBus.allComments();
+            invalidationBus.allReplies();
+        });
+    }
+
+    private Properties writeManifest(Path root) throws IOException {
+        Files.createDirectories(root);
+        String maxIds = TABLES.stream()
+                .map(table -> "(SELECT COALESCE(MAX(id), 0) FROM " + table.name() + ") AS " + table.name())
+                .collect(Collectors.joining(", "));
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT " + maxIds);
+        Properties manifest = new Properties();
+        for (Table table : TABLES) {
+            manifest.setProperty(table.name() + ".max-id", String.valueOf(bounds.get(table.name())));
+        }
+        for (String table : PARTITIONED) {
+            OffsetDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM " + table, OffsetDateTime.class);
+            if (oldest != null) {
+                manifest.setProperty(table + ".oldest", oldest.toString());
+            }
+        }
+        Path file = root.resolve(MANIFEST);
+        Path partial = root.resolve(MANIFEST + ".partial");
+        try (OutputStream out = Files.newOutputStream(partial)) {
+            manifest.store(out, "Bounds of this export");
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return manifest;
+    }
+
+    private static Properties readManifest(Path root) throws IOException {
+        Properties manifest = new Properties();
+        Path file = root.resolve(MANIFEST);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                manifest.load(in);
+            }
+        }
+        return manifest;
+    }
+
+    // One month of slack either way, as the JVM and the database may disagree on the current month
+    private void createPartitionsFor(Properties manifest) {
+        for (String table : PARTITIONED) {
+            String oldest = manifest.getProperty(table + ".oldest");
+            if (oldest == null) {
+                continue;
+            }
+            long monthsBack = ChronoUnit.MONTHS.between(YearMonth.from(OffsetDateTime.parse(oldest)), YearMonth.now()) + 1;
+            if (monthsBack > 0) {
+                Integer created = jdbcTemplate.queryForObject("SELECT ensure_monthly_partitions(?, ?, 0)",
+                        Integer.class, table, (int) monthsBack);
+                log.info("Created {} monthly partitions of {} for the import", created, table);
+            }
+        }
+    }
+
+    private static int firstTable(BulkJob job) {
+        for (int t = 0; t < TABLES.size(); t++) {
+            if (TABLES.get(t).name().equals(job.getCurrentTable())) {
+                return t;
+            }
+        }
+        return 0;
+    }
+
+    private static Path chunkFile(Path root, Table table, int chunk) {
+        return root.resolve(table.name()).resolve("%08d.copy.gz".formatted(chunk));
+    }
+
+    private Path resolve(String directory) {
+        Path resolved = baseDir.resolve(directory).normalize();
+        if (directory.isBlank() || !resolved.startsWith(baseDir) || resolved.equals(baseDir)) {
+            throw new IllegalArgumentException("Directory must be a subdirectory of the bulk base directory");
+        }
+        return resolved;
+    }
+
+    private void inTransaction(Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> work.run());
+    }
+
+    record Table(String name, String columns) {
+    }
+
+    // Logs throughput every few chunks; the job row carries the exact counts for the API
+    private static final class Progress {
+        final BulkJob job;
+        final long started = System.nanoTime();
+        long rows;
+        long chunks;
+
+        Progress(BulkJob job) {
+            this.job = job;
+        }
+
+        void chunkDone(Table table, long chunkRows) {
+            rows += chunkRows;
+            chunks++;
+            if (chunks % PROGRESS_LOG_EVERY == 0) {
+                double seconds = Math.max(1e-3, (System.nanoTime() - started) / 1e9);
+                log.info("Bulk {} {}: {} at chunk {}, {} rows this run ({} rows/s)", job.getKind(), job.getId(),
+                        table.name(), chunks, rows, Math.round(rows / seconds));
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.springboot_social_media.services;
+
+// Published by LikeService per like (+1) or unlike (-1) of a comment, folded into like_count by CommentScoreUpdater
+public record CommentLikeEvent(Long commentId, int delta) {
+}
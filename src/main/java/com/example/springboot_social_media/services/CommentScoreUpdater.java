@@ -0,0 +1,153 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps comments.like_count, the sort key of the top and controversial thread views, close to the likes table.
+ * <p>
+ * Like and unlike deltas are summed in memory per comment once their transaction commits, and each flush
+ * applies them with one batched update per shard. A comment liked a thousand times between flushes costs
+ * one row update instead of a thousand writers queueing on the same row lock. Rows are updated in id order,
+ * so nodes flushing the same comments concurrently lock them in the same order. The deltas of a shard whose
+ * update fails are merged back into the buffer for the next flush. Deltas still buffered are flushed when the
+ * application stops; anything lost then or in a crash is fixed by {@link ReplyCountRepairJob}.
+ * <p>
+ * A repair stamps the rows it fixes with like_count_repaired_at, and a comment's summed delta is only applied
+ * if its latest like committed after that stamp. Earlier likes were already counted by the repair, whether
+ * they were buffered here or on another node. A sum that straddles a repair is applied whole, and the next
+ * repair corrects it.
+ */
+@Slf4j
+@Component
+public class CommentScoreUpdater implements DisposableBean {
+
+    // Never below zero, e.g. when an unlike's delta straddles a repair
+    private static final String ADJUST = """
+            UPDATE comments SET like_count = GREATEST(like_count + ?, 0)
+             WHERE id = ? AND like_count_repaired_at < ?
+            """;
+
+    final JdbcTemplate jdbcTemplate;
+
+    final ShardRouter shardRouter;
+
+    final TransactionTemplate transactionTemplate;
+
+    final int maxPending;
+
+    final int batchSize;
+
+    private final ConcurrentHashMap<Long, Delta> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    public CommentScoreUpdater(JdbcTemplate jdbcTemplate,
+                               ShardRouter shardRouter,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${app.comment-scores.max-pending:100000}") int maxPending,
+                               @Value("${app.comment-scores.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+    }
+
+    // fallbackExecution covers publishers running without a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void enqueue(CommentLikeEvent event) {
+        if (!pending.containsKey(event.commentId()) && pending.size() >= maxPending) {
+            dropped.incrementAndGet();
+            return;
+        }
+        // Taken after the commit, so a repair that started before it cannot have counted the like
+        pending.merge(event.commentId(), new Delta(event.delta(), System.currentTimeMillis()), Delta::plus);
+    }
+
+    @Scheduled(fixedDelayString = "${app.comment-scores.flush-interval:PT1S}")
+    public void flush() {
+        flushBatch();
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            log.warn("Dropped {} comment like deltas, more than {} comments were pending", lost, maxPending);
+        }
+    }
+
+    // Stops at the first failed batch, which would otherwise be requeued and retried forever
+    @Override
+    public void destroy() {
+        while (!pending.isEmpty()) {
+            if (!flushBatch()) {
+                log.warn("Like deltas for {} comments were not written before shutdown", pending.size());
+                return;
+            }
+        }
+    }
+
+    // False when a shard's part of the batch failed and was put back; the other shards have committed
+    private boolean flushBatch() {
+        Map<Long, Delta> batch = drain();
+        if (batch.isEmpty()) {
+            return true;
+        }
+        Map<Integer, List<Long>> byShard = batch.entrySet().stream()
+                .filter(entry -> entry.getValue().sum() != 0)
+                .collect(Collectors.groupingBy(entry -> shardRouter.shardOf(entry.getKey()),
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        boolean flushed = true;
+        for (Map.Entry<Integer, List<Long>> shard : byShard.entrySet()) {
+            List<Object[]> rows = shard.getValue().stream()
+                    .map(id -> new Object[]{batch.get(id).sum(), id, batch.get(id).committedAt()})
+                    .toList();
+            try {
+                shardRouter.on(shard.getKey(), () ->
+                        transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(ADJUST, rows)));
+            } catch (RuntimeException e) {
+                shard.getValue().forEach(id -> pending.merge(id, batch.get(id), Delta::plus));
+                log.warn("Folding like deltas failed on shard {}, {} comments kept for the next flush",
+                        shard.getKey(), rows.size(), e);
+                flushed = false;
+            }
+        }
+        log.debug("Folded like deltas into {} comments", batch.size());
+        return flushed;
+    }
+
+    // Sorted by id, which fixes the lock order of each shard's batch
+    private Map<Long, Delta> drain() {
+        Map<Long, Delta> batch = new TreeMap<>();
+        for (Long id : pending.keySet()) {
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            Delta taken = pending.remove(id);
+            if (taken != null) {
+                batch.put(id, taken);
+            }
+        }
+        return batch;
+    }
+
+    // The summed likes and unlikes of a comment, and when the latest of them committed
+    private record Delta(int sum, long committedAt) {
+
+        Delta plus(Delta other) {
+            return new Delta(sum + other.sum, Math.max(committedAt, other.committedAt));
+        }
+    }
+}
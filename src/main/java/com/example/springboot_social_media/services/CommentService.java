@@ -1,58 +1,166 @@
 package com.example.springboot_social_media.services;
 
+import com.example.springboot_social_media.cluster.InvalidationBus;
+import com.example.springboot_social_media.dto.CommentPageResponse;
+import com.example.springboot_social_media.dto.CommentResponse;
+import com.example.springboot_social_media.dto.CommentSort;
+import com.example.springboot_social_media.dto.ReplyResponse;
+import com.example.springboot_social_media.dto.ResponseMapper;
 import com.example.springboot_social_media.entity.Comment;
 import com.example.springboot_social_media.entity.LikeableType;
 import com.example.springboot_social_media.entity.Post;
 import com.example.springboot_social_media.repositories.CommentRepository;
+import com.example.springboot_social_media.repositories.CommentView;
+import com.example.springboot_social_media.repositories.ContentVersion;
+import com.example.springboot_social_media.repositories.PostCommentView;
 import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.repositories.ReplyRepository;
+import com.example.springboot_social_media.repositories.ReplyView;
+import com.example.springboot_social_media.repositories.ScoredCommentView;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class CommentService {
 
+    static final int MAX_PAGE_SIZE = 100;
+
     final CommentRepository commentRepository;
 
     final PostRepository postRepository;
 
+    final ReplyRepository replyRepository;
+
     final LikeService likeService;
 
+    final ApplicationEventPublisher eventPublisher;
+
+    final InvalidationBus invalidationBus;
+
+    final TagIndexer tagIndexer;
+
+    final ContentScreener contentScreener;
+
     public Comment createComment(Long postId, Long authorId, String content) {
-        Optional<Post> postOpt = postRepository.findById(postId);
-        if (postOpt.isPresent()) {
-            Post post = postOpt.get();
-            Comment comment = new Comment(post, authorId, content);
-            return commentRepository.save(comment);
-        }
-        throw new RuntimeException("Post not found with id: " + postId);
+        contentScreener.screen(LikeableType.COMMENT, postId, null, null, authorId, content);
+        return saveComment(postId, authorId, content);
+    }
+
+    // Held content a moderator approved is not screened again
+    public Comment createApprovedComment(Long postId, Long authorId, String content) {
+        return saveComment(postId, authorId, content);
+    }
+
+    private Comment saveComment(Long postId, Long authorId, String content) {
+        Post post = postRepository.getReferenceById(postId);
+        Comment saved = commentRepository.save(new Comment(post, authorId, content));
+        tagIndexer.index(LikeableType.COMMENT, saved.getId(), postId, saved.getCreatedAt(), content);
+        invalidationBus.comment(saved.getId());
+        eventPublisher.publishEvent(new EngagementEvent(EngagementEvent.Metric.COMMENT, postId));
+        return saved;
     }
 
     public Optional<Comment> findById(Long id) {
         return commentRepository.findById(id);
     }
 
-    public Comment findByIdWithLikes(Long id) {
-        Optional<Comment> commentOpt = commentRepository.findById(id);
+    public CommentResponse findByIdWithLikes(Long id) {
+        Optional<CommentView> commentOpt = commentRepository.findViewById(id);
         if (commentOpt.isPresent()) {
-            Comment comment = commentOpt.get();
-            comment.setLikeCount(likeService.getLikeCount(LikeableType.COMMENT, comment.getId()));
-            return comment;
+            CommentView comment = commentOpt.get();
+            List<ReplyView> replies = replyRepository.findThreadViewsByCommentId(comment.getId());
+            Map<Long, Long> replyLikes = likeService.getLikeCountsForItems(LikeableType.REPLY,
+                    replies.stream().map(ReplyView::getId).toList());
+            return ResponseMapper.toResponse(comment,
+                    likeService.getLikeCount(LikeableType.COMMENT, comment.getId()),
+                    ResponseMapper.toReplyTree(replies, replyLikes));
         }
         return null;
     }
 
-    public List<Comment> findCommentsByPost(Long postId) {
-        List<Comment> comments = commentRepository.findByPostIdAndIsDeletedFalseOrderByCreatedAt(postId);
-        comments.forEach(comment ->
-                comment.setLikeCount(likeService.getLikeCount(LikeableType.COMMENT, comment.getId()))
-        );
-        return comments;
+    // Comments and the whole reply forest of the post come from two queries plus two batched like counts
+    public List<CommentResponse> findCommentsByPost(Long postId) {
+        List<CommentView> comments = commentRepository.findViewsByPostId(postId);
+        List<ReplyView> replies = replyRepository.findViewsByPostId(postId);
+        Map<Long, Long> commentLikes = likeService.getLikeCountsForItems(LikeableType.COMMENT,
+                comments.stream().map(CommentView::getId).toList());
+        Map<Long, Long> replyLikes = likeService.getLikeCountsForItems(LikeableType.REPLY,
+                replies.stream().map(ReplyView::getId).toList());
+
+        Map<Long, Long> parentComments = new HashMap<>();
+        replies.forEach(reply -> parentComments.put(reply.getId(), reply.getParentCommentId()));
+        Map<Long, List<ReplyResponse>> repliesByComment = new HashMap<>();
+        for (ReplyResponse root : ResponseMapper.toReplyTree(replies, replyLikes)) {
+            Long commentId = parentComments.get(root.id());
+            if (commentId != null) {
+                repliesByComment.computeIfAbsent(commentId, k -> new ArrayList<>()).add(root);
+            }
+        }
+
+        return comments.stream()
+                .map(comment -> ResponseMapper.toResponse(comment,
+                        commentLikes.getOrDefault(comment.getId(), 0L),
+                        repliesByComment.getOrDefault(comment.getId(), List.of())))
+                .toList();
+    }
+
+    /**
+     * One page of the post's live comments in the given order, keyed by the persisted sort columns. Replies are
+     * not embedded; each item carries its reply counts and the thread is at /comments/{id}. The top order
+     * follows like_count, which trails the likes table by a flush of {@link CommentScoreUpdater}, while the
+     * returned likeCount is exact.
+     */
+    public CommentPageResponse findCommentPage(Long postId, CommentSort sort, String cursor, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        PageCursor after = cursor == null || cursor.isBlank() ? PageCursor.first(sort) : PageCursor.decode(cursor, sort);
+        Limit limit = Limit.of(pageSize + 1);
+        List<ScoredCommentView> rows = switch (sort) {
+            case TOP -> commentRepository.findTopViewsByPostId(postId,
+                    Integer.parseInt(after.key()), after.id(), limit);
+            case NEW -> commentRepository.findNewViewsByPostId(postId,
+                    LocalDateTime.parse(after.key()), after.id(), limit);
+            case CONTROVERSIAL -> commentRepository.findControversialViewsByPostId(postId,
+                    Double.parseDouble(after.key()), after.id(), limit);
+        };
+        List<ScoredCommentView> page = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        Map<Long, Long> likes = likeService.getLikeCountsForItems(LikeableType.COMMENT,
+                page.stream().map(CommentView::getId).toList());
+        List<CommentResponse> items = page.stream()
+                .map(comment -> ResponseMapper.toResponse(comment, likes.getOrDefault(comment.getId(), 0L), List.of()))
+                .toList();
+        String nextCursor = rows.size() > pageSize ? PageCursor.of(sort, page.getLast()).encode() : null;
+        return new CommentPageResponse(items, nextCursor);
+    }
+
+    // The oldest perPost live comments of every post in one query, keyed by post id
+    public Map<Long, List<PostCommentView>> findCommentsByPosts(Collection<Long> postIds, int perPost) {
+        if (postIds.isEmpty()) {
+            return Map.of();
+        }
+        return commentRepository.findViewsByPostIdIn(postIds, perPost).stream()
+                .collect(Collectors.groupingBy(PostCommentView::getPostId));
+    }
+
+    public ContentVersion findThreadVersion(Long postId) {
+        return commentRepository.findThreadVersionByPostId(postId);
     }
 
     public List<Comment> findCommentsByAuthor(Long authorId) {
@@ -63,14 +171,63 @@ public class CommentService {
         return comments;
     }
 
-    public Comment updateComment(Long id, String content) {
-        Optional<Comment> commentOpt = commentRepository.findById(id);
+    public Comment updateComment(Long id, String content, Long expectedVersion) {
+        Optional<Comment> commentOpt = commentRepository.findById(id)
+                .filter(comment -> !Boolean.TRUE.equals(comment.getIsDeleted()));
         if (commentOpt.isPresent()) {
             Comment comment = commentOpt.get();
-            comment.setContent(content);
-            return commentRepository.save(comment);
+            if (expectedVersion != null && !expectedVersion.equals(comment.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Comment.class, id);
+            }
+            screenEdit(comment, content);
+            return saveEdit(comment, content);
+        }
+        throw new EntityNotFoundException("Comment not found with id: " + id);
+    }
+
+    // A held edit a moderator approved is not screened again, nor checked against edits made meanwhile
+    public Comment applyApprovedEdit(Long id, String content) {
+        Comment comment = commentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Comment not found with id: " + id));
+        return saveEdit(comment, content);
+    }
+
+    private Comment saveEdit(Comment comment, String content) {
+        comment.setContent(content);
+        tagIndexer.reindex(LikeableType.COMMENT, comment.getId(), comment.getPost().getId(), comment.getCreatedAt(),
+                content);
+        invalidationBus.comment(comment.getId());
+        return commentRepository.save(comment);
+    }
+
+    // Deleted comments are not found; a zero-row update means a concurrent delete or a version conflict
+    public Comment patchComment(Long id, String content, Long expectedVersion) {
+        Comment current = commentRepository.findById(id)
+                .filter(comment -> !Boolean.TRUE.equals(comment.getIsDeleted()))
+                .orElseThrow(() -> new EntityNotFoundException("Comment not found with id: " + id));
+        // A stale version fails before screening, so it is never held
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Comment.class, id);
+        }
+        screenEdit(current, content);
+        int updated = commentRepository.patchContent(id, content, expectedVersion);
+        if (updated == 0) {
+            if (!commentRepository.existsByIdAndIsDeletedFalse(id)) {
+                throw new EntityNotFoundException("Comment not found with id: " + id);
+            }
+            throw new ObjectOptimisticLockingFailureException(Comment.class, id);
         }
-        throw new RuntimeException("Comment not found with id: " + id);
+        invalidationBus.comment(id);
+        Comment patched = commentRepository.findById(id).orElseThrow();
+        tagIndexer.reindex(LikeableType.COMMENT, id, patched.getPost().getId(), patched.getCreatedAt(),
+                patched.getContent());
+        return patched;
+    }
+
+    // The comment's own text is left out, so an edit is not a duplicate of what it replaces
+    private void screenEdit(Comment comment, String content) {
+        contentScreener.screenEdit(LikeableType.COMMENT, comment.getId(), comment.getPost().getId(), null, null,
+                comment.getAuthorId(), comment.getContent(), content);
     }
 
     public void deleteComment(Long id) {
@@ -79,10 +236,61 @@ public class CommentService {
             Comment comment = commentOpt.get();
             comment.setIsDeleted(true);
             commentRepository.save(comment);
+            tagIndexer.remove(LikeableType.COMMENT, id);
+            invalidationBus.comment(id);
         }
     }
 
     public void hardDeleteComment(Long id) {
         commentRepository.deleteById(id);
+        invalidationBus.comment(id);
+        invalidationBus.allReplies();
+    }
+
+    // The sort key of the last item as text, checked against the requested sort
+    record PageCursor(CommentSort sort, String key, long id) {
+
+        // Above every stored key, so the first page starts at the top of the index
+        static PageCursor first(CommentSort sort) {
+            String key = switch (sort) {
+                case TOP -> String.valueOf(Integer.MAX_VALUE);
+                case NEW -> LocalDateTime.of(9999, 12, 31, 23, 59, 59).toString();
+                case CONTROVERSIAL -> String.valueOf(Double.MAX_VALUE);
+            };
+            return new PageCursor(sort, key, Long.MAX_VALUE);
+        }
+
+        static PageCursor of(CommentSort sort, ScoredCommentView last) {
+            String key = switch (sort) {
+                case TOP -> String.valueOf(last.getLikeTotal());
+                case NEW -> last.getCreatedAt().toString();
+                case CONTROVERSIAL -> String.valueOf(last.getControversyScore());
+            };
+            return new PageCursor(sort, key, last.getId());
+        }
+
+        static PageCursor decode(String value, CommentSort expected) {
+            PageCursor cursor;
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|");
+                cursor = new PageCursor(CommentSort.valueOf(parts[0]), parts[1], Long.parseLong(parts[2]));
+                switch (cursor.sort()) {
+                    case TOP -> Integer.parseInt(cursor.key());
+                    case NEW -> LocalDateTime.parse(cursor.key());
+                    case CONTROVERSIAL -> Double.parseDouble(cursor.key());
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid comment cursor", e);
+            }
+            if (cursor.sort() != expected) {
+                throw new IllegalArgumentException("Comment cursor is for sort " + cursor.sort());
+            }
+            return cursor;
+        }
+
+        String encode() {
+            String raw = sort + "|" + key + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
     }
 }
@@ -0,0 +1,90 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.entity.HeldContent;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.repositories.HeldContentRepository;
+import com.example.springboot_social_media.spam.ContentHeldException;
+import com.example.springboot_social_media.spam.SpamAction;
+import com.example.springboot_social_media.spam.SpamDetectedException;
+import com.example.springboot_social_media.spam.SpamDetector;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The spam check on the comment and reply write paths, run before anything is written.
+ * <p>
+ * Accepted content is remembered by the {@link SpamDetector} once its transaction commits. Flagged content
+ * is remembered straight away, so the rest of a wave keeps matching it. It is then rejected, or, with
+ * {@code app.spam.action=HOLD}, stored in held_content in a transaction of its own. That transaction
+ * survives the rollback of the caller's, which the exception triggers.
+ */
+@Component
+public class ContentScreener {
+
+    final SpamDetector spamDetector;
+
+    final HeldContentRepository heldContentRepository;
+
+    final ApplicationEventPublisher eventPublisher;
+
+    final TransactionTemplate separateTransaction;
+
+    public ContentScreener(SpamDetector spamDetector,
+                           HeldContentRepository heldContentRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager) {
+        this.spamDetector = spamDetector;
+        this.heldContentRepository = heldContentRepository;
+        this.eventPublisher = eventPublisher;
+        this.separateTransaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @throws SpamDetectedException if the content is rejected as spam
+     * @throws ContentHeldException if the content was held for review instead
+     */
+    public void screen(LikeableType type, Long postId, Long parentCommentId, Long parentReplyId, Long authorId,
+                       String content) {
+        check(spamDetector.screen(postId, content), new HeldContent(
+                type, postId, parentCommentId, parentReplyId, authorId, content, null));
+    }
+
+    /**
+     * Screens an edit of the comment or reply {@code targetId}. Its current text, {@code previous}, is not
+     * counted as a duplicate of the new one. A held edit leaves the item as it was until it is approved.
+     *
+     * @throws SpamDetectedException if the edit is rejected as spam
+     * @throws ContentHeldException if the edit was held for review instead
+     */
+    public void screenEdit(LikeableType type, Long targetId, Long postId, Long parentCommentId, Long parentReplyId,
+                           Long authorId, String previous, String content) {
+        HeldContent held = new HeldContent(type, postId, parentCommentId, parentReplyId, authorId, content, null);
+        held.setTargetId(targetId);
+        check(spamDetector.screen(postId, content, previous), held);
+    }
+
+    private void check(SpamDetector.Screening screening, HeldContent held) {
+        if (!screening.flagged()) {
+            eventPublisher.publishEvent(screening);
+            return;
+        }
+        spamDetector.remember(screening);
+        if (spamDetector.getAction() == SpamAction.REJECT) {
+            throw new SpamDetectedException("Content is too similar to recent content");
+        }
+        held.setSimilarity(screening.maxSimilarity());
+        Long heldId = separateTransaction.execute(status -> heldContentRepository.save(held).getId());
+        throw new ContentHeldException(heldId);
+    }
+
+    // fallbackExecution covers callers running without a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void remember(SpamDetector.Screening screening) {
+        spamDetector.remember(screening);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.springboot_social_media.services;
+
+// Published by the write services per like, comment or reply on a post, views come from EngagementRollup.recordView
+public record EngagementEvent(Metric metric, Long postId) {
+
+    public enum Metric {
+        LIKE, COMMENT, REPLY, VIEW
+    }
+}
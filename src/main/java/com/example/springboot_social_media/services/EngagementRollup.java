@@ -0,0 +1,205 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.entity.EngagementScope;
+import com.example.springboot_social_media.repositories.AuthorRef;
+import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains engagement_daily, the per post and per author daily counts behind the analytics API.
+ * <p>
+ * Events are counted in memory per post and day once their transaction commits, and each flush folds them
+ * in with one batched upsert. A post row and its author's row are written in the same transaction. Counts
+ * are events on that day: unlikes and deletes are not subtracted. Rows are sorted before the upsert, so
+ * nodes flushing the same keys concurrently lock them in the same order. A batch that fails to write is
+ * merged back into the buffer for the next flush. Events still buffered are flushed when the application
+ * stops; a crash, or a database still failing then, loses at most what was pending.
+ */
+@Slf4j
+@Component
+public class EngagementRollup implements DisposableBean {
+
+    private static final String UPSERT = """
+            INSERT INTO engagement_daily (scope, subject_id, day, likes, comments, replies, views)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (scope, subject_id, day)
+            DO UPDATE SET likes = engagement_daily.likes + EXCLUDED.likes,
+                          comments = engagement_daily.comments + EXCLUDED.comments,
+                          replies = engagement_daily.replies + EXCLUDED.replies,
+                          views = engagement_daily.views + EXCLUDED.views
+            """;
+
+    private static final Comparator<Row> KEY_ORDER = Comparator.comparing((Row row) -> row.scope().name())
+            .thenComparing(Row::subjectId)
+            .thenComparing(Row::day);
+
+    final PostRepository postRepository;
+
+    final JdbcTemplate jdbcTemplate;
+
+    final ShardRouter shardRouter;
+
+    final TransactionTemplate transactionTemplate;
+
+    final int maxPending;
+
+    final int batchSize;
+
+    // Counts indexed by EngagementEvent.Metric, only mutated inside ConcurrentHashMap.compute
+    private final ConcurrentHashMap<Key, long[]> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    public EngagementRollup(PostRepository postRepository,
+                            JdbcTemplate jdbcTemplate,
+                            ShardRouter shardRouter,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${app.analytics.max-pending:100000}") int maxPending,
+                            @Value("${app.analytics.batch-size:1000}") int batchSize) {
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+    }
+
+    // fallbackExecution covers publishers running without a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void enqueue(EngagementEvent event) {
+        Key key = new Key(event.postId(), LocalDate.now());
+        if (!pending.containsKey(key) && pending.size() >= maxPending) {
+            dropped.incrementAndGet();
+            return;
+        }
+        // compute is atomic with the remove in drain, so no count lands in an already drained entry
+        pending.compute(key, (k, counts) -> {
+            long[] updated = counts != null ? counts : new long[EngagementEvent.Metric.values().length];
+            updated[event.metric().ordinal()]++;
+            return updated;
+        });
+    }
+
+    // Reads write nothing to the database; the view only exists in the rollup
+    public void recordView(Long postId) {
+        enqueue(new EngagementEvent(EngagementEvent.Metric.VIEW, postId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.flush-interval:PT5S}")
+    public void flush() {
+        flushBatch();
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            log.warn("Dropped {} engagement events, more than {} post days were pending", lost, maxPending);
+        }
+    }
+
+    // Stops at the first failed batch, which would otherwise be requeued and retried forever
+    @Override
+    public void destroy() {
+        while (!pending.isEmpty()) {
+            if (!flushBatch()) {
+                log.warn("Engagement for {} post days was not written before shutdown", pending.size());
+                return;
+            }
+        }
+    }
+
+    // False when the batch failed and was put back
+    private boolean flushBatch() {
+        Map<Key, long[]> batch = drain();
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            Map<Long, Long> authors = shardRouter.byShard(batch.keySet().stream().map(Key::id).distinct().toList(),
+                    ids -> postRepository.findAuthorsByIdIn(ids).stream()
+                            .collect(Collectors.toMap(AuthorRef::getId, AuthorRef::getAuthorId)));
+            List<Row> rows = rows(batch, authors);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT, rows, rows.size(),
+                    (statement, row) -> {
+                        statement.setString(1, row.scope().name());
+                        statement.setLong(2, row.subjectId());
+                        statement.setDate(3, Date.valueOf(row.day()));
+                        for (int i = 0; i < row.counts().length; i++) {
+                            statement.setLong(4 + i, row.counts()[i]);
+                        }
+                    }));
+            log.debug("Folded engagement for {} post days into {} rollup rows", batch.size(), rows.size());
+            return true;
+        } catch (RuntimeException e) {
+            requeue(batch);
+            log.warn("Folding engagement failed, {} post days kept for the next flush", batch.size(), e);
+            return false;
+        }
+    }
+
+    private Map<Key, long[]> drain() {
+        Map<Key, long[]> batch = new HashMap<>();
+        for (Key key : pending.keySet()) {
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            long[] taken = pending.remove(key);
+            if (taken != null) {
+                batch.put(key, taken);
+            }
+        }
+        return batch;
+    }
+
+    // Counts only add up, so a failed batch is summed into whatever arrived since the drain
+    private void requeue(Map<Key, long[]> batch) {
+        batch.forEach((key, failed) -> pending.merge(key, failed, EngagementRollup::add));
+    }
+
+    // Posts deleted since the event keep their own row but no longer count for an author
+    private static List<Row> rows(Map<Key, long[]> batch, Map<Long, Long> authors) {
+        Map<Key, long[]> byAuthor = new HashMap<>();
+        List<Row> rows = new ArrayList<>();
+        batch.forEach((key, counts) -> {
+            rows.add(new Row(EngagementScope.POST, key.id(), key.day(), counts));
+            Long authorId = authors.get(key.id());
+            if (authorId != null) {
+                byAuthor.merge(new Key(authorId, key.day()), counts.clone(), EngagementRollup::add);
+            }
+        });
+        byAuthor.forEach((key, counts) -> rows.add(new Row(EngagementScope.AUTHOR, key.id(), key.day(), counts)));
+        rows.sort(KEY_ORDER);
+        return rows;
+    }
+
+    private static long[] add(long[] into, long[] counts) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += counts[i];
+        }
+        return into;
+    }
+
+    // A post id while pending, an author id once grouped for the author rows
+    record Key(Long id, LocalDate day) {
+    }
+
+    // Metric order matches the upsert's columns
+    record Row(EngagementScope scope, Long subjectId, LocalDate day, long[] counts) {
+    }
+}
@@ -1,16 +1,32 @@
 package com.example.springboot_social_media.services;
 
+import com.example.springboot_social_media.cluster.InvalidationBus;
 import com.example.springboot_social_media.entity.Like;
 import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.entity.NotificationType;
 import com.example.springboot_social_media.entity.Post;
+import com.example.springboot_social_media.dto.LikeItemResponse;
+import com.example.springboot_social_media.dto.ResponseMapper;
+import com.example.springboot_social_media.hotkey.HotCounter;
+import com.example.springboot_social_media.hotkey.HotKeyTracker;
+import com.example.springboot_social_media.repositories.LikeCount;
 import com.example.springboot_social_media.repositories.LikeRepository;
+import com.example.springboot_social_media.sharding.ShardRouter;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -19,22 +35,57 @@ public class LikeService {
 
     final LikeRepository likeRepository;
 
+    final ApplicationEventPublisher eventPublisher;
+
+    final HotKeyTracker hotKeys;
+
+    final InvalidationBus invalidationBus;
+
+    final ShardRouter shardRouter;
+
+    /**
+     * The like row itself is always written; a hot item also moves its in-memory count once the transaction
+     * commits. The toggle is not counted as an access of its own: the like count the caller reads next is.
+     */
     public boolean toggleLike(Long userId, LikeableType likeableType, Long likeableId) {
+        HotCounter hot = hotKeys.peek(hotKey(likeableType, likeableId));
         boolean exists = likeRepository.existsByUserIdAndLikeableTypeAndLikeableId(
                 userId, likeableType, likeableId);
 
         if (exists) {
             likeRepository.deleteByUserIdAndLikeableTypeAndLikeableId(
                     userId, likeableType, likeableId);
+            if (hot != null) {
+                afterCommit(committedAt -> hot.add(-1, committedAt));
+            }
+            invalidationBus.likeDelta(hotKey(likeableType, likeableId), -1);
+            eventPublisher.publishEvent(new NotificationEvent(NotificationType.LIKE, likeableType, likeableId, userId, true));
+            if (likeableType == LikeableType.COMMENT) {
+                eventPublisher.publishEvent(new CommentLikeEvent(likeableId, -1));
+            }
             return false; // Unliked
         } else {
             Like like = new Like(userId, likeableType, likeableId);
             likeRepository.save(like);
+            if (hot != null) {
+                afterCommit(committedAt -> hot.add(1, committedAt));
+            }
+            invalidationBus.likeDelta(hotKey(likeableType, likeableId), 1);
+            eventPublisher.publishEvent(new NotificationEvent(NotificationType.LIKE, likeableType, likeableId, userId));
+            if (likeableType == LikeableType.POST) {
+                eventPublisher.publishEvent(new EngagementEvent(EngagementEvent.Metric.LIKE, likeableId));
+            } else if (likeableType == LikeableType.COMMENT) {
+                eventPublisher.publishEvent(new CommentLikeEvent(likeableId, 1));
+            }
             return true; // Liked
         }
     }
 
     public long getLikeCount(LikeableType likeableType, Long likeableId) {
+        HotCounter hot = trackLikeCount(likeableType, likeableId);
+        if (hot != null) {
+            return hot.value();
+        }
         return likeRepository.countByLikeableTypeAndLikeableId(likeableType, likeableId);
     }
 
@@ -51,6 +102,12 @@ public class LikeService {
         return likeRepository.findByLikeableTypeAndLikeableId(likeableType, likeableId);
     }
 
+    public List<LikeItemResponse> getLikeResponsesForItem(LikeableType likeableType, Long likeableId) {
+        return getLikesForItem(likeableType, likeableId).stream()
+                .map(ResponseMapper::toResponse)
+                .toList();
+    }
+
     public void populateLikeCounts(Post post) {
         if (post != null) {
             post.setLikeCount(getLikeCount(LikeableType.POST, post.getId()));
@@ -73,11 +130,67 @@ public class LikeService {
         likeRepository.deleteByLikeableTypeAndLikeableId(likeableType, likeableId);
     }
 
-    public Map<Long, Long> getLikeCountsForItems(LikeableType likeableType, List<Long> itemIds) {
+    // One grouped query for the whole batch; items without likes are absent from the map
+    public Map<Long, Long> getLikeCountsForItems(LikeableType likeableType, Collection<Long> itemIds) {
         Map<Long, Long> likeCounts = new HashMap<>();
-        for (Long itemId : itemIds) {
-            likeCounts.put(itemId, getLikeCount(likeableType, itemId));
+        if (itemIds.isEmpty()) {
+            return likeCounts;
+        }
+        List<Long> coldIds = new ArrayList<>(itemIds.size());
+        for (Long id : itemIds) {
+            HotCounter hot = hotKeys.peek(hotKey(likeableType, id));
+            if (hot != null) {
+                likeCounts.put(id, hot.value());
+            } else {
+                coldIds.add(id);
+            }
+        }
+        if (coldIds.isEmpty()) {
+            return likeCounts;
+        }
+        for (LikeCount count : likeRepository.findLikeCounts(likeableType.getValue(), coldIds)) {
+            likeCounts.put(count.getLikeableId(), count.getLikeCount());
         }
         return likeCounts;
     }
+
+    // Newest likes of each item, at most perItem each, in one query
+    public Map<Long, List<Like>> getRecentLikesForItems(LikeableType likeableType, Collection<Long> itemIds, int perItem) {
+        if (itemIds.isEmpty()) {
+            return Map.of();
+        }
+        return likeRepository.findRecentByItems(likeableType.getValue(), itemIds, perItem).stream()
+                .collect(Collectors.groupingBy(Like::getLikeableId));
+    }
+
+    // Runs right away when there is no transaction to wait for. The action gets the commit time, taken before
+    // any other synchronization runs, as a counter reload that starts after it must not skip the change
+    private static void afterCommit(LongConsumer action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(System.currentTimeMillis());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long committedAt = System.currentTimeMillis();
+                action.accept(committedAt);
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        });
+    }
+
+    // The counter is merged from the tracker's tick, which runs with no shard selected
+    private HotCounter trackLikeCount(LikeableType likeableType, Long likeableId) {
+        return hotKeys.track(hotKey(likeableType, likeableId), () -> shardRouter.onShardOf(likeableId,
+                () -> likeRepository.countByLikeableTypeAndLikeableId(likeableType, likeableId)));
+    }
+
+    private static String hotKey(LikeableType likeableType, Long likeableId) {
+        return likeableType.getValue() + ":" + likeableId;
+    }
 }
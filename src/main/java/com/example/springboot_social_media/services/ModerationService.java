@@ -0,0 +1,85 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.dto.ActivityItemResponse;
+import com.example.springboot_social_media.dto.ActivityType;
+import com.example.springboot_social_media.entity.Comment;
+import com.example.springboot_social_media.entity.HeldContent;
+import com.example.springboot_social_media.entity.Reply;
+import com.example.springboot_social_media.repositories.HeldContentRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * The review queue of held content on the current shard. Held rows live with their post, so every call
+ * naming a post must run on that post's shard.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class ModerationService {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    final HeldContentRepository heldContentRepository;
+
+    final CommentService commentService;
+
+    final ReplyService replyService;
+
+    public List<HeldContent> findHeld(int limit) {
+        return heldContentRepository.findAllByOrderByCreatedAtAscIdAsc(Limit.of(Math.clamp(limit, 1, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Publishes the held content as the comment or reply it was meant to be, or applies a held edit to its
+     * target, without screening it again.
+     */
+    public ActivityItemResponse approve(Long postId, Long id) {
+        HeldContent held = heldContentRepository.findByIdAndPostId(id, postId)
+                .orElseThrow(() -> new RuntimeException("Held content not found with id: " + id));
+        heldContentRepository.delete(held);
+        if (held.getTargetId() != null) {
+            return applyEdit(held);
+        }
+        return switch (held.getContentType()) {
+            case COMMENT -> {
+                Comment comment = commentService.createApprovedComment(postId, held.getAuthorId(), held.getContent());
+                yield new ActivityItemResponse(ActivityType.COMMENT, comment.getId(), postId, null,
+                        comment.getContent(), null, null, comment.getCreatedAt());
+            }
+            case REPLY -> {
+                Reply reply = replyService.createApprovedReply(postId, held.getParentCommentId(),
+                        held.getParentReplyId(), held.getAuthorId(), held.getContent());
+                yield new ActivityItemResponse(ActivityType.REPLY, reply.getId(), postId, null,
+                        reply.getContent(), null, null, reply.getCreatedAt());
+            }
+            case POST -> throw new IllegalStateException("Posts are never held");
+        };
+    }
+
+    private ActivityItemResponse applyEdit(HeldContent held) {
+        return switch (held.getContentType()) {
+            case COMMENT -> {
+                Comment comment = commentService.applyApprovedEdit(held.getTargetId(), held.getContent());
+                yield new ActivityItemResponse(ActivityType.COMMENT, comment.getId(), held.getPostId(), null,
+                        comment.getContent(), null, null, comment.getCreatedAt());
+            }
+            case REPLY -> {
+                Reply reply = replyService.applyApprovedEdit(held.getTargetId(), held.getContent());
+                yield new ActivityItemResponse(ActivityType.REPLY, reply.getId(), held.getPostId(), null,
+                        reply.getContent(), null, null, reply.getCreatedAt());
+            }
+            case POST -> throw new IllegalStateException("Posts are never held");
+        };
+    }
+
+    public void discard(Long postId, Long id) {
+        HeldContent held = heldContentRepository.findByIdAndPostId(id, postId)
+                .orElseThrow(() -> new RuntimeException("Held content not found with id: " + id));
+        heldContentRepository.delete(held);
+    }
+}
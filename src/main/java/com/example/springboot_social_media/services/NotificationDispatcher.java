@@ -0,0 +1,240 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.entity.NotificationType;
+import com.example.springboot_social_media.repositories.AuthorRef;
+import com.example.springboot_social_media.repositories.CommentRepository;
+import com.example.springboot_social_media.repositories.NotificationRepository;
+import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.repositories.ReplyRepository;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces notification events in memory and delivers them in batches from the scheduler thread.
+ * <p>
+ * Events are buffered per target once their transaction commits, so the request thread only touches a map.
+ * Each flush resolves the targets' authors with one query per target type and writes each target's actors
+ * to {@code notification_actors}, then recounts its unread row from them. Actors are distinct per unread
+ * row across flushes, and an unlike removes its actor again. However many likes a post receives, it costs
+ * one round of writes per flush interval, and the buffer is capped at {@code app.notifications.max-pending}
+ * targets. A batch that fails to deliver is put back for the next flush; buffered events are lost on
+ * shutdown.
+ * <p>
+ * Authors are read from the shards holding the targets; the upserts then run in one transaction on the
+ * home shard, where notifications live.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    // Beyond this many distinct actors per target and flush, further actors are dropped
+    static final int MAX_TRACKED_ACTORS = 4096;
+
+    static final String INSERT_ACTOR = """
+            INSERT INTO notification_actors (notification_id, actor_id, created_at)
+            SELECT n.id, ?, clock_timestamp()
+              FROM notifications n
+             WHERE n.recipient_id = ? AND n.type = ? AND n.target_type = ? AND n.target_id = ? AND n.is_read = false
+            ON CONFLICT (notification_id, actor_id) DO UPDATE SET created_at = EXCLUDED.created_at
+            """;
+
+    final NotificationRepository notificationRepository;
+
+    final PostRepository postRepository;
+
+    final CommentRepository commentRepository;
+
+    final ReplyRepository replyRepository;
+
+    final JdbcTemplate jdbcTemplate;
+
+    final ShardRouter shardRouter;
+
+    final TransactionTemplate transactionTemplate;
+
+    final int maxPending;
+
+    final int batchSize;
+
+    private final ConcurrentHashMap<Key, Pending> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    public NotificationDispatcher(NotificationRepository notificationRepository,
+                                  PostRepository postRepository,
+                                  CommentRepository commentRepository,
+                                  ReplyRepository replyRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  ShardRouter shardRouter,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.notifications.max-pending:100000}") int maxPending,
+                                  @Value("${app.notifications.batch-size:500}") int batchSize) {
+        this.notificationRepository = notificationRepository;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.replyRepository = replyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+    }
+
+    // fallbackExecution covers publishers running without a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void enqueue(NotificationEvent event) {
+        Key key = new Key(event.type(), event.targetType(), event.targetId());
+        if (!pending.containsKey(key) && pending.size() >= maxPending) {
+            dropped.incrementAndGet();
+            return;
+        }
+        // compute is atomic with the remove in drain, so no event lands in an already drained entry
+        pending.compute(key, (k, existing) -> {
+            Pending batch = existing != null ? existing : new Pending();
+            if (!batch.record(event.actorId(), !event.retracted())) {
+                dropped.incrementAndGet();
+            }
+            return batch;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.flush-interval:PT2S}")
+    public void flush() {
+        Map<Key, Pending> batch = drain();
+        if (!batch.isEmpty()) {
+            try {
+                Map<LikeableType, Map<Long, Long>> authors = resolveAuthors(batch.keySet());
+                int written = transactionTemplate.execute(status -> {
+                    int rows = 0;
+                    for (Map.Entry<Key, Pending> entry : batch.entrySet()) {
+                        Key key = entry.getKey();
+                        Long recipientId = authors.get(key.targetType()).get(key.targetId());
+                        if (recipientId != null && deliver(key, recipientId, entry.getValue())) {
+                            rows++;
+                        }
+                    }
+                    return rows;
+                });
+                log.debug("Delivered {} notification rows for {} targets", written, batch.size());
+            } catch (RuntimeException e) {
+                requeue(batch);
+                log.warn("Notification delivery failed, {} targets kept for the next flush", batch.size(), e);
+            }
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            log.warn("Dropped {} notification events, more than {} targets or {} actors per target were pending",
+                    lost, maxPending, MAX_TRACKED_ACTORS);
+        }
+    }
+
+    private Map<Key, Pending> drain() {
+        Map<Key, Pending> batch = new HashMap<>();
+        for (Key key : pending.keySet()) {
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            Pending taken = pending.remove(key);
+            if (taken != null) {
+                batch.put(key, taken);
+            }
+        }
+        return batch;
+    }
+
+    // Events that arrived since the drain are newer, so they are applied on top of the failed batch
+    private void requeue(Map<Key, Pending> batch) {
+        batch.forEach((key, failed) -> pending.merge(key, failed, (newer, older) -> older.then(newer)));
+    }
+
+    private Map<LikeableType, Map<Long, Long>> resolveAuthors(Collection<Key> keys) {
+        Map<LikeableType, Map<Long, Long>> authors = new EnumMap<>(LikeableType.class);
+        Map<LikeableType, List<Long>> idsByType = keys.stream().collect(Collectors.groupingBy(Key::targetType,
+                () -> new EnumMap<>(LikeableType.class), Collectors.mapping(Key::targetId, Collectors.toList())));
+        idsByType.forEach((type, ids) -> authors.put(type, shardRouter.byShard(ids, group -> {
+            List<AuthorRef> refs = switch (type) {
+                case POST -> postRepository.findAuthorsByIdIn(group);
+                case COMMENT -> commentRepository.findAuthorsByIdIn(group);
+                case REPLY -> replyRepository.findAuthorsByIdIn(group);
+            };
+            return refs.stream().collect(Collectors.toMap(AuthorRef::getId, AuthorRef::getAuthorId));
+        })));
+        return authors;
+    }
+
+    // Authors are not notified about their own activity
+    private boolean deliver(Key key, Long recipientId, Pending batch) {
+        String type = key.type().name();
+        String targetType = key.targetType().getValue();
+        List<Long> added = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        batch.snapshot().forEach((actor, present) -> {
+            if (!actor.equals(recipientId)) {
+                (present ? added : removed).add(actor);
+            }
+        });
+        if (added.isEmpty() && removed.isEmpty()) {
+            return false;
+        }
+        if (!removed.isEmpty()) {
+            notificationRepository.removeUnreadActors(recipientId, type, targetType, key.targetId(), removed);
+        }
+        if (!added.isEmpty()) {
+            notificationRepository.openUnread(recipientId, type, targetType, key.targetId(), added.getLast());
+            List<Object[]> rows = new ArrayList<>(added.size());
+            for (Long actor : added) {
+                rows.add(new Object[]{actor, recipientId, type, targetType, key.targetId()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_ACTOR, rows);
+        }
+        notificationRepository.recountUnread(recipientId, type, targetType, key.targetId(), !added.isEmpty());
+        notificationRepository.deleteEmptyUnread(recipientId, type, targetType, key.targetId());
+        return true;
+    }
+
+    record Key(NotificationType type, LikeableType targetType, Long targetId) {
+    }
+
+    // Only mutated inside ConcurrentHashMap.compute/merge, read after it has been removed from the map
+    static final class Pending {
+        // Each actor's latest state, true for an action and false for its retraction, oldest first
+        private final LinkedHashMap<Long, Boolean> actors = new LinkedHashMap<>();
+
+        // Returns false when the actor is new and the target already tracks as many as it can
+        boolean record(Long actorId, boolean present) {
+            if (!actors.containsKey(actorId) && actors.size() >= MAX_TRACKED_ACTORS) {
+                return false;
+            }
+            actors.remove(actorId);
+            actors.put(actorId, present);
+            return true;
+        }
+
+        Pending then(Pending newer) {
+            newer.actors.forEach(this::record);
+            return this;
+        }
+
+        Map<Long, Boolean> snapshot() {
+            return new LinkedHashMap<>(actors);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.entity.NotificationType;
+
+// Published by the write services; the recipient is the target's author, resolved at delivery time.
+// A retracted event takes the actor's earlier one back, e.g. an unlike.
+public record NotificationEvent(NotificationType type, LikeableType targetType, Long targetId, Long actorId,
+                                boolean retracted) {
+
+    public NotificationEvent(NotificationType type, LikeableType targetType, Long targetId, Long actorId) {
+        this(type, targetType, targetId, actorId, false);
+    }
+}
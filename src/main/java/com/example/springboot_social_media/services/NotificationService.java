@@ -0,0 +1,85 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.dto.NotificationPageResponse;
+import com.example.springboot_social_media.dto.NotificationResponse;
+import com.example.springboot_social_media.dto.ResponseMapper;
+import com.example.springboot_social_media.entity.Notification;
+import com.example.springboot_social_media.repositories.NotificationRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and acknowledges notifications. Writing them is {@link NotificationDispatcher}'s job.
+ * <p>
+ * Unread notifications are ordered by updated_at descending, so a coalesced row moves back to the top
+ * when new actors arrive. A row that moves while the user is paging can appear on two pages.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class NotificationService {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    final NotificationRepository notificationRepository;
+
+    public NotificationPageResponse getUnread(Long recipientId, String cursor, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        ScrollPosition position = cursor == null || cursor.isBlank()
+                ? ScrollPosition.keyset()
+                : Cursor.decode(cursor).position();
+
+        Window<Notification> window = notificationRepository.findByRecipientIdAndIsReadFalseOrderByUpdatedAtDescIdDesc(
+                recipientId, position, Limit.of(pageSize));
+        List<NotificationResponse> items = window.getContent().stream()
+                .map(ResponseMapper::toResponse)
+                .toList();
+
+        String nextCursor = window.hasNext() && !items.isEmpty() ? Cursor.of(items.getLast()).encode() : null;
+        return new NotificationPageResponse(items, notificationRepository.countByRecipientIdAndIsReadFalse(recipientId),
+                nextCursor);
+    }
+
+    public int markRead(Long recipientId, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return notificationRepository.markAllRead(recipientId);
+        }
+        return notificationRepository.markRead(recipientId, ids);
+    }
+
+    record Cursor(LocalDateTime updatedAt, long id) {
+
+        static Cursor of(NotificationResponse item) {
+            return new Cursor(item.updatedAt(), item.id());
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|");
+                return new Cursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid notification cursor", e);
+            }
+        }
+
+        ScrollPosition position() {
+            return ScrollPosition.forward(Map.of("updatedAt", updatedAt, "id", id));
+        }
+
+        String encode() {
+            String raw = updatedAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly partitions of posts, comments and replies ahead of the clock and archives cold ones.
+ * <p>
+ * A partition older than the retention period is exported as gzipped CSV to the archive directory, then
+ * detached and dropped, together with the likes, notifications and tag index rows of its content. The file
+ * is complete on disk before anything is dropped. Comments and replies
+ * are never older than their post, so they may outlive an archived post until their own month passes;
+ * reads treat them like the children of a deleted post.
+ * <p>
+ * Every shard holds its own partitions and is maintained in turn. With more than one shard, archives go to a
+ * {@code shard-N} subdirectory so equally named partitions do not overwrite each other.
+ */
+@Slf4j
+@Component
+public class PartitionMaintenanceJob {
+
+    static final List<String> TABLES = List.of("replies", "comments", "posts");
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "posts", LikeableType.POST.getValue(),
+            "comments", LikeableType.COMMENT.getValue(),
+            "replies", LikeableType.REPLY.getValue());
+
+    private static final int NOTIFICATION_CHUNK = 10_000;
+
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("(\\w+)_p(\\d{4})_(\\d{2})");
+
+    final JdbcTemplate jdbcTemplate;
+
+    final DataSource dataSource;
+
+    final TransactionTemplate transactionTemplate;
+
+    final ShardRouter shardRouter;
+
+    final int monthsAhead;
+
+    final int retentionMonths;
+
+    final boolean archiveEnabled;
+
+    final Path archiveDir;
+
+    public PartitionMaintenanceJob(JdbcTemplate jdbcTemplate,
+                                   DataSource dataSource,
+                                   TransactionTemplate transactionTemplate,
+                                   ShardRouter shardRouter,
+                                   @Value("${app.partitions.months-ahead:3}") int monthsAhead,
+                                   @Value("${app.partitions.retention-months:24}") int retentionMonths,
+                                   @Value("${app.partitions.archive-enabled:false}") boolean archiveEnabled,
+                                   @Value("${app.partitions.archive-dir:archive}") Path archiveDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveEnabled = archiveEnabled;
+        this.archiveDir = archiveDir;
+    }
+
+    @Scheduled(initialDelayString = "${app.partitions.maintenance-initial-delay:PT30S}",
+            fixedDelayString = "${app.partitions.maintenance-interval:P1D}")
+    public void maintain() {
+        shardRouter.forEachShard(shard -> {
+            for (String table : TABLES) {
+                Integer created = jdbcTemplate.queryForObject("SELECT ensure_monthly_partitions(?, 0, ?)",
+                        Integer.class, table, monthsAhead);
+                if (created != null && created > 0) {
+                    log.info("Created {} monthly partitions for {} on shard {}", created, table, shard);
+                }
+            }
+            if (archiveEnabled) {
+                archiveBefore(YearMonth.now().minusMonths(retentionMonths), shardArchiveDir(shard));
+            }
+        });
+    }
+
+    private Path shardArchiveDir(int shard) {
+        return shardRouter.shardCount() == 1 ? archiveDir : archiveDir.resolve("shard-" + shard);
+    }
+
+    // Runs against the currently selected shard
+    void archiveBefore(YearMonth horizon, Path archiveDir) {
+        for (String table : TABLES) {
+            for (String partition : monthlyPartitions(table)) {
+                Matcher matcher = MONTHLY_PARTITION.matcher(partition);
+                if (!matcher.matches()) {
+                    continue;
+                }
+                YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)));
+                if (month.isBefore(horizon)) {
+                    try {
+                        archive(table, partition, archiveDir);
+                    } catch (IOException | SQLException | RuntimeException e) {
+                        log.error("Archiving {} failed, it stays attached", partition, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<String> monthlyPartitions(String table) {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                 WHERE i.inhparent = CAST(? AS regclass)
+                 ORDER BY c.relname
+                """, String.class, table).stream()
+                .filter(name -> name.startsWith(table + "_p"))
+                .toList();
+    }
+
+    private void archive(String table, String partition, Path archiveDir) throws IOException, SQLException {
+        Files.createDirectories(archiveDir);
+        Path target = archiveDir.resolve(partition + ".csv.gz");
+        Path partial = archiveDir.resolve(partition + ".csv.gz.partial");
+
+        long rows;
+        try (Connection connection = dataSource.getConnection();
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial))) {
+            rows = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyOut("COPY \"" + partition + "\" TO STDOUT WITH (FORMAT csv, HEADER)", out);
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Dropping a partition fires no delete triggers, so the tag index rows, likes and notifications of its
+        // content are removed here
+        String contentType = CONTENT_TYPES.get(table);
+        deleteNotifications(partition, contentType);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM post_tags WHERE content_type = ? AND (content_id, created_at) IN "
+                    + "(SELECT id, created_at FROM \"" + partition + "\")", contentType);
+            jdbcTemplate.update("DELETE FROM likes WHERE likeable_type = ? AND likeable_id IN "
+                    + "(SELECT id FROM \"" + partition + "\")", contentType);
+            jdbcTemplate.execute("ALTER TABLE \"" + table + "\" DETACH PARTITION \"" + partition + "\"");
+            jdbcTemplate.execute("DROP TABLE \"" + partition + "\"");
+        });
+        log.info("Archived {} ({} rows) to {}", partition, rows, target);
+    }
+
+    /**
+     * Notifications live on the home shard, so they cannot be joined to the partition. Its ids are read a chunk
+     * at a time and the matching notifications deleted there, before the partition is dropped. If the drop
+     * then fails, the content stays without its notifications.
+     */
+    private void deleteNotifications(String partition, String contentType) {
+        long after = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM \"" + partition + "\" WHERE id > ? ORDER BY id LIMIT ?",
+                    Long.class, after, NOTIFICATION_CHUNK);
+            if (ids.isEmpty()) {
+                return;
+            }
+            shardRouter.on(0, () -> jdbcTemplate.update(
+                    "DELETE FROM notifications WHERE target_type = ? AND target_id = ANY(?)",
+                    contentType, ids.toArray(Long[]::new)));
+            after = ids.getLast();
+        }
+    }
+}
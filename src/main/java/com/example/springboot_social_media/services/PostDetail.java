@@ -0,0 +1,7 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.dto.PostResponse;
+
+// partial marks a response missing a part that failed or missed the deadline, see PostDetailAssembler
+public record PostDetail(PostResponse post, boolean partial) {
+}
@@ -0,0 +1,164 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.dto.ResponseMapper;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.jfr.PostIdContext;
+import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.repositories.PostView;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Loads the independent parts of a post detail response concurrently, so it takes as long as the slowest
+ * read rather than their sum.
+ * <p>
+ * Each part is forked on its own virtual thread and reads in its own read-only transaction, outside the
+ * caller's, so a call holds two pool connections. All parts share one deadline of
+ * {@code app.post-detail.timeout}. The post itself is required, so its failure or timeout fails the call, with
+ * a {@link QueryTimeoutException} when it is late and a {@link TransientDataAccessException} otherwise. The
+ * like count is optional. If it fails or is late, the post is returned without it and marked partial.
+ * <p>
+ * Forks are never interrupted: an interrupt during a socket read makes pgjdbc close the connection, which the
+ * pool then has to replace. Instead each transaction sets statement_timeout to what is left of the deadline,
+ * so a late read is cancelled by the server and its connection goes back to the pool intact.
+ */
+@Slf4j
+@Component
+public class PostDetailAssembler implements DisposableBean {
+
+    final PostRepository postRepository;
+
+    final LikeService likeService;
+
+    final ShardRouter shardRouter;
+
+    final JdbcTemplate jdbcTemplate;
+
+    final TransactionTemplate readTransaction;
+
+    final Duration timeout;
+
+    private final Counter partial;
+
+    private final ExecutorService forks =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("post-detail-", 0).factory());
+
+    public PostDetailAssembler(PostRepository postRepository,
+                               LikeService likeService,
+                               ShardRouter shardRouter,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.post-detail.timeout:PT2S}") Duration timeout) {
+        this.postRepository = postRepository;
+        this.likeService = likeService;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.timeout = timeout;
+        this.partial = Counter.builder("posts.detail.partial")
+                .description("Post details returned without a part that failed or missed the deadline")
+                .register(meterRegistry);
+    }
+
+    // Null when the post does not exist
+    public PostDetail assemble(Long id) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Future<Optional<PostView>> post = fork(id, deadline, () -> postRepository.findViewById(id));
+        Future<Long> likes = fork(id, deadline, () -> likeService.getLikeCount(LikeableType.POST, id));
+        try {
+            Optional<PostView> view = join(post, deadline, id);
+            if (view.isEmpty()) {
+                return null;
+            }
+            Long likeCount = joinOptional(likes, deadline, id);
+            return new PostDetail(ResponseMapper.toResponse(view.get(), likeCount), likeCount == null);
+        } finally {
+            // Only drops forks that have not started; running ones end at their statement timeout
+            post.cancel(false);
+            likes.cancel(false);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        forks.shutdownNow();
+    }
+
+    // The fork starts with no shard selected, so it selects the post's own, and carries the recording context
+    private <T> Future<T> fork(Long postId, long deadline, Supplier<T> read) {
+        Supplier<T> traced = PostIdContext.propagate(() -> readTransaction.execute(status -> {
+            limitStatements(deadline, postId);
+            return read.get();
+        }));
+        return forks.submit(() -> shardRouter.onShardOf(postId, traced));
+    }
+
+    // Counts from the shared deadline, so time spent waiting for a thread or a pool connection is taken off.
+    // SET LOCAL ends with the transaction and does not outlive it on the pooled connection
+    private void limitStatements(long deadline, Long postId) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(remaining(deadline));
+        if (millis <= 0) {
+            throw new QueryTimeoutException("No time left to load post " + postId);
+        }
+        jdbcTemplate.execute("SET LOCAL statement_timeout = " + millis);
+    }
+
+    // Data access failures of the read pass through as they are, a statement timeout among them
+    private <T> T join(Future<T> fork, long deadline, Long postId) {
+        try {
+            return fork.get(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientDataAccessResourceException("Interrupted while loading post " + postId, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DataAccessException dataAccess) {
+                throw dataAccess;
+            }
+            throw new TransientDataAccessResourceException("Loading post " + postId + " failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Post " + postId + " was not loaded within " + timeout, e);
+        }
+    }
+
+    // Null when the part failed or missed the deadline; an interrupt still fails the whole call
+    private <T> T joinOptional(Future<T> fork, long deadline, Long postId) {
+        try {
+            return fork.get(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientDataAccessResourceException("Interrupted while loading post " + postId, e);
+        } catch (ExecutionException | TimeoutException e) {
+            partial.increment();
+            log.warn("Returning post {} without its like count", postId, e);
+            return null;
+        }
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+}
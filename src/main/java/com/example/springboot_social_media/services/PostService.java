@@ -1,13 +1,23 @@
 package com.example.springboot_social_media.services;
 
+import com.example.springboot_social_media.cluster.InvalidationBus;
 import com.example.springboot_social_media.dto.PostSummaryResponse;
+import com.example.springboot_social_media.dto.ResponseMapper;
+import com.example.springboot_social_media.entity.LikeableType;
 import com.example.springboot_social_media.entity.Post;
+import com.example.springboot_social_media.repositories.ContentVersion;
 import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.repositories.PostSummaryView;
+import com.example.springboot_social_media.repositories.PostView;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -19,23 +29,44 @@ public class PostService {
 
     final LikeService likeService;
 
+    final InvalidationBus invalidationBus;
+
+    final TagIndexer tagIndexer;
+
+    final PostDetailAssembler postDetailAssembler;
+
     public Post createPost(String title, String content, Long authorId) {
         Post post = new Post(title, content, authorId);
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        tagIndexer.index(LikeableType.POST, saved.getId(), saved.getId(), saved.getCreatedAt(), title, content);
+        invalidationBus.post(saved.getId());
+        return saved;
     }
 
     public Optional<Post> findById(Long id) {
         return postRepository.findById(id);
     }
 
-    public Post findByIdWithDetails(Long id) {
-        Optional<Post> postOpt = postRepository.findById(id);
-        if (postOpt.isPresent()) {
-            Post post = postOpt.get();
-            likeService.populateLikeCounts(post);
-            return post;
-        }
-        return null;
+    public Optional<ContentVersion> findVersionById(Long id) {
+        return postRepository.findVersionById(id);
+    }
+
+    public ContentVersion findPublishedFeedVersion() {
+        return postRepository.findPublishedFeedVersion();
+    }
+
+    // The parts are read concurrently on their own connections, so no transaction is held while waiting
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public PostDetail findByIdWithDetails(Long id) {
+        return postDetailAssembler.assemble(id);
+    }
+
+    public Optional<PostView> findViewById(Long id) {
+        return postRepository.findViewById(id);
+    }
+
+    public List<PostView> findPublishedViews(int limit) {
+        return postRepository.findPublishedViews(Limit.of(limit));
     }
 
     public List<Post> findAllPublishedPosts() {
@@ -45,72 +76,76 @@ public class PostService {
     }
 
     public List<PostSummaryResponse> findAllPublishedPostsSummary() {
-        List<Post> posts = postRepository.findByIsPublishedTrueOrderByCreatedAtDesc();
+        List<PostSummaryView> posts = postRepository.findPublishedSummaries();
+        Map<Long, Long> likeCounts = likeService.getLikeCountsForItems(LikeableType.POST,
+                posts.stream().map(PostSummaryView::getId).toList());
         return posts.stream()
-                .map(this::convertToPostSummary)
+                .map(post -> ResponseMapper.toSummary(post, likeCounts.getOrDefault(post.getId(), 0L)))
                 .toList();
     }
 
-    private PostSummaryResponse convertToPostSummary(Post post) {
-        PostSummaryResponse summary = new PostSummaryResponse();
-        summary.setId(post.getId());
-        summary.setTitle(post.getTitle());
-        summary.setContent(post.getContent());
-        summary.setAuthorId(post.getAuthorId());
-        summary.setCreatedAt(post.getCreatedAt());
-        summary.setLikeCount(post.getLikeCount() != null ? post.getLikeCount().longValue() : 0L);
-        // For now, set comment count to 0 since we're not loading comments in the summary
-        summary.setCommentCount(post.getComments().size());
-        return summary;
-    }
-
     public List<Post> findPostsByAuthor(Long authorId) {
         List<Post> posts = postRepository.findByAuthorIdOrderByCreatedAtDesc(authorId);
         posts.forEach(likeService::populateLikeCounts);
         return posts;
     }
 
-    public Post updatePost(Long id, String title, String content) {
+    public Post updatePost(Long id, String title, String content, Long expectedVersion) {
         Optional<Post> postOpt = postRepository.findById(id);
         if (postOpt.isPresent()) {
             Post post = postOpt.get();
+            if (expectedVersion != null && !expectedVersion.equals(post.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Post.class, id);
+            }
             post.setTitle(title);
             post.setContent(content);
+            tagIndexer.reindex(LikeableType.POST, id, id, post.getCreatedAt(), title, content);
+            invalidationBus.post(id);
             return postRepository.save(post);
         }
         throw new RuntimeException("Post not found with id: " + id);
     }
 
+    public Post patchPost(Long id, String title, String content, Long expectedVersion) {
+        int updated = postRepository.patchPost(id, title, content, expectedVersion);
+        if (updated == 0) {
+            if (!postRepository.existsById(id)) {
+                throw new EntityNotFoundException("Post not found with id: " + id);
+            }
+            throw new ObjectOptimisticLockingFailureException(Post.class, id);
+        }
+        invalidationBus.post(id);
+        Post patched = postRepository.findById(id).orElseThrow();
+        tagIndexer.reindex(LikeableType.POST, id, id, patched.getCreatedAt(), patched.getTitle(), patched.getContent());
+        return patched;
+    }
+
+    // The delete triggers cascade to comments and replies the caches cannot name, and to their tag index rows
     public void deletePost(Long id) {
         postRepository.deleteById(id);
+        invalidationBus.post(id);
+        invalidationBus.allComments();
+        invalidationBus.allReplies();
     }
 
     public Post publishPost(Long id) {
-        Optional<Post> postOpt = postRepository.findById(id);
-        if (postOpt.isPresent()) {
-            Post post = postOpt.get();
-            post.setIsPublished(true);
-            return postRepository.save(post);
-        }
-        throw new RuntimeException("Post not found with id: " + id);
+        return setPublished(id, true);
     }
 
     public Post unpublishPost(Long id) {
-        Optional<Post> postOpt = postRepository.findById(id);
-        if (postOpt.isPresent()) {
-            Post post = postOpt.get();
-            post.setIsPublished(false);
-            return postRepository.save(post);
+        return setPublished(id, false);
+    }
+
+    private Post setPublished(Long id, boolean published) {
+        if (postRepository.updatePublished(id, published) == 0) {
+            throw new RuntimeException("Post not found with id: " + id);
         }
-        throw new RuntimeException("Post not found with id: " + id);
+        invalidationBus.post(id);
+        return postRepository.findById(id).orElseThrow();
     }
 
+    // Not broadcast: a view on every read would flood the channel, other nodes catch up on cache expiry
     public void incrementViewCount(Long id) {
-        Optional<Post> postOpt = postRepository.findById(id);
-        if (postOpt.isPresent()) {
-            Post post = postOpt.get();
-            post.setViewCount(post.getViewCount() + 1);
-            postRepository.save(post);
-        }
+        postRepository.incrementViewCount(id);
     }
 }
@@ -0,0 +1,102 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.entity.Comment;
+import com.example.springboot_social_media.entity.Reply;
+import com.example.springboot_social_media.repositories.CommentRepository;
+import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.repositories.ReplyRepository;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recomputes reply_count/descendant_count from the replies table and comments.like_count from the likes table,
+ * and fixes any drift, e.g. from hard deletes, rows written outside the service, or a write racing a previous
+ * repair. Repaired like counts are stamped with the time the likes were read, so {@link CommentScoreUpdater}
+ * drops the buffered deltas of likes the repair already counted, on this node or any other.
+ * <p>
+ * Each shard is walked in ranges of post ids, one short transaction per range, so a repair never locks more
+ * than a chunk of threads at a time. A thread belongs to one post, so a range always holds whole threads.
+ * <p>
+ * The updates do not name the rows they change, so a chunk that repaired any counters evicts the Comment or
+ * Reply cache region once it has committed. Drift is rare, so most chunks evict nothing.
+ */
+@Slf4j
+@Component
+public class ReplyCountRepairJob {
+
+    final CommentRepository commentRepository;
+
+    final ReplyRepository replyRepository;
+
+    final PostRepository postRepository;
+
+    final ShardRouter shardRouter;
+
+    final TransactionTemplate transactionTemplate;
+
+    final EntityManagerFactory entityManagerFactory;
+
+    final int chunkSize;
+
+    public ReplyCountRepairJob(CommentRepository commentRepository,
+                               ReplyRepository replyRepository,
+                               PostRepository postRepository,
+                               ShardRouter shardRouter,
+                               TransactionTemplate transactionTemplate,
+                               EntityManagerFactory entityManagerFactory,
+                               @Value("${app.reply-counts.repair-chunk-size:1000}") int chunkSize) {
+        this.commentRepository = commentRepository;
+        this.replyRepository = replyRepository;
+        this.postRepository = postRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    @Scheduled(initialDelayString = "${app.reply-counts.repair-initial-delay:PT1M}",
+            fixedDelayString = "${app.reply-counts.repair-interval:PT6H}")
+    public void repair() {
+        shardRouter.forEachShard(shard -> {
+            long maxPostId = postRepository.findMaxId();
+            int comments = 0;
+            int replies = 0;
+            int likes = 0;
+            for (long next = 0; next < maxPostId; next += chunkSize) {
+                long from = next;
+                long to = Math.min(next + chunkSize, maxPostId);
+                int[] repaired = transactionTemplate.execute(status -> new int[]{
+                        commentRepository.repairReplyCounts(from, to),
+                        replyRepository.repairReplyCounts(from, to),
+                        // Stamped just before the statement reads the likes, so every like committed earlier
+                        // is counted. One committing in between is counted twice until the next repair
+                        commentRepository.repairLikeCounts(from, to, System.currentTimeMillis())
+                });
+                // like_count is not kept current in the entity cache, so only the reply counters need evicting
+                Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+                if (repaired[0] > 0) {
+                    cache.evictEntityData(Comment.class);
+                }
+                if (repaired[1] > 0) {
+                    cache.evictEntityData(Reply.class);
+                }
+                comments += repaired[0];
+                replies += repaired[1];
+                likes += repaired[2];
+            }
+            if (comments > 0 || replies > 0) {
+                log.info("Repaired reply counters on {} comments and {} replies on shard {}", comments, replies, shard);
+            }
+            if (likes > 0) {
+                log.info("Repaired like counts on {} comments on shard {}", likes, shard);
+            }
+        });
+    }
+}
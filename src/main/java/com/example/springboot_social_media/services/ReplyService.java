@@ -1,18 +1,32 @@
 package com.example.springboot_social_media.services;
 
+import com.example.springboot_social_media.cluster.InvalidationBus;
+import com.example.springboot_social_media.dto.ReplyResponse;
+import com.example.springboot_social_media.dto.ResponseMapper;
 import com.example.springboot_social_media.entity.Comment;
 import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.entity.NotificationType;
 import com.example.springboot_social_media.entity.Post;
 import com.example.springboot_social_media.entity.Reply;
 import com.example.springboot_social_media.repositories.CommentRepository;
 import com.example.springboot_social_media.repositories.PostRepository;
 import com.example.springboot_social_media.repositories.ReplyRepository;
+import com.example.springboot_social_media.repositories.ReplyView;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -27,44 +41,84 @@ public class ReplyService {
 
     final LikeService likeService;
 
+    final ApplicationEventPublisher eventPublisher;
+
+    final InvalidationBus invalidationBus;
+
+    final TagIndexer tagIndexer;
+
+    final ContentScreener contentScreener;
+
+    final EntityManagerFactory entityManagerFactory;
+
     public Reply createReplyToComment(Long postId, Long commentId, Long authorId, String content) {
-        Optional<Post> postOpt = postRepository.findById(postId);
-        Optional<Comment> commentOpt = commentRepository.findById(commentId);
-
-        if (postOpt.isPresent() && commentOpt.isPresent()) {
-            Post post = postOpt.get();
-            Comment comment = commentOpt.get();
-            Reply reply = new Reply(post, comment, authorId, content);
-            return replyRepository.save(reply);
-        }
-        throw new RuntimeException("Post or Comment not found");
+        contentScreener.screen(LikeableType.REPLY, postId, commentId, null, authorId, content);
+        return saveReplyToComment(postId, commentId, authorId, content);
     }
 
     public Reply createReplyToReply(Long postId, Long parentReplyId, Long authorId, String content) {
-        Optional<Post> postOpt = postRepository.findById(postId);
-        Optional<Reply> parentReplyOpt = replyRepository.findById(parentReplyId);
-
-        if (postOpt.isPresent() && parentReplyOpt.isPresent()) {
-            Post post = postOpt.get();
-            Reply parentReply = parentReplyOpt.get();
-            Reply reply = new Reply(post, parentReply, authorId, content);
-            return replyRepository.save(reply);
-        }
-        throw new RuntimeException("Post or Parent Reply not found");
+        contentScreener.screen(LikeableType.REPLY, postId, null, parentReplyId, authorId, content);
+        return saveReplyToReply(postId, parentReplyId, authorId, content);
+    }
+
+    // Held content a moderator approved is not screened again; exactly one parent is set
+    public Reply createApprovedReply(Long postId, Long parentCommentId, Long parentReplyId, Long authorId,
+                                     String content) {
+        return parentCommentId != null
+                ? saveReplyToComment(postId, parentCommentId, authorId, content)
+                : saveReplyToReply(postId, parentReplyId, authorId, content);
+    }
+
+    // References only carry the foreign keys; a missing post or parent fails the INSERT's FK check
+    private Reply saveReplyToComment(Long postId, Long commentId, Long authorId, String content) {
+        Post post = postRepository.getReferenceById(postId);
+        Comment comment = commentRepository.getReferenceById(commentId);
+        Reply saved = replyRepository.save(new Reply(post, comment, authorId, content));
+        tagIndexer.index(LikeableType.REPLY, saved.getId(), postId, saved.getCreatedAt(), content);
+        commentRepository.adjustReplyCounts(commentId, 1, 1);
+        evict(Comment.class, commentId);
+        invalidationBus.reply(saved.getId());
+        invalidationBus.comment(commentId);
+        eventPublisher.publishEvent(new NotificationEvent(NotificationType.REPLY, LikeableType.COMMENT, commentId, authorId));
+        eventPublisher.publishEvent(new EngagementEvent(EngagementEvent.Metric.REPLY, postId));
+        return saved;
+    }
+
+    private Reply saveReplyToReply(Long postId, Long parentReplyId, Long authorId, String content) {
+        Post post = postRepository.getReferenceById(postId);
+        Reply parentReply = replyRepository.getReferenceById(parentReplyId);
+        Reply saved = replyRepository.save(new Reply(post, parentReply, authorId, content));
+        tagIndexer.index(LikeableType.REPLY, saved.getId(), postId, saved.getCreatedAt(), content);
+        replyRepository.adjustReplyCount(parentReplyId, 1);
+        replyRepository.adjustDescendantCounts(parentReplyId, 1);
+        invalidationBus.reply(saved.getId());
+        invalidateAncestors(parentReply);
+        eventPublisher.publishEvent(new NotificationEvent(NotificationType.REPLY, LikeableType.REPLY, parentReplyId, authorId));
+        eventPublisher.publishEvent(new EngagementEvent(EngagementEvent.Metric.REPLY, postId));
+        return saved;
     }
 
     public Optional<Reply> findById(Long id) {
         return replyRepository.findById(id);
     }
 
-    public Reply findByIdWithLikes(Long id) {
-        Optional<Reply> replyOpt = replyRepository.findById(id);
-        if (replyOpt.isPresent()) {
-            Reply reply = replyOpt.get();
-            reply.setLikeCount(likeService.getLikeCount(LikeableType.REPLY, reply.getId()));
-            return reply;
-        }
-        return null;
+    public ReplyResponse findByIdWithLikes(Long id) {
+        List<ReplyResponse> subtree = buildTree(replyRepository.findSubtreeViews(id));
+        return subtree.isEmpty() ? null : subtree.getFirst();
+    }
+
+    // Root-most ancestor first, each without its children
+    public List<ReplyResponse> findAncestors(Long id) {
+        List<ReplyView> ancestors = replyRepository.findAncestorViews(id);
+        Map<Long, Long> likeCounts = likeService.getLikeCountsForItems(LikeableType.REPLY,
+                ancestors.stream().map(ReplyView::getId).toList());
+        return ancestors.stream()
+                .map(reply -> ResponseMapper.toResponse(reply, likeCounts.getOrDefault(reply.getId(), 0L)))
+                .toList();
+    }
+
+    public long countDescendants(Long id) {
+        return replyRepository.countDescendants(id);
     }
 
     public List<Reply> findRepliesByPost(Long postId) {
@@ -75,12 +129,26 @@ public class ReplyService {
         return replies;
     }
 
-    public List<Reply> findRepliesByComment(Long commentId) {
-        List<Reply> replies = replyRepository.findByParentCommentIdAndIsDeletedFalseOrderByCreatedAt(commentId);
-        replies.forEach(reply ->
-                reply.setLikeCount(likeService.getLikeCount(LikeableType.REPLY, reply.getId()))
-        );
-        return replies;
+    public List<ReplyResponse> findRepliesByComment(Long commentId) {
+        return buildTree(replyRepository.findThreadViewsByCommentId(commentId));
+    }
+
+    // The oldest perParent direct replies of every comment in one query, keyed by comment id
+    public Map<Long, List<ReplyView>> findDirectRepliesByComments(Collection<Long> commentIds, int perParent) {
+        if (commentIds.isEmpty()) {
+            return Map.of();
+        }
+        return replyRepository.findViewsByParentCommentIdIn(commentIds, perParent).stream()
+                .collect(Collectors.groupingBy(ReplyView::getParentCommentId));
+    }
+
+    // The oldest perParent direct replies of every reply in one query, keyed by parent reply id
+    public Map<Long, List<ReplyView>> findDirectRepliesByReplies(Collection<Long> replyIds, int perParent) {
+        if (replyIds.isEmpty()) {
+            return Map.of();
+        }
+        return replyRepository.findViewsByParentReplyIdIn(replyIds, perParent).stream()
+                .collect(Collectors.groupingBy(ReplyView::getParentReplyId));
     }
 
     public List<Reply> findRepliesByParentReply(Long parentReplyId) {
@@ -103,27 +171,106 @@ public class ReplyService {
         Optional<Reply> replyOpt = replyRepository.findById(id);
         if (replyOpt.isPresent()) {
             Reply reply = replyOpt.get();
-            reply.setContent(content);
-            return replyRepository.save(reply);
+            // The reply's own text is left out, so an edit is not a duplicate of what it replaces
+            contentScreener.screenEdit(LikeableType.REPLY, id, reply.getPost().getId(),
+                    reply.getParentComment() == null ? null : reply.getParentComment().getId(),
+                    reply.getParentReply() == null ? null : reply.getParentReply().getId(),
+                    reply.getAuthorId(), reply.getContent(), content);
+            return saveEdit(reply, content);
         }
         throw new RuntimeException("Reply not found with id: " + id);
     }
 
+    // A held edit a moderator approved is not screened again
+    public Reply applyApprovedEdit(Long id, String content) {
+        Reply reply = replyRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Reply not found with id: " + id));
+        return saveEdit(reply, content);
+    }
+
+    private Reply saveEdit(Reply reply, String content) {
+        reply.setContent(content);
+        tagIndexer.reindex(LikeableType.REPLY, reply.getId(), reply.getPost().getId(), reply.getCreatedAt(), content);
+        invalidationBus.reply(reply.getId());
+        return replyRepository.save(reply);
+    }
+
+    // The conditional update decides which of concurrent deletes adjusts the counters, so they move once
     public void deleteReply(Long id) {
         Optional<Reply> replyOpt = replyRepository.findById(id);
-        if (replyOpt.isPresent()) {
+        if (replyOpt.isPresent() && replyRepository.markDeleted(id) == 1) {
             Reply reply = replyOpt.get();
-            reply.setIsDeleted(true);
-            replyRepository.save(reply);
+            evict(Reply.class, id);
+            tagIndexer.remove(LikeableType.REPLY, id);
+            invalidationBus.reply(id);
+            adjustParentCounts(reply, -1);
         }
     }
 
     public void hardDeleteReply(Long id) {
         replyRepository.deleteById(id);
+        invalidationBus.allReplies();
     }
 
     public List<Reply> getHierarchicalReplies(Long postId) {
         // This would use the PostgreSQL function get_replies_hierarchy
         return replyRepository.findByPostIdAndIsDeletedFalseOrderByPath(postId);
     }
+
+    // Only the reply itself is counted in or out; its descendants keep their own state
+    private void adjustParentCounts(Reply reply, int delta) {
+        if (reply.getParentComment() != null) {
+            commentRepository.adjustReplyCounts(reply.getParentComment().getId(), delta, delta);
+            evict(Comment.class, reply.getParentComment().getId());
+            invalidationBus.comment(reply.getParentComment().getId());
+        } else if (reply.getParentReply() != null) {
+            Long parentId = reply.getParentReply().getId();
+            replyRepository.adjustReplyCount(parentId, delta);
+            replyRepository.adjustDescendantCounts(parentId, delta);
+            invalidateAncestors(reply.getParentReply());
+        }
+    }
+
+    // Descendant counts change on the parent and every ancestor up to the root comment, which its ltree path
+    // names in order: the comment id first, then the reply ids down to the parent itself
+    private void invalidateAncestors(Reply parentReply) {
+        String path = parentReply.getPath();
+        if (path == null) {
+            Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            cache.evictEntityData(Reply.class);
+            cache.evictEntityData(Comment.class);
+            invalidationBus.allReplies();
+            invalidationBus.allComments();
+            return;
+        }
+        String[] labels = path.split("\\.");
+        evict(Comment.class, Long.parseLong(labels[0]));
+        invalidationBus.comment(Long.parseLong(labels[0]));
+        for (int i = 1; i < labels.length; i++) {
+            evict(Reply.class, Long.parseLong(labels[i]));
+            invalidationBus.reply(Long.parseLong(labels[i]));
+        }
+    }
+
+    // The counter updates are native and declare no mapped query space, so Hibernate leaves the entity cache
+    // alone and only the rows they changed are evicted here. A read between the update and the commit can
+    // cache the old row again, so it is evicted once more when the transaction completes.
+    private void evict(Class<?> type, Long id) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(type, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evictEntityData(type, id);
+                }
+            });
+        }
+    }
+
+    private List<ReplyResponse> buildTree(List<ReplyView> replies) {
+        Map<Long, Long> likeCounts = likeService.getLikeCountsForItems(LikeableType.REPLY,
+                replies.stream().map(ReplyView::getId).toList());
+        return ResponseMapper.toReplyTree(replies, likeCounts);
+    }
 }
@@ -0,0 +1,144 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.dto.ActivityItemResponse;
+import com.example.springboot_social_media.dto.ActivityPageResponse;
+import com.example.springboot_social_media.dto.PostSummaryResponse;
+import com.example.springboot_social_media.dto.TagItemResponse;
+import com.example.springboot_social_media.dto.TagPageResponse;
+import com.example.springboot_social_media.dto.TrendingTagResponse;
+import com.example.springboot_social_media.repositories.ContentVersion;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import com.example.springboot_social_media.tagging.TagKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads that span every shard: the published feed, its version, user activity and the tag index. Each shard answers from
+ * its own transaction in parallel, and the sorted results are merged here. Deliberately not transactional,
+ * since a transaction would pin the request to one shard.
+ */
+@Service
+@RequiredArgsConstructor
+public class ShardedReadService {
+
+    private static final Comparator<PostSummaryResponse> FEED_ORDER =
+            Comparator.comparing(PostSummaryResponse::createdAt).thenComparing(PostSummaryResponse::id).reversed();
+
+    // Each shard returns this many times the requested trending tags, see findTrending
+    static final int TRENDING_OVERFETCH = 4;
+
+    final ShardRouter shardRouter;
+
+    final PostService postService;
+
+    final ActivityService activityService;
+
+    final TagService tagService;
+
+    public ContentVersion findPublishedFeedVersion() {
+        List<ContentVersion> versions = shardRouter.scatter(shard -> postService.findPublishedFeedVersion());
+        return versions.size() == 1 ? versions.getFirst() : FeedVersion.combine(versions);
+    }
+
+    public List<PostSummaryResponse> findAllPublishedPostsSummary() {
+        return ShardRouter.mergeSorted(shardRouter.scatter(shard -> postService.findAllPublishedPostsSummary()),
+                FEED_ORDER, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Every shard returns a full page after the cursor, so the first {@code size} merged items are exactly
+     * the page a single database would have returned.
+     */
+    public ActivityPageResponse getActivity(Long userId, String cursor, int size) {
+        List<ActivityPageResponse> pages = shardRouter.scatter(shard -> activityService.getActivity(userId, cursor, size));
+        if (pages.size() == 1) {
+            return pages.getFirst();
+        }
+        int pageSize = Math.clamp(size, 1, ActivityService.MAX_PAGE_SIZE);
+        List<ActivityItemResponse> items = ShardRouter.mergeSorted(
+                pages.stream().map(ActivityPageResponse::items).toList(), ActivityService.TIMELINE_ORDER, pageSize);
+        int available = pages.stream().mapToInt(page -> page.items().size()).sum();
+        boolean more = available > items.size() || pages.stream().anyMatch(page -> page.nextCursor() != null);
+        String nextCursor = more && !items.isEmpty() ? ActivityService.Cursor.of(items.getLast()).encode() : null;
+        return new ActivityPageResponse(items, nextCursor);
+    }
+
+    // Same reasoning as getActivity: every shard's full page after the cursor covers the merged page
+    public TagPageResponse getTagPage(TagKind kind, String name, String cursor, int size) {
+        List<TagPageResponse> pages = shardRouter.scatter(shard -> tagService.getTagPage(kind, name, cursor, size));
+        if (pages.size() == 1) {
+            return pages.getFirst();
+        }
+        int pageSize = Math.clamp(size, 1, TagService.MAX_PAGE_SIZE);
+        List<TagItemResponse> items = ShardRouter.mergeSorted(
+                pages.stream().map(TagPageResponse::items).toList(), TagService.PAGE_ORDER, pageSize);
+        int available = pages.stream().mapToInt(page -> page.items().size()).sum();
+        boolean more = available > items.size() || pages.stream().anyMatch(page -> page.nextCursor() != null);
+        String nextCursor = more && !items.isEmpty() ? TagService.Cursor.of(items.getLast()).encode() : null;
+        return new TagPageResponse(pages.getFirst().tag(), items, nextCursor);
+    }
+
+    /**
+     * Sums each shard's top hashtags. With several shards a tag just outside some shard's top list is
+     * undercounted there, so every shard is asked for {@link #TRENDING_OVERFETCH} times as many. Posts are
+     * spread round-robin, so tag popularity is much the same on every shard and the top of the sum is stable.
+     */
+    public List<TrendingTagResponse> findTrending(int hours, int limit) {
+        int requested = Math.clamp(limit, 1, TagService.MAX_TRENDING);
+        if (shardRouter.shardCount() == 1) {
+            return shardRouter.scatter(shard -> tagService.findTrending(hours, requested)).getFirst();
+        }
+        Map<String, Long> counts = new HashMap<>();
+        shardRouter.scatter(shard -> tagService.findTrending(hours, requested * TRENDING_OVERFETCH))
+                .forEach(top -> top.forEach(tag -> counts.merge(tag.tag(), tag.count(), Long::sum)));
+        return counts.entrySet().stream()
+                .map(entry -> new TrendingTagResponse(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(TrendingTagResponse::count).reversed()
+                        .thenComparing(TrendingTagResponse::tag))
+                .limit(requested)
+                .toList();
+    }
+
+    // Newest modification anywhere and everything else summed. Each shard's feed digest is a counter that only
+    // grows, so the sum changes whenever any shard's does, where XOR could come back to an earlier value
+    record FeedVersion(Long lastModified, Long itemCount, Long likeCount, Long digest) implements ContentVersion {
+
+        static FeedVersion combine(List<ContentVersion> versions) {
+            return new FeedVersion(
+                    versions.stream().map(ContentVersion::getLastModified).filter(Objects::nonNull)
+                            .max(Long::compare).orElse(null),
+                    versions.stream().map(ContentVersion::getItemCount).filter(Objects::nonNull)
+                            .mapToLong(Long::longValue).sum(),
+                    versions.stream().map(ContentVersion::getLikeCount).filter(Objects::nonNull)
+                            .mapToLong(Long::longValue).sum(),
+                    versions.stream().map(ContentVersion::getDigest).filter(Objects::nonNull)
+                            .reduce(Long::sum).orElse(null));
+        }
+
+        @Override
+        public Long getLastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public Long getItemCount() {
+            return itemCount;
+        }
+
+        @Override
+        public Long getLikeCount() {
+            return likeCount;
+        }
+
+        @Override
+        public Long getDigest() {
+            return digest;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.dto.TagBackfillResponse;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Builds the tag index for content written before it existed, or loaded by a bulk import.
+ * <p>
+ * Walks the posts, comments and replies of every shard in id order, one chunk per transaction. A chunk
+ * reads its live rows FOR SHARE, drops their index rows and those of content in its id range that is gone or
+ * deleted, and indexes each row again, so a run is idempotent. The row locks hold back edits and deletes of
+ * the chunk until it commits ({@link TagIndexer} locks the row before its entries), and content created
+ * meanwhile keeps the entries its own transaction wrote. So the job can run under traffic and simply be
+ * started again after a failure or restart.
+ */
+@Slf4j
+@Component
+public class TagBackfillJob {
+
+    private static final List<Source> SOURCES = List.of(
+            new Source(LikeableType.POST,
+                    "SELECT id, id AS post_id, created_at, title, content FROM posts WHERE id > ? ORDER BY id LIMIT ? FOR SHARE",
+                    "true"),
+            new Source(LikeableType.COMMENT, """
+                    SELECT id, post_id, created_at, NULL AS title, content FROM comments
+                     WHERE id > ? AND is_deleted = false ORDER BY id LIMIT ? FOR SHARE
+                    """, "c.is_deleted = false"),
+            new Source(LikeableType.REPLY, """
+                    SELECT id, post_id, created_at, NULL AS title, content FROM replies
+                     WHERE id > ? AND is_deleted = false ORDER BY id LIMIT ? FOR SHARE
+                    """, "c.is_deleted = false"));
+
+    // Entries of content in the chunk's range that no longer exists or is deleted
+    private static final String DELETE_STALE = """
+            DELETE FROM post_tags pt
+             WHERE pt.content_type = ? AND pt.content_id > ? AND pt.content_id <= ?
+               AND NOT EXISTS (SELECT 1 FROM %s c WHERE c.id = pt.content_id AND %s)
+            """;
+
+    final JdbcTemplate jdbcTemplate;
+
+    final TagIndexer tagIndexer;
+
+    final ShardRouter shardRouter;
+
+    final TransactionTemplate transactionTemplate;
+
+    final int chunkSize;
+
+    final boolean runOnStartup;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("tag-backfill").daemon().factory());
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile TagBackfillResponse status = new TagBackfillResponse(false, 0, 0, null, null, null);
+
+    public TagBackfillJob(JdbcTemplate jdbcTemplate,
+                          TagIndexer tagIndexer,
+                          ShardRouter shardRouter,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${app.tags.backfill-chunk-size:1000}") int chunkSize,
+                          @Value("${app.tags.backfill-on-startup:false}") boolean runOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tagIndexer = tagIndexer;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.runOnStartup = runOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIfConfigured() {
+        if (runOnStartup) {
+            start();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public TagBackfillResponse start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Tag backfill is already running");
+        }
+        status = new TagBackfillResponse(true, 0, 0, LocalDateTime.now(), null, null);
+        executor.execute(this::run);
+        return status;
+    }
+
+    public TagBackfillResponse status() {
+        return status;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        long[] totals = new long[2];
+        String error = null;
+        try {
+            shardRouter.forEachShard(shard -> {
+                for (Source source : SOURCES) {
+                    backfill(source, totals);
+                    log.info("Tag backfill done for {} on shard {}, {} rows scanned so far", source.type(), shard,
+                            totals[0]);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Tag backfill failed after {} rows", totals[0], e);
+            error = e.getMessage();
+        } finally {
+            status = new TagBackfillResponse(false, totals[0], totals[1], status.startedAt(), LocalDateTime.now(),
+                    error);
+            running.set(false);
+        }
+    }
+
+    // Runs against the currently selected shard
+    private void backfill(Source source, long[] totals) {
+        long lastId = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long from = lastId;
+            Chunk chunk = transactionTemplate.execute(status -> indexChunk(source, from));
+            totals[0] += chunk.rows();
+            totals[1] += chunk.tagged();
+            this.status = new TagBackfillResponse(true, totals[0], totals[1], this.status.startedAt(), null, null);
+            if (chunk.rows() < chunkSize) {
+                return;
+            }
+            lastId = chunk.lastId();
+        }
+    }
+
+    private Chunk indexChunk(Source source, long afterId) {
+        List<Row> rows = jdbcTemplate.query(source.query(), (rs, rowNum) -> new Row(
+                rs.getLong("id"), rs.getLong("post_id"), rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getString("title"), rs.getString("content")), afterId, chunkSize);
+        if (rows.isEmpty()) {
+            return new Chunk(0, 0, afterId);
+        }
+        long lastId = rows.getLast().id();
+        // Only the locked rows are rewritten: content committed since the SELECT is not among them, and keeps
+        // the entries its own transaction wrote
+        Long[] ids = rows.stream().map(Row::id).toArray(Long[]::new);
+        jdbcTemplate.update("DELETE FROM post_tags WHERE content_type = ? AND content_id = ANY(?)",
+                source.type().getValue(), ids);
+        jdbcTemplate.update(DELETE_STALE.formatted(TagIndexer.table(source.type()), source.live()),
+                source.type().getValue(), afterId, lastId);
+        int tagged = 0;
+        for (Row row : rows) {
+            if (tagIndexer.index(source.type(), row.id(), row.postId(), row.createdAt(), row.title(), row.content()) > 0) {
+                tagged++;
+            }
+        }
+        return new Chunk(rows.size(), tagged, lastId);
+    }
+
+    // live is the condition on the content table, aliased c, for a row that should be indexed
+    record Source(LikeableType type, String query, String live) {
+    }
+
+    record Row(long id, long postId, LocalDateTime createdAt, String title, String content) {
+    }
+
+    record Chunk(int rows, int tagged, long lastId) {
+    }
+}
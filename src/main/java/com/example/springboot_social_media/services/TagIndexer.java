@@ -0,0 +1,102 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.tagging.Tag;
+import com.example.springboot_social_media.tagging.TagExtractor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps post_tags in step with content. Called by the content services inside their transaction, so the
+ * index commits or rolls back with the content it describes, on the same shard.
+ * <p>
+ * Tags are resolved in {@link Tag} order, so writers creating the same new tags take their locks in the
+ * same order. An edit replaces every row of the content; hard deletes are cleaned up by the cascade trigger.
+ * Edits and removals lock the content row before touching its entries, the same order {@link TagBackfillJob}
+ * takes, so the two never overwrite each other's entries or deadlock.
+ */
+@Component
+public class TagIndexer {
+
+    // A tag committed by a concurrent writer while this runs is invisible to both branches; a retry sees it
+    private static final String FIND_OR_CREATE_TAG = """
+            WITH inserted AS (
+                INSERT INTO tags (kind, name) VALUES (?, ?) ON CONFLICT (kind, name) DO NOTHING RETURNING id)
+            SELECT id FROM inserted
+            UNION ALL
+            SELECT id FROM tags WHERE kind = ? AND name = ?
+            """;
+
+    private static final String INSERT_ENTRY = """
+            INSERT INTO post_tags (tag_id, created_at, content_type, content_id, post_id)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    final JdbcTemplate jdbcTemplate;
+
+    final int maxTagsPerContent;
+
+    public TagIndexer(JdbcTemplate jdbcTemplate,
+                      @Value("${app.tags.max-per-content:30}") int maxTagsPerContent) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxTagsPerContent = maxTagsPerContent;
+    }
+
+    /**
+     * Indexes new content. {@code createdAt} must be the content's own, it locates the row from a tag page.
+     */
+    public int index(LikeableType type, Long id, Long postId, LocalDateTime createdAt, String... texts) {
+        Set<Tag> tags = TagExtractor.extract(maxTagsPerContent, texts);
+        if (tags.isEmpty()) {
+            return 0;
+        }
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        List<Object[]> rows = new ArrayList<>(tags.size());
+        for (Tag tag : tags) {
+            rows.add(new Object[]{tagId(tag), timestamp, type.getValue(), id, postId});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, rows);
+        return rows.size();
+    }
+
+    // Edits replace the whole set; content rarely carries more than a handful of tags
+    public int reindex(LikeableType type, Long id, Long postId, LocalDateTime createdAt, String... texts) {
+        remove(type, id);
+        return index(type, id, postId, createdAt, texts);
+    }
+
+    public void remove(LikeableType type, Long id) {
+        // The same lock the row's own update takes at flush, only earlier
+        jdbcTemplate.queryForList("SELECT 1 FROM " + table(type) + " WHERE id = ? FOR NO KEY UPDATE", id);
+        jdbcTemplate.update("DELETE FROM post_tags WHERE content_type = ? AND content_id = ?", type.getValue(), id);
+    }
+
+    static String table(LikeableType type) {
+        return switch (type) {
+            case POST -> "posts";
+            case COMMENT -> "comments";
+            case REPLY -> "replies";
+        };
+    }
+
+    private long tagId(Tag tag) {
+        for (int attempt = 0; ; attempt++) {
+            List<Long> ids = jdbcTemplate.queryForList(FIND_OR_CREATE_TAG, Long.class,
+                    tag.kind().name(), tag.name(), tag.kind().name(), tag.name());
+            if (!ids.isEmpty()) {
+                return ids.getFirst();
+            }
+            if (attempt > 0) {
+                throw new IllegalStateException("Could not resolve tag " + tag);
+            }
+        }
+    }
+}
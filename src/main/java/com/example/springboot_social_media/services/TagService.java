@@ -0,0 +1,155 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.dto.TagItemResponse;
+import com.example.springboot_social_media.dto.TagPageResponse;
+import com.example.springboot_social_media.dto.TrendingTagResponse;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.tagging.TagExtractor;
+import com.example.springboot_social_media.tagging.TagKind;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the tag index of the current shard: reverse-chronological pages of the content using a tag, and
+ * the most used hashtags of a recent window.
+ * <p>
+ * Pages are ordered by created_at, content type and id, all descending, and the cursor is the last item
+ * returned. A page is one backward range scan of the post_tags primary key. Each row is joined to its
+ * content by the content's own primary key, which also drops unpublished posts and deleted comments and
+ * replies.
+ */
+@Service
+@Transactional
+public class TagService {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    static final int MAX_TRENDING = 100;
+
+    static final Comparator<TagItemResponse> PAGE_ORDER =
+            Comparator.comparing(TagItemResponse::createdAt)
+                    .thenComparing(item -> item.type().getValue())
+                    .thenComparing(TagItemResponse::id)
+                    .reversed();
+
+    private static final String PAGE = """
+            SELECT pt.content_type, pt.content_id, pt.post_id, pt.created_at,
+                   COALESCE(p.author_id, c.author_id, r.author_id) AS author_id,
+                   p.title,
+                   COALESCE(p.content, c.content, r.content) AS content
+              FROM post_tags pt
+              JOIN tags t ON t.id = pt.tag_id
+              LEFT JOIN posts p ON pt.content_type = 'post' AND p.id = pt.content_id AND p.created_at = pt.created_at
+              LEFT JOIN comments c ON pt.content_type = 'comment' AND c.id = pt.content_id AND c.created_at = pt.created_at
+              LEFT JOIN replies r ON pt.content_type = 'reply' AND r.id = pt.content_id AND r.created_at = pt.created_at
+             WHERE t.kind = ? AND t.name = ?
+               AND (p.is_published OR c.is_deleted = false OR r.is_deleted = false)
+               %s
+             ORDER BY pt.created_at DESC, pt.content_type DESC, pt.content_id DESC
+             LIMIT ?
+            """;
+
+    private static final String AFTER_CURSOR = "AND (pt.created_at, pt.content_type, pt.content_id) < (?, ?, ?)";
+
+    // Drafts and their threads are not public yet, so their hashtags do not count
+    private static final String TRENDING = """
+            SELECT t.name, COUNT(*) AS uses
+              FROM post_tags pt
+              JOIN tags t ON t.id = pt.tag_id
+              JOIN posts p ON p.id = pt.post_id AND p.is_published
+             WHERE pt.created_at >= ? AND t.kind = 'HASHTAG'
+             GROUP BY t.name
+             ORDER BY uses DESC, t.name
+             LIMIT ?
+            """;
+
+    private static final RowMapper<TagItemResponse> ITEM = (rs, rowNum) -> new TagItemResponse(
+            LikeableType.valueOf(rs.getString("content_type").toUpperCase(Locale.ROOT)),
+            rs.getLong("content_id"),
+            rs.getLong("post_id"),
+            rs.getLong("author_id"),
+            rs.getString("title"),
+            rs.getString("content"),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    final JdbcTemplate jdbcTemplate;
+
+    final int maxTrendingHours;
+
+    public TagService(JdbcTemplate jdbcTemplate,
+                      @Value("${app.tags.trending-max-hours:168}") int maxTrendingHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxTrendingHours = maxTrendingHours;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name or the cursor is malformed
+     */
+    public TagPageResponse getTagPage(TagKind kind, String name, String cursor, int size) {
+        String tag = TagExtractor.normalize(kind, name);
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        Cursor after = cursor == null || cursor.isBlank() ? null : Cursor.decode(cursor);
+
+        List<Object> args = new ArrayList<>(List.of(kind.name(), tag));
+        if (after != null) {
+            args.addAll(List.of(Timestamp.valueOf(after.createdAt()), after.type().getValue(), after.id()));
+        }
+        args.add(pageSize + 1);
+        List<TagItemResponse> rows = jdbcTemplate.query(PAGE.formatted(after == null ? "" : AFTER_CURSOR),
+                ITEM, args.toArray());
+
+        boolean more = rows.size() > pageSize;
+        List<TagItemResponse> items = more ? rows.subList(0, pageSize) : rows;
+        String nextCursor = more ? Cursor.of(items.getLast()).encode() : null;
+        return new TagPageResponse(kind.getMarker() + tag, items, nextCursor);
+    }
+
+    /**
+     * Hashtags by the number of posts, comments and replies created in the last {@code hours} hours that use
+     * them, ties broken by name.
+     *
+     * @throws IllegalArgumentException if hours is outside 1..app.tags.trending-max-hours
+     */
+    public List<TrendingTagResponse> findTrending(int hours, int limit) {
+        if (hours < 1 || hours > maxTrendingHours) {
+            throw new IllegalArgumentException("hours must be between 1 and " + maxTrendingHours);
+        }
+        Timestamp since = Timestamp.valueOf(LocalDateTime.now().minusHours(hours));
+        return jdbcTemplate.query(TRENDING, (rs, rowNum) -> new TrendingTagResponse(
+                TagKind.HASHTAG.getMarker() + rs.getString("name"), rs.getLong("uses")),
+                since, Math.max(limit, 1));
+    }
+
+    record Cursor(LocalDateTime createdAt, LikeableType type, long id) {
+
+        static Cursor of(TagItemResponse item) {
+            return new Cursor(item.createdAt(), item.type(), item.id());
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|");
+                return new Cursor(LocalDateTime.parse(parts[0]), LikeableType.valueOf(parts[1]), Long.parseLong(parts[2]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid tag cursor", e);
+            }
+        }
+
+        String encode() {
+            String raw = createdAt + "|" + type + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
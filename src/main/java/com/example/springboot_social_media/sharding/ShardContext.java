@@ -0,0 +1,26 @@
+package com.example.springboot_social_media.sharding;
+
+/**
+ * The shard the current thread talks to. Read by {@link ShardRoutingDataSource} when a connection is taken,
+ * which for a transaction is when it begins, so it must be set before entering a transactional service.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    // Null when nothing was selected; the routing data source then uses the home shard 0
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+}
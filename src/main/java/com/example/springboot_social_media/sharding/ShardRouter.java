@@ -0,0 +1,183 @@
+package com.example.springboot_social_media.sharding;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Maps content ids to shards and runs work on them.
+ * <p>
+ * Every post, comment and reply id is generated congruent to its shard modulo
+ * {@code app.sharding.logical-shards} (see configure_shard_sequences in schema.sql). Any of them names its
+ * shard without a lookup. Comments, replies and likes are stored with their post, so the shard of a post
+ * covers its whole thread. With sharding disabled there is one shard, and every method simply runs the work.
+ */
+public class ShardRouter {
+
+    final int shardCount;
+
+    final int logicalShards;
+
+    private final AtomicInteger nextNewPostShard = new AtomicInteger();
+
+    private final ExecutorService scatterExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("shard-scatter-", 0).factory());
+
+    public ShardRouter(int shardCount, int logicalShards) {
+        if (shardCount < 1 || shardCount > logicalShards) {
+            throw new IllegalArgumentException("Need between 1 and " + logicalShards + " shards, got " + shardCount);
+        }
+        this.shardCount = shardCount;
+        this.logicalShards = logicalShards;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(long id) {
+        return Math.floorMod(id, logicalShards) % shardCount;
+    }
+
+    // New posts are spread round-robin; everything below a post follows it
+    public int shardForNewPost() {
+        return Math.floorMod(nextNewPostShard.getAndIncrement(), shardCount);
+    }
+
+    /**
+     * Runs the work with the given shard selected.
+     *
+     * @throws IllegalStateException when called inside a transaction bound to another shard
+     */
+    public <T> T on(int shard, Supplier<T> work) {
+        Integer previous = ShardContext.current();
+        if ((previous == null ? 0 : previous) == shard) {
+            return work.get();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cannot switch to shard " + shard + " inside a transaction");
+        }
+        ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    public <T> T onShardOf(long id, Supplier<T> work) {
+        return on(shardOf(id), work);
+    }
+
+    public void forEachShard(IntConsumer work) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            int current = shard;
+            on(shard, () -> {
+                work.accept(current);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Runs the work on every shard in parallel and returns the results in shard order.
+     */
+    public <T> List<T> scatter(IntFunction<T> work) {
+        if (shardCount == 1) {
+            return List.of(on(0, () -> work.apply(0)));
+        }
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(scatterExecutor.submit(() -> on(target, () -> work.apply(target))));
+        }
+        return gather(futures);
+    }
+
+    /**
+     * Splits the ids by shard, loads each group on its shard (in parallel when there are several), and
+     * combines the results.
+     */
+    public <K, V> Map<K, V> byShard(Collection<Long> ids, Function<List<Long>, Map<K, V>> loader) {
+        Map<Integer, List<Long>> groups = ids.stream().collect(Collectors.groupingBy(this::shardOf));
+        if (groups.size() <= 1) {
+            return groups.isEmpty() ? Map.of() : on(groups.keySet().iterator().next(), () -> loader.apply(List.copyOf(ids)));
+        }
+        List<Future<Map<K, V>>> futures = new ArrayList<>(groups.size());
+        groups.forEach((shard, group) -> futures.add(scatterExecutor.submit(() -> on(shard, () -> loader.apply(group)))));
+        Map<K, V> combined = new HashMap<>();
+        gather(futures).forEach(combined::putAll);
+        return combined;
+    }
+
+    /**
+     * K-way merge of lists that are each sorted by {@code order}, stopping after {@code limit} items.
+     */
+    public static <T> List<T> mergeSorted(List<List<T>> sorted, Comparator<? super T> order, int limit) {
+        if (sorted.size() == 1) {
+            List<T> only = sorted.getFirst();
+            return only.size() <= limit ? only : only.subList(0, limit);
+        }
+        record Head<T>(List<T> list, int index) {
+            T item() {
+                return list.get(index);
+            }
+        }
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.item(), b.item()));
+        for (List<T> list : sorted) {
+            if (!list.isEmpty()) {
+                heads.add(new Head<>(list, 0));
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Head<T> head = heads.poll();
+            merged.add(head.item());
+            if (head.index() + 1 < head.list().size()) {
+                heads.add(new Head<>(head.list(), head.index() + 1));
+            }
+        }
+        return merged;
+    }
+
+    // Called by the container on shutdown
+    public void close() {
+        scatterExecutor.shutdownNow();
+    }
+
+    private static <T> List<T> gather(List<Future<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.springboot_social_media.sharding;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Selects the shard for requests under /api/posts. For a post's own endpoints and everything below them, that
+ * is the shard of the post id in the path. For creating a post, it is the next shard in turn. The shard is
+ * selected before the controller calls into a transactional service, and cleared when the request completes.
+ */
+public class ShardRoutingInterceptor implements HandlerInterceptor {
+
+    private final ShardRouter router;
+
+    public ShardRoutingInterceptor(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        // PostController names it id, the nested controllers postId
+        String postId = variables == null ? null : variables.getOrDefault("postId", variables.get("id"));
+        if (postId != null) {
+            try {
+                ShardContext.set(router.shardOf(Long.parseLong(postId)));
+            } catch (NumberFormatException e) {
+                // Left to the controller's own parameter binding to reject
+            }
+        } else if ("POST".equals(request.getMethod())) {
+            ShardContext.set(router.shardForNewPost());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ShardContext.set(null);
+    }
+}
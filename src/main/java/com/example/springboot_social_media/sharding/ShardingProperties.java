@@ -0,0 +1,33 @@
+package com.example.springboot_social_media.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    // Off: one database from spring.datasource, and the router sees a single shard
+    private boolean enabled = false;
+
+    // Ids are generated congruent to their shard modulo this, so it can never change once data exists
+    private int logicalShards = 16;
+
+    // Physical databases; shard i owns the ids congruent to i. Never reorder, only append up to logicalShards.
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+}
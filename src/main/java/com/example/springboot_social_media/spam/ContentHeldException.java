@@ -0,0 +1,15 @@
+package com.example.springboot_social_media.spam;
+
+public class ContentHeldException extends SpamDetectedException {
+
+    private final Long heldId;
+
+    public ContentHeldException(Long heldId) {
+        super("Content held for review as " + heldId);
+        this.heldId = heldId;
+    }
+
+    public Long getHeldId() {
+        return heldId;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.springboot_social_media.spam;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/**
+ * MinHash signatures over character shingles. The fraction of equal positions in two signatures estimates
+ * the Jaccard similarity of the texts' shingle sets, with a standard error of about 1/sqrt(hash count).
+ * <p>
+ * Text is NFKC-normalized, lowercased, and every run of anything but letters and digits becomes one space,
+ * so spacing, punctuation and case tricks do not change the signature.
+ */
+public class MinHasher {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final long[] seeds;
+
+    private final int shingleSize;
+
+    public MinHasher(int hashCount, int shingleSize, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        this.seeds = new long[hashCount];
+        for (int i = 0; i < hashCount; i++) {
+            seeds[i] = random.nextLong();
+        }
+        this.shingleSize = shingleSize;
+    }
+
+    public static String normalize(String text, int maxLength) {
+        String folded = Normalizer.normalize(text.length() > maxLength ? text.substring(0, maxLength) : text,
+                Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return SEPARATORS.matcher(folded).replaceAll(" ").strip();
+    }
+
+    // Expects normalized text; one shorter than a shingle is hashed as a single shingle
+    public int[] signature(String text) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int shingles = Math.max(1, text.length() - shingleSize + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = 0;
+            for (int i = start, end = Math.min(text.length(), start + shingleSize); i < end; i++) {
+                shingle = shingle * 31 + text.charAt(i);
+            }
+            for (int h = 0; h < seeds.length; h++) {
+                int value = (int) (mix(shingle ^ seeds[h]) >>> 32);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    // MurmurHash3 finalizer
+    static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.springboot_social_media.spam;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Locality-sensitive hashing over MinHash signatures of recently seen texts.
+ * <p>
+ * A signature is cut into bands of {@code rows} values and filed under each band's hash, so a query only
+ * compares against texts sharing at least one band. Entries live in time slices; the oldest slice is
+ * dropped once it has aged out of the window, and a slice that reaches its share of {@code maxEntries} is
+ * closed early. Memory is bounded either way. All access is under the instance lock, which a query holds
+ * for a few microseconds.
+ */
+public class NearDuplicateIndex {
+
+    private final int bands;
+
+    private final int rows;
+
+    private final long sliceMillis;
+
+    private final int sliceCount;
+
+    private final int maxPerSlice;
+
+    private final LongSupplier clock;
+
+    private final ArrayDeque<Slice> slices = new ArrayDeque<>();
+
+    public NearDuplicateIndex(int bands, int rows, long windowMillis, int sliceCount, int maxEntries,
+                              LongSupplier clock) {
+        this.bands = bands;
+        this.rows = rows;
+        this.sliceCount = sliceCount;
+        this.sliceMillis = Math.max(1, windowMillis / sliceCount);
+        this.maxPerSlice = Math.max(1, maxEntries / sliceCount);
+        this.clock = clock;
+    }
+
+    /**
+     * Counts remembered near-duplicates of the signature, on the given post and overall. Stops early once
+     * {@code enoughGlobal} global matches are found, since more cannot change the verdict.
+     */
+    public Matches query(long postId, int[] signature, double threshold, int enoughGlobal) {
+        return query(postId, signature, null, threshold, enoughGlobal);
+    }
+
+    /**
+     * As {@link #query(long, int[], double, int)}, but one entry on the post with the signature
+     * {@code exclude} is skipped: an edited text is not a duplicate of its own earlier version.
+     */
+    public synchronized Matches query(long postId, int[] signature, int[] exclude, double threshold,
+                                      int enoughGlobal) {
+        expire(clock.getAsLong());
+        Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean excluded = exclude == null;
+        int onPost = 0;
+        int global = 0;
+        double maxSimilarity = 0;
+        for (int band = 0; band < bands; band++) {
+            long key = bandKey(signature, band);
+            for (Slice slice : slices) {
+                for (Entry candidate : slice.buckets.getOrDefault(key, List.of())) {
+                    if (!seen.add(candidate)) {
+                        continue;
+                    }
+                    if (!excluded && candidate.postId() == postId && Arrays.equals(candidate.signature(), exclude)) {
+                        excluded = true;
+                        continue;
+                    }
+                    double similarity = MinHasher.similarity(signature, candidate.signature());
+                    maxSimilarity = Math.max(maxSimilarity, similarity);
+                    if (similarity >= threshold) {
+                        global++;
+                        if (candidate.postId() == postId) {
+                            onPost++;
+                        }
+                        if (global >= enoughGlobal) {
+                            return new Matches(onPost, global, maxSimilarity);
+                        }
+                    }
+                }
+            }
+        }
+        return new Matches(onPost, global, maxSimilarity);
+    }
+
+    public synchronized void add(long postId, int[] signature) {
+        long now = clock.getAsLong();
+        expire(now);
+        Slice current = slices.peekLast();
+        if (current == null || now - current.start >= sliceMillis || current.size >= maxPerSlice) {
+            current = new Slice(now);
+            slices.addLast(current);
+            if (slices.size() > sliceCount) {
+                slices.removeFirst();
+            }
+        }
+        Entry entry = new Entry(postId, signature);
+        for (int band = 0; band < bands; band++) {
+            current.buckets.computeIfAbsent(bandKey(signature, band), k -> new ArrayList<>(1)).add(entry);
+        }
+        current.size++;
+    }
+
+    public synchronized int size() {
+        return slices.stream().mapToInt(slice -> slice.size).sum();
+    }
+
+    private void expire(long now) {
+        while (!slices.isEmpty() && now - slices.peekFirst().start >= sliceMillis * sliceCount) {
+            slices.removeFirst();
+        }
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * rows, end = i + rows; i < end; i++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return MinHasher.mix(key);
+    }
+
+    public record Matches(int onPost, int global, double maxSimilarity) {
+    }
+
+    private record Entry(long postId, int[] signature) {
+    }
+
+    private static final class Slice {
+        final long start;
+        final Map<Long, List<Entry>> buckets = new HashMap<>();
+        int size;
+
+        Slice(long start) {
+            this.start = start;
+        }
+    }
+}
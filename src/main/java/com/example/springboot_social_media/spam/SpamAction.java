@@ -0,0 +1,8 @@
+package com.example.springboot_social_media.spam;
+
+public enum SpamAction {
+    // The write fails with SpamDetectedException
+    REJECT,
+    // The content is kept in held_content for a moderator and the write fails with ContentHeldException
+    HOLD
+}
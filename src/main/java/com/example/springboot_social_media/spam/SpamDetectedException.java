@@ -0,0 +1,8 @@
+package com.example.springboot_social_media.spam;
+
+public class SpamDetectedException extends RuntimeException {
+
+    public SpamDetectedException(String message) {
+        super(message);
+    }
+}
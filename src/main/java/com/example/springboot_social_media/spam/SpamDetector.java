@@ -0,0 +1,83 @@
+package com.example.springboot_social_media.spam;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Judges new comments and replies against the near-duplicates remembered in a {@link NearDuplicateIndex}.
+ * <p>
+ * A text is flagged once the index holds {@code postMaxSimilar} near-duplicates on the same post or
+ * {@code globalMaxSimilar} anywhere. Checking does not remember the text; callers remember it once it has
+ * been stored or flagged, so a failed insert does not count against a retry. Results are counted in
+ * {@code spam.screened{result}}, and {@code spam.index.size} tracks the remembered texts.
+ */
+public class SpamDetector {
+
+    private static final long HASH_SEED = 0x5DEECE66DL;
+
+    private final SpamProperties properties;
+
+    private final MinHasher hasher;
+
+    private final NearDuplicateIndex index;
+
+    private final Counter skipped;
+
+    private final Counter allowed;
+
+    private final Counter flagged;
+
+    public SpamDetector(SpamProperties properties, NearDuplicateIndex index, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.hasher = new MinHasher(properties.getBands() * properties.getRows(), properties.getShingleSize(), HASH_SEED);
+        this.index = index;
+        this.skipped = Counter.builder("spam.screened").tag("result", "skipped").register(meterRegistry);
+        this.allowed = Counter.builder("spam.screened").tag("result", "allowed").register(meterRegistry);
+        this.flagged = Counter.builder("spam.screened").tag("result", "flagged").register(meterRegistry);
+        Gauge.builder("spam.index.size", index, NearDuplicateIndex::size).register(meterRegistry);
+    }
+
+    public SpamAction getAction() {
+        return properties.getAction();
+    }
+
+    public Screening screen(long postId, String content) {
+        return screen(postId, content, null);
+    }
+
+    /**
+     * Screens an edit. The remembered signature of {@code previous}, the text being replaced, is left out of
+     * the count once, so an item is not judged a duplicate of itself.
+     */
+    public Screening screen(long postId, String content, String previous) {
+        String text = normalize(content);
+        if (!properties.isEnabled() || text.length() < properties.getMinLength()) {
+            skipped.increment();
+            return new Screening(postId, null, false, 0);
+        }
+        int[] signature = hasher.signature(text);
+        String previousText = normalize(previous);
+        int[] exclude = previousText.length() < properties.getMinLength() ? null : hasher.signature(previousText);
+        NearDuplicateIndex.Matches matches = index.query(postId, signature, exclude,
+                properties.getSimilarityThreshold(), properties.getGlobalMaxSimilar());
+        boolean spam = matches.onPost() >= properties.getPostMaxSimilar()
+                || matches.global() >= properties.getGlobalMaxSimilar();
+        (spam ? flagged : allowed).increment();
+        return new Screening(postId, signature, spam, matches.maxSimilarity());
+    }
+
+    private String normalize(String content) {
+        return content == null ? "" : MinHasher.normalize(content, properties.getMaxLength());
+    }
+
+    public void remember(Screening screening) {
+        if (screening.signature() != null) {
+            index.add(screening.postId(), screening.signature());
+        }
+    }
+
+    // signature is null for texts that were not checked
+    public record Screening(long postId, int[] signature, boolean flagged, double maxSimilarity) {
+    }
+}
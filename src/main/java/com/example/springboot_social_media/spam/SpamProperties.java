@@ -0,0 +1,46 @@
+package com.example.springboot_social_media.spam;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.spam")
+public class SpamProperties {
+
+    private boolean enabled = true;
+
+    private SpamAction action = SpamAction.REJECT;
+
+    // Estimated Jaccard similarity of the shingle sets at which two texts count as near-duplicates
+    private double similarityThreshold = 0.8;
+
+    // Flagged once this many near-duplicates are remembered on the same post
+    private int postMaxSimilar = 1;
+
+    // Flagged once this many near-duplicates are remembered anywhere
+    private int globalMaxSimilar = 5;
+
+    // Normalized characters; shorter texts are too generic to judge and are neither checked nor remembered
+    private int minLength = 40;
+
+    // Only the start of longer texts is hashed, which bounds the cost of a check
+    private int maxLength = 4000;
+
+    // Characters per shingle
+    private int shingleSize = 5;
+
+    // bands * rows hash functions; a pair at the threshold shares a band with probability 1 - (1 - t^rows)^bands
+    private int bands = 16;
+
+    private int rows = 4;
+
+    // Texts are remembered this long, in this many slices that expire one at a time
+    private Duration window = Duration.ofHours(1);
+
+    private int slices = 6;
+
+    // Roughly 1.5 KB each; a full slice is closed early, so a flood shortens the window instead of growing memory
+    private int maxEntries = 20000;
+}
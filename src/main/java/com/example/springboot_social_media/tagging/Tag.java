@@ -0,0 +1,11 @@
+package com.example.springboot_social_media.tagging;
+
+// name is normalized and carries no marker
+public record Tag(TagKind kind, String name) implements Comparable<Tag> {
+
+    @Override
+    public int compareTo(Tag other) {
+        int byKind = kind.compareTo(other.kind);
+        return byKind != 0 ? byKind : name.compareTo(other.name);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.springboot_social_media.tagging;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the #hashtags and @mentions in content and normalizes them.
+ * <p>
+ * A marker only counts at the start of a word, so e-mail addresses, URL fragments and doubled markers are
+ * skipped. Names are NFKC-normalized and lowercased, so {@code #Java} and {@code #ｊａｖａ} are the same tag.
+ * Hashtags need at least one letter, which keeps {@code #1} out of the index.
+ */
+public final class TagExtractor {
+
+    public static final int MAX_NAME_LENGTH = 100;
+
+    private static final Pattern TAG = Pattern.compile("(?<![\\p{L}\\p{N}_/&#@])([#@])([\\p{L}\\p{N}_]+)");
+
+    private static final Pattern LETTER = Pattern.compile("\\p{L}");
+
+    private TagExtractor() {
+    }
+
+    /**
+     * Returns at most {@code limit} distinct tags in {@link Tag} order. Beyond the limit, tags are dropped in
+     * the order they appear in the texts.
+     */
+    public static Set<Tag> extract(int limit, String... texts) {
+        Set<Tag> tags = new TreeSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            Matcher matcher = TAG.matcher(text);
+            while (matcher.find()) {
+                TagKind kind = matcher.group(1).charAt(0) == '#' ? TagKind.HASHTAG : TagKind.MENTION;
+                String name = normalizeName(kind, matcher.group(2));
+                if (name != null && (tags.size() < limit || tags.contains(new Tag(kind, name)))) {
+                    tags.add(new Tag(kind, name));
+                }
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Normalizes a name typed by a client, with or without its marker.
+     *
+     * @throws IllegalArgumentException if nothing in the index could have that name
+     */
+    public static String normalize(TagKind kind, String name) {
+        String raw = name != null && !name.isEmpty() && name.charAt(0) == kind.getMarker() ? name.substring(1) : name;
+        String normalized = raw == null ? null : normalizeName(kind, raw);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Invalid " + kind.name().toLowerCase(Locale.ROOT) + ": " + name);
+        }
+        return normalized;
+    }
+
+    private static String normalizeName(TagKind kind, String raw) {
+        String name = Normalizer.normalize(raw, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        if (name.isEmpty() || name.length() > MAX_NAME_LENGTH || !name.chars().allMatch(TagExtractor::isNameChar)) {
+            return null;
+        }
+        if (kind == TagKind.HASHTAG && !LETTER.matcher(name).find()) {
+            return null;
+        }
+        return name;
+    }
+
+    private static boolean isNameChar(int c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
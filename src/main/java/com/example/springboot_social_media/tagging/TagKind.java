@@ -0,0 +1,16 @@
+package com.example.springboot_social_media.tagging;
+
+public enum TagKind {
+    HASHTAG('#'),
+    MENTION('@');
+
+    private final char marker;
+
+    TagKind(char marker) {
+        this.marker = marker;
+    }
+
+    public char getMarker() {
+        return marker;
+    }
+}
@@ -7,50 +7,172 @@
 -- Use the database
 -- \c social_media;
 
+-- Hierarchical label paths for the reply tree
+CREATE EXTENSION IF NOT EXISTS ltree;
+
+-- posts, comments and replies are range-partitioned by created_at, one partition per month.
+-- The primary key has to include the partition key, so child tables cannot declare foreign keys
+-- to their parents; the triggers further down check parents on insert and cascade deletes instead.
+
 -- Posts table
 CREATE TABLE posts (
-       id SERIAL PRIMARY KEY,
+       id SERIAL,
        title VARCHAR(255) NOT NULL,
        content TEXT NOT NULL,
        author_id INTEGER NOT NULL, -- Assuming you have a users table
-       created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+       created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
        updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
        is_published BOOLEAN DEFAULT true,
-       view_count INTEGER DEFAULT 0
-);
+       view_count INTEGER DEFAULT 0,
+       version BIGINT NOT NULL DEFAULT 0, -- Optimistic lock, bumped on every edit
+
+       PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
 
 -- Comments table (first level comments on posts)
 CREATE TABLE comments (
-      id SERIAL PRIMARY KEY,
-      post_id INTEGER NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
+      id SERIAL,
+      post_id INTEGER NOT NULL, -- posts(id), checked and cascaded by triggers
       author_id INTEGER NOT NULL, -- Assuming you have a users table
       content TEXT NOT NULL,
-      created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+      created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP, -- Never before the post's
       updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
-      is_deleted BOOLEAN DEFAULT false
-);
+      is_deleted BOOLEAN DEFAULT false,
+      version BIGINT NOT NULL DEFAULT 0, -- Optimistic lock, bumped on every edit
+      reply_count INTEGER NOT NULL DEFAULT 0, -- Live direct replies
+      descendant_count INTEGER NOT NULL DEFAULT 0, -- Live replies anywhere in the thread
+      like_count INTEGER NOT NULL DEFAULT 0, -- Folded in from likes by CommentScoreUpdater, fixed by ReplyCountRepairJob
+      -- Epoch millis of the last like_count repair; buffered deltas committed before it were counted by it
+      like_count_repaired_at BIGINT NOT NULL DEFAULT 0,
+      -- Likes and replies as the two sides of a discussion: large when both are high and close to each other
+      controversy_score DOUBLE PRECISION GENERATED ALWAYS AS (
+          CASE WHEN like_count = 0 OR descendant_count = 0 THEN 0
+               ELSE power(like_count + descendant_count,
+                          CAST(LEAST(like_count, descendant_count) AS DOUBLE PRECISION)
+                              / GREATEST(like_count, descendant_count))
+          END) STORED,
+
+      PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
 
 -- Replies table (handles all levels of replies - to comments and to other replies)
 CREATE TABLE replies (
-     id SERIAL PRIMARY KEY,
-     post_id INTEGER NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
-     parent_comment_id INTEGER REFERENCES comments(id) ON DELETE CASCADE,
-     parent_reply_id INTEGER REFERENCES replies(id) ON DELETE CASCADE,
+     id SERIAL,
+     post_id INTEGER NOT NULL, -- posts(id), checked and cascaded by triggers
+     parent_comment_id INTEGER, -- comments(id), checked and cascaded by triggers
+     parent_reply_id INTEGER, -- replies(id), checked and cascaded by triggers
      author_id INTEGER NOT NULL, -- Assuming you have a users table
      content TEXT NOT NULL,
-     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+     created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP, -- Never before the post's or any ancestor's
      updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
      is_deleted BOOLEAN DEFAULT false,
      depth_level INTEGER DEFAULT 1, -- Track nesting level for easier queries
-     path TEXT, -- Materialized path for efficient hierarchical queries
+     path LTREE, -- Materialized path: root comment id, then every reply id down to and including this one
+     path_sort INTEGER[] GENERATED ALWAYS AS (string_to_array(ltree2text(path), '.')::INTEGER[]) STORED, -- Numeric ordering of path (ltree compares labels as text, so 10 < 9)
+     reply_count INTEGER NOT NULL DEFAULT 0, -- Live direct replies
+     descendant_count INTEGER NOT NULL DEFAULT 0, -- Live replies anywhere below this one
 
 -- Ensure a reply has either a parent comment or parent reply, but not both
      CONSTRAINT check_parent CHECK (
          (parent_comment_id IS NOT NULL AND parent_reply_id IS NULL) OR
          (parent_comment_id IS NULL AND parent_reply_id IS NOT NULL)
-         )
+         ),
+
+     PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Creates the monthly partitions of a table from months_back months ago to months_ahead months ahead,
+-- skipping those that exist, and returns how many it created. PartitionMaintenanceJob calls it daily.
+CREATE OR REPLACE FUNCTION ensure_monthly_partitions(parent_table TEXT, months_back INTEGER, months_ahead INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    first_month DATE := (date_trunc('month', CURRENT_DATE) - make_interval(months => months_back))::DATE;
+    partition_month DATE;
+    partition_name TEXT;
+    has_default_rows BOOLEAN;
+    created INTEGER := 0;
+BEGIN
+    FOR i IN 0..(months_back + months_ahead) LOOP
+        partition_month := (first_month + make_interval(months => i))::DATE;
+        partition_name := format('%s_p%s', parent_table, to_char(partition_month, 'YYYY_MM'));
+        IF to_regclass(partition_name) IS NULL THEN
+            -- Creating the partition would fail while the DEFAULT partition holds rows of that month
+            EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE created_at >= %L AND created_at < %L)',
+                           parent_table || '_default', partition_month, (partition_month + INTERVAL '1 month')::DATE)
+                INTO has_default_rows;
+            IF has_default_rows THEN
+                RAISE WARNING '% stays in %_default, which already holds rows of that month', partition_name, parent_table;
+                CONTINUE;
+            END IF;
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, parent_table, partition_month, (partition_month + INTERVAL '1 month')::DATE);
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- With app.sharding enabled, makes every post, comment and reply id generated on this database congruent to
+-- shard_index modulo stride, so an id alone names its shard (ShardRouter). Sequences that are already aligned
+-- are left alone, so every node runs it at startup, even while other nodes are writing. Returns how many
+-- sequences it moved.
+CREATE OR REPLACE FUNCTION configure_shard_sequences(shard_index INTEGER, stride INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    content_table TEXT;
+    seq TEXT;
+    seq_increment BIGINT;
+    seq_last BIGINT;
+    max_id BIGINT;
+    next_id BIGINT;
+    changed INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('configure_shard_sequences'));
+    FOREACH content_table IN ARRAY ARRAY['posts', 'comments', 'replies'] LOOP
+        seq := pg_get_serial_sequence(content_table, 'id');
+        SELECT s.seqincrement INTO seq_increment FROM pg_sequence s WHERE s.seqrelid = seq::regclass;
+        EXECUTE format('SELECT last_value FROM %s', seq) INTO seq_last;
+        IF seq_increment = stride AND seq_last % stride = shard_index THEN
+            CONTINUE;
+        END IF;
+        EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', content_table) INTO max_id;
+        max_id := GREATEST(max_id, seq_last);
+        next_id := max_id + 1 + ((shard_index - (max_id + 1) % stride) + stride) % stride;
+        EXECUTE format('ALTER SEQUENCE %s INCREMENT BY %s', seq, stride);
+        PERFORM setval(seq, next_id, false);
+        changed := changed + 1;
+    END LOOP;
+    RETURN changed;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Bulk export/import jobs and their checkpoints, see BulkTransferService
+CREATE TABLE bulk_jobs (
+   id BIGSERIAL PRIMARY KEY,
+   kind VARCHAR(10) NOT NULL, -- 'EXPORT' or 'IMPORT'
+   directory VARCHAR(255) NOT NULL, -- Relative to app.bulk.base-dir
+   status VARCHAR(20) NOT NULL, -- 'PENDING', 'RUNNING', 'COMPLETED', 'FAILED'
+   current_table VARCHAR(20), -- Table being transferred, null before the first chunk
+   last_id BIGINT NOT NULL DEFAULT 0, -- Export: highest id written for current_table
+   chunk_index INTEGER NOT NULL DEFAULT 0, -- Chunks finished for current_table
+   rows_done BIGINT NOT NULL DEFAULT 0,
+   chunks_done BIGINT NOT NULL DEFAULT 0,
+   error TEXT,
+   created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+   updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Rows outside every monthly range land here. Bulk imports create the months they need first, and
+-- ensure_monthly_partitions leaves out a month that already has rows here.
+CREATE TABLE posts_default PARTITION OF posts DEFAULT;
+CREATE TABLE comments_default PARTITION OF comments DEFAULT;
+CREATE TABLE replies_default PARTITION OF replies DEFAULT;
+
+SELECT ensure_monthly_partitions('posts', 1, 3);
+SELECT ensure_monthly_partitions('comments', 1, 3);
+SELECT ensure_monthly_partitions('replies', 1, 3);
+
 -- Likes table - tracks who liked what (polymorphic relationship)
 CREATE TABLE likes (
    id SERIAL PRIMARY KEY,
@@ -66,48 +188,168 @@ CREATE TABLE likes (
    CONSTRAINT unique_like_per_user UNIQUE (user_id, likeable_type, likeable_id)
 );
 
+-- Notifications table - one row per recipient, kind and target, coalescing every actor until it is read
+CREATE TABLE notifications (
+   id BIGSERIAL PRIMARY KEY,
+   recipient_id INTEGER NOT NULL, -- Author of the target
+   type VARCHAR(20) NOT NULL, -- 'LIKE' or 'REPLY'
+   target_type VARCHAR(20) NOT NULL, -- 'post', 'comment', or 'reply'
+   target_id INTEGER NOT NULL,
+   actor_count INTEGER NOT NULL DEFAULT 1, -- Distinct current actors, recounted from notification_actors
+   last_actor_id INTEGER NOT NULL,
+   is_read BOOLEAN NOT NULL DEFAULT false,
+   created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+   updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+
+   CONSTRAINT check_notification_type CHECK (type IN ('LIKE', 'REPLY')),
+   CONSTRAINT check_notification_target_type CHECK (target_type IN ('post', 'comment', 'reply'))
+);
+
+-- Distinct actors behind each notification; an unlike removes its actor again
+CREATE TABLE notification_actors (
+   notification_id BIGINT NOT NULL REFERENCES notifications(id) ON DELETE CASCADE,
+   actor_id INTEGER NOT NULL,
+   created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+
+   PRIMARY KEY (notification_id, actor_id)
+);
+
+-- Daily engagement per post and per post author, maintained by EngagementRollup with additive upserts.
+-- Counts are events on that day: unlikes and deletes are not subtracted.
+CREATE TABLE engagement_daily (
+   scope VARCHAR(10) NOT NULL, -- 'POST' or 'AUTHOR'
+   subject_id BIGINT NOT NULL, -- Post id or author id, depending on scope
+   day DATE NOT NULL,
+   likes BIGINT NOT NULL DEFAULT 0,
+   comments BIGINT NOT NULL DEFAULT 0,
+   replies BIGINT NOT NULL DEFAULT 0,
+   views BIGINT NOT NULL DEFAULT 0,
+
+   -- Range queries by subject and day are a scan of this index
+   PRIMARY KEY (scope, subject_id, day),
+   CONSTRAINT check_engagement_scope CHECK (scope IN ('POST', 'AUTHOR'))
+);
+
+-- Hashtags and mentions found in content, normalized by TagExtractor (lowercase, no marker)
+CREATE TABLE tags (
+   id SERIAL PRIMARY KEY,
+   kind VARCHAR(10) NOT NULL, -- 'HASHTAG' or 'MENTION'
+   name VARCHAR(100) NOT NULL,
+
+   CONSTRAINT unique_tag UNIQUE (kind, name),
+   CONSTRAINT check_tag_kind CHECK (kind IN ('HASHTAG', 'MENTION'))
+);
+
+-- Inverted index from a tag to the posts, comments and replies using it, written by TagIndexer in the same
+-- transaction as the content. created_at is the content's, so a tag page is a backward scan of the primary
+-- key and the content row is found by its own (id, created_at) primary key.
+CREATE TABLE post_tags (
+   tag_id INTEGER NOT NULL REFERENCES tags(id),
+   created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+   content_type VARCHAR(20) NOT NULL, -- 'post', 'comment', or 'reply'
+   content_id INTEGER NOT NULL,
+   post_id INTEGER NOT NULL, -- The post itself, or the post of the comment or reply
+
+   PRIMARY KEY (tag_id, created_at, content_type, content_id),
+   CONSTRAINT check_post_tag_content_type CHECK (content_type IN ('post', 'comment', 'reply'))
+);
+
+-- Comments and replies flagged as near-duplicate spam while app.spam.action is HOLD, see ContentScreener.
+-- Approving one creates the comment or reply and deletes the row.
+CREATE TABLE held_content (
+   id BIGSERIAL PRIMARY KEY,
+   content_type VARCHAR(20) NOT NULL, -- 'comment' or 'reply'
+   post_id INTEGER NOT NULL,
+   parent_comment_id INTEGER,
+   parent_reply_id INTEGER,
+   target_id INTEGER, -- Set for a held edit: the comment or reply it changes
+   author_id INTEGER NOT NULL,
+   content TEXT NOT NULL,
+   similarity DOUBLE PRECISION NOT NULL, -- Highest estimated similarity to remembered content
+   created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+
+   CONSTRAINT check_held_content_type CHECK (content_type IN ('comment', 'reply'))
+);
+
 -- Indexes for performance
-CREATE INDEX idx_posts_author ON posts(author_id);
+-- Author indexes carry created_at and id so activity pages are a keyset range scan
+CREATE INDEX idx_posts_author_created_at ON posts(author_id, created_at, id);
 CREATE INDEX idx_posts_created_at ON posts(created_at);
 CREATE INDEX idx_posts_published ON posts(is_published);
 
 CREATE INDEX idx_comments_post ON comments(post_id);
-CREATE INDEX idx_comments_author ON comments(author_id);
+CREATE INDEX idx_comments_author_created_at ON comments(author_id, created_at, id);
 CREATE INDEX idx_comments_created_at ON comments(created_at);
+-- Keyset pages of the sorted thread views (top, new, controversial) over live comments
+CREATE INDEX idx_comments_post_top ON comments(post_id, like_count, id) WHERE is_deleted = false;
+CREATE INDEX idx_comments_post_new ON comments(post_id, created_at, id) WHERE is_deleted = false;
+CREATE INDEX idx_comments_post_controversial ON comments(post_id, controversy_score, id) WHERE is_deleted = false;
 
 CREATE INDEX idx_replies_post ON replies(post_id);
 CREATE INDEX idx_replies_parent_comment ON replies(parent_comment_id);
 CREATE INDEX idx_replies_parent_reply ON replies(parent_reply_id);
-CREATE INDEX idx_replies_author ON replies(author_id);
+CREATE INDEX idx_replies_author_created_at ON replies(author_id, created_at, id);
 CREATE INDEX idx_replies_created_at ON replies(created_at);
 CREATE INDEX idx_replies_depth ON replies(depth_level);
-CREATE INDEX idx_replies_path ON replies(path);
+CREATE INDEX idx_replies_path ON replies USING GIST (path);
+CREATE INDEX idx_replies_post_path_sort ON replies(post_id, path_sort);
 
 -- Likes table indexes
-CREATE INDEX idx_likes_user ON likes(user_id);
+CREATE INDEX idx_likes_user_created_at ON likes(user_id, created_at, id);
 CREATE INDEX idx_likes_likeable ON likes(likeable_type, likeable_id);
 CREATE INDEX idx_likes_created_at ON likes(created_at);
 
+-- Notifications table indexes
+-- At most one unread row per key; delivery upserts into it, so a like storm updates a single row
+CREATE UNIQUE INDEX idx_notifications_unread_key ON notifications(recipient_id, type, target_type, target_id)
+    WHERE is_read = false;
+CREATE INDEX idx_notifications_unread_recent ON notifications(recipient_id, updated_at, id)
+    WHERE is_read = false;
+
+-- Tag index maintenance finds a content's rows by id; trending counts are an index-only scan of the window
+CREATE INDEX idx_post_tags_content ON post_tags(content_type, content_id);
+CREATE INDEX idx_post_tags_created_at ON post_tags(created_at, tag_id);
+
+-- The moderation queue is read oldest first
+CREATE INDEX idx_held_content_created_at ON held_content(created_at, id);
+
 -- Function to update the materialized path for replies
+-- The id default has already been applied when BEFORE triggers run, so the path can include the row itself.
+-- Thread reads prune partitions on the assumption that a child is never older than its parent, so created_at
+-- is raised to the parent's when an application clock runs behind. Row triggers run after the row has been
+-- routed, so a raise that crosses into the next month's partition fails the INSERT instead.
 CREATE OR REPLACE FUNCTION update_reply_path()
 RETURNS TRIGGER AS $$
 DECLARE
-parent_path TEXT;
-    parent_depth INTEGER;
+parent_path LTREE;
+parent_created_at TIMESTAMP WITH TIME ZONE;
 BEGIN
+    SELECT created_at INTO parent_created_at FROM posts WHERE id = NEW.post_id;
+    IF NOT FOUND THEN
+        RAISE foreign_key_violation USING MESSAGE = format('Post %s does not exist', NEW.post_id);
+    END IF;
+    NEW.created_at := GREATEST(NEW.created_at, parent_created_at);
+
     -- If replying to a comment
     IF NEW.parent_comment_id IS NOT NULL THEN
-        NEW.depth_level := 1;
-        NEW.path := NEW.parent_comment_id::TEXT;
+        SELECT created_at INTO parent_created_at FROM comments WHERE id = NEW.parent_comment_id;
+        IF NOT FOUND THEN
+            RAISE foreign_key_violation USING MESSAGE = format('Comment %s does not exist', NEW.parent_comment_id);
+        END IF;
+        NEW.path := text2ltree(NEW.parent_comment_id::TEXT || '.' || NEW.id::TEXT);
     -- If replying to another reply
     ELSIF NEW.parent_reply_id IS NOT NULL THEN
-SELECT path, depth_level INTO parent_path, parent_depth
+SELECT path, created_at INTO parent_path, parent_created_at
 FROM replies WHERE id = NEW.parent_reply_id;
+        IF parent_path IS NULL THEN
+            RAISE foreign_key_violation USING MESSAGE = format('Reply %s does not exist', NEW.parent_reply_id);
+        END IF;
 
-NEW.depth_level := parent_depth + 1;
-        NEW.path := parent_path || '.' || NEW.parent_reply_id::TEXT;
+        NEW.path := parent_path || NEW.id::TEXT;
 END IF;
 
+    NEW.created_at := GREATEST(NEW.created_at, parent_created_at);
+    NEW.depth_level := nlevel(NEW.path) - 1;
 RETURN NEW;
 END;
 $$ LANGUAGE plpgsql;
@@ -118,6 +360,102 @@ CREATE TRIGGER trigger_update_reply_path
     FOR EACH ROW
     EXECUTE FUNCTION update_reply_path();
 
+-- Stands in for the comments.post_id foreign key, which a partitioned posts table cannot back.
+-- Like replies, a comment is never older than its post.
+CREATE OR REPLACE FUNCTION check_comment_post()
+RETURNS TRIGGER AS $$
+DECLARE
+post_created_at TIMESTAMP WITH TIME ZONE;
+BEGIN
+    SELECT created_at INTO post_created_at FROM posts WHERE id = NEW.post_id;
+    IF NOT FOUND THEN
+        RAISE foreign_key_violation USING MESSAGE = format('Post %s does not exist', NEW.post_id);
+    END IF;
+    NEW.created_at := GREATEST(NEW.created_at, post_created_at);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trigger_check_comment_post
+    BEFORE INSERT ON comments
+    FOR EACH ROW
+    EXECUTE FUNCTION check_comment_post();
+
+-- Replaces ON DELETE CASCADE. Children are never older than their parent, which prunes the scan.
+-- Row triggers fire on the partition, so the parent table is passed as an argument instead of TG_TABLE_NAME.
+-- Every deleted row, cascaded ones included, also drops its tag index entries.
+CREATE OR REPLACE FUNCTION cascade_content_delete()
+RETURNS TRIGGER AS $$
+BEGIN
+    DELETE FROM post_tags
+     WHERE content_type = CASE TG_ARGV[0] WHEN 'posts' THEN 'post' WHEN 'comments' THEN 'comment' ELSE 'reply' END
+       AND content_id = OLD.id;
+    IF TG_ARGV[0] = 'posts' THEN
+        DELETE FROM replies WHERE post_id = OLD.id AND created_at >= OLD.created_at;
+        DELETE FROM comments WHERE post_id = OLD.id AND created_at >= OLD.created_at;
+    ELSIF TG_ARGV[0] = 'comments' THEN
+        DELETE FROM replies WHERE path <@ text2ltree(OLD.id::TEXT) AND created_at >= OLD.created_at;
+    ELSE
+        DELETE FROM replies WHERE path <@ OLD.path AND id <> OLD.id AND created_at >= OLD.created_at;
+    END IF;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trigger_cascade_post_delete
+    AFTER DELETE ON posts
+    FOR EACH ROW
+    EXECUTE FUNCTION cascade_content_delete('posts');
+
+CREATE TRIGGER trigger_cascade_comment_delete
+    AFTER DELETE ON comments
+    FOR EACH ROW
+    EXECUTE FUNCTION cascade_content_delete('comments');
+
+CREATE TRIGGER trigger_cascade_reply_delete
+    AFTER DELETE ON replies
+    FOR EACH ROW
+    EXECUTE FUNCTION cascade_content_delete('replies');
+
+
+-- Write counter behind the feed ETag. Every statement that can change what the feed shows bumps it, in the
+-- writer's transaction, so a reader never sees a new counter before the change. Writers are spread over
+-- stripes by backend pid, so concurrent ones rarely wait on the same row; the version is the sum.
+CREATE TABLE feed_version (
+   stripe INTEGER PRIMARY KEY,
+   version BIGINT NOT NULL DEFAULT 0
+);
+INSERT INTO feed_version (stripe) SELECT generate_series(0, 15);
+
+CREATE OR REPLACE FUNCTION bump_feed_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE feed_version SET version = version + 1 WHERE stripe = pg_backend_pid() % 16;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- view_count, version and the sort counters are not part of the feed
+CREATE TRIGGER trigger_feed_version_posts
+    AFTER INSERT OR DELETE OR UPDATE OF title, content, author_id, created_at, is_published ON posts
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_feed_version();
+
+-- The feed shows comment counts
+CREATE TRIGGER trigger_feed_version_comments
+    AFTER INSERT OR DELETE OR UPDATE OF post_id, created_at, is_deleted ON comments
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_feed_version();
+
+CREATE TRIGGER trigger_feed_version_post_like
+    AFTER INSERT ON likes
+    FOR EACH ROW WHEN (NEW.likeable_type = 'post')
+    EXECUTE FUNCTION bump_feed_version();
+
+CREATE TRIGGER trigger_feed_version_post_unlike
+    AFTER DELETE ON likes
+    FOR EACH ROW WHEN (OLD.likeable_type = 'post')
+    EXECUTE FUNCTION bump_feed_version();
 
 -- Function to get all replies in a hierarchical structure
 CREATE OR REPLACE FUNCTION get_replies_hierarchy(post_id_param INTEGER)
@@ -142,7 +480,7 @@ SELECT
     r.content,
     r.created_at,
     r.depth_level,
-    r.path,
+    r.path::TEXT,
     COALESCE(lr.like_count, 0) as like_count
 FROM replies r
          LEFT JOIN (
@@ -153,7 +491,7 @@ FROM replies r
 ) lr ON r.id = lr.likeable_id
 WHERE r.post_id = post_id_param
   AND r.is_deleted = false
-ORDER BY r.path, r.created_at;
+ORDER BY r.path_sort;
 END;
 $$ LANGUAGE plpgsql;
 
@@ -173,6 +511,9 @@ RETURNS TABLE (
 ) AS $$
 BEGIN
 RETURN QUERY
+SELECT t.id, t.type, t.parent_comment_id, t.parent_reply_id, t.author_id,
+       t.content, t.created_at, t.depth_level, t.path, t.like_count
+FROM (
 -- Get the comment itself
 SELECT
     c.id,
@@ -184,7 +525,8 @@ SELECT
     c.created_at,
     0 as depth_level,
     c.id::TEXT as path,
-    COALESCE(lc.like_count, 0) as like_count
+    COALESCE(lc.like_count, 0) as like_count,
+    ARRAY[c.id] as sort_key
 FROM comments c
          LEFT JOIN (
     SELECT likeable_id, COUNT(*) as like_count
@@ -197,7 +539,7 @@ WHERE c.id = comment_id_param
 
 UNION ALL
 
--- Get all replies to this comment
+-- Get every reply in this comment's subtree
 SELECT
     r.id,
     'reply'::TEXT as type,
@@ -207,8 +549,9 @@ SELECT
     r.content,
     r.created_at,
     r.depth_level,
-    r.path,
-    COALESCE(lr.like_count, 0) as like_count
+    r.path::TEXT,
+    COALESCE(lr.like_count, 0) as like_count,
+    r.path_sort as sort_key
 FROM replies r
          LEFT JOIN (
     SELECT likeable_id, COUNT(*) as like_count
@@ -216,10 +559,10 @@ FROM replies r
     WHERE likeable_type = 'reply'
     GROUP BY likeable_id
 ) lr ON r.id = lr.likeable_id
-WHERE r.parent_comment_id = comment_id_param
+WHERE r.path <@ text2ltree(comment_id_param::TEXT)
   AND r.is_deleted = false
-
-ORDER BY path, created_at;
+) t
+ORDER BY t.sort_key;
 END;
 $$ LANGUAGE plpgsql;
 
@@ -374,7 +717,7 @@ FROM posts p
     GROUP BY likeable_id
 ) rl ON r.id = rl.likeable_id
 WHERE p.id = 1
-ORDER BY c.created_at, r.path;
+ORDER BY c.created_at, r.path_sort;
 
 -- Get hierarchical structure for a specific comment thread with like counts
 SELECT * FROM get_comment_thread(1);
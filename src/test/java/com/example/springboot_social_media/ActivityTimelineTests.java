@@ -0,0 +1,87 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.dto.ActivityItemResponse;
+import com.example.springboot_social_media.dto.ActivityPageResponse;
+import com.example.springboot_social_media.dto.ActivityType;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ReplyService;
+import com.example.springboot_social_media.services.ShardedReadService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that a user's timeline merges posts, comments, replies and likes newest first, and that walking it
+ * one item at a time with the cursor returns the same items as a single page.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H"
+})
+class ActivityTimelineTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	ReplyService replyService;
+
+	@Autowired
+	LikeService likeService;
+
+	@Autowired
+	ShardedReadService shardedReadService;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void timelineMergesSourcesAndPagesWithCursor() {
+		Long userId = 1300L;
+		Long postId = postService.createPost("Post", "content", userId).getId();
+		Long commentId = commentService.createComment(postId, userId, "comment").getId();
+		Long replyId = replyService.createReplyToComment(postId, commentId, userId, "reply").getId();
+		likeService.toggleLike(userId, LikeableType.POST, postId);
+		likeService.toggleLike(userId, LikeableType.COMMENT, commentId);
+		List<Long> likeIds = jdbcTemplate.queryForList(
+				"SELECT id FROM likes WHERE user_id = ? ORDER BY id", Long.class, userId);
+		// Two likes at the same instant are ordered by id, newest first
+		jdbcTemplate.update("UPDATE likes SET created_at = (SELECT created_at FROM likes WHERE id = ?) WHERE id = ?",
+				likeIds.get(1), likeIds.get(0));
+
+		ActivityPageResponse all = shardedReadService.getActivity(userId, null, 10);
+
+		assertThat(all.items()).extracting(ActivityItemResponse::type).containsExactly(
+				ActivityType.LIKE, ActivityType.LIKE, ActivityType.REPLY, ActivityType.COMMENT, ActivityType.POST);
+		assertThat(all.items()).extracting(ActivityItemResponse::id).containsExactly(
+				likeIds.get(1), likeIds.get(0), replyId, commentId, postId);
+		assertThat(all.nextCursor()).isNull();
+
+		List<ActivityItemResponse> walked = new ArrayList<>();
+		String cursor = null;
+		do {
+			ActivityPageResponse page = shardedReadService.getActivity(userId, cursor, 1);
+			walked.addAll(page.items());
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		assertThat(walked).isEqualTo(all.items());
+
+		assertThatThrownBy(() -> shardedReadService.getActivity(userId, "not-a-cursor", 1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.entity.BulkJob;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.services.BulkTransferService;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.services.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Round-trips content through an export and an import into emptied tables, including a post from years
+ * back that the import has to give a monthly partition of its own.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H",
+		"app.bulk.base-dir=target/bulk-tests",
+		"app.bulk.chunk-size=2"
+})
+class BulkTransferTests {
+
+	@Autowired
+	BulkTransferService bulkTransferService;
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	LikeService likeService;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void exportThenImportRestoresContentIntoMonthlyPartitions() throws InterruptedException {
+		OffsetDateTime longAgo = OffsetDateTime.now(ZoneOffset.UTC).minusYears(3).withDayOfMonth(15);
+		Long oldPostId = jdbcTemplate.queryForObject("""
+				INSERT INTO posts (title, content, author_id, created_at) VALUES ('Old', 'Body', 1500, ?)
+				RETURNING id
+				""", Long.class, longAgo);
+		assertThat(partitionOf("posts", oldPostId)).isEqualTo("posts_default");
+		Long postId = postService.createPost("New", "content", 1501L).getId();
+		for (int i = 0; i < 3; i++) {
+			commentService.createComment(postId, 1502L + i, "comment " + i);
+		}
+		likeService.toggleLike(1510L, LikeableType.POST, postId);
+		long[] before = counts();
+
+		String directory = "round-trip-" + UUID.randomUUID();
+		assertThat(await(bulkTransferService.startExport(directory))).isEqualTo(BulkJob.Status.COMPLETED);
+
+		jdbcTemplate.execute("TRUNCATE posts, comments, replies, likes");
+		assertThat(await(bulkTransferService.startImport(directory))).isEqualTo(BulkJob.Status.COMPLETED);
+
+		assertThat(counts()).containsExactly(before);
+		YearMonth month = YearMonth.from(longAgo);
+		assertThat(partitionOf("posts", oldPostId))
+				.isEqualTo("posts_p%04d_%02d".formatted(month.getYear(), month.getMonthValue()));
+		// Maintenance can still create every month; none is blocked by rows in the DEFAULT partition
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts_default", Long.class)).isZero();
+		jdbcTemplate.queryForObject("SELECT ensure_monthly_partitions('posts', 48, 3)", Integer.class);
+	}
+
+	private long[] counts() {
+		long[] counts = new long[4];
+		int i = 0;
+		for (String table : new String[]{"posts", "comments", "replies", "likes"}) {
+			counts[i++] = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+		}
+		return counts;
+	}
+
+	private String partitionOf(String table, Long id) {
+		return jdbcTemplate.queryForObject("SELECT CAST(CAST(tableoid AS regclass) AS TEXT) FROM " + table + " WHERE id = ?",
+				String.class, id);
+	}
+
+	private BulkJob.Status await(BulkJob job) throws InterruptedException {
+		for (int i = 0; i < 600; i++) {
+			BulkJob.Status status = bulkTransferService.findJob(job.getId()).orElseThrow().getStatus();
+			if (status == BulkJob.Status.COMPLETED || status == BulkJob.Status.FAILED) {
+				return status;
+			}
+			Thread.sleep(100);
+		}
+		throw new AssertionError("Bulk job " + job.getId() + " did not finish");
+	}
+}
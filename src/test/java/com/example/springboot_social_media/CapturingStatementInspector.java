@@ -0,0 +1,51 @@
+package com.example.springboot_social_media;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the SQL Hibernate sends, so tests can EXPLAIN exactly what a repository method runs.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+	private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+	private static final List<Captured> BY_THREAD = new CopyOnWriteArrayList<>();
+
+	@Override
+	public String inspect(String sql) {
+		STATEMENTS.add(sql);
+		BY_THREAD.add(new Captured(Thread.currentThread(), sql));
+		return sql;
+	}
+
+	static void clear() {
+		STATEMENTS.clear();
+		BY_THREAD.clear();
+	}
+
+	static int count() {
+		return STATEMENTS.size();
+	}
+
+	static String last() {
+		if (STATEMENTS.isEmpty()) {
+			throw new IllegalStateException("No SQL was captured");
+		}
+		return STATEMENTS.getLast();
+	}
+
+	// Leaves out what scheduled jobs run meanwhile
+	static List<String> fromThisThread() {
+		return BY_THREAD.stream()
+				.filter(captured -> captured.thread() == Thread.currentThread())
+				.map(Captured::sql)
+				.toList();
+	}
+
+	private record Captured(Thread thread, String sql) {
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.entity.Post;
+import com.example.springboot_social_media.services.PostService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a second instance of the application against the same database as the test context. It checks that
+ * writes on one node evict the entities the other node has cached.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H"
+})
+class ClusterInvalidationTests {
+
+	private static final Duration MAX_LAG = Duration.ofSeconds(5);
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	JdbcConnectionDetails connectionDetails;
+
+	ConfigurableApplicationContext otherNode;
+
+	@BeforeEach
+	void startOtherNode() {
+		otherNode = new SpringApplicationBuilder(SpringbootSocialMediaApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=" + connectionDetails.getJdbcUrl(),
+				"--spring.datasource.username=" + connectionDetails.getUsername(),
+				"--spring.datasource.password=" + connectionDetails.getPassword(),
+				"--app.partitions.maintenance-initial-delay=PT1H",
+				"--app.reply-counts.repair-initial-delay=PT1H");
+	}
+
+	@AfterEach
+	void stopOtherNode() {
+		otherNode.close();
+	}
+
+	@Test
+	void updateOnOneNodeEvictsThePostCachedOnTheOther() {
+		PostService otherPostService = otherNode.getBean(PostService.class);
+		EntityManagerFactory otherEntityManagerFactory = otherNode.getBean(EntityManagerFactory.class);
+
+		Long id = postService.createPost("Before", "content", 1L).getId();
+		assertThat(otherPostService.findById(id)).map(Post::getTitle).contains("Before");
+		assertThat(otherEntityManagerFactory.getCache().contains(Post.class, id)).isTrue();
+
+		postService.updatePost(id, "After", "content", null);
+
+		assertThat(eventually(() -> !otherEntityManagerFactory.getCache().contains(Post.class, id))).isTrue();
+		assertThat(otherPostService.findById(id)).map(Post::getTitle).contains("After");
+	}
+
+	@Test
+	void newPostOnOneNodeEvictsTheFeedCachedOnTheOther() {
+		PostService otherPostService = otherNode.getBean(PostService.class);
+		int before = otherPostService.findAllPublishedPostsSummary().size();
+
+		postService.createPost("Fresh", "content", 1L);
+
+		assertThat(eventually(() -> otherPostService.findAllPublishedPostsSummary().size() == before + 1)).isTrue();
+	}
+
+	private static boolean eventually(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + MAX_LAG.toNanos();
+		while (System.nanoTime() < deadline) {
+			if (condition.getAsBoolean()) {
+				return true;
+			}
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return condition.getAsBoolean();
+	}
+}
@@ -0,0 +1,158 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.dto.CommentPageResponse;
+import com.example.springboot_social_media.dto.CommentResponse;
+import com.example.springboot_social_media.dto.CommentSort;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.services.CommentScoreUpdater;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ReplyCountRepairJob;
+import com.example.springboot_social_media.services.ReplyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the sorted thread views: order by persisted score, keyset paging, and that like_count follows
+ * likes through the buffered updater and the repair job.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H",
+		"app.comment-scores.flush-interval=PT1H"
+})
+class CommentSortingTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	ReplyService replyService;
+
+	@Autowired
+	LikeService likeService;
+
+	@Autowired
+	CommentScoreUpdater commentScoreUpdater;
+
+	@Autowired
+	ReplyCountRepairJob replyCountRepairJob;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void topPagesByLikesWithCursor() {
+		Long postId = postService.createPost("Post", "content", 800L).getId();
+		Long quiet = commentService.createComment(postId, 801L, "quiet").getId();
+		Long loved = commentService.createComment(postId, 802L, "loved").getId();
+		Long liked = commentService.createComment(postId, 803L, "liked").getId();
+		like(loved, 810L, 811L, 812L);
+		like(liked, 813L);
+		commentScoreUpdater.flush();
+
+		CommentPageResponse first = commentService.findCommentPage(postId, CommentSort.TOP, null, 2);
+		assertThat(first.items()).extracting(CommentResponse::id).containsExactly(loved, liked);
+		assertThat(first.items()).extracting(CommentResponse::likeCount).containsExactly(3L, 1L);
+		assertThat(first.nextCursor()).isNotNull();
+
+		CommentPageResponse second = commentService.findCommentPage(postId, CommentSort.TOP, first.nextCursor(), 2);
+		assertThat(second.items()).extracting(CommentResponse::id).containsExactly(quiet);
+		assertThat(second.nextCursor()).isNull();
+
+		// Unlikes are folded in the same way
+		like(loved, 810L, 811L);
+		like(liked, 814L);
+		commentScoreUpdater.flush();
+		assertThat(commentService.findCommentPage(postId, CommentSort.TOP, null, 3).items())
+				.extracting(CommentResponse::id).containsExactly(liked, loved, quiet);
+	}
+
+	@Test
+	void newAndControversialOrders() {
+		Long postId = postService.createPost("Post", "content", 820L).getId();
+		Long divided = commentService.createComment(postId, 821L, "divided").getId();
+		Long popular = commentService.createComment(postId, 822L, "popular").getId();
+		Long argued = commentService.createComment(postId, 823L, "argued").getId();
+		like(divided, 830L, 831L);
+		like(popular, 832L, 833L, 834L);
+		like(argued, 835L);
+		for (int i = 0; i < 2; i++) {
+			replyService.createReplyToComment(postId, divided, 840L + i, "reply " + i);
+		}
+		for (int i = 0; i < 3; i++) {
+			replyService.createReplyToComment(postId, argued, 850L + i, "reply " + i);
+		}
+		commentScoreUpdater.flush();
+
+		assertThat(commentService.findCommentPage(postId, CommentSort.NEW, null, 10).items())
+				.extracting(CommentResponse::id).containsExactly(argued, popular, divided);
+		// Balanced likes and replies rank first; likes alone are not controversial
+		assertThat(commentService.findCommentPage(postId, CommentSort.CONTROVERSIAL, null, 10).items())
+				.extracting(CommentResponse::id).containsExactly(divided, argued, popular);
+	}
+
+	@Test
+	void repairRecomputesDriftedLikeCounts() {
+		Long postId = postService.createPost("Post", "content", 860L).getId();
+		Long first = commentService.createComment(postId, 861L, "first").getId();
+		Long second = commentService.createComment(postId, 862L, "second").getId();
+		like(first, 870L);
+		like(second, 871L, 872L);
+		commentScoreUpdater.flush();
+		jdbcTemplate.update("UPDATE comments SET like_count = 50 WHERE id = ?", first);
+
+		replyCountRepairJob.repair();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT like_count FROM comments WHERE id = ?", Integer.class, first))
+				.isEqualTo(1);
+		assertThat(commentService.findCommentPage(postId, CommentSort.TOP, null, 10).items())
+				.extracting(CommentResponse::id).containsExactly(second, first);
+	}
+
+	@Test
+	void repairDoesNotCountBufferedLikesTwice() {
+		Long postId = postService.createPost("Post", "content", 890L).getId();
+		Long commentId = commentService.createComment(postId, 891L, "liked").getId();
+		like(commentId, 892L, 893L);
+
+		// The repair counts the likes while their deltas are still buffered; the flush must not add them again
+		replyCountRepairJob.repair();
+		commentScoreUpdater.flush();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT like_count FROM comments WHERE id = ?", Integer.class, commentId))
+				.isEqualTo(2);
+	}
+
+	@Test
+	void cursorMustMatchTheSort() {
+		Long postId = postService.createPost("Post", "content", 880L).getId();
+		commentService.createComment(postId, 881L, "one");
+		commentService.createComment(postId, 882L, "two");
+		String cursor = commentService.findCommentPage(postId, CommentSort.NEW, null, 1).nextCursor();
+
+		assertThatThrownBy(() -> commentService.findCommentPage(postId, CommentSort.TOP, cursor, 1))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> commentService.findCommentPage(postId, CommentSort.NEW, "not-a-cursor", 1))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> CommentSort.parse("best")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// Toggles, so a second call for the same user unlikes
+	private void like(Long commentId, Long... userIds) {
+		for (Long userId : userIds) {
+			likeService.toggleLike(userId, LikeableType.COMMENT, commentId);
+		}
+	}
+}
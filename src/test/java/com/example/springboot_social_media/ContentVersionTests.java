@@ -0,0 +1,88 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.repositories.ContentVersion;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ShardedReadService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the fingerprints behind the ETags change when a like moves from one item to another, which
+ * leaves updated_at, the item count and the total like count as they were, and that the feed's write counter
+ * moves with every write the feed shows.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H"
+})
+class ContentVersionTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	LikeService likeService;
+
+	@Autowired
+	ShardedReadService shardedReadService;
+
+	@Test
+	void threadVersionChangesWhenALikeMovesBetweenComments() {
+		Long postId = postService.createPost("Post", "content", 1000L).getId();
+		Long first = commentService.createComment(postId, 1001L, "first").getId();
+		Long second = commentService.createComment(postId, 1002L, "second").getId();
+		likeService.toggleLike(1003L, LikeableType.COMMENT, first);
+		ContentVersion before = commentService.findThreadVersion(postId);
+
+		likeService.toggleLike(1003L, LikeableType.COMMENT, first);
+		likeService.toggleLike(1004L, LikeableType.COMMENT, second);
+		ContentVersion after = commentService.findThreadVersion(postId);
+
+		assertThat(after.getItemCount()).isEqualTo(before.getItemCount());
+		assertThat(after.getLikeCount()).isEqualTo(before.getLikeCount());
+		assertThat(after.getDigest()).isNotEqualTo(before.getDigest());
+		assertThat(after.getLastModified()).isGreaterThanOrEqualTo(before.getLastModified());
+	}
+
+	@Test
+	void feedVersionChangesOnEveryFeedWrite() {
+		Long first = postService.createPost("First", "content", 1010L).getId();
+		Long second = postService.createPost("Second", "content", 1010L).getId();
+		Long comment = commentService.createComment(first, 1013L, "comment").getId();
+		likeService.toggleLike(1011L, LikeableType.POST, first);
+
+		// A like moving between posts, an unlike, a soft delete and an unpublish each change it
+		Long version = digestChanges(null);
+		likeService.toggleLike(1011L, LikeableType.POST, first);
+		likeService.toggleLike(1012L, LikeableType.POST, second);
+		version = digestChanges(version);
+		likeService.toggleLike(1012L, LikeableType.POST, second);
+		version = digestChanges(version);
+		commentService.deleteComment(comment);
+		version = digestChanges(version);
+		postService.unpublishPost(second);
+		version = digestChanges(version);
+
+		// Nothing the feed shows changes with a view
+		postService.incrementViewCount(first);
+		assertThat(shardedReadService.findPublishedFeedVersion().getDigest()).isEqualTo(version);
+		assertThat(shardedReadService.findPublishedFeedVersion().getLastModified()).isNull();
+	}
+
+	private Long digestChanges(Long before) {
+		Long after = shardedReadService.findPublishedFeedVersion().getDigest();
+		assertThat(after).isNotNull().isNotEqualTo(before);
+		return after;
+	}
+}
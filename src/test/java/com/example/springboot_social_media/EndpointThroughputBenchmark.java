@@ -0,0 +1,68 @@
+package com.example.springboot_social_media;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the like-toggle and feed endpoints of a running instance at fixed concurrency and prints
+ * requests per second. Start the app once with the default profile and once with {@code prod},
+ * then run this main method against each.
+ * <p>
+ * Arguments: base URL (default http://localhost:8080), concurrency (default 64), seconds per endpoint
+ * (default 30). Each virtual user toggles likes as its own user id, so the rate limiter should be
+ * disabled (app.rate-limit.enabled=false) while benchmarking.
+ */
+public class EndpointThroughputBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+		int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+		run("feed", concurrency, duration, user -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/posts"))
+				.GET().build(), client);
+		run("like-toggle", concurrency, duration, user -> HttpRequest.newBuilder(
+						URI.create(baseUrl + "/api/posts/1/like?userId=" + (1000 + user)))
+				.POST(HttpRequest.BodyPublishers.noBody()).build(), client);
+	}
+
+	private static void run(String name, int concurrency, Duration duration, RequestFactory requests,
+							HttpClient client) throws InterruptedException {
+		AtomicLong ok = new AtomicLong();
+		AtomicLong failed = new AtomicLong();
+		long deadline = System.nanoTime() + duration.toNanos();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int user = 0; user < concurrency; user++) {
+				int userId = user;
+				executor.submit(() -> {
+					while (System.nanoTime() < deadline) {
+						try {
+							HttpResponse<Void> response = client.send(requests.create(userId),
+									HttpResponse.BodyHandlers.discarding());
+							(response.statusCode() < 400 ? ok : failed).incrementAndGet();
+						} catch (Exception e) {
+							failed.incrementAndGet();
+						}
+					}
+				});
+			}
+		}
+
+		double seconds = duration.toMillis() / 1000.0;
+		System.out.printf("%-12s %,.0f req/s (%,d ok, %,d failed)%n", name, ok.get() / seconds, ok.get(), failed.get());
+	}
+
+	@FunctionalInterface
+	private interface RequestFactory {
+		HttpRequest create(int user);
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.dto.EngagementReportResponse;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.services.AnalyticsService;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.EngagementRollup;
+import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ReplyService;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that committed writes and views reach the post and author rollups after a flush, that the
+ * reports read them back per day, and that a failed flush keeps its counts.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H",
+		"app.analytics.flush-interval=PT1H"
+})
+class EngagementRollupTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	ReplyService replyService;
+
+	@Autowired
+	LikeService likeService;
+
+	@Autowired
+	EngagementRollup engagementRollup;
+
+	@Autowired
+	AnalyticsService analyticsService;
+
+	@Autowired
+	PostRepository postRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	ShardRouter shardRouter;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	void writesAndViewsAreRolledUpPerPostAndAuthor() {
+		Long authorId = 500L;
+		Long first = postService.createPost("First", "content", authorId).getId();
+		Long second = postService.createPost("Second", "content", authorId).getId();
+
+		Long commentId = commentService.createComment(first, 501L, "Comment").getId();
+		replyService.createReplyToComment(first, commentId, 502L, "Reply");
+		likeService.toggleLike(503L, LikeableType.POST, first);
+		likeService.toggleLike(504L, LikeableType.POST, second);
+		engagementRollup.recordView(first);
+		engagementRollup.recordView(first);
+		engagementRollup.flush();
+
+		LocalDate today = LocalDate.now();
+		EngagementReportResponse post = analyticsService.getPostEngagement(first, today, today);
+		assertThat(post.days()).hasSize(1);
+		assertThat(post.likes()).isEqualTo(1);
+		assertThat(post.comments()).isEqualTo(1);
+		assertThat(post.replies()).isEqualTo(1);
+		assertThat(post.views()).isEqualTo(2);
+
+		EngagementReportResponse author = analyticsService.getAuthorEngagement(authorId, null, null);
+		assertThat(author.likes()).isEqualTo(2);
+		assertThat(author.views()).isEqualTo(2);
+
+		// A second flush adds to the existing rows instead of replacing them
+		engagementRollup.recordView(second);
+		engagementRollup.flush();
+		assertThat(analyticsService.getAuthorEngagement(authorId, today, today).views()).isEqualTo(3);
+	}
+
+	@Test
+	void failedFlushKeepsItsCountsForTheNextOne() {
+		Long postId = postService.createPost("Flaky", "content", 510L).getId();
+		AtomicBoolean failing = new AtomicBoolean(true);
+		TransactionTemplate flaky = new TransactionTemplate(transactionManager) {
+			@Override
+			public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+				if (failing.get()) {
+					throw new IllegalStateException("database unavailable");
+				}
+				return super.execute(action);
+			}
+		};
+		EngagementRollup rollup = new EngagementRollup(postRepository, jdbcTemplate, shardRouter, flaky, 100, 100);
+		LocalDate today = LocalDate.now();
+
+		rollup.recordView(postId);
+		rollup.flush();
+		assertThat(analyticsService.getPostEngagement(postId, today, today).views()).isZero();
+
+		// Shutting down while the database still fails gives up instead of retrying forever
+		rollup.destroy();
+
+		failing.set(false);
+		rollup.recordView(postId);
+		rollup.flush();
+		assertThat(analyticsService.getPostEngagement(postId, today, today).views()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.jfr.FlightRecorderEndpoint;
+import com.example.springboot_social_media.jfr.FlightRecorderEndpoint.RecordingDescriptor;
+import com.example.springboot_social_media.services.PostService;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Records a service call through the actuator endpoint and checks that the dump holds its service and
+ * statement events, both tagged with the post id.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H",
+		"app.flight-recorder.threshold=0ms",
+		"app.flight-recorder.dump-dir=target/recordings"
+})
+class FlightRecorderTests {
+
+	@Autowired
+	FlightRecorderEndpoint endpoint;
+
+	@Autowired
+	PostService postService;
+
+	@Test
+	void serviceCallsAndTheirStatementsCarryThePostId() throws IOException {
+		RecordingDescriptor recording = endpoint.start("test", null, null);
+		Long postId = postService.createPost("Recorded", "content", 1L).getId();
+		postService.findByIdWithDetails(postId);
+		endpoint.stop(recording.id());
+
+		Resource dump = endpoint.dump(recording.id()).getBody();
+		List<RecordedEvent> events = RecordingFile.readAllEvents(dump.getFile().toPath());
+		endpoint.close(recording.id());
+
+		assertThat(events).anySatisfy(event -> {
+			assertThat(event.getEventType().getName()).isEqualTo("socialmedia.ServiceCall");
+			assertThat(event.getString("method")).isEqualTo("findByIdWithDetails");
+			assertThat(event.getLong("postId")).isEqualTo(postId);
+			assertThat(event.getLong("rows")).isEqualTo(1);
+		});
+		assertThat(events).anySatisfy(event -> {
+			assertThat(event.getEventType().getName()).isEqualTo("socialmedia.JdbcStatement");
+			assertThat(event.getString("sql")).containsIgnoringCase("from posts");
+			assertThat(event.getLong("postId")).isEqualTo(postId);
+			assertThat(event.getLong("rows")).isEqualTo(1);
+		});
+	}
+}
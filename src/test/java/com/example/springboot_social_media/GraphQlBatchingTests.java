@@ -0,0 +1,110 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.entity.Comment;
+import com.example.springboot_social_media.entity.Post;
+import com.example.springboot_social_media.entity.Reply;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ReplyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that nested fields are loaded once per level whatever the number of nodes, that first caps the
+ * children of each parent, and that the depth and complexity limits reject a query before any SQL runs.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.springboot_social_media.CapturingStatementInspector",
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.graphql.max-depth=6"
+})
+class GraphQlBatchingTests {
+
+	private static final int POSTS = 3;
+
+	@Autowired
+	ExecutionGraphQlService graphQlService;
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	ReplyService replyService;
+
+	ExecutionGraphQlServiceTester tester;
+
+	@BeforeEach
+	void seed() {
+		tester = ExecutionGraphQlServiceTester.create(graphQlService);
+		for (int p = 0; p < POSTS; p++) {
+			Post post = postService.createPost("Post " + p, "Body", 1L);
+			for (int c = 0; c < 2; c++) {
+				Comment comment = commentService.createComment(post.getId(), 2L, "Comment " + c);
+				for (int r = 0; r < 2; r++) {
+					Reply reply = replyService.createReplyToComment(post.getId(), comment.getId(), 3L, "Reply " + r);
+					replyService.createReplyToReply(post.getId(), reply.getId(), 4L, "Nested");
+				}
+			}
+		}
+		CapturingStatementInspector.clear();
+	}
+
+	@Test
+	void eachLevelIsLoadedWithOneQuery() {
+		tester.document("""
+						{ posts(first: %d) { id likeCount
+						    comments { id likeCount
+						      replies { id likeCount
+						        childReplies { id likeCount } } } } }
+						""".formatted(POSTS))
+				.execute()
+				.path("posts[*].comments[*].replies[*].childReplies[*].id").entityList(Long.class).hasSize(POSTS * 2 * 2);
+
+		// posts, then comments, replies and child replies, plus one like count query per level
+		assertThat(CapturingStatementInspector.count()).isEqualTo(8);
+	}
+
+	@Test
+	void firstCapsTheChildrenOfEachParent() {
+		tester.document("""
+						{ posts(first: %d) { comments(first: 1) { id replies(first: 1) { id childReplies(first: 1) { id } } } } }
+						""".formatted(POSTS))
+				.execute()
+				.path("posts[*].comments[*].replies[*].childReplies[*].id").entityList(Long.class).hasSize(POSTS);
+
+		assertThat(CapturingStatementInspector.count()).isEqualTo(4);
+	}
+
+	@Test
+	void costlyQueriesAreRejectedUsingTheSameCaps() {
+		tester.document("""
+						{ posts(first: 100) { comments(first: 100) { replies(first: 100) { id } } } }
+						""")
+				.execute()
+				.errors().satisfy(errors -> assertThat(errors).isNotEmpty());
+
+		assertThat(CapturingStatementInspector.count()).isZero();
+	}
+
+	@Test
+	void tooDeepQueriesAreRejectedBeforeTouchingTheDatabase() {
+		tester.document("""
+						{ posts(first: 1) { comments { replies { childReplies { childReplies { childReplies { childReplies { id } } } } } } } }
+						""")
+				.execute()
+				.errors().satisfy(errors -> assertThat(errors).isNotEmpty());
+
+		assertThat(CapturingStatementInspector.count()).isZero();
+	}
+}
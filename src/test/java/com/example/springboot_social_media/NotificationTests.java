@@ -0,0 +1,148 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.dto.NotificationResponse;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.entity.NotificationType;
+import com.example.springboot_social_media.repositories.CommentRepository;
+import com.example.springboot_social_media.repositories.NotificationRepository;
+import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.repositories.ReplyRepository;
+import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.services.NotificationDispatcher;
+import com.example.springboot_social_media.services.NotificationEvent;
+import com.example.springboot_social_media.services.NotificationService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that a notification counts each actor once across flushes, that unlikes take their actor back,
+ * and that a batch whose delivery fails is delivered by the next flush.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H",
+		"app.notifications.flush-interval=PT1H"
+})
+class NotificationTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	LikeService likeService;
+
+	@Autowired
+	NotificationDispatcher notificationDispatcher;
+
+	@Autowired
+	NotificationService notificationService;
+
+	@Autowired
+	NotificationRepository notificationRepository;
+
+	@Autowired
+	PostRepository postRepository;
+
+	@Autowired
+	CommentRepository commentRepository;
+
+	@Autowired
+	ReplyRepository replyRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	ShardRouter shardRouter;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	void actorsAreDistinctAcrossFlushesAndUnlikesSubtract() {
+		Long author = 1400L;
+		Long postId = postService.createPost("Post", "content", author).getId();
+
+		toggle(postId, 1401L);
+		notificationDispatcher.flush();
+		toggle(postId, 1402L);
+		notificationDispatcher.flush();
+		assertThat(unread(author, postId)).get()
+				.extracting(NotificationResponse::actorCount, NotificationResponse::lastActorId)
+				.containsExactly(2, 1402L);
+
+		// Unlike and like again in one batch leaves the count alone
+		toggle(postId, 1402L);
+		toggle(postId, 1402L);
+		notificationDispatcher.flush();
+		assertThat(unread(author, postId)).get().extracting(NotificationResponse::actorCount).isEqualTo(2);
+
+		toggle(postId, 1402L);
+		notificationDispatcher.flush();
+		assertThat(unread(author, postId)).get()
+				.extracting(NotificationResponse::actorCount, NotificationResponse::lastActorId)
+				.containsExactly(1, 1401L);
+
+		// The author's own like is not counted
+		toggle(postId, author);
+		notificationDispatcher.flush();
+		assertThat(unread(author, postId)).get().extracting(NotificationResponse::actorCount).isEqualTo(1);
+
+		toggle(postId, 1401L);
+		notificationDispatcher.flush();
+		assertThat(unread(author, postId)).isEmpty();
+	}
+
+	@Test
+	void failedBatchIsDeliveredByTheNextFlush() {
+		Long author = 1410L;
+		Long postId = postService.createPost("Post", "content", author).getId();
+		AtomicBoolean failNext = new AtomicBoolean(true);
+		TransactionTemplate flaky = new TransactionTemplate(transactionManager) {
+			@Override
+			public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+				if (failNext.getAndSet(false)) {
+					throw new IllegalStateException("database unavailable");
+				}
+				return super.execute(action);
+			}
+		};
+		NotificationDispatcher dispatcher = new NotificationDispatcher(notificationRepository, postRepository,
+				commentRepository, replyRepository, jdbcTemplate, shardRouter, flaky, 100, 100);
+
+		dispatcher.enqueue(new NotificationEvent(NotificationType.LIKE, LikeableType.POST, postId, 1411L));
+		dispatcher.flush();
+		assertThat(unread(author, postId)).isEmpty();
+
+		dispatcher.enqueue(new NotificationEvent(NotificationType.LIKE, LikeableType.POST, postId, 1412L));
+		dispatcher.flush();
+		assertThat(unread(author, postId)).get()
+				.extracting(NotificationResponse::actorCount, NotificationResponse::lastActorId)
+				.containsExactly(2, 1412L);
+	}
+
+	private void toggle(Long postId, Long userId) {
+		likeService.toggleLike(userId, LikeableType.POST, postId);
+	}
+
+	private Optional<NotificationResponse> unread(Long recipientId, Long postId) {
+		return notificationService.getUnread(recipientId, null, 50).items().stream()
+				.filter(item -> item.type() == NotificationType.LIKE && item.targetId().equals(postId))
+				.findFirst();
+	}
+}
@@ -0,0 +1,128 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.controller.CommentController;
+import com.example.springboot_social_media.controller.PostController;
+import com.example.springboot_social_media.dto.CommentResponse;
+import com.example.springboot_social_media.dto.PatchCommentRequest;
+import com.example.springboot_social_media.dto.PatchPostRequest;
+import com.example.springboot_social_media.dto.PostResponse;
+import com.example.springboot_social_media.dto.UpdateCommentRequest;
+import com.example.springboot_social_media.dto.UpdatePostRequest;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the version checks of PUT and PATCH: a stale version answers 409, a matching one succeeds and bumps
+ * the version, and a missing one skips the check. A deleted comment cannot be edited.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H"
+})
+class OptimisticLockingTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	PostController postController;
+
+	@Autowired
+	CommentController commentController;
+
+	@Test
+	void postEditsCheckTheVersion() {
+		Long postId = postService.createPost("Title", "content", 1200L).getId();
+
+		assertThat(postController.updatePost(postId, updatePost("Stale", 5L)).getStatusCode().value()).isEqualTo(409);
+		ResponseEntity<PostResponse> updated = postController.updatePost(postId, updatePost("Current", 0L));
+		assertThat(updated.getStatusCode().value()).isEqualTo(200);
+		assertThat(updated.getBody().title()).isEqualTo("Current");
+		assertThat(updated.getBody().version()).isEqualTo(1L);
+
+		assertThat(postController.patchPost(postId, patchPost("Stale", 0L)).getStatusCode().value()).isEqualTo(409);
+		assertThat(postController.patchPost(postId, patchPost("Patched", 1L)).getBody().version()).isEqualTo(2L);
+		// Without a version the last write wins
+		ResponseEntity<PostResponse> unchecked = postController.patchPost(postId, patchPost("Unchecked", null));
+		assertThat(unchecked.getStatusCode().value()).isEqualTo(200);
+		assertThat(unchecked.getBody().title()).isEqualTo("Unchecked");
+		assertThat(postController.updatePost(postId, updatePost("Unchecked again", null)).getStatusCode().value())
+				.isEqualTo(200);
+
+		assertThat(postController.patchPost(Long.MAX_VALUE - 1, patchPost("Missing", null)).getStatusCode().value())
+				.isEqualTo(404);
+	}
+
+	@Test
+	void commentEditsCheckTheVersion() {
+		Long postId = postService.createPost("Title", "content", 1210L).getId();
+		Long commentId = commentService.createComment(postId, 1211L, "first").getId();
+
+		assertThat(commentController.updateComment(postId, commentId, updateComment("stale", 3L))
+				.getStatusCode().value()).isEqualTo(409);
+		ResponseEntity<?> updated = commentController.updateComment(postId, commentId, updateComment("second", 0L));
+		assertThat(updated.getStatusCode().value()).isEqualTo(200);
+		assertThat(((CommentResponse) updated.getBody()).version()).isEqualTo(1L);
+
+		assertThat(commentController.patchComment(postId, commentId, patchComment("stale", 0L))
+				.getStatusCode().value()).isEqualTo(409);
+		ResponseEntity<?> patched = commentController.patchComment(postId, commentId, patchComment("third", 1L));
+		assertThat(((CommentResponse) patched.getBody()).content()).isEqualTo("third");
+		assertThat(((CommentResponse) patched.getBody()).version()).isEqualTo(2L);
+		assertThat(commentController.patchComment(postId, commentId, patchComment("fourth", null))
+				.getStatusCode().value()).isEqualTo(200);
+	}
+
+	@Test
+	void deletedCommentCannotBeEdited() {
+		Long postId = postService.createPost("Title", "content", 1220L).getId();
+		Long commentId = commentService.createComment(postId, 1221L, "soon gone").getId();
+		commentService.deleteComment(commentId);
+
+		assertThat(commentController.patchComment(postId, commentId, patchComment("revived", null))
+				.getStatusCode().value()).isEqualTo(404);
+		assertThat(commentController.updateComment(postId, commentId, updateComment("revived", null))
+				.getStatusCode().value()).isEqualTo(404);
+		assertThat(commentService.findById(commentId).orElseThrow().getContent()).isEqualTo("soon gone");
+	}
+
+	private static UpdatePostRequest updatePost(String title, Long version) {
+		UpdatePostRequest request = new UpdatePostRequest();
+		request.setTitle(title);
+		request.setContent("content");
+		request.setVersion(version);
+		return request;
+	}
+
+	private static PatchPostRequest patchPost(String title, Long version) {
+		PatchPostRequest request = new PatchPostRequest();
+		request.setTitle(title);
+		request.setVersion(version);
+		return request;
+	}
+
+	private static UpdateCommentRequest updateComment(String content, Long version) {
+		UpdateCommentRequest request = new UpdateCommentRequest();
+		request.setContent(content);
+		request.setVersion(version);
+		return request;
+	}
+
+	private static PatchCommentRequest patchComment(String content, Long version) {
+		PatchCommentRequest request = new PatchCommentRequest();
+		request.setContent(content);
+		request.setVersion(version);
+		return request;
+	}
+}
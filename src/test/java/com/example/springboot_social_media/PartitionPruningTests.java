@@ -0,0 +1,205 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.repositories.CommentRepository;
+import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.repositories.ReplyRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs repository methods, captures the SQL they send and checks with EXPLAIN ANALYZE that partitions older
+ * than the post are pruned, either at plan time (absent) or at run time (never executed). Also checks that
+ * the insert triggers keep children from being older than their parents, which the pruning relies on.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.springboot_social_media.CapturingStatementInspector",
+		"app.partitions.maintenance-initial-delay=PT1H"
+})
+class PartitionPruningTests {
+
+	// One month of slack, the JVM and the database may disagree on the current month near its boundary
+	private static final YearMonth RECENT = YearMonth.now().minusMonths(1);
+
+	private static final Pattern SCANNED_PARTITION = Pattern.compile(" on ((?:posts|comments|replies)_p\\d{4}_\\d{2})\\b");
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	PostRepository postRepository;
+
+	@Autowired
+	CommentRepository commentRepository;
+
+	@Autowired
+	ReplyRepository replyRepository;
+
+	long recentPostId;
+
+	@BeforeEach
+	void seed() {
+		for (String table : List.of("posts", "comments", "replies")) {
+			jdbcTemplate.queryForObject("SELECT ensure_monthly_partitions(?, 6, 3)", Integer.class, table);
+		}
+		OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+		long oldPostId = insertPost(now.minusMonths(4));
+		insertComment(oldPostId, now.minusMonths(3));
+		recentPostId = insertPost(now);
+		insertComment(recentPostId, now);
+
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+		CapturingStatementInspector.clear();
+	}
+
+	@Test
+	void commentViewsOfAPostSkipOlderPartitions() {
+		commentRepository.findViewsByPostId(recentPostId);
+
+		assertThat(scannedPartitions(CapturingStatementInspector.last(), recentPostId, recentPostId))
+				.allSatisfy(partition -> assertThat(monthOf(partition)).isGreaterThanOrEqualTo(RECENT));
+	}
+
+	@Test
+	void threadVersionSkipsOlderPartitions() {
+		commentRepository.findThreadVersionByPostId(recentPostId);
+
+		assertThat(scannedPartitions(CapturingStatementInspector.last(), recentPostId, recentPostId, recentPostId))
+				.allSatisfy(partition -> assertThat(monthOf(partition)).isGreaterThanOrEqualTo(RECENT));
+	}
+
+	@Test
+	void replyViewsOfAPostSkipOlderPartitions() {
+		replyRepository.findViewsByPostId(recentPostId);
+
+		assertThat(scannedPartitions(CapturingStatementInspector.last(), recentPostId, recentPostId))
+				.allSatisfy(partition -> assertThat(monthOf(partition)).isGreaterThanOrEqualTo(RECENT));
+	}
+
+	@Test
+	void feedCommentCountsSkipPartitionsOlderThanEveryPost() {
+		postRepository.findPublishedSummaries();
+
+		// The oldest post is four months old, so at least the partitions from five and six months ago go
+		YearMonth oldestPost = YearMonth.now().minusMonths(5);
+		assertThat(scannedPartitions(CapturingStatementInspector.last()))
+				.filteredOn(partition -> partition.startsWith("comments_"))
+				.allSatisfy(partition -> assertThat(monthOf(partition)).isGreaterThanOrEqualTo(oldestPost));
+	}
+
+	@Test
+	void childrenOlderThanTheirParentTakeItsTimestamp() {
+		// Mid-month, so an hour either way stays in the same partition
+		OffsetDateTime posted = OffsetDateTime.now(ZoneOffset.UTC).withDayOfMonth(15).withHour(12)
+				.withMinute(0).withSecond(0).withNano(0);
+		long postId = insertPost(posted);
+		long commentId = jdbcTemplate.queryForObject("""
+				INSERT INTO comments (post_id, author_id, content, created_at) VALUES (?, 2, 'Early', ?)
+				RETURNING id
+				""", Long.class, postId, posted.minusHours(1));
+		long replyId = insertReply(postId, commentId, null, posted.minusHours(2));
+		long nestedId = insertReply(postId, null, replyId, posted.minusHours(3));
+		long laterId = insertReply(postId, commentId, null, posted.plusHours(1));
+
+		assertThat(createdAt("comments", commentId)).isEqualTo(posted);
+		assertThat(createdAt("replies", replyId)).isEqualTo(posted);
+		assertThat(createdAt("replies", nestedId)).isEqualTo(posted);
+		assertThat(createdAt("replies", laterId)).isEqualTo(posted.plusHours(1));
+	}
+
+	/**
+	 * Prepares the captured statement on one connection and returns the monthly partitions the executed
+	 * plan actually touched.
+	 */
+	private Set<String> scannedPartitions(String sql, Object... parameters) {
+		StringBuilder numbered = new StringBuilder();
+		int index = 0;
+		for (char c : sql.toCharArray()) {
+			numbered.append(c == '?' ? "$" + (++index) : String.valueOf(c));
+		}
+		assertThat(index).isEqualTo(parameters.length);
+		String arguments = Arrays.stream(parameters).map(String::valueOf).collect(Collectors.joining(", "));
+
+		List<String> plan = jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("PREPARE pruning_probe AS " + numbered);
+				List<String> lines = new ArrayList<>();
+				String execute = parameters.length == 0 ? "EXECUTE pruning_probe" : "EXECUTE pruning_probe(" + arguments + ")";
+				try (ResultSet rs = statement.executeQuery(
+						"EXPLAIN (ANALYZE, COSTS OFF, TIMING OFF, SUMMARY OFF) " + execute)) {
+					while (rs.next()) {
+						lines.add(rs.getString(1));
+					}
+				}
+				statement.execute("DEALLOCATE pruning_probe");
+				return lines;
+			}
+		});
+
+		Set<String> scanned = new TreeSet<>();
+		for (String line : plan) {
+			Matcher matcher = SCANNED_PARTITION.matcher(line);
+			if (matcher.find() && !line.contains("never executed")) {
+				scanned.add(matcher.group(1));
+			}
+		}
+		return scanned;
+	}
+
+	private static YearMonth monthOf(String partition) {
+		String suffix = partition.substring(partition.lastIndexOf("_p") + 2);
+		return YearMonth.of(Integer.parseInt(suffix.substring(0, 4)), Integer.parseInt(suffix.substring(5, 7)));
+	}
+
+	private long insertPost(OffsetDateTime createdAt) {
+		return jdbcTemplate.queryForObject("""
+				INSERT INTO posts (title, content, author_id, created_at) VALUES ('Partitioned', 'Body', 1, ?)
+				RETURNING id
+				""", Long.class, createdAt);
+	}
+
+	private long insertReply(long postId, Long parentCommentId, Long parentReplyId, OffsetDateTime createdAt) {
+		return jdbcTemplate.queryForObject("""
+				INSERT INTO replies (post_id, parent_comment_id, parent_reply_id, author_id, content, created_at)
+				VALUES (?, ?, ?, 3, 'Early', ?)
+				RETURNING id
+				""", Long.class, postId, parentCommentId, parentReplyId, createdAt);
+	}
+
+	private OffsetDateTime createdAt(String table, long id) {
+		return jdbcTemplate.queryForObject("SELECT created_at FROM " + table + " WHERE id = ?", OffsetDateTime.class, id)
+				.withOffsetSameInstant(ZoneOffset.UTC);
+	}
+
+	private void insertComment(long postId, OffsetDateTime createdAt) {
+		jdbcTemplate.update("INSERT INTO comments (post_id, author_id, content, created_at) VALUES (?, 2, 'Hi', ?)",
+				postId, createdAt);
+	}
+
+}
@@ -0,0 +1,163 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.repositories.PostRepository;
+import com.example.springboot_social_media.services.LikeService;
+import com.example.springboot_social_media.services.PostDetail;
+import com.example.springboot_social_media.services.PostDetailAssembler;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that post details are assembled from concurrent reads, that a failing or late like count
+ * degrades the response instead of failing or delaying it, that a late query is cancelled by the database, and
+ * that a late post fails with a query timeout.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H"
+})
+class PostDetailAssemblyTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	LikeService likeService;
+
+	@Autowired
+	PostRepository postRepository;
+
+	@Autowired
+	ShardRouter shardRouter;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	void detailsCombineThePostAndItsLikes() {
+		Long postId = postService.createPost("Detail", "content", 900L).getId();
+		likeService.toggleLike(901L, LikeableType.POST, postId);
+		likeService.toggleLike(902L, LikeableType.POST, postId);
+
+		PostDetail detail = postService.findByIdWithDetails(postId);
+
+		assertThat(detail.partial()).isFalse();
+		assertThat(detail.post().title()).isEqualTo("Detail");
+		assertThat(detail.post().likeCount()).isEqualTo(2L);
+		assertThat(postService.findByIdWithDetails(Long.MAX_VALUE - 1)).isNull();
+	}
+
+	@Test
+	void failingLikeCountLeavesItOut() throws Exception {
+		Long postId = postService.createPost("Detail", "content", 910L).getId();
+		PostDetailAssembler assembler = assembler(() -> {
+			throw new IllegalStateException("likes unavailable");
+		}, Duration.ofSeconds(5));
+		try {
+			PostDetail detail = assembler.assemble(postId);
+
+			assertThat(detail.partial()).isTrue();
+			assertThat(detail.post().id()).isEqualTo(postId);
+			assertThat(detail.post().likeCount()).isNull();
+		} finally {
+			assembler.destroy();
+		}
+	}
+
+	@Test
+	void lateLikeCountIsNotWaitedFor() throws Exception {
+		Long postId = postService.createPost("Detail", "content", 920L).getId();
+		// Released once the test is done, so the fork returns its connection instead of outliving the test
+		CountDownLatch release = new CountDownLatch(1);
+		PostDetailAssembler assembler = assembler(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 1L;
+		}, Duration.ofSeconds(1));
+		try {
+			long started = System.nanoTime();
+			PostDetail detail = assembler.assemble(postId);
+
+			assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(5));
+			assertThat(detail.partial()).isTrue();
+			assertThat(detail.post().likeCount()).isNull();
+		} finally {
+			release.countDown();
+			assembler.destroy();
+		}
+	}
+
+	@Test
+	void latePostFailsWithAQueryTimeout() throws Exception {
+		Long postId = postService.createPost("Detail", "content", 925L).getId();
+		PostDetailAssembler assembler = assembler(() -> 1L, Duration.ZERO);
+		try {
+			assertThatThrownBy(() -> assembler.assemble(postId)).isInstanceOf(QueryTimeoutException.class);
+		} finally {
+			assembler.destroy();
+		}
+	}
+
+	@Test
+	void lateLikeQueryIsCancelledByTheDatabase() throws Exception {
+		Long postId = postService.createPost("Detail", "content", 930L).getId();
+		PostDetailAssembler assembler = assembler(() ->
+				jdbcTemplate.queryForObject("SELECT CAST(1 AS BIGINT) FROM pg_sleep(30)", Long.class), Duration.ofSeconds(1));
+		try {
+			PostDetail detail = assembler.assemble(postId);
+			assertThat(detail.partial()).isTrue();
+
+			// The fork was not interrupted; the statement timeout ends the query and keeps the connection
+			long waitUntil = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+			while (sleepingQueries() > 0 && System.nanoTime() < waitUntil) {
+				Thread.sleep(50);
+			}
+			assertThat(sleepingQueries()).isZero();
+			assertThat(postService.findByIdWithDetails(postId).partial()).isFalse();
+		} finally {
+			assembler.destroy();
+		}
+	}
+
+	private int sleepingQueries() {
+		return jdbcTemplate.queryForObject("""
+				SELECT COUNT(*) FROM pg_stat_activity
+				 WHERE state = 'active' AND query LIKE '%pg_sleep(30)%' AND pid <> pg_backend_pid()
+				""", Integer.class);
+	}
+
+	// The real post read with a stand-in like count
+	private PostDetailAssembler assembler(Supplier<Long> likeCount, Duration timeout) {
+		LikeService likes = new LikeService(null, null, null, null, null) {
+			@Override
+			public long getLikeCount(LikeableType likeableType, Long likeableId) {
+				return likeCount.get();
+			}
+		};
+		return new PostDetailAssembler(postRepository, likes, shardRouter, jdbcTemplate, transactionManager,
+				new SimpleMeterRegistry(), timeout);
+	}
+}
@@ -0,0 +1,89 @@
+package com.example.springboot_social_media;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the JPA feed and thread endpoints with their R2DBC streaming counterparts under /api/stream.
+ * Each endpoint is driven at fixed concurrency. The benchmark prints requests per second and the p50
+ * and p99 time until the last byte of the response arrives.
+ * <p>
+ * Start the app with the reactive profile and deliberately small pools, so the concurrency is well
+ * above the number of connections, for example:
+ * {@code --spring.profiles.active=reactive --spring.datasource.hikari.maximum-pool-size=4
+ * --app.reactive.max-pool-size=4 --app.rate-limit.enabled=false}
+ * <p>
+ * Arguments: base URL (default http://localhost:8080), concurrency (default 256), seconds per endpoint
+ * (default 30), post id for the thread endpoints (default 1).
+ */
+public class ReactiveReadBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+		int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+		Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+		long postId = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+		System.out.printf("%-14s %12s %10s %10s %10s%n", "endpoint", "req/s", "p50 ms", "p99 ms", "failed");
+		// The JPA feed returns every published post, so the stream is asked for all of them too
+		run("jpa-feed", baseUrl + "/api/posts", concurrency, duration, client);
+		run("r2dbc-feed", baseUrl + "/api/stream/posts?limit=10000", concurrency, duration, client);
+		run("jpa-thread", baseUrl + "/api/posts/" + postId + "/comments", concurrency, duration, client);
+		run("r2dbc-thread", baseUrl + "/api/stream/posts/" + postId + "/thread", concurrency, duration, client);
+	}
+
+	private static void run(String name, String url, int concurrency, Duration duration, HttpClient client)
+			throws InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+		AtomicLong failed = new AtomicLong();
+		List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+		long deadline = System.nanoTime() + duration.toNanos();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int user = 0; user < concurrency; user++) {
+				executor.submit(() -> {
+					List<Long> own = new ArrayList<>();
+					while (System.nanoTime() < deadline) {
+						long start = System.nanoTime();
+						try {
+							HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+							if (response.statusCode() < 400) {
+								own.add(System.nanoTime() - start);
+							} else {
+								failed.incrementAndGet();
+							}
+						} catch (Exception e) {
+							failed.incrementAndGet();
+						}
+					}
+					latencies.addAll(own);
+				});
+			}
+		}
+
+		List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		double seconds = duration.toMillis() / 1000.0;
+		System.out.printf("%-14s %,12.0f %10.1f %10.1f %,10d%n", name, sorted.size() / seconds,
+				percentile(sorted, 0.50), percentile(sorted, 0.99), failed.get());
+	}
+
+	private static double percentile(List<Long> sortedNanos, double fraction) {
+		if (sortedNanos.isEmpty()) {
+			return 0;
+		}
+		int index = Math.min(sortedNanos.size() - 1, (int) Math.ceil(fraction * sortedNanos.size()) - 1);
+		return sortedNanos.get(Math.max(0, index)) / 1_000_000.0;
+	}
+}
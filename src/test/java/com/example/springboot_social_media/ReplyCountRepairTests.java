@@ -0,0 +1,109 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ReplyCountRepairJob;
+import com.example.springboot_social_media.services.ReplyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the repair job restores drifted reply counters across several post id chunks, counting the
+ * live replies under a deleted reply, and that concurrent deletes of one reply move the counters once.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H",
+		"app.reply-counts.repair-chunk-size=2"
+})
+class ReplyCountRepairTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	ReplyService replyService;
+
+	@Autowired
+	ReplyCountRepairJob replyCountRepairJob;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void repairRestoresDriftedCounters() {
+		Long postId = postService.createPost("Post", "content", 1200L).getId();
+		Long commentId = commentService.createComment(postId, 1201L, "comment").getId();
+		Long top = replyService.createReplyToComment(postId, commentId, 1202L, "top").getId();
+		Long middle = replyService.createReplyToReply(postId, top, 1203L, "middle").getId();
+		Long leaf = replyService.createReplyToReply(postId, middle, 1204L, "leaf").getId();
+		replyService.createReplyToReply(postId, middle, 1205L, "sibling");
+		replyService.deleteReply(middle);
+		// A later post, so the walk covers more than one chunk
+		Long otherPost = postService.createPost("Other", "content", 1206L).getId();
+		Long otherComment = commentService.createComment(otherPost, 1207L, "comment").getId();
+		replyService.createReplyToComment(otherPost, otherComment, 1208L, "reply");
+
+		jdbcTemplate.update("UPDATE comments SET reply_count = 9, descendant_count = 9 WHERE id IN (?, ?)",
+				commentId, otherComment);
+		jdbcTemplate.update("UPDATE replies SET reply_count = 9, descendant_count = 9 WHERE post_id IN (?, ?)",
+				postId, otherPost);
+
+		replyCountRepairJob.repair();
+
+		assertThat(counters("comments", commentId)).containsExactly(1, 3);
+		assertThat(counters("replies", top)).containsExactly(0, 2);
+		assertThat(counters("replies", middle)).containsExactly(2, 2);
+		assertThat(counters("replies", leaf)).containsExactly(0, 0);
+		assertThat(counters("comments", otherComment)).containsExactly(1, 1);
+	}
+
+	@Test
+	void concurrentDeletesAdjustTheCountersOnce() throws Exception {
+		Long postId = postService.createPost("Post", "content", 1210L).getId();
+		Long commentId = commentService.createComment(postId, 1211L, "comment").getId();
+		Long top = replyService.createReplyToComment(postId, commentId, 1212L, "top").getId();
+		Long doomed = replyService.createReplyToReply(postId, top, 1213L, "doomed").getId();
+		replyService.createReplyToReply(postId, top, 1214L, "kept");
+
+		CountDownLatch start = new CountDownLatch(1);
+		try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+			List<Future<?>> deletes = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				deletes.add(executor.submit(() -> {
+					start.await();
+					replyService.deleteReply(doomed);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> delete : deletes) {
+				delete.get();
+			}
+		}
+
+		assertThat(counters("replies", top)).containsExactly(1, 1);
+		assertThat(counters("comments", commentId)).containsExactly(1, 2);
+	}
+
+	private Integer[] counters(String table, Long id) {
+		return jdbcTemplate.queryForObject("SELECT reply_count, descendant_count FROM " + table + " WHERE id = ?",
+				(rs, rowNum) -> new Integer[]{rs.getInt(1), rs.getInt(2)}, id);
+	}
+}
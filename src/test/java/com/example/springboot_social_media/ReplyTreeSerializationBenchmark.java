@@ -0,0 +1,83 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.dto.CommentResponse;
+import com.example.springboot_social_media.dto.ReplyResponse;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares payload size and serialization cost of a comment thread as JSON and as CBOR.
+ * Run the main method directly; it is not part of the test suite.
+ */
+public class ReplyTreeSerializationBenchmark {
+
+	private static final int NODES = 5_000;
+
+	private static final int FAN_OUT = 4;
+
+	private static final int WARMUP = 200;
+
+	private static final int ITERATIONS = 500;
+
+	public static void main(String[] args) throws IOException {
+		CommentResponse thread = buildThread();
+
+		report("json", JsonMapper.builder().build(), thread);
+		report("cbor", CBORMapper.builder().build(), thread);
+	}
+
+	private static void report(String format, ObjectMapper mapper, CommentResponse thread) throws IOException {
+		byte[] payload = mapper.writeValueAsBytes(thread);
+		for (int i = 0; i < WARMUP; i++) {
+			mapper.writeValueAsBytes(thread);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			mapper.writeValueAsBytes(thread);
+		}
+		long avgMicros = (System.nanoTime() - start) / ITERATIONS / 1_000;
+
+		System.out.printf("%-5s raw=%,d bytes gzip=%,d bytes serialize=%,d us%n",
+				format, payload.length, gzip(payload).length, avgMicros);
+	}
+
+	// Nodes are laid out like a heap (children of n start at FAN_OUT * (n + 1)),
+	// so depth grows roughly as log4(NODES), like a busy real thread
+	private static CommentResponse buildThread() {
+		LocalDateTime now = LocalDateTime.now();
+		List<ReplyResponse> replies = new ArrayList<>();
+		for (int i = 0; i < FAN_OUT && i < NODES; i++) {
+			replies.add(reply(i, 1, "1", now));
+		}
+		return new CommentResponse(1L, 1L, "Root comment", now, now, false, 0L, 0L, replies.size(), NODES, replies);
+	}
+
+	private static ReplyResponse reply(int index, int depth, String path, LocalDateTime now) {
+		long id = index + 1;
+		List<ReplyResponse> children = new ArrayList<>();
+		int descendants = 0;
+		for (int c = FAN_OUT * index + FAN_OUT; c < FAN_OUT * index + 2 * FAN_OUT && c < NODES; c++) {
+			ReplyResponse child = reply(c, depth + 1, path + "." + id, now);
+			children.add(child);
+			descendants += 1 + child.descendantCount();
+		}
+		return new ReplyResponse(id, id % 97, "Reply number " + id, now, now, false, depth, path,
+				id % 13, children.size(), descendants, children);
+	}
+
+	private static byte[] gzip(byte[] payload) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(payload);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,200 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.controller.CommentController;
+import com.example.springboot_social_media.dto.CommentResponse;
+import com.example.springboot_social_media.dto.ReplyResponse;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ReplyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that a deleted reply with live replies under it stays in thread reads as a blank tombstone, so
+ * its replies keep their place instead of surfacing as roots, that ancestors, subtrees and descendant counts
+ * follow the materialized path, that a thread is read with a fixed number of statements however many
+ * comments and replies it has, and that creating a comment or reply writes without reading its parents first.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.springboot_social_media.CapturingStatementInspector",
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H"
+})
+class ReplyTreeTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	ReplyService replyService;
+
+	@Autowired
+	CommentController commentController;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void deletedParentStaysAsTombstoneWhileItHasLiveReplies() {
+		Long postId = postService.createPost("Post", "content", 1100L).getId();
+		Long commentId = commentService.createComment(postId, 1101L, "comment").getId();
+		Long parent = replyService.createReplyToComment(postId, commentId, 1102L, "parent").getId();
+		Long child = replyService.createReplyToReply(postId, parent, 1103L, "child").getId();
+
+		replyService.deleteReply(parent);
+
+		List<ReplyResponse> thread = replyService.findRepliesByComment(commentId);
+		assertThat(thread).extracting(ReplyResponse::id).containsExactly(parent);
+		assertThat(thread.getFirst().isDeleted()).isTrue();
+		assertThat(thread.getFirst().content()).isEmpty();
+		assertThat(thread.getFirst().childReplies()).extracting(ReplyResponse::id).containsExactly(child);
+		assertThat(thread.getFirst().childReplies().getFirst().content()).isEqualTo("child");
+
+		CommentResponse comment = commentService.findCommentsByPost(postId).getFirst();
+		assertThat(comment.replies()).extracting(ReplyResponse::id).containsExactly(parent);
+		assertThat(comment.replies().getFirst().childReplies()).extracting(ReplyResponse::id).containsExactly(child);
+
+		// Once nothing live is left under it, the tombstone goes too
+		replyService.deleteReply(child);
+
+		assertThat(replyService.findRepliesByComment(commentId)).isEmpty();
+		assertThat(commentService.findCommentsByPost(postId).getFirst().replies()).isEmpty();
+	}
+
+	@Test
+	void ancestorsSubtreesAndDescendantCountsFollowThePath() {
+		Long postId = postService.createPost("Post", "content", 1120L).getId();
+		Long commentId = commentService.createComment(postId, 1121L, "comment").getId();
+		Long otherComment = commentService.createComment(postId, 1121L, "other comment").getId();
+		Long top = replyService.createReplyToComment(postId, commentId, 1122L, "top").getId();
+		Long middle = replyService.createReplyToReply(postId, top, 1123L, "middle").getId();
+		Long leaf = replyService.createReplyToReply(postId, middle, 1124L, "leaf").getId();
+		Long besideMiddle = replyService.createReplyToReply(postId, top, 1125L, "beside middle").getId();
+		Long besideLeaf = replyService.createReplyToReply(postId, middle, 1126L, "beside leaf").getId();
+		Long elsewhere = replyService.createReplyToComment(postId, otherComment, 1127L, "elsewhere").getId();
+
+		// Root first, without the reply itself
+		assertThat(replyService.findAncestors(leaf)).extracting(ReplyResponse::id).containsExactly(top, middle);
+		assertThat(replyService.findAncestors(top)).isEmpty();
+
+		// The subtree holds the reply and what is under it, and nothing beside or above it
+		ReplyResponse subtree = replyService.findByIdWithLikes(middle);
+		assertThat(subtree.id()).isEqualTo(middle);
+		assertThat(subtree.childReplies()).extracting(ReplyResponse::id).containsExactly(leaf, besideLeaf);
+		assertThat(flatten(subtree)).containsExactlyInAnyOrder(middle, leaf, besideLeaf)
+				.doesNotContain(top, besideMiddle, elsewhere);
+
+		assertThat(replyService.countDescendants(top)).isEqualTo(4);
+		assertThat(replyService.countDescendants(middle)).isEqualTo(2);
+		assertThat(replyService.countDescendants(leaf)).isZero();
+		assertThat(replyService.findByIdWithLikes(top).descendantCount()).isEqualTo(4);
+
+		// Deleted replies no longer count
+		replyService.deleteReply(besideLeaf);
+		assertThat(replyService.countDescendants(top)).isEqualTo(3);
+		assertThat(replyService.countDescendants(middle)).isEqualTo(1);
+		assertThat(replyService.findByIdWithLikes(top).descendantCount()).isEqualTo(3);
+	}
+
+	@Test
+	void siblingsSortByNumericIdAcrossADigitBoundary() {
+		Long postId = postService.createPost("Post", "content", 1130L).getId();
+		Long commentId = commentService.createComment(postId, 1131L, "comment").getId();
+		Long parent = replyService.createReplyToComment(postId, commentId, 1132L, "parent").getId();
+		// The next ids end just below and at a power of ten, e.g. 999 and 1000, whose labels sort the other
+		// way round as text
+		long nextPowerOfTen = (long) Math.pow(10, String.valueOf(parent + 10).length());
+		jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence('replies', 'id'), ?)", Long.class,
+				nextPowerOfTen - 3);
+		List<Long> siblings = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			siblings.add(replyService.createReplyToReply(postId, parent, 1133L, "sibling " + i).getId());
+		}
+		assertThat(siblings).contains(nextPowerOfTen - 1, nextPowerOfTen);
+
+		assertThat(replyService.findByIdWithLikes(parent).childReplies()).extracting(ReplyResponse::id)
+				.containsExactlyElementsOf(siblings);
+		assertThat(replyService.findRepliesByComment(commentId).getFirst().childReplies())
+				.extracting(ReplyResponse::id).containsExactlyElementsOf(siblings);
+	}
+
+	@Test
+	void threadIsReadWithTheSameStatementsAtAnySize() {
+		Long small = threadOf(1, 1300L);
+		Long large = threadOf(6, 1310L);
+
+		// The ETag version, comments, replies, comment likes and reply likes
+		assertThat(statementsToRead(small)).isEqualTo(5);
+		assertThat(statementsToRead(large)).isEqualTo(5);
+	}
+
+	@Test
+	void createsInsertWithoutLoadingTheParents() {
+		Long postId = postService.createPost("Post", "content", 1140L).getId();
+
+		CapturingStatementInspector.clear();
+		Long commentId = commentService.createApprovedComment(postId, 1141L, "comment").getId();
+		assertThat(CapturingStatementInspector.fromThisThread()).singleElement().asString()
+				.startsWithIgnoringCase("insert into comments");
+
+		// The reply, then the counters of the comment it answers
+		CapturingStatementInspector.clear();
+		Long replyId = replyService.createApprovedReply(postId, commentId, null, 1142L, "reply").getId();
+		List<String> replyToComment = CapturingStatementInspector.fromThisThread();
+		assertThat(replyToComment).hasSize(2);
+		assertThat(replyToComment.get(0)).startsWithIgnoringCase("insert into replies");
+		assertThat(replyToComment.get(1)).startsWithIgnoringCase("update comments");
+
+		CapturingStatementInspector.clear();
+		replyService.createApprovedReply(postId, null, replyId, 1143L, "nested");
+		assertThat(CapturingStatementInspector.fromThisThread().getFirst()).startsWithIgnoringCase("insert into replies");
+		assertThat(replyService.findById(replyId).orElseThrow().getReplyCount()).isEqualTo(1);
+		assertThat(commentService.findById(commentId).orElseThrow().getDescendantCount()).isEqualTo(2);
+	}
+
+	// Each comment gets a reply three levels deep and a second reply beside it
+	private Long threadOf(int comments, Long authorId) {
+		Long postId = postService.createPost("Thread", "content", authorId).getId();
+		for (int i = 0; i < comments; i++) {
+			Long commentId = commentService.createComment(postId, authorId, "comment " + i).getId();
+			Long parent = commentId;
+			for (int depth = 0; depth < 3; depth++) {
+				parent = depth == 0
+						? replyService.createReplyToComment(postId, commentId, authorId, "reply " + depth).getId()
+						: replyService.createReplyToReply(postId, parent, authorId, "reply " + depth).getId();
+			}
+			replyService.createReplyToComment(postId, commentId, authorId, "sibling");
+		}
+		return postId;
+	}
+
+	private static List<Long> flatten(ReplyResponse reply) {
+		List<Long> ids = new ArrayList<>(List.of(reply.id()));
+		reply.childReplies().forEach(child -> ids.addAll(flatten(child)));
+		return ids;
+	}
+
+	private int statementsToRead(Long postId) {
+		CapturingStatementInspector.clear();
+		ResponseEntity<List<CommentResponse>> response = commentController.getCommentsByPost(postId,
+				new ServletWebRequest(new MockHttpServletRequest("GET", "/api/posts/" + postId + "/comments")));
+		assertThat(response.getStatusCode().value()).isEqualTo(200);
+		assertThat(response.getBody()).isNotEmpty();
+		return CapturingStatementInspector.count();
+	}
+}
@@ -0,0 +1,228 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.dto.ActivityItemResponse;
+import com.example.springboot_social_media.dto.ActivityPageResponse;
+import com.example.springboot_social_media.dto.ActivityType;
+import com.example.springboot_social_media.dto.PostSummaryResponse;
+import com.example.springboot_social_media.entity.Post;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ShardedReadService;
+import com.example.springboot_social_media.sharding.ShardContext;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import com.example.springboot_social_media.sharding.ShardRoutingInterceptor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.servlet.HandlerMapping;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the application against two databases with the sharded profile. Checks that a post and its comments
+ * are stored on the shard its id names, also when the request interceptor selects it, that cross-shard reads
+ * merge both databases, and that startup refuses a shard holding another shard's ids.
+ */
+@Testcontainers
+@ActiveProfiles("sharded")
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H"
+})
+class ShardingTests {
+
+	@Container
+	static final PostgreSQLContainer SHARD_0 = shard();
+
+	@Container
+	static final PostgreSQLContainer SHARD_1 = shard();
+
+	@Autowired
+	ShardRouter shardRouter;
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	ShardedReadService shardedReadService;
+
+	@Autowired
+	@Qualifier("shardSequenceAligner")
+	SmartInitializingSingleton shardSequenceAligner;
+
+	@DynamicPropertySource
+	static void shards(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", SHARD_0::getJdbcUrl);
+		registry.add("spring.datasource.username", SHARD_0::getUsername);
+		registry.add("spring.datasource.password", SHARD_0::getPassword);
+		List<PostgreSQLContainer> shards = List.of(SHARD_0, SHARD_1);
+		for (int i = 0; i < shards.size(); i++) {
+			PostgreSQLContainer shard = shards.get(i);
+			registry.add("app.sharding.shards[" + i + "].url", shard::getJdbcUrl);
+			registry.add("app.sharding.shards[" + i + "].username", shard::getUsername);
+			registry.add("app.sharding.shards[" + i + "].password", shard::getPassword);
+		}
+	}
+
+	@Test
+	void postsAndTheirCommentsLiveOnTheShardTheirIdNames() throws SQLException {
+		List<Long> postIds = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Post post = createPost("Post " + i, 10L);
+			Long commentId = shardRouter.onShardOf(post.getId(),
+					() -> commentService.createComment(post.getId(), 11L, "Comment").getId());
+			assertThat(shardRouter.shardOf(commentId)).isEqualTo(shardRouter.shardOf(post.getId()));
+			postIds.add(post.getId());
+		}
+
+		assertThat(postIds).extracting(shardRouter::shardOf).containsOnly(0, 1).contains(0, 1);
+		for (Long id : postIds) {
+			PostgreSQLContainer home = shardRouter.shardOf(id) == 0 ? SHARD_0 : SHARD_1;
+			PostgreSQLContainer other = home == SHARD_0 ? SHARD_1 : SHARD_0;
+			assertThat(countPosts(home, id)).isEqualTo(1);
+			assertThat(countPosts(other, id)).isZero();
+		}
+	}
+
+	@Test
+	void feedMergesEveryShardNewestFirst() {
+		List<Long> created = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			created.add(createPost("Feed " + i, 20L).getId());
+		}
+
+		List<PostSummaryResponse> feed = shardedReadService.findAllPublishedPostsSummary();
+
+		assertThat(feed).extracting(PostSummaryResponse::id).containsAll(created);
+		assertThat(feed).isSortedAccordingTo(
+				Comparator.comparing(PostSummaryResponse::createdAt).thenComparing(PostSummaryResponse::id).reversed());
+		assertThat(shardedReadService.findPublishedFeedVersion().getDigest()).isGreaterThanOrEqualTo(6);
+	}
+
+	@Test
+	void activityPagesAcrossShardsWithoutGapsOrDuplicates() {
+		Long author = 30L;
+		List<Long> created = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			created.add(createPost("Activity " + i, author).getId());
+		}
+
+		List<Long> seen = new ArrayList<>();
+		String cursor = null;
+		do {
+			ActivityPageResponse page = shardedReadService.getActivity(author, cursor, 2);
+			page.items().stream().filter(item -> item.type() == ActivityType.POST)
+					.map(ActivityItemResponse::id).forEach(seen::add);
+			cursor = page.nextCursor();
+		} while (cursor != null);
+
+		assertThat(seen).containsExactlyInAnyOrderElementsOf(created);
+	}
+
+	@Test
+	void requestsRunOnTheShardTheInterceptorSelects() throws SQLException {
+		ShardRoutingInterceptor interceptor = new ShardRoutingInterceptor(shardRouter);
+		List<Long> postIds = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			String title = "Routed " + i;
+			Post post = request(interceptor, "POST", "/api/posts", Map.of(),
+					() -> postService.createPost(title, "content", 40L));
+			Long commentId = request(interceptor, "POST", "/api/posts/" + post.getId() + "/comments",
+					Map.of("postId", post.getId().toString()),
+					() -> commentService.createComment(post.getId(), 41L, "Comment").getId());
+			assertThat(shardRouter.shardOf(commentId)).isEqualTo(shardRouter.shardOf(post.getId()));
+			postIds.add(post.getId());
+		}
+
+		// Consecutive creates go round-robin, so two of them cover both shards
+		assertThat(postIds).extracting(shardRouter::shardOf).containsExactlyInAnyOrder(0, 1);
+		for (Long id : postIds) {
+			assertThat(countPosts(shardRouter.shardOf(id) == 0 ? SHARD_0 : SHARD_1, id)).isEqualTo(1);
+			assertThat(request(interceptor, "GET", "/api/posts/" + id, Map.of("id", id.toString()),
+					() -> postService.findViewById(id).isPresent())).isTrue();
+		}
+		assertThat(ShardContext.current()).isNull();
+	}
+
+	@Test
+	void startupRefusesIdsOfAnotherShard() throws SQLException {
+		// Shard 0 owns even ids, so this row is out of place on shard 1
+		long misplaced = 2_000_000_000L;
+		execute(SHARD_1, "INSERT INTO posts (id, title, content, author_id) VALUES (" + misplaced + ", 'Old', 'content', 50)");
+		try {
+			assertThatThrownBy(shardSequenceAligner::afterSingletonsInstantiated)
+					.isInstanceOf(IllegalStateException.class)
+					.hasMessageContaining("posts id " + misplaced);
+		} finally {
+			execute(SHARD_1, "DELETE FROM posts WHERE id = " + misplaced);
+		}
+		shardSequenceAligner.afterSingletonsInstantiated();
+	}
+
+	// Runs the work the way a request to the given path would, with the shard the interceptor selects
+	private static <T> T request(ShardRoutingInterceptor interceptor, String method, String uri,
+								 Map<String, String> variables, Supplier<T> work) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		interceptor.preHandle(request, response, new Object());
+		try {
+			return work.get();
+		} finally {
+			interceptor.afterCompletion(request, response, new Object(), null);
+		}
+	}
+
+	private Post createPost(String title, Long authorId) {
+		return shardRouter.on(shardRouter.shardForNewPost(), () -> postService.createPost(title, "content", authorId));
+	}
+
+	private static long countPosts(PostgreSQLContainer shard, Long id) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(shard.getJdbcUrl(), shard.getUsername(), shard.getPassword());
+			 PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM posts WHERE id = ?")) {
+			statement.setLong(1, id);
+			try (ResultSet rows = statement.executeQuery()) {
+				rows.next();
+				return rows.getLong(1);
+			}
+		}
+	}
+
+	private static void execute(PostgreSQLContainer shard, String sql) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(shard.getJdbcUrl(), shard.getUsername(), shard.getPassword());
+			 PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.execute();
+		}
+	}
+
+	private static PostgreSQLContainer shard() {
+		return new PostgreSQLContainer(DockerImageName.parse("postgres:latest"))
+				.withInitScript("db/schema.sql");
+	}
+}
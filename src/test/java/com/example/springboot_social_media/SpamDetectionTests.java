@@ -0,0 +1,156 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.dto.ActivityItemResponse;
+import com.example.springboot_social_media.entity.HeldContent;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.ModerationService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ReplyService;
+import com.example.springboot_social_media.spam.ContentHeldException;
+import com.example.springboot_social_media.spam.MinHasher;
+import com.example.springboot_social_media.spam.NearDuplicateIndex;
+import com.example.springboot_social_media.spam.SpamAction;
+import com.example.springboot_social_media.spam.SpamDetectedException;
+import com.example.springboot_social_media.spam.SpamProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that near-duplicate comments, replies and edits are rejected or held, that held content can be
+ * approved, and that the index forgets content once it ages out of the window.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H"
+})
+class SpamDetectionTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	ReplyService replyService;
+
+	@Autowired
+	ModerationService moderationService;
+
+	@Autowired
+	SpamProperties spamProperties;
+
+	@Test
+	void nearDuplicatesAreRejectedOnTheSamePost() {
+		String offer = "Earn money fast from home with this one trick, visit my profile now " + UUID.randomUUID();
+		Long postId = postService.createPost("Post", "content", 700L).getId();
+		Long otherPostId = postService.createPost("Other", "content", 700L).getId();
+		Long commentId = commentService.createComment(postId, 701L, offer).getId();
+
+		// Case, spacing and punctuation changes do not help
+		assertThatThrownBy(() -> commentService.createComment(postId, 702L, offer.toUpperCase().replace(" ", "  ") + "!!"))
+				.isInstanceOf(SpamDetectedException.class);
+		assertThatThrownBy(() -> replyService.createReplyToComment(postId, commentId, 703L, offer))
+				.isInstanceOf(SpamDetectedException.class);
+
+		// The copies seen so far stay below the global limit elsewhere, and short generic texts are never judged
+		assertThat(commentService.createComment(otherPostId, 704L, offer).getId()).isNotNull();
+		commentService.createComment(postId, 705L, "Great post!");
+		commentService.createComment(postId, 706L, "Great post!");
+	}
+
+	@Test
+	void heldContentWaitsForApproval() {
+		spamProperties.setAction(SpamAction.HOLD);
+		try {
+			String offer = "Cheap followers and likes for your account, message me today " + UUID.randomUUID();
+			Long postId = postService.createPost("Post", "content", 710L).getId();
+			commentService.createComment(postId, 711L, offer);
+
+			assertThatThrownBy(() -> commentService.createComment(postId, 712L, offer + " please"))
+					.isInstanceOf(ContentHeldException.class);
+			HeldContent held = moderationService.findHeld(100).stream()
+					.filter(candidate -> candidate.getPostId().equals(postId))
+					.findFirst().orElseThrow();
+			assertThat(held.getAuthorId()).isEqualTo(712L);
+			assertThat(held.getSimilarity()).isGreaterThanOrEqualTo(0.8);
+
+			ActivityItemResponse approved = moderationService.approve(postId, held.getId());
+			assertThat(commentService.findById(approved.id())).isPresent();
+			assertThat(moderationService.findHeld(100)).noneMatch(candidate -> candidate.getId().equals(held.getId()));
+		} finally {
+			spamProperties.setAction(SpamAction.REJECT);
+		}
+	}
+
+	@Test
+	void editsAreScreenedAgainstOtherContentOnly() {
+		String offer = "Crypto giveaway, send one coin and receive two back, details on my page " + UUID.randomUUID();
+		Long postId = postService.createPost("Post", "content", 720L).getId();
+		Long commentId = commentService.createComment(postId, 721L, offer).getId();
+		Long otherId = commentService.createComment(postId, 722L, "An honest opinion about the post, nothing else").getId();
+
+		// Fixing a typo does not make a comment a duplicate of its own earlier text
+		assertThat(commentService.updateComment(commentId, offer + "!", null).getContent()).isEqualTo(offer + "!");
+
+		// Turning another comment into a copy is caught like a new one
+		assertThatThrownBy(() -> commentService.updateComment(otherId, offer, null))
+				.isInstanceOf(SpamDetectedException.class);
+		assertThatThrownBy(() -> commentService.patchComment(otherId, offer, null))
+				.isInstanceOf(SpamDetectedException.class);
+		assertThat(commentService.findById(otherId).orElseThrow().getContent()).startsWith("An honest opinion");
+	}
+
+	@Test
+	void heldEditIsAppliedOnApproval() {
+		spamProperties.setAction(SpamAction.HOLD);
+		try {
+			String offer = "Free gift cards for the first hundred people who message me " + UUID.randomUUID();
+			Long postId = postService.createPost("Post", "content", 730L).getId();
+			commentService.createComment(postId, 731L, offer);
+			Long commentId = commentService.createComment(postId, 732L, "Thanks for writing this up, it helped").getId();
+
+			assertThatThrownBy(() -> commentService.updateComment(commentId, offer, null))
+					.isInstanceOf(ContentHeldException.class);
+			assertThat(commentService.findById(commentId).orElseThrow().getContent()).startsWith("Thanks");
+			HeldContent held = moderationService.findHeld(100).stream()
+					.filter(candidate -> commentId.equals(candidate.getTargetId()))
+					.findFirst().orElseThrow();
+
+			moderationService.approve(postId, held.getId());
+			assertThat(commentService.findById(commentId).orElseThrow().getContent()).isEqualTo(offer);
+		} finally {
+			spamProperties.setAction(SpamAction.REJECT);
+		}
+	}
+
+	@Test
+	void indexForgetsContentOutsideTheWindow() {
+		AtomicLong now = new AtomicLong();
+		NearDuplicateIndex index = new NearDuplicateIndex(16, 4, 60_000, 6, 1000, now::get);
+		int[] signature = new MinHasher(64, 5, 1).signature(MinHasher.normalize("the same spam text over and over again", 4000));
+
+		index.add(1, signature);
+		assertThat(index.query(1, signature, 0.8, 5).onPost()).isEqualTo(1);
+		assertThat(index.query(2, signature, 0.8, 5).onPost()).isZero();
+		assertThat(index.query(2, signature, 0.8, 5).global()).isEqualTo(1);
+
+		// An edit is not counted against the text it replaces, but still against other copies
+		assertThat(index.query(1, signature, signature, 0.8, 5).onPost()).isZero();
+		index.add(1, signature);
+		assertThat(index.query(1, signature, signature, 0.8, 5).onPost()).isEqualTo(1);
+
+		now.set(60_000);
+		assertThat(index.query(1, signature, 0.8, 5).global()).isZero();
+		assertThat(index.size()).isZero();
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.springboot_social_media;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application repeatedly in each startup mode. For each run it measures the wall-clock time
+ * until Spring logs "Started", and the resident set size read from /proc at that moment. Build the
+ * artifacts as described in the README first and have PostgreSQL running.
+ * <p>
+ * Arguments: runs per mode (default 5). Modes whose artifact is missing are skipped.
+ */
+public class StartupBenchmark {
+
+	private static final String JAR = "springboot-social-media-0.0.1-SNAPSHOT.jar";
+
+	public static void main(String[] args) throws Exception {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+		Map<String, List<String>> modes = new LinkedHashMap<>();
+		modes.put("jvm", List.of("java", "-jar", "target/" + JAR));
+		modes.put("jvm-aot-cache", List.of("java", "-XX:AOTCache=target/extracted/app.aot",
+				"-jar", "target/extracted/" + JAR));
+		modes.put("native", List.of("target/springboot-social-media"));
+
+		System.out.printf("%-14s %12s %12s%n", "mode", "startup ms", "rss MB");
+		for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+			Path artifact = Path.of(mode.getValue().getLast());
+			if (!Files.exists(artifact)) {
+				System.out.printf("%-14s %s not found, skipped%n", mode.getKey(), artifact);
+				continue;
+			}
+			long totalMillis = 0;
+			long totalRssKb = 0;
+			for (int run = 0; run < runs; run++) {
+				long[] sample = startOnce(mode.getValue());
+				totalMillis += sample[0];
+				totalRssKb += sample[1];
+			}
+			System.out.printf("%-14s %12d %12.1f%n", mode.getKey(), totalMillis / runs, totalRssKb / runs / 1024.0);
+		}
+	}
+
+	// Returns {milliseconds until started, RSS in kB}
+	private static long[] startOnce(List<String> command) throws IOException, InterruptedException {
+		List<String> full = new ArrayList<>(command);
+		full.add("--server.port=0");
+		full.add("--app.reply-counts.repair-initial-delay=PT1H");
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(full).redirectErrorStream(true).start();
+		try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while ((line = output.readLine()) != null) {
+				if (line.contains("Started SpringbootSocialMediaApplication")) {
+					long millis = (System.nanoTime() - start) / 1_000_000;
+					return new long[] { millis, residentKb(process.pid()) };
+				}
+			}
+			throw new IllegalStateException("Application exited before starting: " + String.join(" ", command));
+		} finally {
+			process.destroy();
+			if (!process.waitFor(10, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	private static long residentKb(long pid) throws IOException {
+		for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+			if (line.startsWith("VmRSS:")) {
+				return Long.parseLong(line.replaceAll("\\D", ""));
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,126 @@
+package com.example.springboot_social_media;
+
+import com.example.springboot_social_media.dto.TagItemResponse;
+import com.example.springboot_social_media.dto.TagPageResponse;
+import com.example.springboot_social_media.entity.LikeableType;
+import com.example.springboot_social_media.services.CommentService;
+import com.example.springboot_social_media.services.PostService;
+import com.example.springboot_social_media.services.ReplyService;
+import com.example.springboot_social_media.services.ShardedReadService;
+import com.example.springboot_social_media.services.TagBackfillJob;
+import com.example.springboot_social_media.tagging.TagKind;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Checks that creates, edits and deletes keep the tag index in step, that tag pages are keyset-paginated
+ * newest first, that drafts stay out of trending, and that the backfill indexes content written behind the
+ * services' back.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.partitions.maintenance-initial-delay=PT1H",
+		"app.reply-counts.repair-initial-delay=PT1H"
+})
+class TagIndexTests {
+
+	@Autowired
+	PostService postService;
+
+	@Autowired
+	CommentService commentService;
+
+	@Autowired
+	ReplyService replyService;
+
+	@Autowired
+	ShardedReadService shardedReadService;
+
+	@Autowired
+	TagBackfillJob tagBackfillJob;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	void tagPagesFollowCreatesEditsAndDeletes() {
+		String tag = "spring" + ThreadLocalRandom.current().nextInt(1_000_000);
+		String user = "alice" + ThreadLocalRandom.current().nextInt(1_000_000);
+		Long postId = postService.createPost("About #" + tag.toUpperCase(), "Hi @" + user + ", see a@b.com", 600L).getId();
+		Long commentId = commentService.createComment(postId, 601L, "#" + tag + " #" + tag + " too").getId();
+		Long replyId = replyService.createReplyToComment(postId, commentId, 602L, "Same #" + tag).getId();
+
+		TagPageResponse first = shardedReadService.getTagPage(TagKind.HASHTAG, "#" + tag, null, 2);
+		assertThat(first.tag()).isEqualTo("#" + tag);
+		assertThat(first.items()).extracting(TagItemResponse::type, TagItemResponse::id)
+				.containsExactly(tuple(LikeableType.REPLY, replyId),
+						tuple(LikeableType.COMMENT, commentId));
+		assertThat(first.nextCursor()).isNotNull();
+
+		TagPageResponse second = shardedReadService.getTagPage(TagKind.HASHTAG, tag, first.nextCursor(), 2);
+		assertThat(second.items()).extracting(TagItemResponse::id).containsExactly(postId);
+		assertThat(second.items().getFirst().title()).isEqualTo("About #" + tag.toUpperCase());
+		assertThat(second.nextCursor()).isNull();
+
+		assertThat(shardedReadService.getTagPage(TagKind.MENTION, user, null, 10).items())
+				.extracting(TagItemResponse::id).containsExactly(postId);
+		assertThat(shardedReadService.getTagPage(TagKind.MENTION, "b", null, 10).items()).isEmpty();
+		assertThat(shardedReadService.findTrending(1, 100))
+				.anySatisfy(trending -> {
+					assertThat(trending.tag()).isEqualTo("#" + tag);
+					assertThat(trending.count()).isEqualTo(3);
+				});
+
+		commentService.updateComment(commentId, "No tags any more", null);
+		replyService.deleteReply(replyId);
+		assertThat(shardedReadService.getTagPage(TagKind.HASHTAG, tag, null, 10).items())
+				.extracting(TagItemResponse::id).containsExactly(postId);
+
+		postService.deletePost(postId);
+		assertThat(shardedReadService.getTagPage(TagKind.HASHTAG, tag, null, 10).items()).isEmpty();
+	}
+
+	@Test
+	void draftsDoNotTrend() {
+		String tag = "draft" + ThreadLocalRandom.current().nextInt(1_000_000);
+		Long postId = postService.createPost("Soon #" + tag, "content", 620L).getId();
+		commentService.createComment(postId, 621L, "Early #" + tag);
+		postService.unpublishPost(postId);
+
+		assertThat(shardedReadService.findTrending(1, 100)).noneSatisfy(trending ->
+				assertThat(trending.tag()).isEqualTo("#" + tag));
+
+		postService.publishPost(postId);
+		assertThat(shardedReadService.findTrending(1, 100)).anySatisfy(trending -> {
+			assertThat(trending.tag()).isEqualTo("#" + tag);
+			assertThat(trending.count()).isEqualTo(2);
+		});
+	}
+
+	@Test
+	void backfillIndexesExistingContent() throws InterruptedException {
+		String tag = "legacy" + ThreadLocalRandom.current().nextInt(1_000_000);
+		Long postId = jdbcTemplate.queryForObject(
+				"INSERT INTO posts (title, content, author_id) VALUES ('Old', ?, 610) RETURNING id",
+				Long.class, "Written before tagging #" + tag);
+		assertThat(shardedReadService.getTagPage(TagKind.HASHTAG, tag, null, 10).items()).isEmpty();
+
+		tagBackfillJob.start();
+		for (int i = 0; i < 300 && tagBackfillJob.status().running(); i++) {
+			Thread.sleep(100);
+		}
+
+		assertThat(tagBackfillJob.status().running()).isFalse();
+		assertThat(tagBackfillJob.status().error()).isNull();
+		assertThat(shardedReadService.getTagPage(TagKind.HASHTAG, tag, null, 10).items())
+				.extracting(TagItemResponse::id).containsExactly(postId);
+	}
+}
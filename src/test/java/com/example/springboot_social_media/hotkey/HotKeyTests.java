@@ -0,0 +1,117 @@
+package com.example.springboot_social_media.hotkey;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the sketch's estimates, promotion and demotion of hot keys with their gauges, and that a merge
+ * keeps the changes made while the count is being reloaded.
+ */
+class HotKeyTests {
+
+	@Test
+	void sketchNeverUndercountsAndHalves() {
+		CountMinSketch sketch = new CountMinSketch(64, 4);
+		for (int key = 0; key < 1000; key++) {
+			for (int i = 0; i <= key % 7; i++) {
+				sketch.increment("key-" + key);
+			}
+		}
+		for (int key = 0; key < 1000; key++) {
+			assertThat(sketch.estimate("key-" + key)).isGreaterThanOrEqualTo(key % 7 + 1);
+		}
+
+		CountMinSketch alone = new CountMinSketch(64, 4);
+		for (int i = 0; i < 10; i++) {
+			alone.increment("only");
+		}
+		assertThat(alone.estimate("only")).isEqualTo(10);
+		alone.halve();
+		assertThat(alone.estimate("only")).isEqualTo(5);
+		assertThat(alone.estimate("never")).isZero();
+	}
+
+	@Test
+	void keysArePromotedAndDemotedWithTheirGauges() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		HotKeyTracker tracker = new HotKeyTracker(properties(4, 2, 1), registry);
+		AtomicLong loads = new AtomicLong();
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(tracker.track("post:1", () -> 40 + loads.incrementAndGet())).isNull();
+		}
+		HotCounter counter = tracker.track("post:1", () -> 40 + loads.incrementAndGet());
+		assertThat(counter).isNotNull();
+		assertThat(counter.value()).isEqualTo(41);
+		assertThat(tracker.peek("post:1")).isSameAs(counter);
+		assertThat(registry.get("hotkeys.value").tag("key", "post:1").gauge().value()).isEqualTo(41);
+		assertThat(registry.get("hotkeys.active").gauge().value()).isEqualTo(1);
+
+		// Only one key fits, however hot the next one is
+		for (int i = 0; i < 10; i++) {
+			assertThat(tracker.track("post:2", () -> 0)).isNull();
+		}
+
+		// 4 halves to 2, which stays hot and merges; the next halving demotes it
+		tracker.tick();
+		assertThat(tracker.peek("post:1")).isSameAs(counter);
+		assertThat(counter.value()).isEqualTo(42);
+		tracker.tick();
+		assertThat(tracker.peek("post:1")).isNull();
+		assertThat(registry.find("hotkeys.value").tag("key", "post:1").gauge()).isNull();
+		assertThat(registry.get("hotkeys.transitions").tag("direction", "promoted").counter().count()).isEqualTo(1);
+		assertThat(registry.get("hotkeys.transitions").tag("direction", "demoted").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void mergeKeepsChangesAddedDuringTheReload() {
+		AtomicLong database = new AtomicLong(10);
+		AtomicReference<Runnable> duringLoad = new AtomicReference<>(() -> {
+		});
+		HotCounter counter = new HotCounter(() -> {
+			long loaded = database.get();
+			duringLoad.get().run();
+			return loaded;
+		});
+
+		database.addAndGet(2);
+		counter.add(2);
+		assertThat(counter.value()).isEqualTo(12);
+
+		// A like committed after the count was read only reaches the database through the next reload
+		duringLoad.set(() -> {
+			database.incrementAndGet();
+			counter.add(1);
+		});
+		counter.merge();
+		assertThat(counter.value()).isEqualTo(13);
+
+		duringLoad.set(() -> {
+		});
+		counter.merge();
+		assertThat(counter.value()).isEqualTo(13);
+
+		// A remote delta that committed before the reload arrives after it, and is already in the count
+		duringLoad.set(() -> {
+			database.incrementAndGet();
+			counter.add(1, System.currentTimeMillis() - 60_000);
+		});
+		counter.merge();
+		assertThat(counter.value()).isEqualTo(14);
+		counter.add(1, System.currentTimeMillis() - 60_000);
+		assertThat(counter.value()).isEqualTo(14);
+	}
+
+	private static HotKeyProperties properties(long promote, long demote, int maxHotKeys) {
+		HotKeyProperties properties = new HotKeyProperties();
+		properties.setPromoteThreshold(promote);
+		properties.setDemoteThreshold(demote);
+		properties.setMaxHotKeys(maxHotKeys);
+		return properties;
+	}
+}
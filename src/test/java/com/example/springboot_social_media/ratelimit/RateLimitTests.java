@@ -0,0 +1,101 @@
+package com.example.springboot_social_media.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the token bucket arithmetic on a fake clock, and that the per-user limit is keyed on what the
+ * server controls rather than on the id a client claims.
+ */
+class RateLimitTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void bucketAdmitsTheBurstThenOnePermitPerInterval() {
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(4096, 1.0, 3);
+
+		assertThat(limiter.tryAcquire("alice", 0)).isZero();
+		assertThat(limiter.tryAcquire("alice", 0)).isZero();
+		assertThat(limiter.tryAcquire("alice", 0)).isZero();
+		// The fourth waits exactly one emission interval
+		assertThat(limiter.tryAcquire("alice", 0)).isEqualTo(SECOND);
+		assertThat(limiter.tryAcquire("alice", SECOND / 2)).isEqualTo(SECOND / 2);
+		assertThat(limiter.tryAcquire("alice", SECOND)).isZero();
+		assertThat(limiter.tryAcquire("alice", SECOND)).isEqualTo(SECOND);
+
+		// Other keys keep their own budget, and an idle bucket refills up to the burst, not beyond
+		assertThat(limiter.tryAcquire("bob", SECOND)).isZero();
+		for (int i = 0; i < 3; i++) {
+			assertThat(limiter.tryAcquire("alice", 100 * SECOND)).isZero();
+		}
+		assertThat(limiter.tryAcquire("alice", 100 * SECOND)).isPositive();
+	}
+
+	@Test
+	void claimedUserIdCannotExhaustAnotherAddressesBudget() {
+		RateLimitInterceptor interceptor = interceptor();
+
+		assertThat(write(interceptor, "10.0.0.1", "42")).isEqualTo(200);
+		assertThat(write(interceptor, "10.0.0.1", "42")).isEqualTo(200);
+		assertThat(write(interceptor, "10.0.0.1", "42")).isEqualTo(429);
+
+		// The real user 42 on their own address is unaffected
+		assertThat(write(interceptor, "10.0.0.2", "42")).isEqualTo(200);
+	}
+
+	@Test
+	void throttledUserDoesNotSpendTheAddressBudget() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setUser(new RateLimitProperties.Bucket(0.001, 1));
+		properties.setIp(new RateLimitProperties.Bucket(0.001, 3));
+		RateLimitInterceptor interceptor = new RateLimitInterceptor(properties, new SimpleMeterRegistry());
+
+		assertThat(write(interceptor, "10.0.0.1", "42")).isEqualTo(200);
+		for (int i = 0; i < 5; i++) {
+			assertThat(write(interceptor, "10.0.0.1", "42")).isEqualTo(429);
+		}
+
+		// Other users behind the same address still have the two permits left
+		assertThat(write(interceptor, "10.0.0.1", "43")).isEqualTo(200);
+		assertThat(write(interceptor, "10.0.0.1", "44")).isEqualTo(200);
+		assertThat(write(interceptor, "10.0.0.1", "45")).isEqualTo(429);
+	}
+
+	@Test
+	void principalOutranksTheClaimedUserId() {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/posts");
+		request.setRemoteAddr("10.0.0.1");
+		request.addHeader(RateLimitInterceptor.USER_HEADER, "42");
+		assertThat(RateLimitInterceptor.userKey(request)).isEqualTo("claimed:10.0.0.1/42");
+
+		request.setUserPrincipal(() -> "alice");
+		assertThat(RateLimitInterceptor.userKey(request)).isEqualTo("principal:alice");
+
+		assertThat(RateLimitInterceptor.userKey(new MockHttpServletRequest("POST", "/api/posts"))).isNull();
+	}
+
+	private static RateLimitInterceptor interceptor() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setUser(new RateLimitProperties.Bucket(0.001, 2));
+		properties.setIp(new RateLimitProperties.Bucket(1000.0, 1000));
+		return new RateLimitInterceptor(properties, new SimpleMeterRegistry());
+	}
+
+	private static int write(RateLimitInterceptor interceptor, String address, String userId) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/posts/1/likes");
+		request.setRemoteAddr(address);
+		request.setParameter("userId", userId);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		if (interceptor.preHandle(request, response, new Object())) {
+			interceptor.afterCompletion(request, response, new Object(), null);
+		}
+		return response.getStatus();
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.springboot_social_media.services;
+
+import com.example.springboot_social_media.dto.ActivityItemResponse;
+import com.example.springboot_social_media.dto.ActivityType;
+import com.example.springboot_social_media.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the activity cursor encoding and the timeline order used to merge sources and shards.
+ */
+class ActivityCursorTests {
+
+	static final LocalDateTime AT = LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123_456_000);
+
+	@Test
+	void cursorRoundTrips() {
+		ActivityService.Cursor cursor = ActivityService.Cursor.of(item(ActivityType.REPLY, 42L, AT));
+
+		String encoded = cursor.encode();
+
+		assertThat(encoded).doesNotContain("|", "=", "+", "/");
+		assertThat(ActivityService.Cursor.decode(encoded)).isEqualTo(cursor);
+	}
+
+	@Test
+	void malformedCursorsAreRejected() {
+		List<String> values = List.of("not-a-cursor", "", raw(AT + "|BOOKMARK|1"), raw(AT + "|POST|x"),
+				raw("yesterday|POST|1"), raw(AT + "|POST"));
+
+		for (String value : values) {
+			assertThatThrownBy(() -> ActivityService.Cursor.decode(value))
+					.isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	@Test
+	void timelineOrdersByTimeThenTypeThenIdDescending() {
+		ActivityItemResponse newest = item(ActivityType.LIKE, 1L, AT.plusSeconds(1));
+		ActivityItemResponse post = item(ActivityType.POST, 5L, AT);
+		ActivityItemResponse comment = item(ActivityType.COMMENT, 9L, AT);
+		ActivityItemResponse laterLike = item(ActivityType.LIKE, 8L, AT);
+		ActivityItemResponse earlierLike = item(ActivityType.LIKE, 3L, AT);
+		ActivityItemResponse oldest = item(ActivityType.REPLY, 2L, AT.minusSeconds(1));
+
+		// Two shards' pages, each already in timeline order
+		List<ActivityItemResponse> merged = ShardRouter.mergeSorted(List.of(
+				List.of(newest, comment, earlierLike),
+				List.of(post, laterLike, oldest)), ActivityService.TIMELINE_ORDER, 10);
+
+		assertThat(merged).containsExactly(newest, post, comment, laterLike, earlierLike, oldest);
+		assertThat(ShardRouter.mergeSorted(List.of(List.of(newest, comment), List.of(post)),
+				ActivityService.TIMELINE_ORDER, 2)).containsExactly(newest, post);
+	}
+
+	private static ActivityItemResponse item(ActivityType type, Long id, LocalDateTime createdAt) {
+		return new ActivityItemResponse(type, id, null, null, null, null, null, createdAt);
+	}
+
+	private static String raw(String value) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+}